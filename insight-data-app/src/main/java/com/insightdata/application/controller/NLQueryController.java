@@ -1,14 +1,24 @@
 package com.insightdata.application.controller;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import com.insightdata.application.service.NLQueryApplicationService;
+import com.insightdata.domain.exception.QueryRejectedException;
+import com.insightdata.domain.nlquery.export.ExportFormat;
+import com.insightdata.domain.query.history.QueryHistoryCursor;
+import com.insightdata.facade.nlquery.NLQueryExportRequest;
 import com.insightdata.facade.nlquery.NLQueryRequest;
 import com.insightdata.facade.nlquery.NLQueryResponse;
+import com.insightdata.facade.nlquery.QueryJobDTO;
+import com.insightdata.facade.nlquery.QueryJobResultDTO;
 import com.insightdata.facade.query.QueryHistoryDTO;
 import com.insightdata.facade.query.SavedQueryDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,6 +29,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -30,6 +41,14 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class NLQueryController {
     
+    // 查询历史每页最大记录数
+    private static final int MAX_HISTORY_PAGE_SIZE = 500;
+    
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
+    // 使用已废弃的page参数时返回，提示客户端改用cursor
+    private static final String DEPRECATION_HEADER = "Deprecation";
+    
     @Autowired
     private NLQueryApplicationService nlQueryFacadeService;
     
@@ -37,30 +56,187 @@ public class NLQueryController {
      * 执行自然语言查询
      * 
      * @param request 查询请求
-     * @return 查询结果
+     * @return 查询结果，超出查询频率限制或数据源繁忙时返回429及拒绝原因
      */
     @PostMapping("/execute")
     public ResponseEntity<NLQueryResponse> executeQuery(@RequestBody NLQueryRequest request) {
         log.info("接收到自然语言查询请求: {}", request.getQuery());
-        NLQueryResponse response = nlQueryFacadeService.executeQuery(request);
-        return ResponseEntity.ok(response);
+        try {
+            NLQueryResponse response = nlQueryFacadeService.executeQuery(request);
+            return ResponseEntity.ok(response);
+        } catch (QueryRejectedException e) {
+            log.warn("查询被拒绝: {}", e.getMessage());
+            NLQueryResponse response = new NLQueryResponse();
+            response.setOriginalQuery(request.getQuery());
+            response.setStatus("拒绝");
+            response.setErrorMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+        }
+    }
+    
+    /**
+     * 流式执行自然语言查询
+     * 
+     * 以NDJSON格式分块返回结果，服务端内存占用与结果集大小无关
+     * 
+     * @param request 查询请求
+     * @return 流式响应
+     */
+    @PostMapping(value = "/execute-stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> executeQueryStream(@RequestBody NLQueryRequest request) {
+        log.info("接收到流式自然语言查询请求: {}", request.getQuery());
+        StreamingResponseBody body = outputStream -> nlQueryFacadeService.streamQuery(request, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+    
+    /**
+     * 导出自然语言查询结果
+     * 
+     * 支持CSV、XLSX和Parquet格式，结果从数据库游标直接写出到响应，服务端内存占用与导出行数无关
+     * 
+     * @param request 导出请求
+     * @return 文件下载响应，导出格式不支持时返回400
+     */
+    @PostMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportQuery(@RequestBody NLQueryExportRequest request) {
+        log.info("接收到查询结果导出请求: format={}, query={}", request.getFormat(), request.getQuery());
+        ExportFormat format;
+        try {
+            format = ExportFormat.of(request.getFormat());
+        } catch (IllegalArgumentException e) {
+            log.warn("导出格式不支持: {}", request.getFormat());
+            return ResponseEntity.badRequest().build();
+        }
+        String baseName = request.getFileName() == null || request.getFileName().trim().isEmpty()
+                ? "query-result" : request.getFileName().trim();
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(baseName + "." + format.getExtension(), StandardCharsets.UTF_8)
+                .build();
+        StreamingResponseBody body = outputStream -> nlQueryFacadeService.exportQuery(request, outputStream);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(body);
+    }
+    
+    /**
+     * 提交异步自然语言查询
+     * 
+     * 立即返回作业信息，通过/jobs/{id}轮询状态，完成后通过/jobs/{id}/results分页读取结果
+     * 
+     * @param request 查询请求
+     * @return 排队中的作业，等待执行的查询过多时返回429
+     */
+    @PostMapping("/execute-async")
+    public ResponseEntity<QueryJobDTO> executeQueryAsync(@RequestBody NLQueryRequest request) {
+        log.info("接收到异步自然语言查询请求: {}", request.getQuery());
+        try {
+            QueryJobDTO job = nlQueryFacadeService.submitQueryJob(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (QueryRejectedException e) {
+            log.warn("异步查询被拒绝: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
     }
     
     /**
-     * 获取查询历史列表
+     * 获取异步查询作业状态
+     * 
+     * @param id 作业ID
+     * @return 作业信息
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<QueryJobDTO> getQueryJob(@PathVariable String id) {
+        QueryJobDTO job = nlQueryFacadeService.getQueryJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+    
+    /**
+     * 分页获取异步查询作业结果
+     * 
+     * @param id 作业ID
+     * @param offset 起始行
+     * @param limit 每页行数
+     * @return 结果分页，作业尚未完成时返回409
+     */
+    @GetMapping("/jobs/{id}/results")
+    public ResponseEntity<QueryJobResultDTO> getQueryJobResults(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0") long offset,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            QueryJobResultDTO result = nlQueryFacadeService.getQueryJobResults(id, offset, limit);
+            if (result == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(result);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+    
+    /**
+     * 取消异步查询作业
+     * 
+     * @param id 作业ID
+     * @return 操作结果
+     */
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<Void> cancelQueryJob(@PathVariable String id) {
+        if (!nlQueryFacadeService.cancelQueryJob(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+    
+    /**
+     * 获取查询历史列表，按执行时间倒序
+     * 
+     * 旧客户端仍可传page按页码分页，这一版本内按偏移量兼容，响应头Deprecation提示改用游标，
+     * 同样在X-Next-Cursor中返回下一页的游标；同时传cursor时忽略page。
      * 
      * @param dataSourceId 数据源ID
-     * @param page 页码
+     * @param cursor 上一页响应头X-Next-Cursor中的游标，为空时获取第一页
+     * @param page 已废弃的页码，从1开始
      * @param size 每页大小
-     * @return 查询历史列表
+     * @return 查询历史列表，还有下一页时在响应头X-Next-Cursor中返回游标
      */
     @GetMapping("/history")
     public ResponseEntity<List<QueryHistoryDTO>> getQueryHistory(
             @RequestParam String dataSourceId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer page,
             @RequestParam(defaultValue = "20") int size) {
-        List<QueryHistoryDTO> history = nlQueryFacadeService.getQueryHistory(dataSourceId, page, size);
-        return ResponseEntity.ok(history);
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        boolean byPage = page != null && (cursor == null || cursor.isEmpty());
+        List<QueryHistoryDTO> history;
+        if (byPage) {
+            log.warn("查询历史使用了已废弃的page参数，请改用cursor: dataSourceId={}, page={}", dataSourceId, page);
+            history = nlQueryFacadeService.getQueryHistoryByPage(dataSourceId, page, pageSize);
+        } else {
+            try {
+                history = nlQueryFacadeService.getQueryHistory(dataSourceId, cursor, pageSize);
+            } catch (IllegalArgumentException e) {
+                log.warn("查询历史分页游标无效: {}", e.getMessage());
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (byPage) {
+            response.header(DEPRECATION_HEADER, "true");
+        }
+        if (history.size() < pageSize) {
+            return response.body(history);
+        }
+        QueryHistoryDTO last = history.get(history.size() - 1);
+        return response
+                .header(NEXT_CURSOR_HEADER, new QueryHistoryCursor(last.getExecutedAt(), last.getId()).encode())
+                .body(history);
     }
     
     /**
@@ -3,9 +3,9 @@ package com.insightdata.application.controller;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.insightdata.domain.metadata.graph.JoinPlan;
 import com.insightdata.domain.metadata.model.TableRelationship;
 import com.insightdata.domain.metadata.model.SchemaInfo;
-import com.insightdata.domain.query.model.QueryHistory;
 import com.insightdata.domain.metadata.service.TableRelationshipService;
 import com.insightdata.facade.metadata.TableRelationshipDTO;
 import com.insightdata.application.convertor.TableRelationshipConvertor;
@@ -97,6 +97,20 @@ public class TableRelationshipController {
         return ResponseEntity.ok(tableRelationshipMapper.toDTOList(relationships));
     }
 
+    @GetMapping("/join-paths")
+    public ResponseEntity<List<List<TableRelationshipDTO>>> findJoinPaths(
+            @RequestParam String dataSourceId,
+            @RequestParam String sourceTable,
+            @RequestParam String targetTable,
+            @RequestParam(defaultValue = "3") int k) {
+        log.info("Finding join paths for data source ID: {} from {} to {}, k: {}", dataSourceId, sourceTable, targetTable, k);
+        List<List<TableRelationshipDTO>> paths = new ArrayList<>();
+        for (JoinPlan plan : tableRelationshipService.findJoinPaths(dataSourceId, sourceTable, targetTable, k)) {
+            paths.add(tableRelationshipMapper.toDTOList(plan.getRelationships()));
+        }
+        return ResponseEntity.ok(paths);
+    }
+
     @PostMapping("/learn/metadata")
     public ResponseEntity<Void> learnFromMetadata(@RequestParam String dataSourceId) {
         log.info("Learning table relationships from metadata for data source ID: {}", dataSourceId);
@@ -116,10 +130,8 @@ public class TableRelationshipController {
     public ResponseEntity<Void> learnFromQueryHistory(@RequestParam String dataSourceId) {
         log.info("Learning table relationships from query history for data source ID: {}", dataSourceId);
         try {
-            // 需要获取QueryHistory列表
-            // 这里简化处理，实际应该从数据库或其他服务获取QueryHistory列表
-            List<QueryHistory> queryHistories = new ArrayList<>(); // 这里需要实际获取QueryHistory列表
-            tableRelationshipService.learnFromQueryHistory(dataSourceId, queryHistories);
+            // 只处理上次学习之后新增的查询历史
+            tableRelationshipService.learnFromQueryHistory(dataSourceId);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             log.error("从查询历史学习表关系失败", e);
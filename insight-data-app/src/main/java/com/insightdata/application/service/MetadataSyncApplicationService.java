@@ -7,4 +7,13 @@ public interface MetadataSyncApplicationService {
      * @param dataSourceId 数据源ID
      */
     void syncMetadata(String dataSourceId);
-}
\ No newline at end of file
+
+    /**
+     * 增量同步数据源的元数据
+     * 只提取源库目录中变更时间晚于上次同步的表，比较表结构指纹后保存变化并记录变更历史；
+     * 数据源从未同步过时执行全量同步
+     *
+     * @param dataSourceId 数据源ID
+     */
+    void syncMetadataIncremental(String dataSourceId);
+}
@@ -1,9 +1,14 @@
 package com.insightdata.application.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
+import com.insightdata.facade.nlquery.NLQueryExportRequest;
 import com.insightdata.facade.nlquery.NLQueryRequest;
 import com.insightdata.facade.nlquery.NLQueryResponse;
+import com.insightdata.facade.nlquery.QueryJobDTO;
+import com.insightdata.facade.nlquery.QueryJobResultDTO;
 import com.insightdata.facade.query.QueryHistoryDTO;
 import com.insightdata.facade.query.SavedQueryDTO;
 
@@ -22,14 +27,85 @@ public interface NLQueryApplicationService {
     NLQueryResponse executeQuery(NLQueryRequest request);
     
     /**
-     * 获取查询历史列表
+     * 流式执行自然语言查询，以NDJSON格式逐行写出结果
+     * 
+     * 第一行为列元数据，随后每行一条记录，最后一行为执行摘要
+     * 
+     * @param request 查询请求
+     * @param outputStream 输出流
+     * @throws IOException 写出失败时抛出
+     */
+    void streamQuery(NLQueryRequest request, OutputStream outputStream) throws IOException;
+    
+    /**
+     * 执行自然语言查询并按指定格式导出结果
+     * 
+     * 从JDBC游标逐行读取并直接写出到输出流，内存占用与结果行数无关。
+     * 响应开始写出后无法再返回错误状态，查询失败时抛出IOException中断响应，避免客户端得到不完整的文件
+     * 
+     * @param request 导出请求
+     * @param outputStream 输出流
+     * @throws IOException 写出失败或查询失败时抛出
+     */
+    void exportQuery(NLQueryExportRequest request, OutputStream outputStream) throws IOException;
+    
+    /**
+     * 提交异步查询，立即返回作业信息
+     * 
+     * @param request 查询请求
+     * @return 排队中的作业
+     */
+    QueryJobDTO submitQueryJob(NLQueryRequest request);
+    
+    /**
+     * 获取异步查询作业状态
+     * 
+     * @param jobId 作业ID
+     * @return 作业信息，不存在或已过期时返回null
+     */
+    QueryJobDTO getQueryJob(String jobId);
+    
+    /**
+     * 分页获取已完成的异步查询作业结果
+     * 
+     * @param jobId 作业ID
+     * @param offset 起始行
+     * @param limit 每页行数，为null时使用默认值
+     * @return 结果分页，作业不存在或已过期时返回null
+     * @throws IllegalStateException 作业尚未完成时抛出
+     */
+    QueryJobResultDTO getQueryJobResults(String jobId, long offset, Integer limit);
+    
+    /**
+     * 取消异步查询作业
+     * 
+     * @param jobId 作业ID
+     * @return 作业存在且尚未结束时返回true
+     */
+    boolean cancelQueryJob(String jobId);
+    
+    /**
+     * 按游标分页获取查询历史列表，按执行时间倒序
+     * 
+     * @param dataSourceId 数据源ID
+     * @param cursor 上一页返回的游标，为空时获取第一页
+     * @param size 每页大小
+     * @return 查询历史列表
+     * @throws IllegalArgumentException 游标格式错误时抛出
+     */
+    List<QueryHistoryDTO> getQueryHistory(String dataSourceId, String cursor, int size);
+    
+    /**
+     * 按页码分页获取查询历史列表，按执行时间倒序，只用于兼容旧接口
      * 
      * @param dataSourceId 数据源ID
-     * @param page 页码
+     * @param page 页码，从1开始
      * @param size 每页大小
      * @return 查询历史列表
+     * @deprecated 使用游标分页的{@link #getQueryHistory(String, String, int)}，下一个版本移除
      */
-    List<QueryHistoryDTO> getQueryHistory(String dataSourceId, int page, int size);
+    @Deprecated
+    List<QueryHistoryDTO> getQueryHistoryByPage(String dataSourceId, int page, int size);
     
     /**
      * 获取查询历史详情
@@ -1,38 +1,117 @@
 package com.insightdata.application.service.impl;
 
-import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.insightdata.application.service.MetadataSyncApplicationService;
 import com.insightdata.application.service.MetadataSyncJobApplicationService;
 import com.insightdata.domain.adapter.DataSourceAdapterFactory;
+import com.insightdata.domain.adapter.DataSourceConcurrencyLimiter;
 import com.insightdata.domain.adapter.EnhancedDataSourceAdapter;
-import com.insightdata.domain.metadata.enums.DataSourceType;
+import com.insightdata.domain.adapter.JdbcExecutors;
+import com.insightdata.domain.metadata.enums.SyncStatus;
+import com.insightdata.domain.metadata.enums.TableChangeType;
 import com.insightdata.domain.metadata.model.DataSource;
 import com.insightdata.domain.metadata.model.MetadataSyncJob;
 import com.insightdata.domain.metadata.model.SchemaInfo;
+import com.insightdata.domain.metadata.model.TableChangeHistory;
 import com.insightdata.domain.metadata.model.TableInfo;
 import com.insightdata.domain.metadata.repository.DataSourceRepository;
 import com.insightdata.domain.metadata.repository.SchemaInfoRepository;
+import com.insightdata.domain.metadata.repository.TableChangeHistoryRepository;
 import com.insightdata.domain.metadata.repository.TableInfoRepository;
+import com.insightdata.domain.query.enums.QueryPriority;
+import com.insightdata.domain.metadata.service.TableDefinitionFingerprint;
 import com.insightdata.facade.metadata.enums.SyncType;
 
+/**
+ * 元数据同步服务实现
+ *
+ * 同步过程不再放在一个长事务中：各schema的目录分发到工作线程池（启用虚拟线程时每个schema一个虚拟线程）并行批量读取，
+ * 同时在途的读取任务不超过数据源的执行许可数，每个工作线程在许可内通过适配器从数据源连接池借用连接；提取结果按批次在各自独立的短事务中持久化，
+ * 每持久化一批就通过updateProgress报告已同步的表数量，并检查作业是否已被cancelSyncJob取消。
+ * 等待schema读取期间也定期检查取消，取消时中断工作线程并中止正在执行的目录查询。
+ *
+ * 增量同步以数据源的lastSyncTime为水位线，只提取源库目录变更时间晚于水位线的表及新增的表，
+ * 通过表结构指纹过滤掉结构未变化的表，并将新建、变更和删除写入表变更历史。
+ * 目录变更时间并不总能反映结构变化，例如MySQL 8.0以ALGORITHM=INSTANT执行的ADD COLUMN不刷新
+ * information_schema.TABLES的CREATE_TIME和UPDATE_TIME，因此按fingerprint-sweep-cron定期执行一次指纹巡检：
+ * 不看目录变更时间，批量读取所有表的定义并与已保存的指纹比较，只保存指纹变化的表。
+ */
 @Service
 public class MetadataSyncApplicationServiceImpl implements MetadataSyncApplicationService {
-    
+
     private static final Logger log = LoggerFactory.getLogger(MetadataSyncApplicationServiceImpl.class);
-    
+
+    // 等待提取任务期间检查作业是否被取消的间隔（毫秒）
+    private static final long CANCEL_CHECK_INTERVAL_MILLIS = 1000;
+
     private final MetadataSyncJobApplicationService metadataSyncJobService;
     private final DataSourceAdapterFactory dataSourceAdapterFactory;
     private final DataSourceRepository dataSourceRepository;
     private final SchemaInfoRepository schemaInfoRepository;
     private final TableInfoRepository tableInfoRepository;
+    private final TableChangeHistoryRepository tableChangeHistoryRepository;
+    private final DataSourceConcurrencyLimiter concurrencyLimiter;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${insight.datasource.metadata-sync.extraction-threads:10}")
+    private int extractionThreads;
+
+    @Value("${insight.execution.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    @Value("${insight.datasource.metadata-sync.batch-size:500}")
+    private int batchSize;
+
+    @Value("${insight.datasource.metadata-sync.incremental-enabled:true}")
+    private boolean incrementalEnabled;
+
+    /**
+     * 增量同步水位线向前回溯的秒数，用于容忍源库与应用服务器之间的时钟偏差
+     */
+    @Value("${insight.datasource.metadata-sync.incremental-overlap:300}")
+    private long incrementalOverlap;
+
+    /**
+     * 增量同步中一个schema的候选表超过该数量时改为批量读取整个schema的目录
+     */
+    @Value("${insight.datasource.metadata-sync.incremental-bulk-threshold:20}")
+    private int bulkReadThreshold;
+
+    @Value("${insight.datasource.metadata-sync.max-concurrent-jobs:3}")
+    private int maxConcurrentJobs;
+
+    private ExecutorService extractionExecutor;
+
+    // 执行计划同步的线程池，计划任务只负责提交，不占用Spring共享的调度线程
+    private ExecutorService scheduledJobExecutor;
 
     @Autowired
     public MetadataSyncApplicationServiceImpl(
@@ -40,107 +119,505 @@ public class MetadataSyncApplicationServiceImpl implements MetadataSyncApplicati
             DataSourceAdapterFactory dataSourceAdapterFactory,
             DataSourceRepository dataSourceRepository,
             SchemaInfoRepository schemaInfoRepository,
-            TableInfoRepository tableInfoRepository) {
+            TableInfoRepository tableInfoRepository,
+            TableChangeHistoryRepository tableChangeHistoryRepository,
+            DataSourceConcurrencyLimiter concurrencyLimiter,
+            PlatformTransactionManager transactionManager) {
         this.metadataSyncJobService = metadataSyncJobService;
         this.dataSourceAdapterFactory = dataSourceAdapterFactory;
         this.dataSourceRepository = dataSourceRepository;
         this.schemaInfoRepository = schemaInfoRepository;
         this.tableInfoRepository = tableInfoRepository;
+        this.tableChangeHistoryRepository = tableChangeHistoryRepository;
+        this.concurrencyLimiter = concurrencyLimiter;
+        // 每个批次使用独立的新事务，不加入调用方事务
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void init() {
+        extractionExecutor = JdbcExecutors.newExecutor("metadata-sync-", extractionThreads, virtualThreads);
+        // 同时执行的计划同步数由max-concurrent-jobs限制，因此始终使用固定大小的平台线程池
+        scheduledJobExecutor = JdbcExecutors.newExecutor("metadata-sync-job-", maxConcurrentJobs, false);
+        log.info("元数据提取线程池已创建: threads={}, virtualThreads={}, batchSize={}",
+                extractionThreads, virtualThreads, batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        extractionExecutor.shutdownNow();
+        scheduledJobExecutor.shutdownNow();
     }
 
     @Override
-    @Transactional
     public void syncMetadata(String dataSourceId) {
         log.info("开始同步元数据: dataSourceId={}", dataSourceId);
 
-        // 创建同步作业
+        // 创建并启动同步作业，各自在独立事务中提交，便于取消接口立即可见
         MetadataSyncJob syncJob = metadataSyncJobService.createSyncJob(dataSourceId, SyncType.FULL);
-        
-        // 使用反射获取ID
-        String jobId = getFieldValue(syncJob, "id");
+        String jobId = syncJob.getId();
         metadataSyncJobService.startSyncJob(jobId);
+        LocalDateTime syncStartTime = LocalDateTime.now();
 
         try {
             // 获取数据源实体
-            DataSource dataSourceEntity = dataSourceRepository.findById(dataSourceId)
+            DataSource dataSource = dataSourceRepository.findById(dataSourceId)
                     .orElseThrow(() -> new RuntimeException("数据源不存在"));
 
             // 获取数据源适配器
-            DataSourceType dsType = getFieldValue(dataSourceEntity, "type");
-            EnhancedDataSourceAdapter dataSourceAdapter = dataSourceAdapterFactory.getEnhancedAdapter(dsType);
+            EnhancedDataSourceAdapter dataSourceAdapter = dataSourceAdapterFactory.getEnhancedAdapter(dataSource.getType());
 
             // 测试连接
-            dataSourceAdapter.testConnection(dataSourceEntity);
+            dataSourceAdapter.testConnection(dataSource);
 
             // 同步schema和表信息
-            syncSchemas(dataSourceAdapter, dataSourceEntity, syncJob);
+            if (!syncSchemas(dataSourceAdapter, dataSource, jobId)) {
+                log.info("元数据同步已取消: dataSourceId={}, jobId={}", dataSourceId, jobId);
+                return;
+            }
+            markSynced(dataSource, syncStartTime);
 
             // 更新同步状态
             metadataSyncJobService.updateProgress(jobId, 100, "元数据同步完成");
             metadataSyncJobService.completeSyncJob(jobId);
         } catch (Exception e) {
             log.error("元数据同步失败", e);
-            // 使用已定义的jobId变量
+            if (isCancelled(jobId)) {
+                return;
+            }
             metadataSyncJobService.failSyncJob(jobId, e.getMessage());
             throw new RuntimeException("元数据同步失败", e);
         }
     }
 
-    private void syncSchemas(EnhancedDataSourceAdapter dataSourceAdapter, DataSource dataSource, MetadataSyncJob syncJob)
+    /**
+     * 同步全部schema及其下的表
+     *
+     * 单个schema读取失败时继续同步其他schema并保存其结果，最后抛出异常列出失败的schema，
+     * 作业因此标记为失败，也不推进增量同步水位线
+     *
+     * @return 作业被取消时返回false
+     */
+    private boolean syncSchemas(EnhancedDataSourceAdapter dataSourceAdapter, DataSource dataSource, String jobId)
             throws Exception {
         log.info("开始同步schema信息");
 
         // 获取所有schema（通过适配器实现）
         List<SchemaInfo> schemaInfos = dataSourceAdapter.getSchemas(dataSource);
+        schemaInfos.forEach(schemaInfo -> schemaInfo.setDataSourceId(dataSource.getId()));
+        transactionTemplate.executeWithoutResult(status -> schemaInfoRepository.saveAll(schemaInfos));
 
+        // 按schema并行批量读取目录，每个schema只执行固定数量的目录查询
+        List<Callable<List<TableInfo>>> schemaTasks = new ArrayList<>(schemaInfos.size());
+        Queue<String> failedSchemas = new ConcurrentLinkedQueue<>();
         for (SchemaInfo schemaInfo : schemaInfos) {
-            // 使用反射设置字段
-            String dataSourceId = getFieldValue(dataSource, "id");
-            setFieldValue(schemaInfo, "dataSourceId", dataSourceId);
-            
-            // 保存schema信息
-            schemaInfoRepository.save(schemaInfo);
-            syncTables(dataSourceAdapter, dataSource, schemaInfo, syncJob);
+            schemaTasks.add(() -> {
+                log.info("开始同步表信息: schema={}", schemaInfo.getName());
+                try (DataSourceConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(dataSource.getId(), QueryPriority.BACKGROUND)) {
+                    List<TableInfo> tables = dataSourceAdapter.getTablesWithColumns(dataSource, schemaInfo.getName());
+                    tables.forEach(tableInfo -> {
+                        tableInfo.setSchemaId(schemaInfo.getId());
+                        tableInfo.setDefinitionHash(TableDefinitionFingerprint.of(tableInfo));
+                    });
+                    return tables;
+                } catch (Exception e) {
+                    // 单个schema读取失败不影响其他schema，全部完成后再使作业失败
+                    failedSchemas.add(schemaInfo.getName());
+                    log.warn("读取schema目录失败: {}: {}", schemaInfo.getName(), e.getMessage());
+                    return new ArrayList<>();
+                }
+            });
+        }
+        BoundedTasks<List<TableInfo>> schemaReads = new BoundedTasks<>(schemaTasks, jobId,
+                () -> dataSourceAdapter.cancelCatalogReads(dataSource));
+
+        // 按schema完成顺序分批持久化，每批之后报告进度并检查取消
+        int processed = 0;
+        for (int i = 0; i < schemaTasks.size(); i++) {
+            List<TableInfo> tables = schemaReads.take();
+            if (tables == null) {
+                return false;
+            }
+            int from = 0;
+            do {
+                int to = Math.min(from + batchSize, tables.size());
+                if (to > from) {
+                    List<TableInfo> chunk = tables.subList(from, to);
+                    transactionTemplate.executeWithoutResult(status -> tableInfoRepository.saveAll(chunk));
+                    processed += chunk.size();
+                }
+
+                if (isCancelled(jobId)) {
+                    schemaReads.cancelAll();
+                    return false;
+                }
+                // 按已完成的schema加上当前schema已保存的比例计算，最多报告到99，100在作业完成时设置
+                double schemaProgress = tables.isEmpty() ? 1 : (double) to / tables.size();
+                int progress = (int) Math.min(99, (i + schemaProgress) * 100 / schemaTasks.size());
+                metadataSyncJobService.updateProgress(jobId, progress,
+                        String.format("已同步 %d/%d 个schema，%d 张表，失败 %d 个schema",
+                                to == tables.size() ? i + 1 : i, schemaTasks.size(), processed, failedSchemas.size()));
+                from = to;
+            } while (from < tables.size());
+        }
+        if (!failedSchemas.isEmpty()) {
+            throw new IllegalStateException(String.format("%d 个schema读取目录失败，其余schema已同步: %s",
+                    failedSchemas.size(), String.join(", ", failedSchemas)));
         }
+        return true;
     }
 
-    private void syncTables(EnhancedDataSourceAdapter dataSourceAdapter, DataSource dataSource, SchemaInfo schemaInfo, MetadataSyncJob syncJob)
-            throws Exception {
-        log.info("开始同步表信息: schema={}", schemaInfo.getName());
-
-        // 获取表信息（通过适配器实现）
-        List<TableInfo> tableInfos = dataSourceAdapter.getTables(dataSource, schemaInfo.getName());
-        for (TableInfo tableInfo : tableInfos) {
-            // 使用反射设置字段
-            setFieldValue(tableInfo, "schemaName", schemaInfo.getName());
-            
-            // 保存表信息
-            tableInfoRepository.save(tableInfo);
-        }
-    }
-    
-    // 使用反射获取私有字段的值
-    @SuppressWarnings("unchecked")
-    private <T> T getFieldValue(Object obj, String fieldName) {
+    @Override
+    public void syncMetadataIncremental(String dataSourceId) {
+        syncIncremental(dataSourceId, false);
+    }
+
+    /**
+     * 增量同步
+     *
+     * @param sweep 为true时执行指纹巡检，所有表都作为候选表批量读取并比较指纹
+     */
+    private void syncIncremental(String dataSourceId, boolean sweep) {
+        DataSource dataSource = dataSourceRepository.findById(dataSourceId)
+                .orElseThrow(() -> new RuntimeException("数据源不存在"));
+        if (dataSource.getLastSyncTime() == null) {
+            log.info("数据源尚未同步过，执行全量同步: dataSourceId={}", dataSourceId);
+            syncMetadata(dataSourceId);
+            return;
+        }
+
+        LocalDateTime watermark = dataSource.getLastSyncTime().minusSeconds(incrementalOverlap);
+        log.info("开始增量同步元数据: dataSourceId={}, watermark={}, sweep={}", dataSourceId, watermark, sweep);
+
+        MetadataSyncJob syncJob = metadataSyncJobService.createSyncJob(dataSourceId, SyncType.INCREMENTAL);
+        String jobId = syncJob.getId();
+        metadataSyncJobService.startSyncJob(jobId);
+        LocalDateTime syncStartTime = LocalDateTime.now();
+
         try {
-            Field field = obj.getClass().getDeclaredField(fieldName);
-            field.setAccessible(true);
-            return (T) field.get(obj);
+            EnhancedDataSourceAdapter dataSourceAdapter = dataSourceAdapterFactory.getEnhancedAdapter(dataSource.getType());
+            dataSourceAdapter.testConnection(dataSource);
+
+            List<SchemaInfo> schemaInfos = dataSourceAdapter.getSchemas(dataSource);
+            schemaInfos.forEach(schemaInfo -> schemaInfo.setDataSourceId(dataSourceId));
+            transactionTemplate.executeWithoutResult(status -> schemaInfoRepository.saveAll(schemaInfos));
+
+            // 按schema并行检测变化
+            List<Callable<SchemaDelta>> deltaTasks = new ArrayList<>(schemaInfos.size());
+            for (SchemaInfo schemaInfo : schemaInfos) {
+                deltaTasks.add(() -> {
+                    try (DataSourceConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(dataSourceId, QueryPriority.BACKGROUND)) {
+                        return detectChanges(dataSourceAdapter, dataSource, schemaInfo, watermark, sweep, jobId);
+                    }
+                });
+            }
+            BoundedTasks<SchemaDelta> deltaReads = new BoundedTasks<>(deltaTasks, jobId,
+                    () -> dataSourceAdapter.cancelCatalogReads(dataSource));
+            SchemaDelta delta = new SchemaDelta();
+            for (int i = 0; i < deltaTasks.size(); i++) {
+                SchemaDelta schemaDelta = deltaReads.take();
+                if (schemaDelta == null) {
+                    log.info("元数据增量同步已取消: dataSourceId={}, jobId={}", dataSourceId, jobId);
+                    return;
+                }
+                delta.merge(schemaDelta);
+            }
+            log.info("增量同步检测完成: dataSourceId={}, changed={}, dropped={}, unchanged={}",
+                    dataSourceId, delta.changedTables.size(), delta.droppedTables.size(), delta.unchangedTables);
+
+            if (!persistDelta(delta, jobId)) {
+                log.info("元数据增量同步已取消: dataSourceId={}, jobId={}", dataSourceId, jobId);
+                return;
+            }
+            markSynced(dataSource, syncStartTime);
+
+            metadataSyncJobService.updateProgress(jobId, 100, String.format("增量同步完成：变更 %d 张表，删除 %d 张表",
+                    delta.changedTables.size(), delta.droppedTables.size()));
+            metadataSyncJobService.completeSyncJob(jobId);
         } catch (Exception e) {
-            log.error("获取字段值失败: {}", fieldName, e);
-            throw new RuntimeException("获取字段值失败: " + fieldName, e);
+            log.error("元数据增量同步失败", e);
+            if (isCancelled(jobId)) {
+                return;
+            }
+            metadataSyncJobService.failSyncJob(jobId, e.getMessage());
+            throw new RuntimeException("元数据增量同步失败", e);
+        }
+    }
+
+    /**
+     * 按计划对所有激活的数据源执行增量同步
+     *
+     * 各数据源的同步提交到计划同步线程池后立即返回，不阻塞连接池回收、Redis探测等其他定时任务
+     */
+    @Scheduled(cron = "${insight.datasource.metadata-sync.incremental-cron:0 0 2 * * ?}")
+    public void scheduledIncrementalSync() {
+        if (!incrementalEnabled) {
+            return;
+        }
+        for (DataSource dataSource : dataSourceRepository.findByActive(true)) {
+            submitScheduled(dataSource.getId(), false);
+        }
+    }
+
+    /**
+     * 按计划对所有激活的数据源执行指纹巡检，发现目录变更时间没有反映的结构变化
+     */
+    @Scheduled(cron = "${insight.datasource.metadata-sync.fingerprint-sweep-cron:0 0 3 * * SUN}")
+    public void scheduledFingerprintSweep() {
+        if (!incrementalEnabled) {
+            return;
+        }
+        for (DataSource dataSource : dataSourceRepository.findByActive(true)) {
+            submitScheduled(dataSource.getId(), true);
+        }
+    }
+
+    private void submitScheduled(String dataSourceId, boolean sweep) {
+        scheduledJobExecutor.execute(() -> {
+            try {
+                syncIncremental(dataSourceId, sweep);
+            } catch (Exception e) {
+                // 单个数据源失败（包括已有进行中的作业）不影响其他数据源
+                log.warn("计划{}失败: dataSourceId={}, error={}", sweep ? "指纹巡检" : "增量同步", dataSourceId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 检测单个schema中相对已保存元数据的变化
+     *
+     * @param sweep 为true时忽略目录变更时间，所有表都作为候选表
+     */
+    private SchemaDelta detectChanges(EnhancedDataSourceAdapter dataSourceAdapter, DataSource dataSource,
+                                      SchemaInfo schemaInfo, LocalDateTime watermark, boolean sweep,
+                                      String jobId) throws Exception {
+        String schemaName = schemaInfo.getName();
+        Map<String, LocalDateTime> changeTimes = dataSourceAdapter.getTableChangeTimes(dataSource, schemaName);
+        // 已保存的表连同列、索引和外键一起加载，变更详情才能给出索引和外键的差异
+        Map<String, TableInfo> storedTables = new HashMap<>();
+        schemaInfoRepository.findSchemaGraph(dataSource.getId(), schemaName).ifPresent(stored ->
+                stored.getTables().forEach(table -> storedTables.put(table.getName(), table)));
+
+        SchemaDelta delta = new SchemaDelta();
+        List<String> candidates = new ArrayList<>();
+        for (Map.Entry<String, LocalDateTime> entry : changeTimes.entrySet()) {
+            TableInfo previous = storedTables.get(entry.getKey());
+            LocalDateTime changedAt = entry.getValue();
+            // 目录时间不晚于水位线且已有指纹的表视为未变化，不再访问源库
+            if (!sweep && previous != null && previous.getDefinitionHash() != null
+                    && changedAt != null && !changedAt.isAfter(watermark)) {
+                delta.unchangedTables++;
+            } else {
+                candidates.add(entry.getKey());
+            }
+        }
+
+        Map<String, TableInfo> currentTables = readCandidates(dataSourceAdapter, dataSource, schemaName, candidates, sweep);
+        LocalDateTime detectedAt = LocalDateTime.now();
+        for (String tableName : candidates) {
+            TableInfo current = currentTables.get(tableName);
+            if (current == null) {
+                // 检测期间被删除的表留给下次同步处理
+                continue;
+            }
+            current.setSchemaId(schemaInfo.getId());
+            current.setDefinitionHash(TableDefinitionFingerprint.of(current));
+            TableInfo previous = storedTables.get(tableName);
+            if (previous != null) {
+                // 目录时间变化可能只是数据修改，结构指纹相同则无需保存
+                if (current.getDefinitionHash().equals(previous.getDefinitionHash())) {
+                    delta.unchangedTables++;
+                    continue;
+                }
+                current.setId(previous.getId());
+            } else {
+                current.setId(UUID.randomUUID().toString());
+            }
+
+            delta.changedTables.add(current);
+            delta.histories.add(TableChangeHistory.builder()
+                    .tableId(current.getId())
+                    .changeType(previous == null ? TableChangeType.CREATED : TableChangeType.ALTERED)
+                    .changeDetails(TableDefinitionFingerprint.diff(previous, current))
+                    .detectedAt(detectedAt)
+                    .syncJobId(jobId)
+                    .build());
+        }
+
+        for (TableInfo stored : storedTables.values()) {
+            if (!changeTimes.containsKey(stored.getName())) {
+                delta.droppedTables.add(stored);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * 读取候选表的当前定义
+     *
+     * 候选表较少时逐表读取完整定义；较多时或指纹巡检时对整个schema执行一次批量目录读取
+     */
+    private Map<String, TableInfo> readCandidates(EnhancedDataSourceAdapter dataSourceAdapter, DataSource dataSource,
+                                                  String schemaName, List<String> candidates,
+                                                  boolean bulk) throws Exception {
+        Map<String, TableInfo> tables = new HashMap<>();
+        if (bulk || candidates.size() > bulkReadThreshold) {
+            for (TableInfo table : dataSourceAdapter.getTablesWithColumns(dataSource, schemaName)) {
+                tables.put(table.getName(), table);
+            }
+            return tables;
+        }
+        for (String tableName : candidates) {
+            TableInfo table = dataSourceAdapter.getTableWithColumns(dataSource, schemaName, tableName);
+            if (table != null) {
+                tables.put(tableName, table);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * 分批保存变化的表及其变更历史，删除源库中已不存在的表
+     *
+     * @return 作业被取消时返回false
+     */
+    private boolean persistDelta(SchemaDelta delta, String jobId) {
+        int total = delta.changedTables.size() + delta.droppedTables.size();
+        int processed = 0;
+        for (int from = 0; from < delta.changedTables.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, delta.changedTables.size());
+            List<TableInfo> tables = delta.changedTables.subList(from, to);
+            List<TableChangeHistory> histories = delta.histories.subList(from, to);
+            // 表和其变更历史在同一事务中写入，历史记录通过外键引用表
+            transactionTemplate.executeWithoutResult(status -> {
+                tableInfoRepository.saveAll(tables);
+                tableChangeHistoryRepository.saveAll(histories);
+            });
+            processed += tables.size();
+            if (isCancelled(jobId)) {
+                return false;
+            }
+            metadataSyncJobService.updateProgress(jobId, (int) Math.min(99, processed * 100L / total),
+                    String.format("已保存 %d/%d 张变化的表", processed, total));
+        }
+
+        // 表变更历史随表记录级联删除，删除的表只记录日志
+        if (!delta.droppedTables.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> delta.droppedTables.forEach(table -> {
+                log.info("源库中表已删除: {}.{}", table.getSchemaName(), table.getName());
+                tableInfoRepository.delete(table);
+            }));
         }
+        return true;
+    }
+
+    /**
+     * 记录数据源的同步时间，作为下次增量同步的水位线
+     */
+    private void markSynced(DataSource dataSource, LocalDateTime syncStartTime) {
+        dataSource.setLastSyncTime(syncStartTime);
+        transactionTemplate.executeWithoutResult(status -> dataSourceRepository.save(dataSource));
     }
-    
-    // 使用反射设置私有字段的值
-    private void setFieldValue(Object obj, String fieldName, Object value) {
+
+    /**
+     * 等待任务完成，失败时取消同组的其余任务并抛出原始异常
+     */
+    private <T> T await(Future<T> future, List<? extends Future<?>> group) throws Exception {
         try {
-            Field field = obj.getClass().getDeclaredField(fieldName);
-            field.setAccessible(true);
-            field.set(obj, value);
-        } catch (Exception e) {
-            log.error("设置字段值失败: {}", fieldName, e);
-            throw new RuntimeException("设置字段值失败: " + fieldName, e);
+            return future.get();
+        } catch (ExecutionException e) {
+            group.forEach(other -> other.cancel(true));
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        } catch (InterruptedException e) {
+            group.forEach(other -> other.cancel(true));
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * 作业是否已通过cancelSyncJob取消
+     */
+    private boolean isCancelled(String jobId) {
+        return metadataSyncJobService.getSyncJob(jobId)
+                .map(job -> job.getStatus() == SyncStatus.CANCELLED)
+                .orElse(false);
+    }
+
+    /**
+     * 按窗口提交的提取任务
+     *
+     * 同时在途的任务不超过数据源的执行许可数，每取走一个结果再提交下一个。一次提交全部任务时，
+     * 超出许可数的任务都挤在并发限制器中等待，schema很多时会因排队上限或等待超时被拒绝。
+     *
+     * 作业取消时中断工作线程，并通过abortReads中止阻塞在JDBC读取上、不响应中断的目录查询。
+     */
+    private final class BoundedTasks<T> {
+        private final List<Callable<T>> tasks;
+        private final String jobId;
+        private final Runnable abortReads;
+        private final CompletionService<T> completionService = new ExecutorCompletionService<>(extractionExecutor);
+        private final List<Future<T>> futures = new ArrayList<>();
+        private int submitted;
+
+        private BoundedTasks(List<Callable<T>> tasks, String jobId, Runnable abortReads) {
+            this.tasks = tasks;
+            this.jobId = jobId;
+            this.abortReads = abortReads;
+            int window = Math.max(1, concurrencyLimiter.getMaxConcurrentQueries());
+            while (submitted < Math.min(window, tasks.size())) {
+                submitNext();
+            }
+        }
+
+        /**
+         * 等待下一个完成的任务，并补充提交一个任务
+         *
+         * 等待期间定期检查作业是否被取消，长时间的schema读取也能及时中止
+         *
+         * @return 作业被取消时返回null
+         */
+        private T take() throws Exception {
+            Future<T> next;
+            while ((next = completionService.poll(CANCEL_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                if (isCancelled(jobId)) {
+                    cancelAll();
+                    return null;
+                }
+            }
+            T result = await(next, futures);
+            if (submitted < tasks.size()) {
+                submitNext();
+            }
+            return result;
+        }
+
+        private void cancelAll() {
+            futures.forEach(future -> future.cancel(true));
+            abortReads.run();
+        }
+
+        private void submitNext() {
+            futures.add(completionService.submit(tasks.get(submitted++)));
+        }
+    }
+
+    /**
+     * 增量同步检测出的变化
+     */
+    private static final class SchemaDelta {
+        private final List<TableInfo> changedTables = new ArrayList<>();
+        private final List<TableChangeHistory> histories = new ArrayList<>();
+        private final List<TableInfo> droppedTables = new ArrayList<>();
+        private int unchangedTables;
+
+        private void merge(SchemaDelta other) {
+            changedTables.addAll(other.changedTables);
+            histories.addAll(other.histories);
+            droppedTables.addAll(other.droppedTables);
+            unchangedTables += other.unchangedTables;
         }
     }
-}
\ No newline at end of file
+}
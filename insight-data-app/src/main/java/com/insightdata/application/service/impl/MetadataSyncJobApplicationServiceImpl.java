@@ -5,6 +5,9 @@ import com.insightdata.application.util.EnumConverter;
 import com.insightdata.domain.exception.InsightDataException;
 import com.insightdata.domain.metadata.model.MetadataSyncJob;
 import com.insightdata.domain.metadata.repository.MetadataSyncJobRepository;
+import com.insightdata.domain.nlquery.converter.NLTranslationCache;
+import com.insightdata.domain.nlquery.executor.QueryResultCache;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshotRegistry;
 import com.insightdata.facade.metadata.enums.SyncStatus;
 import com.insightdata.facade.metadata.enums.SyncType;
 import lombok.extern.slf4j.Slf4j;
@@ -25,10 +28,19 @@ import java.util.UUID;
 public class MetadataSyncJobApplicationServiceImpl implements MetadataSyncJobApplicationService {
     
     private final MetadataSyncJobRepository metadataSyncJobRepository;
+    private final QueryResultCache queryResultCache;
+    private final SchemaSnapshotRegistry schemaSnapshotRegistry;
+    private final NLTranslationCache translationCache;
     
     @Autowired
-    public MetadataSyncJobApplicationServiceImpl(MetadataSyncJobRepository metadataSyncJobRepository) {
+    public MetadataSyncJobApplicationServiceImpl(MetadataSyncJobRepository metadataSyncJobRepository,
+                                                 QueryResultCache queryResultCache,
+                                                 SchemaSnapshotRegistry schemaSnapshotRegistry,
+                                                 NLTranslationCache translationCache) {
         this.metadataSyncJobRepository = metadataSyncJobRepository;
+        this.queryResultCache = queryResultCache;
+        this.schemaSnapshotRegistry = schemaSnapshotRegistry;
+        this.translationCache = translationCache;
     }
     
     @Override
@@ -134,6 +146,12 @@ public class MetadataSyncJobApplicationServiceImpl implements MetadataSyncJobApp
         
         // 保存并转换回Facade模型
         com.insightdata.domain.metadata.model.MetadataSyncJob savedDomainJob = metadataSyncJobRepository.save(domainSyncJob);
+        
+        // 元数据已变化，清除该数据源的缓存查询结果
+        queryResultCache.invalidate(domainSyncJob.getDataSourceId());
+        // 按新同步的元数据重建快照并替换旧快照
+        schemaSnapshotRegistry.refresh(domainSyncJob.getDataSourceId());
+        translationCache.invalidate(domainSyncJob.getDataSourceId());
         return EnumConverter.toFacadeMetadataSyncJob(savedDomainJob);
     }
     
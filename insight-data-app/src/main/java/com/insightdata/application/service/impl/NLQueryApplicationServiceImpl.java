@@ -1,21 +1,45 @@
 package com.insightdata.application.service.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.insightdata.domain.exception.InsightDataException;
+import com.insightdata.domain.exception.QueryRejectedException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.insightdata.domain.nlquery.executor.QueryResult;
+import com.insightdata.domain.nlquery.export.ExportFormat;
+import com.insightdata.domain.nlquery.export.QueryResultExporter;
+import com.insightdata.domain.nlquery.format.FormattedColumn;
+import com.insightdata.domain.nlquery.format.ResultFormatter;
+import com.insightdata.domain.nlquery.executor.QueryRowHandler;
+import com.insightdata.domain.nlquery.job.QueryJob;
+import com.insightdata.domain.nlquery.job.QueryJobManager;
+import com.insightdata.domain.nlquery.job.QueryJobResultBuffer;
+import com.insightdata.domain.query.enums.QueryPriority;
+import com.insightdata.domain.query.history.QueryHistoryCursor;
 import com.insightdata.domain.query.model.QueryHistory;
+import com.insightdata.domain.query.model.ResultColumnConfig;
 import com.insightdata.domain.query.model.SavedQuery;
 import com.insightdata.domain.nlquery.service.NLQueryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.insightdata.application.service.NLQueryApplicationService;
+import com.insightdata.facade.nlquery.ColumnFormatDTO;
+import com.insightdata.facade.nlquery.ExportColumnDTO;
+import com.insightdata.facade.nlquery.NLQueryExportRequest;
 import com.insightdata.facade.nlquery.NLQueryRequest;
 import com.insightdata.facade.nlquery.NLQueryResponse;
+import com.insightdata.facade.nlquery.QueryJobDTO;
+import com.insightdata.facade.nlquery.QueryJobResultDTO;
 import com.insightdata.facade.query.QueryHistoryDTO;
 import com.insightdata.facade.query.SavedQueryDTO;
 
@@ -32,6 +56,24 @@ public class NLQueryApplicationServiceImpl implements NLQueryApplicationService
     @Autowired
     private NLQueryService nlQueryService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private QueryJobManager queryJobManager;
+    
+    @Autowired
+    private ResultFormatter resultFormatter;
+    
+    @Value("${insight.query.default-max-rows:1000}")
+    private int defaultPageSize;
+    
+    @Value("${insight.query.max-rows-limit:50000}")
+    private int maxPageSize;
+    
+    @Value("${insight.query.export.max-rows:1000000}")
+    private int exportMaxRows;
+    
     @Override
     public NLQueryResponse executeQuery(NLQueryRequest facadeRequest) {
         try {
@@ -41,6 +83,9 @@ public class NLQueryApplicationServiceImpl implements NLQueryApplicationService
             com.insightdata.domain.nlquery.NLQueryRequest domainRequest = com.insightdata.domain.nlquery.NLQueryRequest.builder()
                 .dataSourceId(facadeRequest.getDataSourceId())
                 .query(facadeRequest.getQuery())
+                .userId(facadeRequest.getUserId())
+                .maxRows(facadeRequest.getMaxRows())
+                .parameters(facadeRequest.getParameters())
                 .build();
             
             // 调用领域服务执行查询
@@ -57,10 +102,25 @@ public class NLQueryApplicationServiceImpl implements NLQueryApplicationService
                 }
                 response.setData(result.getRows());
                 response.setExecutionTime(result.getDuration());
-                response.setTotalRows((long) result.getTotalRows());
+                // 分页查询的总行数由异步计数提供，计数未完成时为null
+                if (result.getPageNum() != null) {
+                    response.setTotalRows(result.getTotalCount());
+                    response.setPageNum(result.getPageNum());
+                    response.setPageSize(result.getPageSize());
+                    response.setHasMore(result.getHasMore());
+                    response.setNextCursor(result.getNextCursor());
+                } else {
+                    response.setTotalRows((long) result.getTotalRows());
+                    response.setTruncated(result.getTruncated());
+                }
                 if (result.getRows() != null) {
                     response.setReturnedRows(result.getRows().size());
                 }
+                if (result.isSuccess() && facadeRequest.getColumnFormats() != null
+                        && !facadeRequest.getColumnFormats().isEmpty()) {
+                    response.setFormattedColumns(toFormattedColumns(
+                        resultFormatter.format(result, toFormatConfigs(facadeRequest.getColumnFormats()))));
+                }
                 response.setStatus(result.isSuccess() ? "成功" : "失败");
                 response.setErrorMessage(result.getErrorMessage());
             } else {
@@ -76,6 +136,8 @@ public class NLQueryApplicationServiceImpl implements NLQueryApplicationService
             }
             
             return response;
+        } catch (QueryRejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("执行自然语言查询失败", e);
             throw new InsightDataException("执行自然语言查询失败: " + e.getMessage(), e);
@@ -83,45 +145,244 @@ public class NLQueryApplicationServiceImpl implements NLQueryApplicationService
     }
 
     @Override
-    public List<QueryHistoryDTO> getQueryHistory(String dataSourceId, int page, int size) {
+    public void streamQuery(NLQueryRequest facadeRequest, OutputStream outputStream) throws IOException {
+        log.info("流式执行自然语言查询: {}", facadeRequest.getQuery());
+        
+        com.insightdata.domain.nlquery.NLQueryRequest domainRequest = com.insightdata.domain.nlquery.NLQueryRequest.builder()
+            .dataSourceId(facadeRequest.getDataSourceId())
+            .query(facadeRequest.getQuery())
+            .userId(facadeRequest.getUserId())
+            .maxRows(facadeRequest.getMaxRows())
+            .build();
+        
+        JsonGenerator generator = objectMapper.createGenerator(outputStream);
+        QueryResult result;
         try {
-            log.info("获取查询历史, 数据源: {}, 页码: {}, 大小: {}", dataSourceId, page, size);
-            
-            // 调用领域服务
-            List<QueryHistory> histories = nlQueryService.getQueryHistory(dataSourceId);
-            
-            // 转换为DTO
-            List<QueryHistoryDTO> dtos = new ArrayList<>();
-            for (QueryHistory history : histories) {
-                QueryHistoryDTO dto = new QueryHistoryDTO();
-                dto.setId(history.getId());
-                dto.setDataSourceId(history.getDataSourceId());
-                dto.setOriginalQuery(history.getOriginalQuery());
-                dto.setExecutedSql(history.getExecutedSql());
-                dto.setStatus(history.getStatus());
-                dto.setExecutionTime(history.getExecutionTime());
-                dto.setRowCount(history.getRowCount());
-                dto.setExecutedAt(history.getExecutedAt());
-                dto.setUserId(history.getUserId());
-                dto.setUsername(history.getUsername());
-                dtos.add(dto);
+            result = nlQueryService.executeQueryStreaming(domainRequest, new NdjsonRowWriter(generator));
+        } catch (QueryRejectedException e) {
+            // 响应头已发送，拒绝原因通过摘要行返回
+            log.warn("流式查询被拒绝: {}", e.getMessage());
+            result = QueryResult.builder().success(false).errorMessage(e.getMessage()).build();
+        }
+        
+        // 摘要行
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("summary");
+        generator.writeStringField("queryId", result.getQueryId());
+        generator.writeBooleanField("success", result.isSuccess());
+        generator.writeNumberField("totalRows", result.getTotalRows());
+        generator.writeBooleanField("truncated", Boolean.TRUE.equals(result.getTruncated()));
+        generator.writeNumberField("executionTime", result.getDuration());
+        generator.writeStringField("errorMessage", result.getErrorMessage());
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
+    @Override
+    public void exportQuery(NLQueryExportRequest facadeRequest, OutputStream outputStream) throws IOException {
+        ExportFormat format = ExportFormat.of(facadeRequest.getFormat());
+        log.info("导出自然语言查询结果: format={}, query={}", format, facadeRequest.getQuery());
+        
+        Integer requestedRows = facadeRequest.getMaxRows();
+        int maxRows = requestedRows == null || requestedRows <= 0 ? exportMaxRows : Math.min(requestedRows, exportMaxRows);
+        // 导出是批量读取，按后台优先级排队，不与交互式查询争抢数据源并发
+        com.insightdata.domain.nlquery.NLQueryRequest domainRequest = com.insightdata.domain.nlquery.NLQueryRequest.builder()
+            .dataSourceId(facadeRequest.getDataSourceId())
+            .query(facadeRequest.getQuery())
+            .userId(facadeRequest.getUserId())
+            .maxRows(maxRows)
+            .priority(QueryPriority.BACKGROUND)
+            .build();
+        
+        try (QueryResultExporter exporter = format.newExporter(outputStream, toColumnConfigs(facadeRequest.getColumns()))) {
+            QueryResult result = nlQueryService.executeQueryStreaming(domainRequest, exporter);
+            if (!result.isSuccess()) {
+                throw new IOException("导出查询失败: " + result.getErrorMessage());
             }
+            exporter.finish();
+            if (Boolean.TRUE.equals(result.getTruncated())) {
+                log.warn("导出结果超过行数上限已截断: queryId={}, rows={}", result.getQueryId(), exporter.getRowCount());
+            }
+            log.info("导出完成: queryId={}, format={}, rows={}, executionTime={}ms",
+                result.getQueryId(), format, exporter.getRowCount(), result.getDuration());
+        } catch (QueryRejectedException e) {
+            log.warn("导出查询被拒绝: {}", e.getMessage());
+            throw new IOException("导出查询被拒绝: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public QueryJobDTO submitQueryJob(NLQueryRequest facadeRequest) {
+        log.info("提交异步自然语言查询: {}", facadeRequest.getQuery());
+        
+        com.insightdata.domain.nlquery.NLQueryRequest domainRequest = com.insightdata.domain.nlquery.NLQueryRequest.builder()
+            .dataSourceId(facadeRequest.getDataSourceId())
+            .query(facadeRequest.getQuery())
+            .userId(facadeRequest.getUserId())
+            .priority(QueryPriority.BACKGROUND)
+            .build();
+        
+        return toQueryJobDTO(queryJobManager.submit(domainRequest));
+    }
+
+    @Override
+    public QueryJobDTO getQueryJob(String jobId) {
+        return queryJobManager.getJob(jobId).map(this::toQueryJobDTO).orElse(null);
+    }
+
+    @Override
+    public QueryJobResultDTO getQueryJobResults(String jobId, long offset, Integer limit) {
+        QueryJob job = queryJobManager.getJob(jobId).orElse(null);
+        if (job == null) {
+            return null;
+        }
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        long start = Math.max(0, offset);
+        List<Map<String, Object>> rows = queryJobManager.readResults(job, start, pageSize);
+        
+        QueryJobResultBuffer buffer = job.getResultBuffer();
+        return QueryJobResultDTO.builder()
+            .jobId(job.getId())
+            .columns(buffer.getColumnLabels())
+            .columnTypes(buffer.getColumnTypes())
+            .data(rows)
+            .offset(start)
+            .totalRows(buffer.getRowCount())
+            .hasMore(start + rows.size() < buffer.getRowCount())
+            .truncated(buffer.isTruncated())
+            .build();
+    }
+
+    @Override
+    public boolean cancelQueryJob(String jobId) {
+        return queryJobManager.cancel(jobId);
+    }
+
+    /**
+     * 转换导出列配置，未指定exportable的列视为导出
+     */
+    private List<ResultColumnConfig> toColumnConfigs(List<ExportColumnDTO> columns) {
+        List<ResultColumnConfig> configs = new ArrayList<>();
+        if (columns == null) {
+            return configs;
+        }
+        for (ExportColumnDTO column : columns) {
+            configs.add(ResultColumnConfig.builder()
+                .fieldName(column.getFieldName())
+                .exportName(column.getExportName())
+                .displayName(column.getDisplayName())
+                .exportable(!Boolean.FALSE.equals(column.getExportable()))
+                .order(column.getOrder())
+                .formatType(column.getFormatType())
+                .formatPattern(column.getFormatPattern())
+                .decimalPlaces(column.getDecimalPlaces())
+                .thousandsSeparator(column.getThousandsSeparator())
+                .decimalSymbol(column.getDecimalSymbol())
+                .prefix(column.getPrefix())
+                .suffix(column.getSuffix())
+                .emptyValue(column.getEmptyValue())
+                .build());
+        }
+        return configs;
+    }
+
+    private List<ResultColumnConfig> toFormatConfigs(List<ColumnFormatDTO> formats) {
+        List<ResultColumnConfig> configs = new ArrayList<>(formats.size());
+        for (ColumnFormatDTO format : formats) {
+            configs.add(ResultColumnConfig.builder()
+                .fieldName(format.getFieldName())
+                .formatType(format.getFormatType())
+                .formatPattern(format.getFormatPattern())
+                .decimalPlaces(format.getDecimalPlaces())
+                .thousandsSeparator(format.getThousandsSeparator())
+                .decimalSymbol(format.getDecimalSymbol())
+                .prefix(format.getPrefix())
+                .suffix(format.getSuffix())
+                .emptyValue(format.getEmptyValue())
+                .conditionalStyles(format.getConditionalStyles() == null
+                    ? new ArrayList<>() : format.getConditionalStyles())
+                .build());
+        }
+        return configs;
+    }
+
+    private Map<String, NLQueryResponse.FormattedColumn> toFormattedColumns(Map<String, FormattedColumn> columns) {
+        Map<String, NLQueryResponse.FormattedColumn> formatted = new LinkedHashMap<>();
+        columns.forEach((label, column) -> formatted.put(label, NLQueryResponse.FormattedColumn.builder()
+            .values(Arrays.asList(column.getValues()))
+            .styleIndexes(column.getStyleIndexes())
+            .styles(column.getStyles())
+            .build()));
+        return formatted;
+    }
+
+    private QueryJobDTO toQueryJobDTO(QueryJob job) {
+        return QueryJobDTO.builder()
+            .jobId(job.getId())
+            .dataSourceId(job.getDataSourceId())
+            .originalQuery(job.getRequest().getQuery())
+            .status(job.getStatus().name())
+            .totalRows(job.getTotalRows())
+            .truncated(job.isTruncated())
+            .executionTime(job.isFinished() ? job.getDuration() : null)
+            .errorMessage(job.getErrorMessage())
+            .submittedAt(job.getSubmittedAt())
+            .startedAt(job.getStartedAt())
+            .finishedAt(job.getFinishedAt())
+            .build();
+    }
+
+    @Override
+    public List<QueryHistoryDTO> getQueryHistory(String dataSourceId, String cursor, int size) {
+        QueryHistoryCursor before = cursor == null || cursor.isEmpty() ? null : QueryHistoryCursor.decode(cursor);
+        try {
+            log.info("获取查询历史, 数据源: {}, 游标: {}, 大小: {}", dataSourceId, cursor, size);
             
-            // 简单的分页处理
-            int start = (page - 1) * size;
-            int end = Math.min(start + size, dtos.size());
+            // 调用领域服务，按(执行时间, ID)游标分页读取，不加载整个数据源的历史
+            List<QueryHistory> histories = nlQueryService.getQueryHistory(dataSourceId, before, size);
             
-            if (start < dtos.size()) {
-                return dtos.subList(start, end);
-            } else {
-                return new ArrayList<>();
-            }
+            return toQueryHistoryDTOs(histories);
         } catch (Exception e) {
             log.error("获取查询历史失败", e);
             throw new InsightDataException("获取查询历史失败: " + e.getMessage(), e);
         }
     }
 
+    @Override
+    @Deprecated
+    public List<QueryHistoryDTO> getQueryHistoryByPage(String dataSourceId, int page, int size) {
+        try {
+            log.info("按页码获取查询历史, 数据源: {}, 页码: {}, 大小: {}", dataSourceId, page, size);
+            return toQueryHistoryDTOs(nlQueryService.getQueryHistoryByPage(dataSourceId, page, size));
+        } catch (Exception e) {
+            log.error("获取查询历史失败", e);
+            throw new InsightDataException("获取查询历史失败: " + e.getMessage(), e);
+        }
+    }
+
+    private List<QueryHistoryDTO> toQueryHistoryDTOs(List<QueryHistory> histories) {
+        List<QueryHistoryDTO> dtos = new ArrayList<>(histories.size());
+        for (QueryHistory history : histories) {
+            QueryHistoryDTO dto = new QueryHistoryDTO();
+            dto.setId(history.getId());
+            dto.setDataSourceId(history.getDataSourceId());
+            dto.setOriginalQuery(history.getOriginalQuery());
+            dto.setExecutedSql(history.getExecutedSql());
+            dto.setStatus(history.getStatus());
+            dto.setErrorMessage(history.getErrorMessage());
+            dto.setQueryType(history.getQueryType());
+            dto.setExecutionTime(history.getExecutionTime());
+            dto.setRowCount(history.getRowCount());
+            dto.setExecutedAt(history.getExecutedAt());
+            dto.setUserId(history.getUserId());
+            dto.setUsername(history.getUsername());
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
     @Override
     public QueryHistoryDTO getQueryHistoryById(String id) {
         try {
@@ -348,4 +609,38 @@ public class NLQueryApplicationServiceImpl implements NLQueryApplicationService
             throw new InsightDataException("解释SQL语句失败: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 将结果行以NDJSON格式写出的行处理器
+     */
+    private static class NdjsonRowWriter implements QueryRowHandler {
+        
+        private final JsonGenerator generator;
+        private String[] labels;
+        
+        NdjsonRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+        
+        @Override
+        public void onColumns(List<String> columnLabels, List<String> columnTypes) throws IOException {
+            labels = columnLabels.toArray(new String[0]);
+            generator.writeStartObject();
+            generator.writeObjectField("columns", columnLabels);
+            generator.writeObjectField("columnTypes", columnTypes);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            generator.flush();
+        }
+        
+        @Override
+        public void onRow(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                generator.writeObjectField(labels[i], values[i]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+    }
+}
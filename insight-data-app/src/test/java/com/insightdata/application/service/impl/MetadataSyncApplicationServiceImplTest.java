@@ -0,0 +1,332 @@
+package com.insightdata.application.service.impl;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.insightdata.application.service.MetadataSyncJobApplicationService;
+import com.insightdata.domain.adapter.DataSourceAdapterFactory;
+import com.insightdata.domain.adapter.DataSourceConcurrencyLimiter;
+import com.insightdata.domain.adapter.EnhancedDataSourceAdapter;
+import com.insightdata.domain.metadata.enums.DataSourceType;
+import com.insightdata.domain.metadata.enums.SyncStatus;
+import com.insightdata.domain.metadata.enums.TableChangeType;
+import com.insightdata.domain.metadata.model.ColumnInfo;
+import com.insightdata.domain.metadata.model.DataSource;
+import com.insightdata.domain.metadata.model.MetadataSyncJob;
+import com.insightdata.domain.metadata.model.IndexInfo;
+import com.insightdata.domain.metadata.model.SchemaInfo;
+import com.insightdata.domain.metadata.model.TableChangeHistory;
+import com.insightdata.domain.metadata.model.TableInfo;
+import com.insightdata.domain.metadata.repository.DataSourceRepository;
+import com.insightdata.domain.metadata.repository.SchemaInfoRepository;
+import com.insightdata.domain.metadata.repository.TableChangeHistoryRepository;
+import com.insightdata.domain.metadata.repository.TableInfoRepository;
+import com.insightdata.domain.metadata.service.TableDefinitionFingerprint;
+import com.insightdata.domain.query.enums.QueryPriority;
+import com.insightdata.facade.metadata.enums.SyncType;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+/**
+ * MetadataSyncApplicationServiceImpl类的单元测试
+ * 测试schema数多于执行许可且数据源繁忙时，同步任务按许可数分批提交，不因排队上限或等待超时失败；
+ * 大schema每保存一批就报告进度并检查取消，取消时中断并中止正在执行的目录读取；计划同步不阻塞调度线程；
+ * 指纹巡检发现只有索引变化的表
+ */
+public class MetadataSyncApplicationServiceImplTest {
+
+    private static final String DATA_SOURCE_ID = "ds1";
+
+    private static final String JOB_ID = "job1";
+
+    private static final int PERMITS = 2;
+
+    private MetadataSyncJobApplicationService jobService;
+
+    private DataSourceRepository dataSourceRepository;
+
+    private SchemaInfoRepository schemaInfoRepository;
+
+    private TableInfoRepository tableInfoRepository;
+
+    private TableChangeHistoryRepository tableChangeHistoryRepository;
+
+    private EnhancedDataSourceAdapter adapter;
+
+    private DataSourceConcurrencyLimiter limiter;
+
+    private DataSource dataSource;
+
+    private MetadataSyncApplicationServiceImpl service;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        jobService = mock(MetadataSyncJobApplicationService.class);
+        when(jobService.createSyncJob(eq(DATA_SOURCE_ID), any(SyncType.class)))
+                .thenReturn(MetadataSyncJob.builder().id(JOB_ID).dataSourceId(DATA_SOURCE_ID).build());
+        when(jobService.getSyncJob(JOB_ID)).thenReturn(Optional.empty());
+
+        dataSource = new DataSource();
+        dataSource.setId(DATA_SOURCE_ID);
+        dataSource.setType(DataSourceType.MYSQL);
+        dataSourceRepository = mock(DataSourceRepository.class);
+        when(dataSourceRepository.findById(DATA_SOURCE_ID)).thenReturn(Optional.of(dataSource));
+
+        adapter = mock(EnhancedDataSourceAdapter.class);
+        DataSourceAdapterFactory adapterFactory = mock(DataSourceAdapterFactory.class);
+        when(adapterFactory.getEnhancedAdapter(DataSourceType.MYSQL)).thenReturn(adapter);
+
+        schemaInfoRepository = mock(SchemaInfoRepository.class);
+        tableInfoRepository = mock(TableInfoRepository.class);
+        tableChangeHistoryRepository = mock(TableChangeHistoryRepository.class);
+
+        // 交互式请求的等待超时很短且不允许排队，后台查询使用独立的等待上限
+        limiter = new DataSourceConcurrencyLimiter();
+        ReflectionTestUtils.setField(limiter, "maxConcurrentQueries", PERMITS);
+        ReflectionTestUtils.setField(limiter, "acquireTimeout", 50L);
+        ReflectionTestUtils.setField(limiter, "backgroundAcquireTimeout", 10_000L);
+        ReflectionTestUtils.setField(limiter, "maxQueueDepth", 0);
+        ReflectionTestUtils.setField(limiter, "interactiveWeight", 4);
+
+        service = new MetadataSyncApplicationServiceImpl(jobService, adapterFactory, dataSourceRepository,
+                schemaInfoRepository, tableInfoRepository, tableChangeHistoryRepository, limiter, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "extractionThreads", 10);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "incrementalEnabled", true);
+        ReflectionTestUtils.setField(service, "maxConcurrentJobs", 2);
+        service.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("测试数据源繁忙时同步多于许可数的schema，在途任务不超过许可数且全部同步成功")
+    public void testSyncMoreSchemasThanPermits() throws Exception {
+        int schemaCount = 30;
+        List<SchemaInfo> schemas = new ArrayList<>();
+        for (int i = 0; i < schemaCount; i++) {
+            schemas.add(schema(i));
+        }
+        when(adapter.getSchemas(dataSource)).thenReturn(schemas);
+        AtomicInteger peakQueueDepth = new AtomicInteger();
+        when(adapter.getTablesWithColumns(eq(dataSource), anyString())).thenAnswer(invocation -> {
+            peakQueueDepth.accumulateAndGet(limiter.getQueueDepth(DATA_SOURCE_ID), Math::max);
+            Thread.sleep(20);
+            return tables(invocation.getArgument(1), 3);
+        });
+        AtomicInteger savedTables = new AtomicInteger();
+        when(tableInfoRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<TableInfo> chunk = invocation.getArgument(0);
+            savedTables.addAndGet(chunk.size());
+            return chunk;
+        });
+
+        // 交互式查询占用一个许可，远超交互式等待超时后才归还
+        DataSourceConcurrencyLimiter.Permit interactive = limiter.acquire(DATA_SOURCE_ID, QueryPriority.INTERACTIVE);
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            interactive.close();
+        });
+        releaser.start();
+
+        service.syncMetadata(DATA_SOURCE_ID);
+        releaser.join();
+
+        assertEquals(schemaCount * 3, savedTables.get());
+        assertTrue(peakQueueDepth.get() <= PERMITS, "peak queue depth " + peakQueueDepth.get());
+        assertEquals(0, limiter.getTimeoutRejections());
+        assertEquals(0, limiter.getQueueFullRejections());
+        assertEquals(PERMITS, limiter.getAvailablePermits(DATA_SOURCE_ID));
+        verify(jobService).completeSyncJob(JOB_ID);
+        verify(jobService, never()).failSyncJob(anyString(), anyString());
+        assertNotNull(dataSource.getLastSyncTime());
+    }
+
+    @Test
+    @DisplayName("测试大schema每保存一批就报告进度，取消后不再保存后续批次")
+    public void testProgressAndCancelPerChunk() throws Exception {
+        when(adapter.getSchemas(dataSource)).thenReturn(List.of(schema(0)));
+        when(adapter.getTablesWithColumns(eq(dataSource), anyString())).thenReturn(tables("schema_0", 5));
+        AtomicBoolean cancelled = new AtomicBoolean();
+        when(jobService.getSyncJob(JOB_ID)).thenAnswer(invocation -> Optional.of(MetadataSyncJob.builder()
+                .id(JOB_ID).status(cancelled.get() ? SyncStatus.CANCELLED : SyncStatus.RUNNING).build()));
+        AtomicInteger savedChunks = new AtomicInteger();
+        when(tableInfoRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            // 第二批保存后作业被取消
+            if (savedChunks.incrementAndGet() == 2) {
+                cancelled.set(true);
+            }
+            return invocation.getArgument(0);
+        });
+
+        service.syncMetadata(DATA_SOURCE_ID);
+
+        assertEquals(2, savedChunks.get());
+        verify(jobService).updateProgress(eq(JOB_ID), eq(40), startsWith("已同步 0/1 个schema，2 张表"));
+        verify(jobService, never()).updateProgress(eq(JOB_ID), anyInt(), startsWith("已同步 0/1 个schema，4 张表"));
+        verify(jobService, never()).completeSyncJob(anyString());
+        verify(jobService, never()).failSyncJob(anyString(), anyString());
+        assertNull(dataSource.getLastSyncTime());
+    }
+
+    @Test
+    @DisplayName("测试取消时中断工作线程并中止正在执行的目录读取")
+    public void testCancelAbortsInFlightReads() throws Exception {
+        when(adapter.getSchemas(dataSource)).thenReturn(List.of(schema(0), schema(1), schema(2)));
+        when(jobService.getSyncJob(JOB_ID)).thenReturn(Optional.of(MetadataSyncJob.builder()
+                .id(JOB_ID).status(SyncStatus.CANCELLED).build()));
+        CountDownLatch aborted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            aborted.countDown();
+            return null;
+        }).when(adapter).cancelCatalogReads(dataSource);
+        AtomicInteger interruptedReads = new AtomicInteger();
+        when(adapter.getTablesWithColumns(eq(dataSource), anyString())).thenAnswer(invocation -> {
+            // 与JDBC读取一样不响应中断，只有语句被中止才结束
+            boolean interrupted = false;
+            while (aborted.getCount() > 0) {
+                try {
+                    aborted.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted || Thread.currentThread().isInterrupted()) {
+                interruptedReads.incrementAndGet();
+            }
+            throw new SQLException("Query execution was interrupted");
+        });
+
+        long start = System.nanoTime();
+        service.syncMetadata(DATA_SOURCE_ID);
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        verify(adapter, atLeastOnce()).cancelCatalogReads(dataSource);
+        verify(tableInfoRepository, never()).saveAll(anyList());
+        verify(jobService, never()).completeSyncJob(anyString());
+        verify(jobService, never()).failSyncJob(anyString(), anyString());
+        service.shutdown();
+        assertTrue(interruptedReads.get() > 0);
+    }
+
+    @Test
+    @DisplayName("测试计划同步提交后立即返回，不阻塞调度线程")
+    public void testScheduledSyncDoesNotBlockScheduler() throws Exception {
+        when(dataSourceRepository.findByActive(true)).thenReturn(List.of(dataSource));
+        when(adapter.getSchemas(dataSource)).thenReturn(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        when(adapter.testConnection(dataSource)).thenAnswer(invocation -> release.await(10, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        service.scheduledIncrementalSync();
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        verify(jobService, never()).completeSyncJob(anyString());
+
+        release.countDown();
+        verify(jobService, timeout(5000)).completeSyncJob(JOB_ID);
+    }
+
+    @Test
+    @DisplayName("测试指纹巡检发现目录变更时间未变、只新增了索引的表")
+    @SuppressWarnings("unchecked")
+    public void testSweepDetectsIndexOnlyChange() throws Exception {
+        dataSource.setLastSyncTime(LocalDateTime.now().minusDays(1));
+        when(dataSourceRepository.findByActive(true)).thenReturn(List.of(dataSource));
+        when(adapter.getSchemas(dataSource)).thenReturn(List.of(schema(0)));
+        when(adapter.getTableChangeTimes(dataSource, "schema_0"))
+                .thenReturn(Map.of("orders", LocalDateTime.now().minusDays(7)));
+
+        TableInfo stored = table("orders", index("PRIMARY", true, "id"));
+        stored.setId("table-1");
+        stored.setDefinitionHash(TableDefinitionFingerprint.of(stored));
+        SchemaInfo storedSchema = schema(0);
+        storedSchema.setTables(List.of(stored));
+        when(schemaInfoRepository.findSchemaGraph(DATA_SOURCE_ID, "schema_0")).thenReturn(Optional.of(storedSchema));
+        // 列完全相同，只多了一个索引
+        when(adapter.getTablesWithColumns(dataSource, "schema_0")).thenReturn(List.of(
+                table("orders", index("idx_orders_name", false, "name", "id"), index("PRIMARY", true, "id"))));
+
+        service.scheduledFingerprintSweep();
+
+        verify(jobService, timeout(5000)).completeSyncJob(JOB_ID);
+        ArgumentCaptor<List<TableInfo>> savedTables = ArgumentCaptor.forClass(List.class);
+        verify(tableInfoRepository).saveAll(savedTables.capture());
+        assertEquals(1, savedTables.getValue().size());
+        assertEquals("table-1", savedTables.getValue().get(0).getId());
+        assertNotEquals(stored.getDefinitionHash(), savedTables.getValue().get(0).getDefinitionHash());
+
+        ArgumentCaptor<List<TableChangeHistory>> histories = ArgumentCaptor.forClass(List.class);
+        verify(tableChangeHistoryRepository).saveAll(histories.capture());
+        TableChangeHistory history = histories.getValue().get(0);
+        assertEquals(TableChangeType.ALTERED, history.getChangeType());
+        assertEquals(List.of(), history.getChangeDetails().get("addedColumns"));
+        assertEquals(List.of(), history.getChangeDetails().get("modifiedColumns"));
+        assertEquals(List.of("idx_orders_name"), history.getChangeDetails().get("addedIndexes"));
+        assertEquals(List.of(), history.getChangeDetails().get("modifiedIndexes"));
+    }
+
+    private static TableInfo table(String name, IndexInfo... indexes) {
+        TableInfo table = new TableInfo();
+        table.setName(name);
+        table.setSchemaName("schema_0");
+        table.setColumns(List.of(
+                ColumnInfo.builder().name("id").tableName(name).dataType("bigint").isPrimaryKey(true).build(),
+                ColumnInfo.builder().name("name").tableName(name).dataType("varchar").isNullable(true).build()));
+        table.setIndexes(List.of(indexes));
+        table.setForeignKeys(new ArrayList<>());
+        return table;
+    }
+
+    private static IndexInfo index(String name, boolean unique, String... columns) {
+        return IndexInfo.builder().name(name).isUnique(unique).columns(List.of(columns)).build();
+    }
+
+    private static SchemaInfo schema(int index) {
+        SchemaInfo schema = new SchemaInfo();
+        schema.setId("schema-" + index);
+        schema.setName("schema_" + index);
+        return schema;
+    }
+
+    private static List<TableInfo> tables(String schemaName, int count) {
+        List<TableInfo> tables = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TableInfo table = new TableInfo();
+            table.setName(schemaName + "_t" + i);
+            table.setSchemaName(schemaName);
+            table.setColumns(new ArrayList<>());
+            tables.add(table);
+        }
+        return tables;
+    }
+}
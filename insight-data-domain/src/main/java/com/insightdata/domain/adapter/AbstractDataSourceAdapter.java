@@ -2,12 +2,22 @@ package com.insightdata.domain.adapter;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
 
 import com.insightdata.domain.exception.DataSourceException;
+import com.insightdata.domain.metadata.model.ColumnInfo;
 import com.insightdata.domain.metadata.model.DataSource;
 import com.insightdata.domain.metadata.model.SchemaInfo;
 import com.insightdata.domain.metadata.model.TableInfo;
@@ -16,49 +26,43 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * 数据源适配器的抽象基类
- * 
+ *
  * 提供DataSourceAdapter和EnhancedDataSourceAdapter接口的默认实现，
  * 封装通用逻辑，便于具体适配器实现类复用代码。
+ *
+ * 适配器是单例Bean，不再持有共享的Connection字段：connect()只把数据源绑定到当前线程，
+ * 每次元数据读取都从DataSourceConnectionPoolRegistry借用连接并在使用后归还，
+ * 因此不同请求可以并发访问不同的数据源而不会互相覆盖连接。
  */
 @Slf4j
 public abstract class AbstractDataSourceAdapter implements EnhancedDataSourceAdapter {
 
-    protected Connection connection;
-    protected DataSource currentDataSource;
-    
+    @Autowired
+    protected DataSourceConnectionPoolRegistry connectionPoolRegistry;
+
+    private final ThreadLocal<DataSource> boundDataSource = new ThreadLocal<>();
+
+    // 各数据源正在执行的目录查询，取消元数据同步时逐个中止
+    private final Map<String, Set<Statement>> runningCatalogQueries = new ConcurrentHashMap<>();
+
     @Override
     public void connect(DataSource config) throws Exception {
-        try {
-            // 加载驱动
-            Class.forName(config.getDriverClassName());
-            
-            // 设置连接属性
-            Properties props = new Properties();
-            props.setProperty("user", config.getUsername());
-            props.setProperty("password", config.getPassword()); // 使用普通密码，非加密
-            
-            // 添加自定义连接属性
-            if (config.getConnectionProperties() != null) {
-                config.getConnectionProperties().forEach(props::setProperty);
-            }
-            
-            // 获取连接
-            connection = DriverManager.getConnection(config.getJdbcUrl(), props);
-            currentDataSource = config;
-        } catch (SQLException | ClassNotFoundException e) {
+        boundDataSource.set(config);
+        // 预先借用一次连接，尽早暴露连接配置错误
+        try (Connection ignored = borrowConnection()) {
+            log.debug("Bound data source {} to current thread", config.getName());
+        } catch (SQLException e) {
+            boundDataSource.remove();
             log.error("Failed to connect to database: {}", config.getName(), e);
             throw new DataSourceException("Failed to connect to database: " + e.getMessage(), e);
         }
     }
-    
+
     @Override
     public void disconnect() throws Exception {
-        if (connection != null && !connection.isClosed()) {
-            connection.close();
-            connection = null;
-        }
+        boundDataSource.remove();
     }
-    
+
     @Override
     public boolean testConnection(DataSource config) throws Exception {
         try (Connection conn = getTestConnection(config)) {
@@ -68,93 +72,240 @@ public abstract class AbstractDataSourceAdapter implements EnhancedDataSourceAda
             throw e;
         }
     }
-    
+
+    /**
+     * 从当前线程绑定数据源的连接池借用一个连接
+     *
+     * 调用方必须关闭返回的连接，关闭即归还连接池
+     */
     @Override
     public Connection getConnection() {
-        return connection;
+        try {
+            return borrowConnection();
+        } catch (SQLException e) {
+            throw DataSourceException.connectionError(e.getMessage(), e);
+        }
     }
-    
+
     @Override
     public List<SchemaInfo> getSchemas(DataSource dataSource) throws Exception {
-        if (currentDataSource == null || !dataSource.getId().equals(currentDataSource.getId())) {
-            connect(dataSource);
-        }
-        
-        List<SchemaInfo> schemas = new ArrayList<>();
-        List<String> schemaNames = getSchemas(dataSource.getDatabaseName());
-        
-        for (String schemaName : schemaNames) {
-            SchemaInfo schema = new SchemaInfo();
-            schema.setName(schemaName);
-            schema.setDataSourceId(dataSource.getId());
-            schemas.add(schema);
-        }
-        
-        return schemas;
-    }
-    
+        DataSource previous = bind(dataSource);
+        try {
+            List<SchemaInfo> schemas = new ArrayList<>();
+            List<String> schemaNames = getSchemas(dataSource.getDatabaseName());
+
+            for (String schemaName : schemaNames) {
+                SchemaInfo schema = new SchemaInfo();
+                schema.setName(schemaName);
+                schema.setDataSourceId(dataSource.getId());
+                schemas.add(schema);
+            }
+
+            return schemas;
+        } finally {
+            restore(previous);
+        }
+    }
+
     @Override
     public SchemaInfo getSchema(DataSource dataSource, String schemaName) throws Exception {
-        if (currentDataSource == null || !dataSource.getId().equals(currentDataSource.getId())) {
-            connect(dataSource);
-        }
-        
         SchemaInfo schema = new SchemaInfo();
         schema.setName(schemaName);
         schema.setDataSourceId(dataSource.getId());
-        
+
         // 获取此schema的表信息
         List<TableInfo> tables = getTables(dataSource, schemaName);
         schema.setTables(tables);
-        
+
         return schema;
     }
-    
+
     @Override
     public List<TableInfo> getTables(DataSource dataSource, String schema) throws Exception {
-        if (currentDataSource == null || !dataSource.getId().equals(currentDataSource.getId())) {
-            connect(dataSource);
+        DataSource previous = bind(dataSource);
+        try {
+            return getTables(dataSource.getDatabaseName(), schema);
+        } finally {
+            restore(previous);
+        }
+    }
+
+    @Override
+    public List<ColumnInfo> getColumns(DataSource dataSource, String schema, String table) throws Exception {
+        DataSource previous = bind(dataSource);
+        try {
+            return getColumns(dataSource.getDatabaseName(), schema, table);
+        } finally {
+            restore(previous);
+        }
+    }
+
+    @Override
+    public List<TableInfo> getTablesWithColumns(DataSource dataSource, String schema) throws Exception {
+        DataSource previous = bind(dataSource);
+        try {
+            return readSchemaCatalog(schema, null);
+        } finally {
+            restore(previous);
+        }
+    }
+
+    @Override
+    public TableInfo getTableWithColumns(DataSource dataSource, String schema, String table) throws Exception {
+        DataSource previous = bind(dataSource);
+        try {
+            List<TableInfo> tables = readSchemaCatalog(schema, table);
+            return tables.isEmpty() ? null : tables.get(0);
+        } finally {
+            restore(previous);
+        }
+    }
+
+    @Override
+    public void cancelCatalogReads(DataSource dataSource) {
+        Set<Statement> statements = runningCatalogQueries.get(dataSource.getId());
+        if (statements == null) {
+            return;
+        }
+        for (Statement statement : statements) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                log.warn("Failed to cancel catalog query for data source {}: {}", dataSource.getName(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public Map<String, LocalDateTime> getTableChangeTimes(DataSource dataSource, String schema) throws Exception {
+        DataSource previous = bind(dataSource);
+        try {
+            return getTableChangeTimes(schema);
+        } finally {
+            restore(previous);
         }
-        
-        return getTables(dataSource.getDatabaseName(), schema);
     }
-    
+
+    /**
+     * 从源库目录读取指定模式下各表的最近变更时间，由具体适配器实现
+     */
+    protected abstract Map<String, LocalDateTime> getTableChangeTimes(String schema) throws Exception;
+
+    /**
+     * 通过针对系统目录的集合查询读取模式的表定义，由具体适配器实现
+     *
+     * @param table 表名，为null时读取整个模式，否则只读取该表
+     */
+    protected abstract List<TableInfo> readSchemaCatalog(String schema, String table) throws Exception;
+
     // 保护方法，供子类使用
-    
+
+    /**
+     * 从当前线程绑定数据源的连接池借用连接
+     *
+     * @return 池化连接，使用后必须关闭
+     */
+    protected Connection borrowConnection() throws SQLException {
+        return connectionPoolRegistry.getConnection(currentDataSource());
+    }
+
+    /**
+     * 获取当前线程绑定的数据源
+     */
+    protected DataSource currentDataSource() throws DataSourceException {
+        DataSource dataSource = boundDataSource.get();
+        if (dataSource == null) {
+            throw new DataSourceException("Database connection is not established, call connect() first");
+        }
+        return dataSource;
+    }
+
+    /**
+     * 将数据源绑定到当前线程，返回之前绑定的数据源以便恢复
+     */
+    protected DataSource bind(DataSource dataSource) {
+        DataSource previous = boundDataSource.get();
+        boundDataSource.set(dataSource);
+        return previous;
+    }
+
+    /**
+     * 恢复之前绑定到当前线程的数据源
+     */
+    protected void restore(DataSource previous) {
+        if (previous == null) {
+            boundDataSource.remove();
+        } else {
+            boundDataSource.set(previous);
+        }
+    }
+
+    /**
+     * 执行一条目录查询，逐行交给处理器
+     *
+     * 查询执行期间登记在当前数据源下，可由cancelCatalogReads中止；线程已被中断时不再发出查询
+     *
+     * @param params 按顺序绑定的字符串参数
+     */
+    protected void queryCatalog(Connection connection, String sql, RowHandler handler, String... params)
+            throws SQLException {
+        String dataSourceId = currentDataSource().getId();
+        Set<Statement> running = dataSourceId == null ? ConcurrentHashMap.newKeySet()
+                : runningCatalogQueries.computeIfAbsent(dataSourceId, id -> ConcurrentHashMap.newKeySet());
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            // 先登记再检查中断，取消方中断线程后再中止已登记的语句，两者之间不会漏掉查询
+            running.add(stmt);
+            try {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new SQLException("Catalog query interrupted");
+                }
+                for (int i = 0; i < params.length; i++) {
+                    stmt.setString(i + 1, params[i]);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        handler.handle(rs);
+                    }
+                }
+            } finally {
+                running.remove(stmt);
+            }
+        }
+    }
+
+    /**
+     * 目录查询的行处理器
+     */
+    @FunctionalInterface
+    protected interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
     /**
      * 创建测试连接
-     * 
+     *
+     * 测试连接不经过连接池，以便验证尚未保存的数据源配置
+     *
      * @param dataSource 数据源配置
      * @return 数据库连接
      */
     protected Connection getTestConnection(DataSource dataSource) throws SQLException, ClassNotFoundException {
         // 加载驱动
-        Class.forName(dataSource.getDriverClassName());
-        
+        if (dataSource.getDriverClassName() != null) {
+            Class.forName(dataSource.getDriverClassName());
+        }
+
         // 设置连接属性
         Properties props = new Properties();
         props.setProperty("user", dataSource.getUsername());
         props.setProperty("password", dataSource.getPassword());
-        
+
         // 添加自定义连接属性
         if (dataSource.getConnectionProperties() != null) {
             dataSource.getConnectionProperties().forEach(props::setProperty);
         }
-        
+
         // 获取连接
-        return DriverManager.getConnection(dataSource.getJdbcUrl(), props);
-    }
-    
-    /**
-     * 检查数据库连接是否有效
-     */
-    protected void checkConnection() throws DataSourceException {
-        try {
-            if (connection == null || connection.isClosed()) {
-                throw new DataSourceException("Database connection is not established or has been closed");
-            }
-        } catch (SQLException e) {
-            throw new DataSourceException("Error checking database connection status", e);
-        }
+        return DriverManager.getConnection(DataSourceConnectionPoolRegistry.resolveJdbcUrl(dataSource), props);
     }
-}
\ No newline at end of file
+}
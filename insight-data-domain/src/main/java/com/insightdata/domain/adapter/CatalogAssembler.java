@@ -0,0 +1,114 @@
+package com.insightdata.domain.adapter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.insightdata.domain.metadata.model.ColumnInfo;
+import com.insightdata.domain.metadata.model.ForeignKeyColumnInfo;
+import com.insightdata.domain.metadata.model.ForeignKeyInfo;
+import com.insightdata.domain.metadata.model.IndexInfo;
+import com.insightdata.domain.metadata.model.TableInfo;
+
+/**
+ * 目录数据组装器
+ *
+ * 适配器对整个模式执行少量集合查询（表、列、外键、索引），每个查询的结果行按表名分发到这里，
+ * 在内存中组装成完整的TableInfo/ColumnInfo，避免逐表、逐列调用DatabaseMetaData。
+ * 未通过addTable登记的表（例如视图）的列、外键和索引会被忽略。
+ */
+class CatalogAssembler {
+
+    private final String schemaName;
+    private final Map<String, TableInfo> tables = new LinkedHashMap<>();
+    private final Map<String, Map<String, ForeignKeyInfo>> foreignKeys = new HashMap<>();
+    private final Map<String, Map<String, IndexInfo>> indexes = new HashMap<>();
+
+    CatalogAssembler(String schemaName) {
+        this.schemaName = schemaName;
+    }
+
+    /**
+     * 登记一张表
+     *
+     * @param rowCount 目录统计信息中的行数，未收集统计信息时为-1
+     */
+    TableInfo addTable(String name, String description, long rowCount) {
+        TableInfo table = new TableInfo();
+        table.setName(name);
+        table.setSchemaName(schemaName);
+        table.setDescription(description);
+        table.setRowCount(rowCount);
+        table.setColumns(new ArrayList<>());
+        table.setForeignKeys(new ArrayList<>());
+        table.setIndexes(new ArrayList<>());
+        tables.put(name, table);
+        return table;
+    }
+
+    /**
+     * 追加一列，调用方应按列序号顺序追加
+     */
+    void addColumn(String tableName, ColumnInfo column) {
+        TableInfo table = tables.get(tableName);
+        if (table != null) {
+            table.getColumns().add(column);
+        }
+    }
+
+    /**
+     * 追加外键的一对列，调用方应按外键内的列序号顺序追加
+     */
+    void addForeignKeyColumn(String tableName, String constraintName, String targetTableName,
+                             String sourceColumnName, String targetColumnName) {
+        TableInfo table = tables.get(tableName);
+        if (table == null) {
+            return;
+        }
+        ForeignKeyInfo foreignKey = foreignKeys.computeIfAbsent(tableName, k -> new HashMap<>())
+                .computeIfAbsent(constraintName, k -> {
+                    ForeignKeyInfo created = ForeignKeyInfo.builder()
+                            .name(constraintName)
+                            .sourceTableName(tableName)
+                            .targetTableName(targetTableName)
+                            .columns(new ArrayList<>())
+                            .build();
+                    table.getForeignKeys().add(created);
+                    return created;
+                });
+        foreignKey.getColumns().add(ForeignKeyColumnInfo.builder()
+                .sourceColumnName(sourceColumnName)
+                .targetColumnName(targetColumnName)
+                .build());
+    }
+
+    /**
+     * 追加索引的一列，调用方应按索引内的列序号顺序追加
+     */
+    void addIndexColumn(String tableName, String indexName, boolean unique, String columnName) {
+        TableInfo table = tables.get(tableName);
+        if (table == null) {
+            return;
+        }
+        IndexInfo index = indexes.computeIfAbsent(tableName, k -> new HashMap<>())
+                .computeIfAbsent(indexName, k -> {
+                    IndexInfo created = IndexInfo.builder()
+                            .name(indexName)
+                            .isUnique(unique)
+                            .columns(new ArrayList<>())
+                            .build();
+                    table.getIndexes().add(created);
+                    return created;
+                });
+        index.getColumns().add(columnName);
+    }
+
+    /**
+     * @return 按登记顺序排列的表
+     */
+    List<TableInfo> getTables() {
+        return new ArrayList<>(tables.values());
+    }
+}
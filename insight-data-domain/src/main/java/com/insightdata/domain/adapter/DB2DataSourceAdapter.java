@@ -1,86 +1,77 @@
 package com.insightdata.domain.adapter;
 
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
 
 import org.springframework.stereotype.Component;
 
 import com.insightdata.domain.exception.DataSourceException;
 import com.insightdata.domain.metadata.model.ColumnInfo;
-import com.insightdata.domain.metadata.model.DataSource;
-import com.insightdata.domain.metadata.model.SchemaInfo;
 import com.insightdata.domain.metadata.model.TableInfo;
+import com.insightdata.domain.nlquery.executor.ColumnarResultSet;
 import com.insightdata.domain.nlquery.executor.QueryResult;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * DB2数据源适配器
+ *
+ * 表、列、主键、外键和索引直接查询SYSCAT目录视图，行数取自RUNSTATS收集的统计信息，
+ * 不对业务表执行COUNT(*)。
  */
 @Slf4j
 @Component
-public class DB2DataSourceAdapter implements DataSourceAdapter {
-    
-    private Connection connection;
-    private DataSource currentDataSource;
-    
-    @Override
-    public void connect(DataSource config) throws Exception {
-        try {
-            // 加载驱动
-            Class.forName(config.getDriverClassName());
-            
-            // 设置连接属性
-            Properties props = new Properties();
-            props.setProperty("user", config.getUsername());
-            props.setProperty("password", config.getPassword()); // 使用普通密码，非加密
-            
-            // 添加自定义连接属性
-            if (config.getConnectionProperties() != null) {
-                config.getConnectionProperties().forEach(props::setProperty);
-            }
-            
-            // 获取连接
-            connection = DriverManager.getConnection(config.getJdbcUrl(), props);
-            currentDataSource = config;
-        } catch (SQLException | ClassNotFoundException e) {
-            log.error("Failed to connect to DB2 database: {}", config.getName(), e);
-            throw new DataSourceException("Failed to connect to DB2 database: " + e.getMessage(), e);
-        }
-    }
-    
-    @Override
-    public void disconnect() throws Exception {
-        if (connection != null && !connection.isClosed()) {
-            connection.close();
-            connection = null;
-        }
-    }
-    
-    @Override
-    public boolean testConnection(DataSource config) throws Exception {
-        try (Connection conn = getTestConnection(config)) {
-            return conn != null && !conn.isClosed();
-        } catch (Exception e) {
-            log.error("Failed to test connection to DB2 database: {}", config.getName(), e);
-            throw e;
-        }
-    }
-    
+public class DB2DataSourceAdapter extends AbstractDataSourceAdapter {
+
+    private static final String TABLES_SQL = "SELECT TABNAME, REMARKS, CARD FROM SYSCAT.TABLES "
+            + "WHERE TABSCHEMA = ? AND TYPE = 'T'";
+
+    private static final String TABLES_ORDER = " ORDER BY TABNAME";
+
+    // 主键列通过SYSCAT.KEYCOLUSE与主键约束关联，在同一查询中标记
+    private static final String COLUMNS_SQL = "SELECT c.TABNAME, c.COLNAME, c.TYPENAME, c.NULLS, c.REMARKS, "
+            + "CASE WHEN pk.COLNAME IS NULL THEN 0 ELSE 1 END AS IS_PK "
+            + "FROM SYSCAT.COLUMNS c "
+            + "LEFT JOIN (SELECT k.TABSCHEMA, k.TABNAME, k.COLNAME FROM SYSCAT.KEYCOLUSE k "
+            + "JOIN SYSCAT.TABCONST tc ON tc.TABSCHEMA = k.TABSCHEMA AND tc.TABNAME = k.TABNAME "
+            + "AND tc.CONSTNAME = k.CONSTNAME WHERE tc.TYPE = 'P') pk "
+            + "ON pk.TABSCHEMA = c.TABSCHEMA AND pk.TABNAME = c.TABNAME AND pk.COLNAME = c.COLNAME "
+            + "WHERE c.TABSCHEMA = ?";
+
+    private static final String COLUMNS_ORDER = " ORDER BY c.TABNAME, c.COLNO";
+
+    private static final String FOREIGN_KEYS_SQL = "SELECT r.TABNAME, r.CONSTNAME, r.REFTABNAME, "
+            + "fk.COLNAME, pk.COLNAME AS REFCOLNAME "
+            + "FROM SYSCAT.REFERENCES r "
+            + "JOIN SYSCAT.KEYCOLUSE fk ON fk.TABSCHEMA = r.TABSCHEMA AND fk.TABNAME = r.TABNAME "
+            + "AND fk.CONSTNAME = r.CONSTNAME "
+            + "JOIN SYSCAT.KEYCOLUSE pk ON pk.TABSCHEMA = r.REFTABSCHEMA AND pk.TABNAME = r.REFTABNAME "
+            + "AND pk.CONSTNAME = r.REFKEYNAME AND pk.COLSEQ = fk.COLSEQ "
+            + "WHERE r.TABSCHEMA = ?";
+
+    private static final String FOREIGN_KEYS_ORDER = " ORDER BY r.TABNAME, r.CONSTNAME, fk.COLSEQ";
+
+    // UNIQUERULE: D=允许重复, U=唯一, P=主键
+    private static final String INDEXES_SQL = "SELECT i.TABNAME, i.INDNAME, i.UNIQUERULE, ic.COLNAME "
+            + "FROM SYSCAT.INDEXES i "
+            + "JOIN SYSCAT.INDEXCOLUSE ic ON ic.INDSCHEMA = i.INDSCHEMA AND ic.INDNAME = i.INDNAME "
+            + "WHERE i.TABSCHEMA = ?";
+
+    private static final String INDEXES_ORDER = " ORDER BY i.TABNAME, i.INDNAME, ic.COLSEQ";
+
     @Override
     public List<String> getCatalogs() throws Exception {
-        checkConnection();
         List<String> catalogs = new ArrayList<>();
-        try (ResultSet rs = connection.getMetaData().getCatalogs()) {
+        try (Connection connection = borrowConnection();
+             ResultSet rs = connection.getMetaData().getCatalogs()) {
             while (rs.next()) {
                 catalogs.add(rs.getString("TABLE_CAT"));
             }
@@ -90,12 +81,12 @@ public class DB2DataSourceAdapter implements DataSourceAdapter {
             throw new DataSourceException("Failed to get catalogs from DB2 database", e);
         }
     }
-    
+
     @Override
     public List<String> getSchemas(String catalog) throws Exception {
-        checkConnection();
         List<String> schemas = new ArrayList<>();
-        try (ResultSet rs = connection.getMetaData().getSchemas(catalog, null)) {
+        try (Connection connection = borrowConnection();
+             ResultSet rs = connection.getMetaData().getSchemas(catalog, null)) {
             while (rs.next()) {
                 schemas.add(rs.getString("TABLE_SCHEM"));
             }
@@ -105,185 +96,132 @@ public class DB2DataSourceAdapter implements DataSourceAdapter {
             throw new DataSourceException("Failed to get schemas from DB2 database", e);
         }
     }
-    
+
     @Override
     public List<TableInfo> getTables(String catalog, String schema) throws Exception {
-        checkConnection();
-        List<TableInfo> tables = new ArrayList<>();
-        try (ResultSet rs = connection.getMetaData().getTables(catalog, schema, null, new String[]{"TABLE"})) {
-            while (rs.next()) {
-                TableInfo table = new TableInfo();
-                table.setName(rs.getString("TABLE_NAME"));
-                table.setSchemaName(schema);
-                table.setDescription(rs.getString("REMARKS"));
-                
-                // 设置表的统计信息 - 简化实现
-                table.setRowCount(getRowCountInternal(schema, table.getName()));
-                
-                tables.add(table);
-            }
-            return tables;
+        try (Connection connection = borrowConnection()) {
+            return readTables(connection, schema, "", schema).getTables();
         } catch (SQLException e) {
             log.error("Failed to get tables from DB2 database", e);
             throw new DataSourceException("Failed to get tables from DB2 database", e);
         }
     }
-    
+
     @Override
     public List<ColumnInfo> getColumns(String catalog, String schema, String table) throws Exception {
-        checkConnection();
         List<ColumnInfo> columns = new ArrayList<>();
-        try (ResultSet rs = connection.getMetaData().getColumns(catalog, schema, table, null)) {
-            while (rs.next()) {
-                ColumnInfo column = ColumnInfo.builder()
-                        .name(rs.getString("COLUMN_NAME"))
-                        .tableName(table)
-                        .dataType(rs.getString("TYPE_NAME"))
-                        .isNullable(rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable)
-                        .isPrimaryKey(isPrimaryKey(catalog, schema, table, rs.getString("COLUMN_NAME")))
-                        .description(rs.getString("REMARKS"))
-                        .build();
-                
-                columns.add(column);
-            }
+        try (Connection connection = borrowConnection()) {
+            queryCatalog(connection, COLUMNS_SQL + " AND c.TABNAME = ?" + COLUMNS_ORDER,
+                    rs -> columns.add(toColumn(rs)), schema, table);
             return columns;
         } catch (SQLException e) {
             log.error("Failed to get columns from DB2 database", e);
             throw new DataSourceException("Failed to get columns from DB2 database", e);
         }
     }
-    
+
+    @Override
+    protected List<TableInfo> readSchemaCatalog(String schema, String table) throws Exception {
+        // 只读取一张表时在各目录查询上按各自的表别名追加表名条件
+        boolean single = table != null;
+        String[] params = single ? new String[] {schema, table} : new String[] {schema};
+        try (Connection connection = borrowConnection()) {
+            CatalogAssembler assembler = readTables(connection, schema, single ? " AND TABNAME = ?" : "", params);
+            queryCatalog(connection, COLUMNS_SQL + (single ? " AND c.TABNAME = ?" : "") + COLUMNS_ORDER,
+                    rs -> assembler.addColumn(rs.getString("TABNAME"), toColumn(rs)), params);
+            queryCatalog(connection, FOREIGN_KEYS_SQL + (single ? " AND r.TABNAME = ?" : "") + FOREIGN_KEYS_ORDER,
+                    rs -> assembler.addForeignKeyColumn(rs.getString("TABNAME"), rs.getString("CONSTNAME"),
+                            rs.getString("REFTABNAME"), rs.getString("COLNAME"), rs.getString("REFCOLNAME")), params);
+            queryCatalog(connection, INDEXES_SQL + (single ? " AND i.TABNAME = ?" : "") + INDEXES_ORDER,
+                    rs -> assembler.addIndexColumn(rs.getString("TABNAME"), rs.getString("INDNAME"),
+                            !"D".equals(rs.getString("UNIQUERULE")), rs.getString("COLNAME")), params);
+            return assembler.getTables();
+        } catch (SQLException e) {
+            log.error("Failed to read catalog of schema {} from DB2 database", schema, e);
+            throw new DataSourceException("Failed to read catalog from DB2 database", e);
+        }
+    }
+
     @Override
     public Map<String, Long> getTableSizes(String catalog, String schema) throws Exception {
-        checkConnection();
         Map<String, Long> sizes = new HashMap<>();
-        
+
         // 获取该schema下的所有表
         List<TableInfo> tables = getTables(catalog, schema);
-        
+
         // 对每个表获取其大小
-        for (TableInfo table : tables) {
-            try {
-                long size = getDataSizeInternal(schema, table.getName());
-                sizes.put(table.getName(), size);
-            } catch (Exception e) {
-                log.warn("Failed to get size for table {}.{}: {}", schema, table.getName(), e.getMessage());
-                // 如果获取失败，仍继续处理其他表
-                sizes.put(table.getName(), -1L);
+        try (Connection connection = borrowConnection()) {
+            for (TableInfo table : tables) {
+                try {
+                    long size = getDataSizeInternal(connection, schema, table.getName());
+                    sizes.put(table.getName(), size);
+                } catch (Exception e) {
+                    log.warn("Failed to get size for table {}.{}: {}", schema, table.getName(), e.getMessage());
+                    // 如果获取失败，仍继续处理其他表
+                    sizes.put(table.getName(), -1L);
+                }
             }
         }
-        
+
         return sizes;
     }
-    
+
     @Override
-    public String getDataSourceType() {
-        return "DB2";
+    protected Map<String, LocalDateTime> getTableChangeTimes(String schema) throws Exception {
+        Map<String, LocalDateTime> changeTimes = new HashMap<>();
+        String sql = "SELECT TABNAME, ALTER_TIME FROM SYSCAT.TABLES WHERE TABSCHEMA = ? AND TYPE = 'T'";
+        try (Connection connection = borrowConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, schema);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp alterTime = rs.getTimestamp("ALTER_TIME");
+                    changeTimes.put(rs.getString("TABNAME"), alterTime != null ? alterTime.toLocalDateTime() : null);
+                }
+            }
+            return changeTimes;
+        } catch (SQLException e) {
+            log.error("Failed to get table change times from DB2 database", e);
+            throw new DataSourceException("Failed to get table change times from DB2 database", e);
+        }
     }
-    
+
     @Override
-    public Connection getConnection() {
-        return connection;
+    public String getDataSourceType() {
+        return "DB2";
     }
-    
+
+    // 私有辅助方法
+
     /**
-     * 实现EnhancedDataSourceAdapter接口的方法
+     * 从SYSCAT.TABLES读取表及统计行数，CARD在未执行RUNSTATS时为-1
      */
-    public List<SchemaInfo> getSchemas(DataSource dataSource) throws Exception {
-        if (currentDataSource == null || !dataSource.getId().equals(currentDataSource.getId())) {
-            connect(dataSource);
-        }
-        
-        List<SchemaInfo> schemas = new ArrayList<>();
-        List<String> schemaNames = getSchemas(dataSource.getDatabaseName());
-        
-        for (String schemaName : schemaNames) {
-            SchemaInfo schema = new SchemaInfo();
-            schema.setName(schemaName);
-            schema.setDataSourceId(dataSource.getId());
-            schemas.add(schema);
-        }
-        
-        return schemas;
-    }
-    
-    public SchemaInfo getSchema(DataSource dataSource, String schemaName) throws Exception {
-        if (currentDataSource == null || !dataSource.getId().equals(currentDataSource.getId())) {
-            connect(dataSource);
-        }
-        
-        SchemaInfo schema = new SchemaInfo();
-        schema.setName(schemaName);
-        schema.setDataSourceId(dataSource.getId());
-        
-        // 获取此schema的表信息
-        List<TableInfo> tables = getTables(dataSource.getDatabaseName(), schemaName);
-        schema.setTables(tables);
-        
-        return schema;
+    private CatalogAssembler readTables(Connection connection, String schema, String filter, String... params)
+            throws SQLException {
+        CatalogAssembler assembler = new CatalogAssembler(schema);
+        queryCatalog(connection, TABLES_SQL + filter + TABLES_ORDER,
+                rs -> assembler.addTable(rs.getString("TABNAME"), rs.getString("REMARKS"), rs.getLong("CARD")), params);
+        return assembler;
     }
-    
-    public List<TableInfo> getTables(DataSource dataSource, String schema) throws Exception {
-        if (currentDataSource == null || !dataSource.getId().equals(currentDataSource.getId())) {
-            connect(dataSource);
-        }
-        
-        return getTables(dataSource.getDatabaseName(), schema);
-    }
-    
-    // 私有辅助方法
-    
-    private Connection getTestConnection(DataSource dataSource) throws SQLException, ClassNotFoundException {
-        // 加载驱动
-        Class.forName(dataSource.getDriverClassName());
-        
-        // 设置连接属性
-        Properties props = new Properties();
-        props.setProperty("user", dataSource.getUsername());
-        props.setProperty("password", dataSource.getPassword());
-        
-        // 添加自定义连接属性
-        if (dataSource.getConnectionProperties() != null) {
-            dataSource.getConnectionProperties().forEach(props::setProperty);
-        }
-        
-        // 获取连接
-        return DriverManager.getConnection(dataSource.getJdbcUrl(), props);
-    }
-    
-    private void checkConnection() throws DataSourceException {
-        try {
-            if (connection == null || connection.isClosed()) {
-                throw new DataSourceException("Database connection is not established or has been closed");
-            }
-        } catch (SQLException e) {
-            throw new DataSourceException("Error checking database connection status", e);
-        }
-    }
-    
-    private long getRowCountInternal(String schemaName, String tableName) {
-        String sql = "SELECT COUNT(*) FROM " + schemaName + "." + tableName;
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            if (rs.next()) {
-                return rs.getLong(1);
-            }
-            return 0;
-        } catch (SQLException e) {
-            log.warn("Failed to get row count for table {}.{}: {}", schemaName, tableName, e.getMessage());
-            return -1;
-        }
+
+    private ColumnInfo toColumn(ResultSet rs) throws SQLException {
+        return ColumnInfo.builder()
+                .name(rs.getString("COLNAME"))
+                .tableName(rs.getString("TABNAME"))
+                .dataType(rs.getString("TYPENAME"))
+                .isNullable("Y".equals(rs.getString("NULLS")))
+                .isPrimaryKey(rs.getInt("IS_PK") == 1)
+                .description(rs.getString("REMARKS"))
+                .build();
     }
-    
-    private long getDataSizeInternal(String schemaName, String tableName) {
+
+    private long getDataSizeInternal(Connection connection, String schemaName, String tableName) {
         String sql = "SELECT SUM(DATA_OBJECT_P_SIZE) FROM TABLE(SYSPROC.ADMIN_GET_TAB_INFO(?, ?))";
-        
+
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, schemaName);
             stmt.setString(2, tableName);
-            
+
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     return rs.getLong(1);
@@ -295,61 +233,35 @@ public class DB2DataSourceAdapter implements DataSourceAdapter {
             return -1;
         }
     }
-    
-    private boolean isPrimaryKey(String catalog, String schema, String table, String column) {
-        try (ResultSet rs = connection.getMetaData().getPrimaryKeys(catalog, schema, table)) {
-            while (rs.next()) {
-                if (column.equals(rs.getString("COLUMN_NAME"))) {
-                    return true;
-                }
-            }
-            return false;
-        } catch (SQLException e) {
-            log.warn("Failed to check if column is primary key: {}.{}.{}: {}",
-                    schema, table, column, e.getMessage());
-            return false;
-        }
-    }
-    
+
     // 以下是辅助方法，用于支持原有功能
 
     public QueryResult executeQuery(String sql) throws SQLException {
-        checkConnection();
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql);
+        try (Connection connection = borrowConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
-            
-            // 获取列信息
-            List<String> columnLabels = new ArrayList<>();
-            for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
-                columnLabels.add(rs.getMetaData().getColumnLabel(i));
-            }
-            
-            // 获取数据
-            List<Map<String, Object>> rows = new ArrayList<>();
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (String label : columnLabels) {
-                    row.put(label, rs.getObject(label));
-                }
-                rows.add(row);
-            }
-            
+
+            ColumnarResultSet columnarData = ColumnarResultSet.read(rs);
+
             return QueryResult.builder()
                     .success(true)
-                    .columnLabels(columnLabels)
-                    .rows(rows)
+                    .columnLabels(columnarData.getColumnLabels())
+                    .columnTypes(columnarData.getColumnTypes())
+                    .columnarData(columnarData)
+                    .totalRows(columnarData.getRowCount())
                     .build();
         }
     }
-    
+
     public String getDatabaseVersion() throws SQLException {
-        checkConnection();
-        return connection.getMetaData().getDatabaseProductVersion();
+        try (Connection connection = borrowConnection()) {
+            return connection.getMetaData().getDatabaseProductVersion();
+        }
     }
-    
+
     public String getDriverVersion() throws SQLException {
-        checkConnection();
-        return connection.getMetaData().getDriverVersion();
+        try (Connection connection = borrowConnection()) {
+            return connection.getMetaData().getDriverVersion();
+        }
     }
-}
\ No newline at end of file
+}
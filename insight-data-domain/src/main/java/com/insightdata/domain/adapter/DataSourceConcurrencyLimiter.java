@@ -0,0 +1,281 @@
+package com.insightdata.domain.adapter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.insightdata.domain.exception.QueryRejectedException;
+import com.insightdata.domain.query.enums.QueryPriority;
+
+/**
+ * 数据源并发访问限制器
+ *
+ * 每个数据源维护固定数量的执行许可，查询执行和元数据读取在借用连接前获取许可，结束后归还。
+ * 并发上限不再依赖线程池大小：使用虚拟线程时任务数量不受限，等待许可的线程只是挂起，
+ * 同时持有连接的线程数（以及驱动内部synchronized导致的载体线程占用）由许可数限制。
+ *
+ * 许可不足时请求按优先级排队，同一优先级内先到先得；后台查询等待时，交互式查询最多连续获得
+ * interactiveWeight个许可，之后让给一个后台查询，避免后台查询被饿死。
+ * 交互式查询排队数达到上限时立即拒绝，等待超过acquireTimeout时拒绝。
+ * 后台查询（元数据同步、计数等）由调用方限制同时提交的任务数，不计入排队上限，
+ * 等待时间以backgroundAcquireTimeout为限，在交互式负载持续时仍能按权重轮到。
+ * 等待使用ReentrantLock，不占用虚拟线程的载体线程。
+ */
+@Component
+public class DataSourceConcurrencyLimiter {
+
+    /**
+     * 每个数据源同时执行的JDBC操作数，默认与连接池大小一致
+     */
+    @Value("${insight.datasource.concurrency.max-concurrent-queries:10}")
+    private int maxConcurrentQueries;
+
+    /**
+     * 等待许可的最长时间（毫秒），超时后快速失败
+     */
+    @Value("${insight.datasource.concurrency.acquire-timeout:30000}")
+    private long acquireTimeout;
+
+    /**
+     * 后台查询等待许可的最长时间（毫秒）
+     */
+    @Value("${insight.datasource.concurrency.background-acquire-timeout:600000}")
+    private long backgroundAcquireTimeout;
+
+    /**
+     * 每个数据源等待许可的最大交互式请求数，超出时立即拒绝
+     */
+    @Value("${insight.datasource.concurrency.max-queue-depth:100}")
+    private int maxQueueDepth;
+
+    /**
+     * 有后台查询等待时，交互式查询最多连续获得的许可数
+     */
+    @Value("${insight.datasource.concurrency.interactive-weight:4}")
+    private int interactiveWeight;
+
+    private final Map<String, Slots> slots = new ConcurrentHashMap<>();
+
+    // 所有数据源正在等待许可的请求数
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong waitCount = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong queueFullRejections = new AtomicLong();
+    private final AtomicLong timeoutRejections = new AtomicLong();
+
+    /**
+     * 获取数据源的一个执行许可，调用方需在try-with-resources中关闭许可
+     *
+     * @param dataSourceId 数据源ID
+     * @param priority     查询优先级
+     * @return 执行许可
+     * @throws QueryRejectedException 交互式查询排队数达到上限、等待超时或线程被中断时抛出
+     */
+    public Permit acquire(String dataSourceId, QueryPriority priority) {
+        Slots target = slots.computeIfAbsent(dataSourceId, id -> new Slots());
+        long start = System.nanoTime();
+        target.lock.lock();
+        try {
+            if (target.waiting() == 0 && target.available > 0) {
+                target.available--;
+                return new Permit(target);
+            }
+            boolean background = priority == QueryPriority.BACKGROUND;
+            if (!background && target.interactive.size() >= maxQueueDepth) {
+                queueFullRejections.incrementAndGet();
+                throw new QueryRejectedException("数据源排队的查询过多，请稍后重试: " + dataSourceId);
+            }
+
+            Waiter waiter = new Waiter(target.lock.newCondition());
+            Deque<Waiter> queue = background ? target.background : target.interactive;
+            queue.addLast(waiter);
+            queued.incrementAndGet();
+            long remaining = TimeUnit.MILLISECONDS.toNanos(background ? backgroundAcquireTimeout : acquireTimeout);
+            try {
+                while (!waiter.granted) {
+                    if (remaining <= 0) {
+                        queue.remove(waiter);
+                        queued.decrementAndGet();
+                        timeoutRejections.incrementAndGet();
+                        throw new QueryRejectedException("等待数据源执行许可超时，请稍后重试: " + dataSourceId);
+                    }
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    // 许可已经转交给当前线程，继续转交给下一个等待者
+                    target.release();
+                } else {
+                    queue.remove(waiter);
+                    queued.decrementAndGet();
+                }
+                Thread.currentThread().interrupt();
+                throw new QueryRejectedException("等待数据源执行许可时被中断: " + dataSourceId);
+            }
+            waitCount.incrementAndGet();
+            waitNanos.addAndGet(System.nanoTime() - start);
+            return new Permit(target);
+        } finally {
+            target.lock.unlock();
+        }
+    }
+
+    /**
+     * 每个数据源的许可数
+     */
+    public int getMaxConcurrentQueries() {
+        return maxConcurrentQueries;
+    }
+
+    /**
+     * 数据源当前可用的许可数
+     */
+    public int getAvailablePermits(String dataSourceId) {
+        Slots target = slots.get(dataSourceId);
+        if (target == null) {
+            return maxConcurrentQueries;
+        }
+        target.lock.lock();
+        try {
+            return target.available;
+        } finally {
+            target.lock.unlock();
+        }
+    }
+
+    /**
+     * 数据源当前等待许可的请求数
+     */
+    public int getQueueDepth(String dataSourceId) {
+        Slots target = slots.get(dataSourceId);
+        if (target == null) {
+            return 0;
+        }
+        target.lock.lock();
+        try {
+            return target.waiting();
+        } finally {
+            target.lock.unlock();
+        }
+    }
+
+    /**
+     * 所有数据源当前等待许可的请求数
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * 经过排队后获得许可的次数
+     */
+    public long getWaitCount() {
+        return waitCount.get();
+    }
+
+    /**
+     * 经过排队后获得许可的累计等待时间（纳秒）
+     */
+    public long getTotalWaitNanos() {
+        return waitNanos.get();
+    }
+
+    public long getQueueFullRejections() {
+        return queueFullRejections.get();
+    }
+
+    public long getTimeoutRejections() {
+        return timeoutRejections.get();
+    }
+
+    /**
+     * 单个数据源的许可和等待队列，所有字段在lock内访问
+     */
+    private final class Slots {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Deque<Waiter> interactive = new ArrayDeque<>();
+        private final Deque<Waiter> background = new ArrayDeque<>();
+        private int available = maxConcurrentQueries;
+
+        // 有后台查询等待时交互式查询连续获得的许可数
+        private int interactiveStreak;
+
+        private int waiting() {
+            return interactive.size() + background.size();
+        }
+
+        /**
+         * 归还许可，有等待者时直接转交给下一个等待者
+         */
+        private void release() {
+            lock.lock();
+            try {
+                Waiter next = next();
+                if (next == null) {
+                    available++;
+                } else {
+                    queued.decrementAndGet();
+                    next.granted = true;
+                    next.condition.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Waiter next() {
+            if (background.isEmpty()) {
+                interactiveStreak = 0;
+                return interactive.poll();
+            }
+            if (!interactive.isEmpty() && interactiveStreak < interactiveWeight) {
+                interactiveStreak++;
+                return interactive.poll();
+            }
+            interactiveStreak = 0;
+            return background.poll();
+        }
+    }
+
+    private static final class Waiter {
+
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * 数据源执行许可，重复关闭只归还一次
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final Slots slots;
+        private boolean released;
+
+        private Permit(Slots slots) {
+            this.slots = slots;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                slots.release();
+            }
+        }
+    }
+}
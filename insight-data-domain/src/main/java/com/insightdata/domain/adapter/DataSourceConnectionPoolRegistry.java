@@ -0,0 +1,209 @@
+package com.insightdata.domain.adapter;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.insightdata.domain.exception.DataSourceException;
+import com.insightdata.domain.metadata.enums.DataSourceType;
+import com.insightdata.domain.metadata.model.DataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 数据源连接池注册表
+ *
+ * 按数据源ID为每个已注册的数据源维护一个独立的HikariCP连接池，
+ * 查询执行和元数据读取都从这里借用连接，使用完毕后关闭即归还连接池。
+ * 连接池在首次借用时懒加载创建，数据源更新或删除时由DataSourceService负责驱逐。
+ * 借用连接时在compute中对连接池的借用计数加一，移除连接池与借用互斥：
+ * 闲置连接池只在没有借用者时移除；被驱逐的连接池立即从注册表移除，
+ * 但推迟到最后一个借用者取得连接后才关闭，避免借用者使用已关闭的连接池。
+ */
+@Slf4j
+@Component
+public class DataSourceConnectionPoolRegistry implements DisposableBean {
+
+    @Value("${insight.datasource.connection-pool.default-max-size:10}")
+    private int maxPoolSize;
+
+    @Value("${insight.datasource.connection-pool.default-min-idle:2}")
+    private int minIdle;
+
+    @Value("${insight.datasource.connection-pool.default-idle-timeout:600000}")
+    private long idleTimeout;
+
+    @Value("${insight.datasource.connection-pool.default-max-lifetime:1800000}")
+    private long maxLifetime;
+
+    @Value("${insight.datasource.connection-pool.default-connection-timeout:30000}")
+    private long connectionTimeout;
+
+    /**
+     * 整个连接池无活跃连接且未被使用超过该时长（毫秒）后将被关闭
+     */
+    @Value("${insight.datasource.connection-pool.pool-idle-timeout:1800000}")
+    private long poolIdleTimeout;
+
+    private final Map<String, PooledDataSource> pools = new ConcurrentHashMap<>();
+
+    /**
+     * 从数据源对应的连接池借用一个连接，调用方负责关闭连接以将其归还连接池
+     *
+     * @param dataSource 数据源配置
+     * @return 池化连接
+     */
+    public Connection getConnection(DataSource dataSource) throws SQLException {
+        if (dataSource == null || dataSource.getId() == null) {
+            throw DataSourceException.invalidConfig("Data source id is required to borrow a pooled connection");
+        }
+        PooledDataSource pooled = pools.compute(dataSource.getId(), (id, current) -> {
+            PooledDataSource result = current != null ? current : createPool(dataSource);
+            result.borrowers.incrementAndGet();
+            result.lastAccessTime = System.currentTimeMillis();
+            return result;
+        });
+        try {
+            return pooled.dataSource.getConnection();
+        } finally {
+            if (pooled.borrowers.decrementAndGet() == 0 && pooled.retired) {
+                pooled.close();
+            }
+        }
+    }
+
+    /**
+     * 关闭并移除数据源对应的连接池，下次借用连接时将按最新配置重建
+     *
+     * @param dataSourceId 数据源ID
+     */
+    public void evict(String dataSourceId) {
+        if (dataSourceId == null) {
+            return;
+        }
+        PooledDataSource pooled = pools.remove(dataSourceId);
+        if (pooled != null) {
+            log.info("Closing connection pool for data source: {}", dataSourceId);
+            pooled.retired = true;
+            if (pooled.borrowers.get() == 0) {
+                pooled.close();
+            }
+        }
+    }
+
+    /**
+     * 是否已为数据源创建连接池
+     */
+    public boolean contains(String dataSourceId) {
+        return dataSourceId != null && pools.containsKey(dataSourceId);
+    }
+
+    /**
+     * 定期关闭长时间未使用且没有活跃连接的连接池
+     */
+    @Scheduled(fixedDelayString = "${insight.datasource.connection-pool.eviction-interval:60000}")
+    public void evictIdlePools() {
+        long now = System.currentTimeMillis();
+        for (String id : pools.keySet()) {
+            PooledDataSource[] removed = new PooledDataSource[1];
+            // 判断与移除在同一个compute中完成，正在借用的线程持有计数时不会被移除
+            pools.computeIfPresent(id, (key, pooled) -> {
+                HikariPoolMXBean pool = pooled.dataSource.getHikariPoolMXBean();
+                boolean inUse = pooled.borrowers.get() > 0 || pool != null && pool.getActiveConnections() > 0;
+                if (inUse || now - pooled.lastAccessTime <= poolIdleTimeout) {
+                    return pooled;
+                }
+                removed[0] = pooled;
+                return null;
+            });
+            if (removed[0] != null) {
+                log.info("Closing idle connection pool for data source: {}", id);
+                removed[0].close();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        pools.keySet().forEach(this::evict);
+    }
+
+    /**
+     * 解析数据源的JDBC URL，未显式配置时根据数据源类型拼接
+     */
+    public static String resolveJdbcUrl(DataSource dataSource) {
+        if (dataSource.getJdbcUrl() != null && !dataSource.getJdbcUrl().isEmpty()) {
+            return dataSource.getJdbcUrl();
+        }
+        DataSourceType type = dataSource.getType();
+        if (type == null) {
+            throw DataSourceException.invalidConfig("Data source type is required: " + dataSource.getName());
+        }
+        String address = dataSource.getHost() + ":" + dataSource.getPort() + "/" + dataSource.getDatabaseName();
+        switch (type) {
+            case MYSQL:
+                return "jdbc:mysql://" + address;
+            case DB2:
+                return "jdbc:db2://" + address;
+            default:
+                throw DataSourceException.invalidConfig("Unsupported data source type: " + type);
+        }
+    }
+
+    private PooledDataSource createPool(DataSource dataSource) {
+        log.info("Creating connection pool for data source: {} ({})", dataSource.getName(), dataSource.getId());
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("ds-" + dataSource.getId());
+        config.setJdbcUrl(resolveJdbcUrl(dataSource));
+        if (dataSource.getDriverClassName() != null && !dataSource.getDriverClassName().isEmpty()) {
+            config.setDriverClassName(dataSource.getDriverClassName());
+        }
+        config.setUsername(dataSource.getUsername());
+        config.setPassword(dataSource.getPassword());
+        if (dataSource.getConnectionProperties() != null) {
+            dataSource.getConnectionProperties().forEach(config::addDataSourceProperty);
+        }
+
+        config.setMaximumPoolSize(maxPoolSize);
+        config.setMinimumIdle(Math.min(minIdle, maxPoolSize));
+        config.setIdleTimeout(idleTimeout);
+        config.setMaxLifetime(maxLifetime);
+        config.setConnectionTimeout(connectionTimeout);
+        // 数据源暂时不可达时不阻止连接池创建，首次借用连接时再报告错误
+        config.setInitializationFailTimeout(-1);
+
+        return new PooledDataSource(new HikariDataSource(config));
+    }
+
+    private static final class PooledDataSource {
+        private final HikariDataSource dataSource;
+        // 正在从该连接池借用连接的线程数
+        private final AtomicInteger borrowers = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // 已从注册表移除，等待借用者离开后关闭
+        private volatile boolean retired;
+        private volatile long lastAccessTime = System.currentTimeMillis();
+
+        private PooledDataSource(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                dataSource.close();
+            }
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.insightdata.domain.adapter;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+import com.insightdata.domain.metadata.model.ColumnInfo;
 import com.insightdata.domain.metadata.model.DataSource;
 import com.insightdata.domain.metadata.model.SchemaInfo;
 import com.insightdata.domain.metadata.model.TableInfo;
@@ -42,4 +45,62 @@ public interface EnhancedDataSourceAdapter extends DataSourceAdapter {
      * @throws Exception 如果发生错误
      */
     List<TableInfo> getTables(DataSource dataSource, String schema) throws Exception;
-}
\ No newline at end of file
+    
+    /**
+     * 获取指定数据源中特定表的列信息
+     * 
+     * @param dataSource 数据源配置
+     * @param schema 模式名称
+     * @param table 表名称
+     * @return 列信息列表
+     * @throws Exception 如果发生错误
+     */
+    List<ColumnInfo> getColumns(DataSource dataSource, String schema, String table) throws Exception;
+    
+    /**
+     * 批量读取指定模式下所有表的完整定义
+     * 
+     * 通过少量针对系统目录的集合查询一次取回列、主键、外键、索引和统计行数，
+     * 查询次数与表的数量无关。
+     * 
+     * @param dataSource 数据源配置
+     * @param schema 模式名称
+     * @return 包含列、外键和索引的表信息列表
+     * @throws Exception 如果发生错误
+     */
+    List<TableInfo> getTablesWithColumns(DataSource dataSource, String schema) throws Exception;
+    
+    /**
+     * 读取单张表的完整定义
+     * 
+     * 与getTablesWithColumns使用相同的目录查询，只追加表名条件，
+     * 结果同样包含列、外键、索引和统计行数。
+     * 
+     * @param dataSource 数据源配置
+     * @param schema 模式名称
+     * @param table 表名称
+     * @return 表信息，表不存在时为null
+     * @throws Exception 如果发生错误
+     */
+    TableInfo getTableWithColumns(DataSource dataSource, String schema, String table) throws Exception;
+    
+    /**
+     * 取消指定数据源正在执行的目录查询
+     * 
+     * 阻塞在JDBC读取上的线程不响应中断，取消元数据同步时需要通过Statement.cancel中止查询，
+     * 被中止的读取以异常结束。
+     * 
+     * @param dataSource 数据源配置
+     */
+    void cancelCatalogReads(DataSource dataSource);
+    
+    /**
+     * 获取指定模式下各表在源库目录中记录的最近变更时间
+     * 
+     * @param dataSource 数据源配置
+     * @param schema 模式名称
+     * @return 表名到最近变更时间的映射，目录未记录时间的表值为null
+     * @throws Exception 如果发生错误
+     */
+    Map<String, LocalDateTime> getTableChangeTimes(DataSource dataSource, String schema) throws Exception;
+}
@@ -0,0 +1,98 @@
+package com.insightdata.domain.adapter;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 执行阻塞JDBC调用的线程池工厂
+ *
+ * 启用虚拟线程且运行时支持（JDK 21及以上）时为每个任务创建一个虚拟线程，并发度由
+ * DataSourceConcurrencyLimiter按数据源限制；否则退回到固定大小的平台线程池。
+ * 项目仍以JDK 17编译，虚拟线程相关API通过反射调用。
+ */
+@Slf4j
+public final class JdbcExecutors {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private JdbcExecutors() {
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     */
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 创建执行阻塞任务的线程池
+     *
+     * @param namePrefix      线程名前缀
+     * @param platformThreads 使用平台线程时的线程数
+     * @param virtualThreads  是否优先使用虚拟线程
+     * @return 虚拟线程可用且已启用时为每任务一个虚拟线程的执行器，否则为固定大小的守护线程池
+     */
+    public static ExecutorService newExecutor(String namePrefix, int platformThreads, boolean virtualThreads) {
+        if (virtualThreads) {
+            if (isVirtualThreadSupported()) {
+                return newVirtualThreadExecutor(namePrefix);
+            }
+            log.warn("当前运行时不支持虚拟线程，{}使用平台线程池: threads={}", namePrefix, platformThreads);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(platformThreads, threadFactory);
+    }
+
+    /**
+     * 创建为每个任务启动一个虚拟线程的执行器
+     *
+     * @param namePrefix 线程名前缀
+     * @throws UnsupportedOperationException 当前运行时不支持虚拟线程时抛出
+     */
+    public static ExecutorService newVirtualThreadExecutor(String namePrefix) {
+        if (!isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException("当前运行时不支持虚拟线程");
+        }
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 1L);
+            ThreadFactory threadFactory = (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建虚拟线程执行器失败", e);
+        }
+    }
+}
@@ -1,52 +1,62 @@
 package com.insightdata.domain.adapter;
 
-import com.insightdata.domain.adapter.DataSourceAdapter;
+import com.insightdata.domain.exception.DataSourceException;
 import com.insightdata.domain.metadata.model.ColumnInfo;
-import com.insightdata.domain.metadata.model.DataSource;
-import com.insightdata.domain.metadata.model.SchemaInfo;
 import com.insightdata.domain.metadata.model.TableInfo;
 
 import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.stereotype.Component;
 
+/**
+ * MySQL数据源适配器
+ *
+ * 元数据通过information_schema的集合查询按模式批量读取，行数取自TABLE_ROWS统计值。
+ * MySQL中数据库即模式：数据源配置了数据库名时只同步该数据库，未配置时同步所有非系统数据库。
+ */
 @Component
-public class MySQLDataSourceAdapter implements DataSourceAdapter {
+public class MySQLDataSourceAdapter extends AbstractDataSourceAdapter {
 
-    private Connection connection;
+    private static final String TABLES_SQL = "SELECT TABLE_NAME, TABLE_COMMENT, TABLE_ROWS, DATA_LENGTH, INDEX_LENGTH " +
+            "FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'BASE TABLE'";
 
-    @Override
-    public void connect(DataSource config) throws Exception {
-        String url = "jdbc:mysql://" + config.getHost() + ":" + config.getPort() + "/" + config.getDatabaseName();
-        this.connection = DriverManager.getConnection(url, config.getUsername(), config.getPassword());
-    }
+    private static final String TABLES_ORDER = " ORDER BY TABLE_NAME";
+
+    private static final String COLUMNS_SQL = "SELECT TABLE_NAME, COLUMN_NAME, DATA_TYPE, IS_NULLABLE, COLUMN_KEY, COLUMN_COMMENT " +
+            "FROM information_schema.COLUMNS " +
+            "WHERE TABLE_SCHEMA = ?";
+
+    private static final String COLUMNS_ORDER = " ORDER BY TABLE_NAME, ORDINAL_POSITION";
+
+    private static final String FOREIGN_KEYS_SQL = "SELECT TABLE_NAME, CONSTRAINT_NAME, COLUMN_NAME, " +
+            "REFERENCED_TABLE_NAME, REFERENCED_COLUMN_NAME " +
+            "FROM information_schema.KEY_COLUMN_USAGE " +
+            "WHERE TABLE_SCHEMA = ? AND REFERENCED_TABLE_NAME IS NOT NULL";
+
+    private static final String FOREIGN_KEYS_ORDER = " ORDER BY TABLE_NAME, CONSTRAINT_NAME, ORDINAL_POSITION";
+
+    private static final String INDEXES_SQL = "SELECT TABLE_NAME, INDEX_NAME, NON_UNIQUE, COLUMN_NAME " +
+            "FROM information_schema.STATISTICS " +
+            "WHERE TABLE_SCHEMA = ?";
+
+    private static final String INDEXES_ORDER = " ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX";
+
+    // 只读取一张表时追加到各目录查询的条件，四个目录视图的表名列都是TABLE_NAME
+    private static final String TABLE_FILTER = " AND TABLE_NAME = ?";
 
     // 修复系统模式检查
     private boolean isSystemSchema(String schemaName) {
         String upperSchema = schemaName.toUpperCase();
         return upperSchema.equals("INFORMATION_SCHEMA") ||
                 upperSchema.equals("PERFORMANCE_SCHEMA") ||
-                upperSchema.equals("MYSQL");
-    }
-
-    @Override
-    public void disconnect() throws Exception {
-        if (this.connection != null && !this.connection.isClosed()) {
-            this.connection.close();
-        }
-    }
-
-    @Override
-    public boolean testConnection(DataSource config) throws Exception {
-        try {
-            connect(config);
-            return this.connection != null && !this.connection.isClosed();
-        } finally {
-            disconnect();
-        }
+                upperSchema.equals("MYSQL") ||
+                upperSchema.equals("SYS");
     }
 
     @Override
@@ -56,23 +66,71 @@ public class MySQLDataSourceAdapter implements DataSourceAdapter {
 
     @Override
     public List<String> getSchemas(String catalog) throws Exception {
-        throw new UnsupportedOperationException("getSchemas() is not yet implemented for MySQL.");
+        List<String> schemas = new ArrayList<>();
+        try (Connection conn = borrowConnection()) {
+            if (catalog != null && !catalog.isEmpty()) {
+                queryCatalog(conn, "SELECT SCHEMA_NAME FROM information_schema.SCHEMATA WHERE SCHEMA_NAME = ?",
+                        rs -> schemas.add(rs.getString("SCHEMA_NAME")), catalog);
+                return schemas;
+            }
+            queryCatalog(conn, "SELECT SCHEMA_NAME FROM information_schema.SCHEMATA ORDER BY SCHEMA_NAME", rs -> {
+                String schemaName = rs.getString("SCHEMA_NAME");
+                if (!isSystemSchema(schemaName)) {
+                    schemas.add(schemaName);
+                }
+            });
+        } catch (SQLException e) {
+            throw new DataSourceException("Failed to get schemas for MySQL database", e);
+        }
+        return schemas;
     }
 
     @Override
     public List<TableInfo> getTables(String catalog, String schema) throws Exception {
-        throw new UnsupportedOperationException("getTables() is not yet implemented for MySQL.");
+        try (Connection conn = borrowConnection()) {
+            return readTables(conn, schema, "", schema).getTables();
+        } catch (SQLException e) {
+            throw new DataSourceException("Failed to get tables for MySQL database", e);
+        }
     }
 
     @Override
     public List<ColumnInfo> getColumns(String catalog, String schema, String table) throws Exception {
-        throw new UnsupportedOperationException("getColumns() is not yet implemented for MySQL.");
+        List<ColumnInfo> columns = new ArrayList<>();
+        try (Connection conn = borrowConnection()) {
+            queryCatalog(conn, COLUMNS_SQL + " AND TABLE_NAME = ?" + COLUMNS_ORDER,
+                    rs -> columns.add(toColumn(rs)), schema, table);
+        } catch (SQLException e) {
+            throw new DataSourceException("Failed to get columns for MySQL database", e);
+        }
+        return columns;
+    }
+
+    @Override
+    protected List<TableInfo> readSchemaCatalog(String schema, String table) throws Exception {
+        String filter = table != null ? TABLE_FILTER : "";
+        String[] params = table != null ? new String[] {schema, table} : new String[] {schema};
+        try (Connection conn = borrowConnection()) {
+            CatalogAssembler assembler = readTables(conn, schema, filter, params);
+            queryCatalog(conn, COLUMNS_SQL + filter + COLUMNS_ORDER,
+                    rs -> assembler.addColumn(rs.getString("TABLE_NAME"), toColumn(rs)), params);
+            queryCatalog(conn, FOREIGN_KEYS_SQL + filter + FOREIGN_KEYS_ORDER,
+                    rs -> assembler.addForeignKeyColumn(rs.getString("TABLE_NAME"), rs.getString("CONSTRAINT_NAME"),
+                            rs.getString("REFERENCED_TABLE_NAME"), rs.getString("COLUMN_NAME"),
+                            rs.getString("REFERENCED_COLUMN_NAME")), params);
+            queryCatalog(conn, INDEXES_SQL + filter + INDEXES_ORDER,
+                    rs -> assembler.addIndexColumn(rs.getString("TABLE_NAME"), rs.getString("INDEX_NAME"),
+                            rs.getInt("NON_UNIQUE") == 0, rs.getString("COLUMN_NAME")), params);
+            return assembler.getTables();
+        } catch (SQLException e) {
+            throw new DataSourceException("Failed to read catalog for MySQL database", e);
+        }
     }
 
     @Override
     public Map<String, Long> getTableSizes(String catalog, String schema) throws Exception {
         Map<String, Long> tableSizes = new HashMap<>();
-        try (Connection conn = this.connection) {
+        try (Connection conn = borrowConnection()) {
             String query = "SELECT table_name, data_length + index_length as size " +
                     "FROM information_schema.TABLES " +
                     "WHERE table_schema = ?";
@@ -88,18 +146,65 @@ public class MySQLDataSourceAdapter implements DataSourceAdapter {
             }
         } catch (SQLException e) {
             // 修复错误的日志信息
-            throw new Exception("Failed to get table sizes for MySQL database", e);
+            throw new DataSourceException("Failed to get table sizes for MySQL database", e);
         }
         return tableSizes;
     }
 
     @Override
-    public String getDataSourceType() {
-        return "MySQL";
+    protected Map<String, LocalDateTime> getTableChangeTimes(String schema) throws Exception {
+        Map<String, LocalDateTime> changeTimes = new HashMap<>();
+        // InnoDB执行ALTER TABLE重建表时会刷新CREATE_TIME，UPDATE_TIME记录最近一次数据修改；
+        // ALGORITHM=INSTANT的ALTER（如8.0的ADD COLUMN）两者都不刷新，由增量同步的定期指纹巡检发现
+        String query = "SELECT TABLE_NAME, CREATE_TIME, UPDATE_TIME " +
+                "FROM information_schema.TABLES " +
+                "WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'BASE TABLE'";
+        try (Connection conn = borrowConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, schema);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp createTime = rs.getTimestamp("CREATE_TIME");
+                    Timestamp updateTime = rs.getTimestamp("UPDATE_TIME");
+                    Timestamp latest = updateTime != null && (createTime == null || updateTime.after(createTime))
+                            ? updateTime : createTime;
+                    changeTimes.put(rs.getString("TABLE_NAME"), latest != null ? latest.toLocalDateTime() : null);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataSourceException("Failed to get table change times for MySQL database", e);
+        }
+        return changeTimes;
+    }
+
+    /**
+     * 从information_schema.TABLES读取表及行数，InnoDB的TABLE_ROWS是统计估算值
+     */
+    private CatalogAssembler readTables(Connection conn, String schema, String filter, String... params)
+            throws SQLException {
+        CatalogAssembler assembler = new CatalogAssembler(schema);
+        queryCatalog(conn, TABLES_SQL + filter + TABLES_ORDER, rs -> {
+            TableInfo table = assembler.addTable(rs.getString("TABLE_NAME"), rs.getString("TABLE_COMMENT"),
+                    rs.getLong("TABLE_ROWS"));
+            table.setDataSize(rs.getLong("DATA_LENGTH"));
+            table.setIndexSize(rs.getLong("INDEX_LENGTH"));
+        }, params);
+        return assembler;
+    }
+
+    private ColumnInfo toColumn(ResultSet rs) throws SQLException {
+        return ColumnInfo.builder()
+                .name(rs.getString("COLUMN_NAME"))
+                .tableName(rs.getString("TABLE_NAME"))
+                .dataType(rs.getString("DATA_TYPE"))
+                .isNullable("YES".equals(rs.getString("IS_NULLABLE")))
+                .isPrimaryKey("PRI".equals(rs.getString("COLUMN_KEY")))
+                .description(rs.getString("COLUMN_COMMENT"))
+                .build();
     }
 
     @Override
-    public Connection getConnection() {
-        return this.connection;
+    public String getDataSourceType() {
+        return "MySQL";
     }
-}
\ No newline at end of file
+}
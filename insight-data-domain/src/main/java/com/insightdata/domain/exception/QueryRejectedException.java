@@ -0,0 +1,14 @@
+package com.insightdata.domain.exception;
+
+/**
+ * 查询被拒绝异常
+ * 当等待执行的查询数量达到上限、无法再接受新查询时抛出此异常
+ */
+public class QueryRejectedException extends InsightDataException {
+
+    private static final long serialVersionUID = 1L;
+
+    public QueryRejectedException(String message) {
+        super("QUERY_REJECTED", message);
+    }
+}
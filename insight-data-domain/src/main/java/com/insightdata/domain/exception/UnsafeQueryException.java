@@ -0,0 +1,14 @@
+package com.insightdata.domain.exception;
+
+/**
+ * 不安全查询异常
+ * 当SQL包含大表的笛卡尔积或缺少过滤条件的全表聚合等可能压垮数据源的操作时抛出此异常
+ */
+public class UnsafeQueryException extends InsightDataException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UnsafeQueryException(String message) {
+        super("UNSAFE_QUERY", message);
+    }
+}
@@ -0,0 +1,31 @@
+package com.insightdata.domain.metadata.enums;
+
+/**
+ * 表变更类型枚举
+ */
+public enum TableChangeType {
+    /**
+     * 新建表
+     */
+    CREATED("新建"),
+    
+    /**
+     * 表结构变更
+     */
+    ALTERED("结构变更"),
+    
+    /**
+     * 删除表
+     */
+    DROPPED("删除");
+    
+    private final String displayName;
+    
+    TableChangeType(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+}
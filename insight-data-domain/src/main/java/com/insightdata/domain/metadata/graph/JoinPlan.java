@@ -0,0 +1,73 @@
+package com.insightdata.domain.metadata.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.insightdata.domain.metadata.model.TableRelationship;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 连接若干张表的连接方案
+ *
+ * 由RelationshipGraph的最短路径或Steiner树查询得到。tables按连接顺序排列，第一张表之后的每张表
+ * 都对应steps中的一步：通过relationship与之前已经加入的某张表连接。
+ * unreachableTables为关系图中无法与第一张表连通的请求表，调用方需要自行处理。
+ */
+@Getter
+@AllArgsConstructor
+public class JoinPlan {
+
+    /**
+     * 按连接顺序排列的表，包括为连通请求表而加入的中间表
+     */
+    private final List<String> tables;
+
+    /**
+     * 连接步骤，与tables中第二张表起一一对应
+     */
+    private final List<Step> steps;
+
+    /**
+     * 无法连通的请求表
+     */
+    private final List<String> unreachableTables;
+
+    /**
+     * 各步连接代价之和，越小越可信
+     */
+    private final double cost;
+
+    /**
+     * 连接方案用到的表关系
+     */
+    public List<TableRelationship> getRelationships() {
+        List<TableRelationship> relationships = new ArrayList<>(steps.size());
+        for (Step step : steps) {
+            relationships.add(step.getRelationship());
+        }
+        return relationships;
+    }
+
+    /**
+     * 所有请求表都已连通
+     */
+    public boolean isConnected() {
+        return unreachableTables.isEmpty();
+    }
+
+    /**
+     * 一步连接：把table通过relationship连接到已加入的joinedTo
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Step {
+
+        private final String table;
+
+        private final String joinedTo;
+
+        private final TableRelationship relationship;
+    }
+}
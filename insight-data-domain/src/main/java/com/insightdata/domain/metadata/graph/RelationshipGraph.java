@@ -0,0 +1,547 @@
+package com.insightdata.domain.metadata.graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.insightdata.domain.metadata.model.TableRelationship;
+
+/**
+ * 一个数据源的表关系图
+ *
+ * 表名（忽略大小写）驻留为连续的整数ID，每张表维护一个邻接表，一条表关系在两端各出现一次，按无向边参与路径查找。
+ * 边的代价由TableRelationship.getScore()得出：代价 = 1 - ln(score)，每跨一张表至少为1，
+ * 得分越低代价越高，路径代价相当于跳数加上各关系得分乘积的负对数；得分为0的关系不参与路径查找。
+ *
+ * 支持按关系增量插入、更新和删除；查询和修改通过读写锁隔离，可在线程间共享。
+ */
+public final class RelationshipGraph {
+
+    private static final double UNREACHABLE = Double.POSITIVE_INFINITY;
+
+    private final String dataSourceId;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 小写表名到表ID
+    private final Map<String, Integer> tableIds = new HashMap<>();
+
+    // 表ID到表名，保留首次出现时的大小写
+    private final List<String> tableNames = new ArrayList<>();
+
+    private final List<List<Edge>> adjacency = new ArrayList<>();
+
+    // 关系ID（未保存的关系为其表列组合）到边
+    private final Map<String, Edge> edges = new HashMap<>();
+
+    public RelationshipGraph(String dataSourceId, Collection<TableRelationship> relationships) {
+        this.dataSourceId = dataSourceId;
+        for (TableRelationship relationship : relationships) {
+            addEdge(relationship);
+        }
+    }
+
+    public String getDataSourceId() {
+        return dataSourceId;
+    }
+
+    public int getTableCount() {
+        lock.readLock().lock();
+        try {
+            return tableNames.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getRelationshipCount() {
+        lock.readLock().lock();
+        try {
+            return edges.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 插入或替换一条表关系，已有同ID的关系时按新的表、列和得分替换
+     */
+    public void upsert(TableRelationship relationship) {
+        lock.writeLock().lock();
+        try {
+            removeEdge(key(relationship));
+            removeEdge(linkKey(relationship));
+            addEdge(relationship);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除一条表关系
+     *
+     * @return 关系存在并已删除时返回true
+     */
+    public boolean remove(TableRelationship relationship) {
+        lock.writeLock().lock();
+        try {
+            return removeEdge(key(relationship));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取一端在给定表中的全部表关系
+     */
+    public List<TableRelationship> getRelationships(Collection<String> tables) {
+        lock.readLock().lock();
+        try {
+            Set<TableRelationship> relationships = new LinkedHashSet<>();
+            for (String table : tables) {
+                Integer id = table == null ? null : tableIds.get(table.toLowerCase(Locale.ROOT));
+                if (id != null) {
+                    for (Edge edge : adjacency.get(id)) {
+                        relationships.add(edge.relationship);
+                    }
+                }
+            }
+            return new ArrayList<>(relationships);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 两张表之间代价最小的k条无环连接路径（Yen算法）
+     *
+     * @param source 起始表
+     * @param target 目标表
+     * @param k      最多返回的路径数
+     * @return 按代价升序排列的连接路径，两张表不连通或不在关系图中时为空
+     */
+    public List<JoinPlan> shortestPaths(String source, String target, int k) {
+        lock.readLock().lock();
+        try {
+            Integer from = id(source);
+            Integer to = id(target);
+            if (from == null || to == null || k <= 0) {
+                return Collections.emptyList();
+            }
+            if (from.equals(to)) {
+                return Collections.singletonList(toPlan(new Path(Collections.singletonList(from),
+                        Collections.emptyList(), 0)));
+            }
+
+            List<Path> found = new ArrayList<>();
+            Path first = path(dijkstra(from, to, null, null), from, to);
+            if (first == null) {
+                return Collections.emptyList();
+            }
+            found.add(first);
+            PriorityQueue<Path> candidates = new PriorityQueue<>(Comparator.comparingDouble(path -> path.cost));
+            Set<List<Edge>> seen = new HashSet<>();
+            seen.add(first.edges);
+
+            while (found.size() < k) {
+                Path previous = found.get(found.size() - 1);
+                for (int i = 0; i < previous.nodes.size() - 1; i++) {
+                    int spur = previous.nodes.get(i);
+                    List<Integer> rootNodes = previous.nodes.subList(0, i + 1);
+                    List<Edge> rootEdges = previous.edges.subList(0, i);
+
+                    // 禁止与已找到的路径共享根路径后走同一条边，禁止回到根路径上的表
+                    Set<Edge> bannedEdges = new HashSet<>();
+                    for (Path path : found) {
+                        if (path.nodes.size() > i && path.nodes.subList(0, i + 1).equals(rootNodes)) {
+                            bannedEdges.add(path.edges.get(i));
+                        }
+                    }
+                    boolean[] bannedNodes = new boolean[tableNames.size()];
+                    for (int node : rootNodes) {
+                        bannedNodes[node] = node != spur;
+                    }
+
+                    Path spurPath = path(dijkstra(spur, to, bannedNodes, bannedEdges), spur, to);
+                    if (spurPath == null) {
+                        continue;
+                    }
+                    List<Integer> nodes = new ArrayList<>(rootNodes);
+                    nodes.addAll(spurPath.nodes.subList(1, spurPath.nodes.size()));
+                    List<Edge> pathEdges = new ArrayList<>(rootEdges);
+                    pathEdges.addAll(spurPath.edges);
+                    if (seen.add(pathEdges)) {
+                        double cost = spurPath.cost;
+                        for (Edge edge : rootEdges) {
+                            cost += edge.cost;
+                        }
+                        candidates.add(new Path(nodes, pathEdges, cost));
+                    }
+                }
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                found.add(candidates.poll());
+            }
+
+            List<JoinPlan> plans = new ArrayList<>(found.size());
+            for (Path path : found) {
+                plans.add(toPlan(path));
+            }
+            return plans;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 连通一组表的近似最小代价连接树（Steiner树）
+     *
+     * 采用Kou-Markowsky-Berman近似：在请求表之间按最短路径距离构造完全图并求最小生成树，
+     * 把生成树的每条边展开为原图中的最短路径，对展开后的子图再求一次最小生成树，
+     * 最后去掉不是请求表的叶子。代价不超过最优解的两倍。
+     *
+     * @param tables 自然语言查询涉及的表，第一张关系图中已知的表作为连接起点
+     * @return 连接方案，无法连通的请求表列在unreachableTables中
+     */
+    public JoinPlan connect(List<String> tables) {
+        lock.readLock().lock();
+        try {
+            List<Integer> terminals = new ArrayList<>();
+            List<String> unreachable = new ArrayList<>();
+            Set<String> requested = new HashSet<>();
+            for (String table : tables) {
+                if (table == null || !requested.add(table.toLowerCase(Locale.ROOT))) {
+                    continue;
+                }
+                Integer id = id(table);
+                if (id != null) {
+                    terminals.add(id);
+                } else {
+                    unreachable.add(table);
+                }
+            }
+            if (terminals.isEmpty()) {
+                List<String> start = unreachable.isEmpty() ? Collections.emptyList() : unreachable.subList(0, 1);
+                return new JoinPlan(new ArrayList<>(start), Collections.emptyList(),
+                        new ArrayList<>(unreachable.subList(start.size(), unreachable.size())), 0);
+            }
+
+            // 请求表之间的最短路径距离完全图上的最小生成树（Prim）
+            Map<Integer, ShortestPathTree> trees = new HashMap<>();
+            for (int terminal : terminals) {
+                trees.put(terminal, dijkstra(terminal, -1, null, null));
+            }
+            int root = terminals.get(0);
+            Set<Integer> joined = new HashSet<>(Collections.singleton(root));
+            Map<Integer, Integer> parent = new HashMap<>();
+            Map<Integer, Double> key = new HashMap<>();
+            for (int terminal : terminals) {
+                if (terminal != root) {
+                    key.put(terminal, trees.get(root).dist[terminal]);
+                    parent.put(terminal, root);
+                }
+            }
+            Set<Edge> chosen = new LinkedHashSet<>();
+            while (!key.isEmpty()) {
+                int next = -1;
+                double best = UNREACHABLE;
+                for (Map.Entry<Integer, Double> entry : key.entrySet()) {
+                    if (entry.getValue() < best) {
+                        best = entry.getValue();
+                        next = entry.getKey();
+                    }
+                }
+                if (next < 0) {
+                    break;
+                }
+                key.remove(next);
+                joined.add(next);
+                int from = parent.get(next);
+                chosen.addAll(path(trees.get(from), from, next).edges);
+                for (Map.Entry<Integer, Double> entry : key.entrySet()) {
+                    double distance = trees.get(next).dist[entry.getKey()];
+                    if (distance < entry.getValue()) {
+                        entry.setValue(distance);
+                        parent.put(entry.getKey(), next);
+                    }
+                }
+            }
+            for (int terminal : key.keySet()) {
+                unreachable.add(tableNames.get(terminal));
+            }
+
+            List<Edge> tree = prune(spanningTree(chosen), joined);
+            return toPlan(root, tree, unreachable);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 展开后的边可能构成环，按代价求最小生成树（Kruskal）
+     */
+    private static List<Edge> spanningTree(Collection<Edge> candidates) {
+        List<Edge> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.comparingDouble(edge -> edge.cost));
+        Map<Integer, Integer> components = new HashMap<>();
+        List<Edge> tree = new ArrayList<>();
+        for (Edge edge : sorted) {
+            int a = find(components, edge.from);
+            int b = find(components, edge.to);
+            if (a != b) {
+                components.put(a, b);
+                tree.add(edge);
+            }
+        }
+        return tree;
+    }
+
+    private static int find(Map<Integer, Integer> components, int node) {
+        int root = node;
+        while (components.containsKey(root)) {
+            root = components.get(root);
+        }
+        while (components.containsKey(node)) {
+            int next = components.get(node);
+            if (next != root) {
+                components.put(node, root);
+            }
+            node = next;
+        }
+        return root;
+    }
+
+    /**
+     * 反复去掉不是请求表的叶子
+     */
+    private static List<Edge> prune(List<Edge> tree, Set<Integer> terminals) {
+        List<Edge> remaining = new ArrayList<>(tree);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Map<Integer, Integer> degree = new HashMap<>();
+            for (Edge edge : remaining) {
+                degree.merge(edge.from, 1, Integer::sum);
+                degree.merge(edge.to, 1, Integer::sum);
+            }
+            for (int i = remaining.size() - 1; i >= 0; i--) {
+                Edge edge = remaining.get(i);
+                if (degree.get(edge.from) == 1 && !terminals.contains(edge.from)
+                        || degree.get(edge.to) == 1 && !terminals.contains(edge.to)) {
+                    remaining.remove(i);
+                    changed = true;
+                }
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * 从起点按广度优先顺序把连接树转换为连接步骤
+     */
+    private JoinPlan toPlan(int root, List<Edge> tree, List<String> unreachable) {
+        Map<Integer, List<Edge>> treeAdjacency = new HashMap<>();
+        double cost = 0;
+        for (Edge edge : tree) {
+            treeAdjacency.computeIfAbsent(edge.from, k -> new ArrayList<>()).add(edge);
+            treeAdjacency.computeIfAbsent(edge.to, k -> new ArrayList<>()).add(edge);
+            cost += edge.cost;
+        }
+        List<String> ordered = new ArrayList<>();
+        List<JoinPlan.Step> steps = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>(Collections.singleton(root));
+        Deque<Integer> queue = new ArrayDeque<>(Collections.singleton(root));
+        ordered.add(tableNames.get(root));
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (Edge edge : treeAdjacency.getOrDefault(node, Collections.emptyList())) {
+                int next = edge.other(node);
+                if (visited.add(next)) {
+                    ordered.add(tableNames.get(next));
+                    steps.add(new JoinPlan.Step(tableNames.get(next), tableNames.get(node), edge.relationship));
+                    queue.add(next);
+                }
+            }
+        }
+        return new JoinPlan(ordered, steps, unreachable, cost);
+    }
+
+    private JoinPlan toPlan(Path path) {
+        List<String> ordered = new ArrayList<>(path.nodes.size());
+        List<JoinPlan.Step> steps = new ArrayList<>(path.edges.size());
+        ordered.add(tableNames.get(path.nodes.get(0)));
+        for (int i = 0; i < path.edges.size(); i++) {
+            String table = tableNames.get(path.nodes.get(i + 1));
+            ordered.add(table);
+            steps.add(new JoinPlan.Step(table, tableNames.get(path.nodes.get(i)), path.edges.get(i).relationship));
+        }
+        return new JoinPlan(ordered, steps, Collections.emptyList(), path.cost);
+    }
+
+    /**
+     * 单源最短路径（Dijkstra），target为-1时计算到所有表的距离
+     */
+    private ShortestPathTree dijkstra(int source, int target, boolean[] bannedNodes, Set<Edge> bannedEdges) {
+        int n = tableNames.size();
+        double[] dist = new double[n];
+        Arrays.fill(dist, UNREACHABLE);
+        Edge[] previous = new Edge[n];
+        dist[source] = 0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[0]));
+        queue.add(new double[]{0, source});
+        while (!queue.isEmpty()) {
+            double[] top = queue.poll();
+            int node = (int) top[1];
+            if (top[0] > dist[node]) {
+                continue;
+            }
+            if (node == target) {
+                break;
+            }
+            for (Edge edge : adjacency.get(node)) {
+                int next = edge.other(node);
+                if (next == node || edge.cost == UNREACHABLE
+                        || bannedNodes != null && bannedNodes[next]
+                        || bannedEdges != null && bannedEdges.contains(edge)) {
+                    continue;
+                }
+                double distance = dist[node] + edge.cost;
+                if (distance < dist[next]) {
+                    dist[next] = distance;
+                    previous[next] = edge;
+                    queue.add(new double[]{distance, next});
+                }
+            }
+        }
+        return new ShortestPathTree(dist, previous);
+    }
+
+    private static Path path(ShortestPathTree tree, int source, int target) {
+        if (tree.dist[target] == UNREACHABLE) {
+            return null;
+        }
+        List<Integer> nodes = new ArrayList<>();
+        List<Edge> pathEdges = new ArrayList<>();
+        int node = target;
+        nodes.add(node);
+        while (node != source) {
+            Edge edge = tree.previous[node];
+            pathEdges.add(edge);
+            node = edge.other(node);
+            nodes.add(node);
+        }
+        Collections.reverse(nodes);
+        Collections.reverse(pathEdges);
+        return new Path(nodes, pathEdges, tree.dist[target]);
+    }
+
+    private Integer id(String table) {
+        return table == null ? null : tableIds.get(table.toLowerCase(Locale.ROOT));
+    }
+
+    private int intern(String table) {
+        String normalized = table.toLowerCase(Locale.ROOT);
+        Integer id = tableIds.get(normalized);
+        if (id == null) {
+            id = tableNames.size();
+            tableIds.put(normalized, id);
+            tableNames.add(table);
+            adjacency.add(new ArrayList<>(4));
+        }
+        return id;
+    }
+
+    private void addEdge(TableRelationship relationship) {
+        if (relationship.getSourceTableName() == null || relationship.getTargetTableName() == null) {
+            return;
+        }
+        int from = intern(relationship.getSourceTableName());
+        int to = intern(relationship.getTargetTableName());
+        double score = relationship.getScore();
+        Edge edge = new Edge(key(relationship), from, to, relationship, score > 0 ? 1 - Math.log(score) : UNREACHABLE);
+        edges.put(edge.key, edge);
+        adjacency.get(from).add(edge);
+        if (to != from) {
+            adjacency.get(to).add(edge);
+        }
+    }
+
+    private boolean removeEdge(String key) {
+        Edge edge = edges.remove(key);
+        if (edge == null) {
+            return false;
+        }
+        adjacency.get(edge.from).remove(edge);
+        adjacency.get(edge.to).remove(edge);
+        return true;
+    }
+
+    private static String key(TableRelationship relationship) {
+        return relationship.getId() != null ? relationship.getId() : linkKey(relationship);
+    }
+
+    private static String linkKey(TableRelationship relationship) {
+        return (relationship.getSourceTableName() + "." + relationship.getSourceColumnNames() + "->"
+                + relationship.getTargetTableName() + "." + relationship.getTargetColumnNames()).toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Edge {
+
+        final String key;
+        final int from;
+        final int to;
+        final TableRelationship relationship;
+        final double cost;
+
+        Edge(String key, int from, int to, TableRelationship relationship, double cost) {
+            this.key = key;
+            this.from = from;
+            this.to = to;
+            this.relationship = relationship;
+            this.cost = cost;
+        }
+
+        int other(int node) {
+            return node == from ? to : from;
+        }
+    }
+
+    private static final class ShortestPathTree {
+
+        final double[] dist;
+        final Edge[] previous;
+
+        ShortestPathTree(double[] dist, Edge[] previous) {
+            this.dist = dist;
+            this.previous = previous;
+        }
+    }
+
+    private static final class Path {
+
+        final List<Integer> nodes;
+        final List<Edge> edges;
+        final double cost;
+
+        Path(List<Integer> nodes, List<Edge> edges, double cost) {
+            this.nodes = nodes;
+            this.edges = edges;
+            this.cost = cost;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.insightdata.domain.metadata.graph;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.insightdata.domain.metadata.model.TableRelationship;
+import com.insightdata.domain.metadata.repository.TableRelationshipRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 各数据源表关系图的注册表
+ *
+ * 关系图在首次使用时从TableRelationshipRepository加载，之后由TableRelationshipService在保存、
+ * 更新权重和删除关系时增量维护，不再重新读取整个数据源的关系。
+ */
+@Slf4j
+@Component
+public class RelationshipGraphRegistry {
+
+    @Autowired
+    private TableRelationshipRepository tableRelationshipRepository;
+
+    private final Map<String, RelationshipGraph> graphs = new ConcurrentHashMap<>();
+
+    /**
+     * 获取数据源的关系图，尚未加载时从仓储加载
+     */
+    public RelationshipGraph get(String dataSourceId) {
+        return graphs.computeIfAbsent(dataSourceId, this::load);
+    }
+
+    /**
+     * 关系已保存，更新已加载的关系图
+     */
+    public void onSaved(TableRelationship relationship) {
+        if (relationship == null) {
+            return;
+        }
+        RelationshipGraph graph = graphs.get(relationship.getDataSourceId());
+        if (graph != null) {
+            graph.upsert(relationship);
+        }
+    }
+
+    /**
+     * 关系已删除，更新已加载的关系图
+     */
+    public void onDeleted(TableRelationship relationship) {
+        RelationshipGraph graph = graphs.get(relationship.getDataSourceId());
+        if (graph != null) {
+            graph.remove(relationship);
+        }
+    }
+
+    /**
+     * 丢弃数据源的关系图，下次使用时重新加载
+     */
+    public void evict(String dataSourceId) {
+        graphs.remove(dataSourceId);
+    }
+
+    private RelationshipGraph load(String dataSourceId) {
+        long start = System.currentTimeMillis();
+        RelationshipGraph graph = new RelationshipGraph(dataSourceId,
+                tableRelationshipRepository.findByDataSourceId(dataSourceId));
+        log.info("加载数据源关系图: dataSourceId={}, tables={}, relationships={}, 耗时{}ms", dataSourceId,
+                graph.getTableCount(), graph.getRelationshipCount(), System.currentTimeMillis() - start);
+        return graph;
+    }
+}
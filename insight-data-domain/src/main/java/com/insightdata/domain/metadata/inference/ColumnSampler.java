@@ -0,0 +1,157 @@
+package com.insightdata.domain.metadata.inference;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.insightdata.domain.adapter.DataSourceConnectionPoolRegistry;
+import com.insightdata.domain.metadata.enums.DataSourceType;
+import com.insightdata.domain.metadata.model.DataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 列值抽样
+ *
+ * 每张表只执行一次抽样查询，同时读取该表的全部候选列，逐行写入各列的ColumnSketch，不在内存中保留样本。
+ * 表行数超过抽样行数时按方言使用TABLESAMPLE（PostgreSQL、DB2、SQL Server）、SAMPLE（Oracle）
+ * 或RAND()过滤（MySQL）按比例抽样，并以行数上限截断；否则直接读取整张表，样本即为全集。
+ */
+@Slf4j
+@Component
+public class ColumnSampler {
+
+    /**
+     * 抽样比例相对于目标行数的放大系数，抵消按比例抽样的行数波动
+     */
+    private static final double OVERSAMPLING = 1.5;
+
+    @Autowired
+    private DataSourceConnectionPoolRegistry connectionPoolRegistry;
+
+    /**
+     * 每张表最多读取的样本行数
+     */
+    @Value("${insight.datasource.relationship-inference.sample-rows:20000}")
+    private int sampleRows = 20000;
+
+    /**
+     * 抽样查询超时时间（秒）
+     */
+    @Value("${insight.datasource.relationship-inference.sample-timeout:30}")
+    private int sampleTimeout = 30;
+
+    /**
+     * 抽样一张表的候选列
+     *
+     * @param dataSource 数据源
+     * @param schemaName 模式名，为空时不限定模式
+     * @param sketches   同一张表的候选列草图，按列读取样本值
+     */
+    public void sample(DataSource dataSource, String schemaName, List<ColumnSketch> sketches) throws SQLException {
+        if (sketches.isEmpty()) {
+            return;
+        }
+        ColumnSketch first = sketches.get(0);
+        String sql = sampleSql(dataSource.getType(), schemaName, first.getTableName(),
+                sketches.stream().map(ColumnSketch::getColumnName).collect(Collectors.toList()),
+                first.getTableRowCount(), sampleRows);
+        boolean sampled = samplingFraction(first.getTableRowCount(), sampleRows) < 1.0;
+        long rows = 0;
+        try (Connection connection = connectionPoolRegistry.getConnection(dataSource);
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(sampleTimeout);
+            statement.setMaxRows(sampleRows);
+            try (ResultSet rs = statement.executeQuery(sql)) {
+                while (rs.next()) {
+                    rows++;
+                    for (int i = 0; i < sketches.size(); i++) {
+                        sketches.get(i).add(rs.getObject(i + 1));
+                    }
+                }
+            }
+        }
+        if (!sampled && rows < sampleRows) {
+            sketches.forEach(ColumnSketch::markComplete);
+        }
+        log.debug("抽样表 {} 完成: columns={}, rows={}, sampled={}", first.getTableName(), sketches.size(), rows, sampled);
+    }
+
+    /**
+     * 生成抽样查询
+     *
+     * @param type       数据源类型
+     * @param schemaName 模式名，为空时不限定模式
+     * @param tableName  表名
+     * @param columns    读取的列
+     * @param tableRows  元数据中的表行数，未知时为0
+     * @param limit      最多读取的行数
+     */
+    static String sampleSql(DataSourceType type, String schemaName, String tableName, List<String> columns,
+                            long tableRows, int limit) {
+        String select = columns.stream().map(column -> quote(type, column)).collect(Collectors.joining(", "));
+        String table = (schemaName == null || schemaName.isEmpty() ? "" : quote(type, schemaName) + ".")
+                + quote(type, tableName);
+        double fraction = samplingFraction(tableRows, limit);
+        boolean sampled = fraction < 1.0;
+        String percent = decimal(fraction * 100, 6);
+        if (type == null) {
+            return "SELECT " + select + " FROM " + table + " FETCH FIRST " + limit + " ROWS ONLY";
+        }
+        switch (type) {
+            case MYSQL:
+                return "SELECT " + select + " FROM " + table
+                        + (sampled ? " WHERE RAND() < " + decimal(fraction, 8) : "")
+                        + " LIMIT " + limit;
+            case POSTGRESQL:
+                return "SELECT " + select + " FROM " + table
+                        + (sampled ? " TABLESAMPLE BERNOULLI (" + percent + ")" : "")
+                        + " LIMIT " + limit;
+            case SQLSERVER:
+                return "SELECT TOP " + limit + " " + select + " FROM " + table
+                        + (sampled ? " TABLESAMPLE (" + percent + " PERCENT)" : "");
+            case ORACLE:
+                return "SELECT " + select + " FROM " + table
+                        + (sampled ? " SAMPLE (" + percent + ")" : "")
+                        + " FETCH FIRST " + limit + " ROWS ONLY";
+            case DB2:
+            default:
+                return "SELECT " + select + " FROM " + table
+                        + (sampled ? " TABLESAMPLE BERNOULLI (" + percent + ")" : "")
+                        + " FETCH FIRST " + limit + " ROWS ONLY";
+        }
+    }
+
+    /**
+     * 按比例抽样的比例，表行数未知或不超过上限时为1，即不抽样
+     */
+    static double samplingFraction(long tableRows, int limit) {
+        return tableRows > limit ? Math.min(1.0, limit * OVERSAMPLING / tableRows) : 1.0;
+    }
+
+    /**
+     * 格式化抽样比例，向上取整保证不为0，不使用科学计数法
+     */
+    private static String decimal(double value, int scale) {
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.UP).stripTrailingZeros().toPlainString();
+    }
+
+    private static String quote(DataSourceType type, String identifier) {
+        if (type == DataSourceType.MYSQL) {
+            return "`" + identifier.replace("`", "``") + "`";
+        }
+        if (type == DataSourceType.SQLSERVER) {
+            return "[" + identifier.replace("]", "]]") + "]";
+        }
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,214 @@
+package com.insightdata.domain.metadata.inference;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * 列值样本的草图
+ *
+ * 对一列的抽样值同时维护MinHash签名和HyperLogLog，二者都只占固定内存，
+ * 用于估计两列值集合的Jaccard相似度、不同值个数以及包含度（A中的值出现在B中的比例）。
+ * 数值按规范化文本计算哈希，使INT列中的5和DECIMAL列中的5.00视为同一个值。非线程安全。
+ */
+@Getter
+public final class ColumnSketch {
+
+    /**
+     * 样本中不同值个数不低于非空行数的该比例时视为唯一列
+     */
+    private static final double UNIQUE_RATIO = 0.95;
+
+    /**
+     * 值的类型族，只有同一类型族的列才比较
+     */
+    public enum ValueFamily { NUMERIC, TEXT }
+
+    private final String tableName;
+    private final String columnName;
+    private final ValueFamily family;
+    private final boolean declaredKey;
+    private final long tableRowCount;
+
+    @Getter(AccessLevel.NONE)
+    private final long[] signature;
+    @Getter(AccessLevel.NONE)
+    private final HyperLogLog distinct;
+    private long sampledRows;
+    private long nonNullRows;
+    private boolean complete;
+    @Getter(AccessLevel.NONE)
+    private long distinctEstimate = -1;
+
+    /**
+     * @param tableName     表名
+     * @param columnName    列名
+     * @param family        值类型族
+     * @param declaredKey   是否为主键或唯一索引列
+     * @param tableRowCount 元数据中的表行数，未知时为0
+     * @param signatureSize MinHash签名长度
+     * @param hllPrecision  HyperLogLog精度
+     */
+    public ColumnSketch(String tableName, String columnName, ValueFamily family, boolean declaredKey,
+                        long tableRowCount, int signatureSize, int hllPrecision) {
+        this.tableName = tableName;
+        this.columnName = columnName;
+        this.family = family;
+        this.declaredKey = declaredKey;
+        this.tableRowCount = Math.max(0, tableRowCount);
+        this.signature = new long[signatureSize];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        this.distinct = new HyperLogLog(hllPrecision);
+    }
+
+    /**
+     * 加入一个样本值，null和空串只计入抽样行数
+     */
+    public void add(Object value) {
+        sampledRows++;
+        String text = normalize(value);
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        nonNullRows++;
+        long hash = hash(text);
+        distinct.add(hash);
+        distinctEstimate = -1;
+        // Kirsch-Mitzenmacher: 由两个哈希值组合出签名长度个相互独立的哈希函数
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < signature.length; i++) {
+            long h = mix(hash + i * h2);
+            if (h < signature[i]) {
+                signature[i] = h;
+            }
+        }
+    }
+
+    /**
+     * 标记样本已包含整张表
+     */
+    void markComplete() {
+        this.complete = true;
+    }
+
+    /**
+     * 样本中的不同值个数估计
+     */
+    public long getDistinctCount() {
+        if (distinctEstimate < 0) {
+            distinctEstimate = Math.min(distinct.estimate(), nonNullRows);
+        }
+        return distinctEstimate;
+    }
+
+    /**
+     * 是否可作为被引用的键：声明了主键或唯一索引，或样本中几乎没有重复值
+     */
+    public boolean isKeyLike() {
+        return declaredKey || nonNullRows > 0 && getDistinctCount() >= UNIQUE_RATIO * nonNullRows;
+    }
+
+    /**
+     * 样本覆盖该列全部不同值的比例估计
+     *
+     * 样本包含整张表时为1；唯一列的不同值个数约等于表行数，按样本不同值个数与表行数之比估计；
+     * 其他列的不同值通常集中在少数取值上，按1处理。
+     */
+    public double getCoverage() {
+        if (complete || tableRowCount == 0 || !isKeyLike()) {
+            return 1.0;
+        }
+        return Math.min(1.0, (double) getDistinctCount() / tableRowCount);
+    }
+
+    /**
+     * 由MinHash签名估计两个样本值集合的Jaccard相似度
+     */
+    public double jaccard(ColumnSketch other) {
+        int equal = 0;
+        int used = 0;
+        for (int i = 0; i < signature.length; i++) {
+            if (signature[i] == Long.MAX_VALUE && other.signature[i] == Long.MAX_VALUE) {
+                continue;
+            }
+            used++;
+            if (signature[i] == other.signature[i]) {
+                equal++;
+            }
+        }
+        return used == 0 ? 0 : (double) equal / used;
+    }
+
+    /**
+     * 估计本列的值包含在另一列中的比例
+     *
+     * 交集大小按Jaccard相似度乘以两个HyperLogLog合并后的并集大小估计，再除以本列的不同值个数；
+     * 另一列只抽到部分不同值时按其覆盖率放大，结果不超过1。
+     */
+    public double containmentIn(ColumnSketch other) {
+        long distinctCount = getDistinctCount();
+        if (distinctCount == 0) {
+            return 0;
+        }
+        double union = Math.min(distinct.estimateUnion(other.distinct), distinctCount + other.getDistinctCount());
+        double intersection = Math.min(jaccard(other) * union, Math.min(distinctCount, other.getDistinctCount()));
+        return Math.min(1.0, intersection / distinctCount / other.getCoverage());
+    }
+
+    /**
+     * 第band个LSH分段的哈希值，分段包含签名中连续的rows个值
+     */
+    long bandHash(int band, int rows) {
+        long h = band * 0xC2B2AE3D27D4EB4FL;
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            h = mix(h ^ signature[i]);
+        }
+        return h;
+    }
+
+    /**
+     * 把值规范化为用于哈希的文本，数值去掉多余的小数零
+     */
+    static String normalize(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger) {
+            return value.toString();
+        }
+        if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            return decimal.signum() == 0 ? "0" : decimal.stripTrailingZeros().toPlainString();
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            return d == Math.rint(d) && Math.abs(d) < 1e18 ? Long.toString((long) d) : Double.toString(d);
+        }
+        return value.toString().trim();
+    }
+
+    /**
+     * 64位FNV-1a哈希再经过混合，保证高位分布均匀
+     */
+    static long hash(String text) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
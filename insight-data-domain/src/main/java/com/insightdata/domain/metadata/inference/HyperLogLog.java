@@ -0,0 +1,72 @@
+package com.insightdata.domain.metadata.inference;
+
+/**
+ * HyperLogLog基数估计
+ *
+ * 2^precision个寄存器，每个寄存器记录落入该桶的哈希值中最长的前导零个数加一，
+ * 标准误差约为1.04/sqrt(2^precision)。两个草图按寄存器取最大值即为并集的草图。
+ * 小基数时使用线性计数修正。非线程安全。
+ */
+public final class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog精度必须在4到16之间: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * 加入一个64位哈希值，哈希值应均匀分布
+     */
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * 估计不同值个数
+     */
+    public long estimate() {
+        return estimate(registers);
+    }
+
+    /**
+     * 估计与另一个草图的并集的不同值个数，不修改任何一方
+     */
+    public long estimateUnion(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("HyperLogLog精度不同，无法合并");
+        }
+        byte[] union = new byte[registers.length];
+        for (int i = 0; i < union.length; i++) {
+            union[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+        return estimate(union);
+    }
+
+    private static long estimate(byte[] registers) {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+}
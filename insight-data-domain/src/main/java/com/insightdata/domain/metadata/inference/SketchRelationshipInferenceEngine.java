@@ -0,0 +1,443 @@
+package com.insightdata.domain.metadata.inference;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.insightdata.domain.adapter.DataSourceConcurrencyLimiter;
+import com.insightdata.domain.adapter.JdbcExecutors;
+import com.insightdata.domain.metadata.model.ColumnInfo;
+import com.insightdata.domain.metadata.model.DataSource;
+import com.insightdata.domain.metadata.model.IndexInfo;
+import com.insightdata.domain.metadata.model.SchemaInfo;
+import com.insightdata.domain.metadata.model.TableInfo;
+import com.insightdata.domain.metadata.model.TableRelationship;
+import com.insightdata.domain.metadata.model.TableRelationship.RelationshipSource;
+import com.insightdata.domain.metadata.model.TableRelationship.RelationshipType;
+import com.insightdata.domain.nlquery.dictionary.EditDistance;
+import com.insightdata.domain.query.enums.QueryPriority;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于抽样草图的表关系推断
+ *
+ * 逐表比较每对列的代价是表数和列数的平方，无法用于数千张表的模式。这里的做法是：
+ * 1. 每张表只抽样一次，读取候选键列（主键、唯一列、整数列以及名称像键的列）的有限行样本，
+ *    每列计算MinHash签名和HyperLogLog不同值个数；
+ * 2. 把签名按LSH分段，同一分段哈希值相同的列成为候选对，候选对的数量与列数近似线性；
+ * 3. 对候选对估计包含度，被引用一侧必须像键（主键、唯一索引或样本中几乎没有重复值），
+ *    包含度再按列名与被引用表名的相近程度加权后作为置信度。
+ * 名称加权用于排除自增主键之间、小整数列与主键之间的偶然包含。
+ * 被引用的表远大于抽样行数时样本只覆盖其部分键值，覆盖率低于下限的列不作为被引用一侧。
+ */
+@Slf4j
+@Component
+public class SketchRelationshipInferenceEngine implements InitializingBean, DisposableBean {
+
+    private static final double NAME_SIMILARITY_WEIGHT = 0.4;
+    private static final double CONTENT_SIMILARITY_WEIGHT = 0.6;
+
+    private static final int HLL_PRECISION = 11;
+
+    private static final Pattern KEY_NAME = Pattern.compile(".*(id|_no|_code|code|_key|uuid|_num)$");
+
+    @Autowired
+    private ColumnSampler columnSampler;
+
+    @Autowired
+    private DataSourceConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * 并行抽样的线程数
+     */
+    @Value("${insight.datasource.relationship-inference.threads:4}")
+    private int threads = 4;
+
+    @Value("${insight.execution.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    /**
+     * 每张表最多抽样的候选列数
+     */
+    @Value("${insight.datasource.relationship-inference.max-columns-per-table:16}")
+    private int maxColumnsPerTable = 16;
+
+    /**
+     * 样本中不同值少于该数量的列不参与推断
+     */
+    @Value("${insight.datasource.relationship-inference.min-distinct:10}")
+    private int minDistinct = 10;
+
+    /**
+     * LSH分段数，签名长度为分段数乘以每段行数
+     */
+    @Value("${insight.datasource.relationship-inference.lsh-bands:64}")
+    private int lshBands = 64;
+
+    /**
+     * LSH每段包含的签名值个数，越小召回越高、候选对越多
+     */
+    @Value("${insight.datasource.relationship-inference.lsh-rows:2}")
+    private int lshRows = 2;
+
+    /**
+     * 超过该大小的LSH桶（通常由大量列共有的常见值造成）不展开为候选对
+     */
+    @Value("${insight.datasource.relationship-inference.max-bucket-size:200}")
+    private int maxBucketSize = 200;
+
+    /**
+     * 被引用列的样本覆盖率下限，低于该值时包含度估计误差过大
+     */
+    @Value("${insight.datasource.relationship-inference.min-coverage:0.1}")
+    private double minCoverage = 0.1;
+
+    private ExecutorService samplingExecutor;
+
+    @Override
+    public void afterPropertiesSet() {
+        samplingExecutor = JdbcExecutors.newExecutor("relationship-sample-", threads, virtualThreads);
+    }
+
+    @Override
+    public void destroy() {
+        samplingExecutor.shutdownNow();
+    }
+
+    /**
+     * 抽样数据源中一个模式的候选列并推断表关系
+     *
+     * @param dataSource 数据源
+     * @param schemaInfo 模式信息，包含表和列
+     * @param threshold  置信度阈值
+     * @return 推断出的表关系，按置信度降序
+     */
+    public List<TableRelationship> infer(DataSource dataSource, SchemaInfo schemaInfo, double threshold) {
+        long start = System.currentTimeMillis();
+        List<ColumnSketch> sketches = sampleSchema(dataSource, schemaInfo);
+        List<TableRelationship> relationships = infer(dataSource.getId(), sketches, threshold);
+        log.info("基于抽样草图推断表关系完成: dataSourceId={}, schema={}, columns={}, relationships={}, elapsed={}ms",
+                dataSource.getId(), schemaInfo.getName(), sketches.size(), relationships.size(),
+                System.currentTimeMillis() - start);
+        return relationships;
+    }
+
+    /**
+     * 由已完成抽样的列草图推断表关系
+     */
+    List<TableRelationship> infer(String dataSourceId, List<ColumnSketch> sketches, double threshold) {
+        List<ColumnSketch> usable = new ArrayList<>();
+        for (ColumnSketch sketch : sketches) {
+            if (sketch.getDistinctCount() >= minDistinct) {
+                usable.add(sketch);
+            }
+        }
+
+        // 每个引用列只保留置信度最高的被引用列，避免小整数列同时"引用"多张表的自增主键
+        Set<Long> pairs = candidatePairs(usable);
+        Map<ColumnSketch, Candidate> bestBySource = new HashMap<>();
+        for (long pair : pairs) {
+            ColumnSketch a = usable.get((int) (pair / usable.size()));
+            ColumnSketch b = usable.get((int) (pair % usable.size()));
+            for (Candidate candidate : new Candidate[]{evaluate(a, b, threshold), evaluate(b, a, threshold)}) {
+                if (candidate != null) {
+                    bestBySource.merge(candidate.source, candidate, (x, y) -> x.compareTo(y) >= 0 ? x : y);
+                }
+            }
+        }
+
+        // 两列互相包含时（一对一）只保留一个方向
+        Set<ColumnSketch> emitted = new HashSet<>();
+        List<Candidate> candidates = new ArrayList<>(bestBySource.values());
+        candidates.sort(Comparator.reverseOrder());
+        List<TableRelationship> relationships = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Candidate best : candidates) {
+            Candidate reverse = bestBySource.get(best.target);
+            if (reverse != null && reverse.target == best.source && emitted.contains(best.target)) {
+                continue;
+            }
+            emitted.add(best.source);
+            relationships.add(TableRelationship.builder()
+                    .dataSourceId(dataSourceId)
+                    .sourceTableName(best.source.getTableName())
+                    .sourceColumnNames(best.source.getColumnName())
+                    .targetTableName(best.target.getTableName())
+                    .targetColumnNames(best.target.getColumnName())
+                    .relationType(best.source.isKeyLike() ? RelationshipType.ONE_TO_ONE : RelationshipType.MANY_TO_ONE)
+                    .relationSource(RelationshipSource.METADATA)  // 基于数据分析，与其他推断方式一致使用METADATA
+                    .confidence(best.confidence)
+                    .frequency(0)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        }
+        log.debug("LSH候选列对 {} 个，推断出表关系 {} 个", pairs.size(), relationships.size());
+        return relationships;
+    }
+
+    /**
+     * 按LSH分段分桶，返回至少在一个分段中同桶的同类型列对，编码为 i * n + j（i < j）
+     */
+    private Set<Long> candidatePairs(List<ColumnSketch> sketches) {
+        int n = sketches.size();
+        Set<Long> pairs = new HashSet<>();
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        int oversized = 0;
+        for (int band = 0; band < lshBands; band++) {
+            buckets.clear();
+            for (int i = 0; i < n; i++) {
+                buckets.computeIfAbsent(sketches.get(i).bandHash(band, lshRows), k -> new ArrayList<>(2)).add(i);
+            }
+            for (List<Integer> bucket : buckets.values()) {
+                if (bucket.size() < 2) {
+                    continue;
+                }
+                if (bucket.size() > maxBucketSize) {
+                    oversized++;
+                    continue;
+                }
+                for (int x = 0; x < bucket.size(); x++) {
+                    ColumnSketch a = sketches.get(bucket.get(x));
+                    for (int y = x + 1; y < bucket.size(); y++) {
+                        if (a.getFamily() == sketches.get(bucket.get(y)).getFamily()) {
+                            pairs.add((long) bucket.get(x) * n + bucket.get(y));
+                        }
+                    }
+                }
+            }
+        }
+        if (oversized > 0) {
+            log.debug("跳过 {} 个超过 {} 列的LSH桶", oversized, maxBucketSize);
+        }
+        return pairs;
+    }
+
+    /**
+     * 评估source列引用target列的可能性，置信度低于阈值时返回null
+     */
+    private Candidate evaluate(ColumnSketch source, ColumnSketch target, double threshold) {
+        if (!target.isKeyLike() || target.getCoverage() < minCoverage
+                || source.getTableName().equalsIgnoreCase(target.getTableName())
+                && source.getColumnName().equalsIgnoreCase(target.getColumnName())) {
+            return null;
+        }
+        double containment = source.containmentIn(target);
+        double confidence = containment * (CONTENT_SIMILARITY_WEIGHT + NAME_SIMILARITY_WEIGHT * nameAffinity(source, target));
+        return confidence >= threshold ? new Candidate(source, target, confidence) : null;
+    }
+
+    /**
+     * 引用列名与被引用表名、列名的相近程度，0到1
+     */
+    static double nameAffinity(ColumnSketch source, ColumnSketch target) {
+        String column = stem(source.getColumnName());
+        String targetColumn = stem(target.getColumnName());
+        String table = singular(target.getTableName().toLowerCase(Locale.ROOT));
+        if (column.isEmpty()) {
+            return 0;
+        }
+        if (column.equals(table) || column.startsWith(table + "_") || column.endsWith("_" + table)
+                || table.endsWith("_" + column)) {
+            return 1;
+        }
+        double affinity = similarity(column, table);
+        if (!"id".equals(column)) {
+            affinity = Math.max(affinity, similarity(column, targetColumn));
+        }
+        return affinity;
+    }
+
+    private static double similarity(String a, String b) {
+        int maxLength = Math.max(a.length(), b.length());
+        return maxLength == 0 ? 1.0 : 1.0 - (double) EditDistance.levenshtein(a, b) / maxLength;
+    }
+
+    /**
+     * 去掉外键前缀和_id后缀
+     */
+    private static String stem(String columnName) {
+        String name = columnName.toLowerCase(Locale.ROOT);
+        if (name.startsWith("fk_")) {
+            name = name.substring(3);
+        }
+        if (name.endsWith("_id") && name.length() > 3) {
+            name = name.substring(0, name.length() - 3);
+        }
+        return name;
+    }
+
+    /**
+     * 去掉表名的常见前缀并转换为单数
+     */
+    private static String singular(String tableName) {
+        String name = tableName;
+        for (String prefix : new String[]{"tbl_", "tb_", "t_"}) {
+            if (name.startsWith(prefix) && name.length() > prefix.length()) {
+                name = name.substring(prefix.length());
+                break;
+            }
+        }
+        if (name.endsWith("ies") && name.length() > 3) {
+            return name.substring(0, name.length() - 3) + "y";
+        }
+        if (name.endsWith("s") && !name.endsWith("ss") && name.length() > 1) {
+            return name.substring(0, name.length() - 1);
+        }
+        return name;
+    }
+
+    /**
+     * 并行抽样模式中的所有表，单张表抽样失败时跳过该表
+     */
+    private List<ColumnSketch> sampleSchema(DataSource dataSource, SchemaInfo schemaInfo) {
+        List<Future<List<ColumnSketch>>> futures = new ArrayList<>();
+        int signatureSize = lshBands * lshRows;
+        for (TableInfo table : schemaInfo.getTables()) {
+            List<ColumnSketch> sketches = new ArrayList<>();
+            for (ColumnInfo column : candidateColumns(table)) {
+                sketches.add(new ColumnSketch(table.getName(), column.getName(), family(column.getDataType()),
+                        isDeclaredKey(table, column), table.getRowCount(), signatureSize, HLL_PRECISION));
+            }
+            if (sketches.isEmpty()) {
+                continue;
+            }
+            futures.add(samplingExecutor.submit(() -> {
+                try (DataSourceConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(dataSource.getId(), QueryPriority.BACKGROUND)) {
+                    columnSampler.sample(dataSource, schemaInfo.getName(), sketches);
+                    return sketches;
+                } catch (Exception e) {
+                    log.warn("抽样表 {} 失败，跳过该表: {}", table.getName(), e.getMessage());
+                    return new ArrayList<ColumnSketch>();
+                }
+            }));
+        }
+
+        List<ColumnSketch> sketches = new ArrayList<>();
+        try {
+            for (Future<List<ColumnSketch>> future : futures) {
+                sketches.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            log.warn("抽样被中断，使用已完成的 {} 列继续推断", sketches.size());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("抽样任务失败", e.getCause());
+        }
+        return sketches;
+    }
+
+    /**
+     * 选择表中的候选键列：主键和唯一列优先，其次是名称像键的列，最后是其余整数列
+     */
+    private List<ColumnInfo> candidateColumns(TableInfo table) {
+        List<ColumnInfo> keys = new ArrayList<>();
+        List<ColumnInfo> named = new ArrayList<>();
+        List<ColumnInfo> integers = new ArrayList<>();
+        if (table.getColumns() == null) {
+            return keys;
+        }
+        for (ColumnInfo column : table.getColumns()) {
+            ColumnSketch.ValueFamily family = family(column.getDataType());
+            if (family == null || column.getName() == null) {
+                continue;
+            }
+            if (isDeclaredKey(table, column)) {
+                keys.add(column);
+            } else if (KEY_NAME.matcher(column.getName().toLowerCase(Locale.ROOT)).matches()) {
+                named.add(column);
+            } else if (isInteger(column.getDataType())) {
+                integers.add(column);
+            }
+        }
+        keys.addAll(named);
+        keys.addAll(integers);
+        return keys.size() > maxColumnsPerTable ? new ArrayList<>(keys.subList(0, maxColumnsPerTable)) : keys;
+    }
+
+    private static boolean isDeclaredKey(TableInfo table, ColumnInfo column) {
+        if (column.isPrimaryKey()) {
+            return true;
+        }
+        if (table.getIndexes() != null) {
+            for (IndexInfo index : table.getIndexes()) {
+                if (index.isUnique() && index.getColumns() != null && index.getColumns().size() == 1
+                        && column.getName().equalsIgnoreCase(index.getColumns().get(0))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按数据类型名判断值类型族，浮点、日期、大文本和二进制等不可能作为键的类型返回null
+     */
+    static ColumnSketch.ValueFamily family(String dataType) {
+        if (dataType == null) {
+            return null;
+        }
+        String type = dataType.toLowerCase(Locale.ROOT);
+        if (isInteger(type) || type.startsWith("decimal") || type.startsWith("numeric") || type.startsWith("number")) {
+            return ColumnSketch.ValueFamily.NUMERIC;
+        }
+        if (type.contains("char") || type.equals("uuid") || type.equals("uniqueidentifier") || type.equals("string")) {
+            return ColumnSketch.ValueFamily.TEXT;
+        }
+        return null;
+    }
+
+    private static boolean isInteger(String dataType) {
+        String type = dataType.toLowerCase(Locale.ROOT);
+        return type.contains("int") && !type.startsWith("tinyint") && !type.contains("point") && !type.contains("interval");
+    }
+
+    /**
+     * 一个方向上的候选关系
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+
+        final ColumnSketch source;
+        final ColumnSketch target;
+        final double confidence;
+
+        Candidate(ColumnSketch source, ColumnSketch target, double confidence) {
+            this.source = source;
+            this.target = target;
+            this.confidence = confidence;
+        }
+
+        /**
+         * 置信度高者优先，相同时被引用一侧声明了键、行数更多者优先
+         */
+        @Override
+        public int compareTo(Candidate other) {
+            int result = Double.compare(confidence, other.confidence);
+            if (result == 0) {
+                result = Boolean.compare(target.isDeclaredKey(), other.target.isDeclaredKey());
+            }
+            if (result == 0) {
+                result = Long.compare(target.getTableRowCount(), other.target.getTableRowCount());
+            }
+            return result;
+        }
+    }
+}
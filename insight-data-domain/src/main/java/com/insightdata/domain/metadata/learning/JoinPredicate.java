@@ -0,0 +1,36 @@
+package com.insightdata.domain.metadata.learning;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * SQL中两张表的列相等条件，如 o.customer_id = c.id
+ *
+ * 表名和列名统一为小写，左侧为源、右侧为目标；joinCondition为true表示出现在ON或USING中，
+ * 否则出现在WHERE中。相等比较不区分条件出现的位置。
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@EqualsAndHashCode(exclude = "joinCondition")
+public class JoinPredicate {
+
+    private final String sourceTable;
+
+    private final String sourceColumn;
+
+    private final String targetTable;
+
+    private final String targetColumn;
+
+    private final boolean joinCondition;
+
+    /**
+     * 交换源和目标后的条件
+     */
+    public JoinPredicate reverse() {
+        return new JoinPredicate(targetTable, targetColumn, sourceTable, sourceColumn, joinCondition);
+    }
+}
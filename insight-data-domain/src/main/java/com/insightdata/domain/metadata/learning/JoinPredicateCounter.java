@@ -0,0 +1,109 @@
+package com.insightdata.domain.metadata.learning;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.insightdata.domain.metadata.model.TableRelationship;
+import com.insightdata.domain.metadata.model.TableRelationship.RelationshipSource;
+import com.insightdata.domain.metadata.model.TableRelationship.RelationshipType;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 列相等条件的并发计数器
+ *
+ * 多个线程同时调用add解析SQL，按条件累加出现次数（每条SQL中同一条件只计一次）。
+ * 解析结束后由toRelationships把同一对列两个方向的条件合并为一条表关系，方向取出现次数多的一侧。
+ */
+@Slf4j
+class JoinPredicateCounter {
+
+    // 出现在ON或USING中的条件的置信度
+    static final double JOIN_CONFIDENCE = 0.8;
+
+    // 只出现在WHERE中的条件的置信度，略低于JOIN
+    static final double WHERE_CONFIDENCE = 0.7;
+
+    private final Map<JoinPredicate, Counts> counts = new ConcurrentHashMap<>();
+
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * 解析一条SQL并累加其中的条件
+     */
+    void add(String sql) {
+        if (sql == null || sql.isEmpty()) {
+            return;
+        }
+        try {
+            for (JoinPredicate predicate : JoinPredicateExtractor.extract(sql)) {
+                Counts current = counts.computeIfAbsent(predicate, key -> new Counts());
+                current.total.increment();
+                if (predicate.isJoinCondition()) {
+                    current.joins.increment();
+                }
+            }
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.debug("解析查询历史SQL失败: {}", e.getMessage());
+        }
+    }
+
+    long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * 合并为表关系，按出现次数降序排列
+     */
+    List<TableRelationship> toRelationships(String dataSourceId) {
+        // 以字典序较小的一端为源合并两个方向：[同向次数, 反向次数, 出现在JOIN中的次数]
+        Map<JoinPredicate, long[]> merged = new HashMap<>();
+        for (Map.Entry<JoinPredicate, Counts> entry : counts.entrySet()) {
+            JoinPredicate predicate = entry.getKey();
+            boolean forward = compare(predicate) <= 0;
+            long[] total = merged.computeIfAbsent(forward ? predicate : predicate.reverse(), key -> new long[3]);
+            total[forward ? 0 : 1] += entry.getValue().total.sum();
+            total[2] += entry.getValue().joins.sum();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<TableRelationship> relationships = new ArrayList<>(merged.size());
+        for (Map.Entry<JoinPredicate, long[]> entry : merged.entrySet()) {
+            long[] total = entry.getValue();
+            JoinPredicate predicate = total[0] >= total[1] ? entry.getKey() : entry.getKey().reverse();
+            relationships.add(TableRelationship.builder()
+                    .dataSourceId(dataSourceId)
+                    .sourceTableName(predicate.getSourceTable())
+                    .sourceColumnNames(predicate.getSourceColumn())
+                    .targetTableName(predicate.getTargetTable())
+                    .targetColumnNames(predicate.getTargetColumn())
+                    .relationType(RelationshipType.MANY_TO_ONE) // 默认为多对一
+                    .relationSource(RelationshipSource.LEARNING)
+                    .confidence(total[2] > 0 ? JOIN_CONFIDENCE : WHERE_CONFIDENCE)
+                    .frequency((int) Math.min(Integer.MAX_VALUE, total[0] + total[1]))
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        }
+        relationships.sort(Comparator.comparingInt(TableRelationship::getFrequency).reversed()
+                .thenComparing(QueryHistoryRelationshipLearner::linkKey));
+        return relationships;
+    }
+
+    private static int compare(JoinPredicate predicate) {
+        return (predicate.getSourceTable() + '.' + predicate.getSourceColumn())
+                .compareTo(predicate.getTargetTable() + '.' + predicate.getTargetColumn());
+    }
+
+    private static final class Counts {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder joins = new LongAdder();
+    }
+}
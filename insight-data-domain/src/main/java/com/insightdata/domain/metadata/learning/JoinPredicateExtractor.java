@@ -0,0 +1,287 @@
+package com.insightdata.domain.metadata.learning;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.insightdata.domain.nlquery.sql.SqlStatementParser;
+
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.FromItem;
+import net.sf.jsqlparser.statement.select.Join;
+import net.sf.jsqlparser.statement.select.ParenthesisFromItem;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectBody;
+import net.sf.jsqlparser.statement.select.SelectExpressionItem;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import net.sf.jsqlparser.statement.select.SetOperationList;
+import net.sf.jsqlparser.statement.select.SpecialSubSelect;
+import net.sf.jsqlparser.statement.select.SubSelect;
+import net.sf.jsqlparser.statement.select.WithItem;
+
+/**
+ * 从SQL中提取两张表之间的列相等条件
+ *
+ * 用JSqlParser解析为语法树后逐层遍历集合运算、公用表表达式、派生表和条件中的子查询。
+ * 每层查询的FROM和JOIN构成一个作用域，限定名先在本层查找、找不到再到外层查找，相关子查询因此能引用外层的表；
+ * 派生表和公用表表达式不对应实际的表，引用它们的条件被忽略；同一层中同一名称指向不同的表时视为无法解析。
+ * 识别ON、USING和WHERE中两侧都是带表限定的列的相等条件，没有表限定的列无法确定所属表，不作提取。
+ * 无法解析的SQL不提取任何条件。
+ */
+public final class JoinPredicateExtractor {
+
+    // 派生表、公用表表达式和有歧义的名称
+    private static final String UNRESOLVED = "";
+
+    private JoinPredicateExtractor() {
+    }
+
+    /**
+     * 提取SQL中的列相等条件，同一条件只返回一次，出现在ON或USING中的优先
+     *
+     * @param sql SQL语句
+     * @return 列相等条件
+     */
+    public static List<JoinPredicate> extract(String sql) {
+        Statement statement = SqlStatementParser.parse(sql);
+        if (!(statement instanceof Select)) {
+            return new ArrayList<>();
+        }
+        Select select = (Select) statement;
+        Extraction extraction = new Extraction();
+        extraction.select(select.getWithItemsList(), select.getSelectBody(), null);
+        return new ArrayList<>(extraction.predicates.values());
+    }
+
+    /**
+     * 一条SQL的提取过程
+     */
+    private static final class Extraction {
+
+        private final Map<JoinPredicate, JoinPredicate> predicates = new LinkedHashMap<>();
+
+        private void select(List<WithItem> withItems, SelectBody body, Scope outer) {
+            Scope scope = outer;
+            if (withItems != null && !withItems.isEmpty()) {
+                scope = new Scope(outer);
+                for (WithItem withItem : withItems) {
+                    // 先登记名称，递归的公用表表达式引用自身时同样不解析为实际的表
+                    scope.ctes.add(name(withItem.getName()));
+                    if (withItem.getSubSelect() != null) {
+                        subSelect(withItem.getSubSelect(), scope);
+                    }
+                }
+            }
+            body(body, scope);
+        }
+
+        private void body(SelectBody body, Scope outer) {
+            if (body instanceof PlainSelect) {
+                plainSelect((PlainSelect) body, outer);
+            } else if (body instanceof SetOperationList) {
+                for (SelectBody branch : ((SetOperationList) body).getSelects()) {
+                    body(branch, outer);
+                }
+            }
+        }
+
+        private void subSelect(SubSelect subSelect, Scope outer) {
+            select(subSelect.getWithItemsList(), subSelect.getSelectBody(), outer);
+        }
+
+        private void plainSelect(PlainSelect plainSelect, Scope outer) {
+            Scope scope = new Scope(outer);
+            String previous = register(scope, plainSelect.getFromItem(), outer);
+            List<Join> joins = plainSelect.getJoins() == null ? List.of() : plainSelect.getJoins();
+            for (Join join : joins) {
+                String table = register(scope, join.getRightItem(), outer);
+                // JOIN t USING (c1, c2)：按同名列与前一张表相等
+                if (join.getUsingColumns() != null && previous != null && table != null) {
+                    for (Column column : join.getUsingColumns()) {
+                        String columnName = name(column.getColumnName());
+                        put(new JoinPredicate(previous, columnName, table, columnName, true));
+                    }
+                }
+                previous = table;
+            }
+
+            for (Join join : joins) {
+                for (Expression on : join.getOnExpressions()) {
+                    visit(on, scope, true, true);
+                }
+            }
+            visit(plainSelect.getWhere(), scope, false, true);
+            // 选择列表和HAVING中的相等条件不是连接条件，只提取其中子查询的条件
+            if (plainSelect.getSelectItems() != null) {
+                for (SelectItem item : plainSelect.getSelectItems()) {
+                    if (item instanceof SelectExpressionItem) {
+                        visit(((SelectExpressionItem) item).getExpression(), scope, false, false);
+                    }
+                }
+            }
+            visit(plainSelect.getHaving(), scope, false, false);
+        }
+
+        /**
+         * 在作用域中登记FROM或JOIN中的一项
+         *
+         * @return 实际的表名，派生表等不对应实际表的项返回null
+         */
+        private String register(Scope scope, FromItem item, Scope outer) {
+            if (item == null) {
+                return null;
+            }
+            if (item instanceof ParenthesisFromItem) {
+                return register(scope, ((ParenthesisFromItem) item).getFromItem(), outer);
+            }
+            String alias = alias(item.getAlias());
+            if (item instanceof Table) {
+                Table table = (Table) item;
+                String tableName = name(table.getName());
+                if (table.getSchemaName() == null && scope.isCte(tableName)) {
+                    scope.register(alias != null ? alias : tableName, UNRESOLVED);
+                    return null;
+                }
+                scope.register(tableName, tableName);
+                if (alias != null) {
+                    scope.register(alias, tableName);
+                }
+                return tableName;
+            }
+            if (item instanceof SubSelect) {
+                // 派生表不能引用同层的其他表，在外层作用域中解析
+                subSelect((SubSelect) item, outer);
+            } else if (item instanceof SpecialSubSelect && ((SpecialSubSelect) item).getSubSelect() != null) {
+                // LATERAL派生表可以引用同层前面的表
+                subSelect(((SpecialSubSelect) item).getSubSelect(), scope);
+            }
+            if (alias != null) {
+                scope.register(alias, UNRESOLVED);
+            }
+            return null;
+        }
+
+        private void visit(Expression expression, Scope scope, boolean joinCondition, boolean equalities) {
+            if (expression == null) {
+                return;
+            }
+            expression.accept(new ExpressionVisitorAdapter() {
+                @Override
+                public void visit(EqualsTo equalsTo) {
+                    if (equalities) {
+                        equality(equalsTo, scope, joinCondition);
+                    }
+                    super.visit(equalsTo);
+                }
+
+                @Override
+                public void visit(SubSelect subSelect) {
+                    // 条件中的子查询可以引用外层的表
+                    subSelect(subSelect, scope);
+                }
+            });
+        }
+
+        private void equality(EqualsTo equalsTo, Scope scope, boolean joinCondition) {
+            if (!(equalsTo.getLeftExpression() instanceof Column) || !(equalsTo.getRightExpression() instanceof Column)) {
+                return;
+            }
+            Column left = (Column) equalsTo.getLeftExpression();
+            Column right = (Column) equalsTo.getRightExpression();
+            String leftQualifier = qualifier(left);
+            String rightQualifier = qualifier(right);
+            if (leftQualifier == null || rightQualifier == null || leftQualifier.equals(rightQualifier)) {
+                return;
+            }
+            String leftTable = scope.resolve(leftQualifier);
+            String rightTable = scope.resolve(rightQualifier);
+            if (leftTable == null || rightTable == null || leftTable.isEmpty() || rightTable.isEmpty()) {
+                return;
+            }
+            put(new JoinPredicate(leftTable, name(left.getColumnName()), rightTable, name(right.getColumnName()),
+                    joinCondition));
+        }
+
+        private void put(JoinPredicate predicate) {
+            JoinPredicate existing = predicates.get(predicate);
+            if (existing == null || predicate.isJoinCondition() && !existing.isJoinCondition()) {
+                predicates.put(predicate, predicate);
+            }
+        }
+    }
+
+    /**
+     * 一层查询中可见的表名和别名
+     */
+    private static final class Scope {
+        private final Scope parent;
+        private final Map<String, String> names = new HashMap<>();
+        private final Set<String> ctes = new HashSet<>();
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        private void register(String name, String table) {
+            String existing = names.putIfAbsent(name, table);
+            if (existing != null && !existing.equals(table)) {
+                names.put(name, UNRESOLVED);
+            }
+        }
+
+        private String resolve(String name) {
+            for (Scope scope = this; scope != null; scope = scope.parent) {
+                String table = scope.names.get(name);
+                if (table != null) {
+                    return table;
+                }
+            }
+            return null;
+        }
+
+        private boolean isCte(String name) {
+            for (Scope scope = this; scope != null; scope = scope.parent) {
+                if (scope.ctes.contains(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static String qualifier(Column column) {
+        Table table = column.getTable();
+        return table == null || table.getName() == null ? null : name(table.getName());
+    }
+
+    private static String alias(Alias alias) {
+        return alias == null || alias.getName() == null ? null : name(alias.getName());
+    }
+
+    /**
+     * 去掉标识符的引号并统一为小写，与学习到的表关系的命名一致
+     */
+    private static String name(String identifier) {
+        String name = identifier;
+        if (name.length() >= 2) {
+            char first = name.charAt(0);
+            char last = name.charAt(name.length() - 1);
+            if ((first == '`' || first == '"') && last == first || first == '[' && last == ']') {
+                name = name.substring(1, name.length() - 1);
+            }
+        }
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
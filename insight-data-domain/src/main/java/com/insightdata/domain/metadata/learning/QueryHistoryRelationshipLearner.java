@@ -0,0 +1,246 @@
+package com.insightdata.domain.metadata.learning;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.insightdata.domain.metadata.graph.RelationshipGraphRegistry;
+import com.insightdata.domain.metadata.model.RelationshipLearningWatermark;
+import com.insightdata.domain.metadata.model.TableRelationship;
+import com.insightdata.domain.metadata.model.TableRelationship.RelationshipSource;
+import com.insightdata.domain.metadata.repository.QueryHistoryRepository;
+import com.insightdata.domain.metadata.repository.RelationshipLearningWatermarkRepository;
+import com.insightdata.domain.metadata.repository.TableRelationshipRepository;
+import com.insightdata.domain.nlquery.converter.NLTranslationCache;
+import com.insightdata.domain.query.model.QueryHistory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 从查询历史中学习表关系
+ *
+ * 按(创建时间, ID)游标分页读取水位线之后的查询历史，每页在专用的ForkJoinPool上并行解析，
+ * 解析当前页的同时读取下一页；条件出现次数在并发计数器中累加，全部读完后与已有关系合并，
+ * 分批写入，并在同一事务中推进水位线，重复执行只处理新增的查询历史。
+ * 为避免遗漏提交较晚的记录，只读取创建时间早于当前时间减去settle-delay的查询历史。
+ */
+@Slf4j
+@Component
+public class QueryHistoryRelationshipLearner implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private QueryHistoryRepository queryHistoryRepository;
+
+    @Autowired
+    private TableRelationshipRepository tableRelationshipRepository;
+
+    @Autowired
+    private RelationshipLearningWatermarkRepository watermarkRepository;
+
+    @Autowired
+    private RelationshipGraphRegistry relationshipGraphRegistry;
+
+    @Autowired
+    private NLTranslationCache translationCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${insight.datasource.relationship-learning.page-size:1000}")
+    private int pageSize;
+
+    @Value("${insight.datasource.relationship-learning.threads:4}")
+    private int threads;
+
+    @Value("${insight.datasource.relationship-learning.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 只处理创建时间早于该秒数之前的查询历史
+     */
+    @Value("${insight.datasource.relationship-learning.settle-delay:60}")
+    private long settleDelaySeconds;
+
+    // 正在学习的数据源，同一数据源不并发执行，避免重复累加次数
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private ForkJoinPool parsePool;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        parsePool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("relationship-learning-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void destroy() {
+        parsePool.shutdownNow();
+    }
+
+    /**
+     * 学习数据源水位线之后的查询历史
+     *
+     * @param dataSourceId 数据源ID
+     * @return 新增或更新的表关系，同一数据源正在学习时返回空列表
+     */
+    public List<TableRelationship> learn(String dataSourceId) {
+        if (!running.add(dataSourceId)) {
+            log.info("数据源正在从查询历史学习表关系，跳过本次请求: dataSourceId={}", dataSourceId);
+            return Collections.emptyList();
+        }
+        try {
+            long start = System.currentTimeMillis();
+            RelationshipLearningWatermark watermark = watermarkRepository.findByDataSourceId(dataSourceId)
+                    .orElseGet(() -> RelationshipLearningWatermark.builder().dataSourceId(dataSourceId).build());
+            LocalDateTime before = LocalDateTime.now().minusSeconds(settleDelaySeconds);
+            LocalDateTime cursorTime = watermark.getLastCreatedAt();
+            String cursorId = watermark.getLastHistoryId();
+
+            JoinPredicateCounter counter = new JoinPredicateCounter();
+            long processed = 0;
+            ForkJoinTask<?> parsing = null;
+            List<QueryHistory> page = queryHistoryRepository.findByDataSourceIdAfter(
+                    dataSourceId, cursorTime, cursorId, before, pageSize);
+            while (!page.isEmpty()) {
+                QueryHistory last = page.get(page.size() - 1);
+                cursorTime = last.getExecutedAt();
+                cursorId = last.getId();
+                processed += page.size();
+
+                if (parsing != null) {
+                    parsing.join();
+                }
+                List<QueryHistory> current = page;
+                parsing = parsePool.submit(() -> current.parallelStream()
+                        .forEach(history -> counter.add(history.getExecutedSql())));
+                page = current.size() < pageSize ? Collections.emptyList()
+                        : queryHistoryRepository.findByDataSourceIdAfter(dataSourceId, cursorTime, cursorId, before, pageSize);
+            }
+            if (parsing != null) {
+                parsing.join();
+            }
+            if (processed == 0) {
+                return Collections.emptyList();
+            }
+
+            watermark.setLastCreatedAt(cursorTime);
+            watermark.setLastHistoryId(cursorId);
+            watermark.setProcessedCount(watermark.getProcessedCount() + processed);
+            watermark.setUpdatedAt(LocalDateTime.now());
+            List<TableRelationship> saved = upsert(dataSourceId, counter, watermark);
+            log.info("从查询历史学习表关系完成: dataSourceId={}, 查询历史{}条, 解析失败{}条, 关系{}条, 耗时{}ms",
+                    dataSourceId, processed, counter.getFailedCount(), saved.size(), System.currentTimeMillis() - start);
+            return saved;
+        } finally {
+            running.remove(dataSourceId);
+        }
+    }
+
+    /**
+     * 学习给定的查询历史，不读取也不推进水位线
+     *
+     * @param dataSourceId 数据源ID
+     * @param histories 查询历史
+     * @return 新增或更新的表关系
+     */
+    public List<TableRelationship> learn(String dataSourceId, List<QueryHistory> histories) {
+        JoinPredicateCounter counter = new JoinPredicateCounter();
+        parsePool.submit(() -> histories.parallelStream()
+                .forEach(history -> counter.add(history.getExecutedSql()))).join();
+        return upsert(dataSourceId, counter, null);
+    }
+
+    /**
+     * 与已有关系合并后分批写入，同一对列已有关系时累加频率，否则新增
+     */
+    private List<TableRelationship> upsert(String dataSourceId, JoinPredicateCounter counter,
+                                           RelationshipLearningWatermark watermark) {
+        List<TableRelationship> learned = counter.toRelationships(dataSourceId);
+        if (learned.isEmpty() && watermark == null) {
+            return Collections.emptyList();
+        }
+
+        Map<String, TableRelationship> existing = new HashMap<>();
+        if (!learned.isEmpty()) {
+            for (TableRelationship relationship : tableRelationshipRepository.findByDataSourceId(dataSourceId)) {
+                existing.putIfAbsent(linkKey(relationship), relationship);
+            }
+        }
+        List<TableRelationship> changes = mergeInto(existing, learned);
+
+        List<TableRelationship> saved = transactionTemplate.execute(status -> {
+            List<TableRelationship> result = new ArrayList<>(changes.size());
+            for (int from = 0; from < changes.size(); from += batchSize) {
+                result.addAll(tableRelationshipRepository.saveAll(
+                        changes.subList(from, Math.min(changes.size(), from + batchSize))));
+            }
+            if (watermark != null) {
+                watermarkRepository.save(watermark);
+            }
+            return result;
+        });
+
+        saved.forEach(relationshipGraphRegistry::onSaved);
+        if (!saved.isEmpty()) {
+            translationCache.invalidate(dataSourceId);
+        }
+        return saved;
+    }
+
+    /**
+     * 把学习到的关系合并到已有关系：已有的累加频率，学习来源的关系取较高的置信度；其余作为新关系
+     */
+    static List<TableRelationship> mergeInto(Map<String, TableRelationship> existing, List<TableRelationship> learned) {
+        LocalDateTime now = LocalDateTime.now();
+        List<TableRelationship> changes = new ArrayList<>(learned.size());
+        for (TableRelationship relationship : learned) {
+            TableRelationship current = existing.get(linkKey(relationship));
+            if (current == null) {
+                changes.add(relationship);
+                continue;
+            }
+            current.setFrequency((int) Math.min(Integer.MAX_VALUE,
+                    (long) current.getFrequency() + relationship.getFrequency()));
+            if (current.getRelationSource() == RelationshipSource.LEARNING) {
+                current.setConfidence(Math.max(current.getConfidence(), relationship.getConfidence()));
+            }
+            current.setUpdatedAt(now);
+            changes.add(current);
+        }
+        return changes;
+    }
+
+    /**
+     * 不区分方向和大小写的表列组合，用于匹配已有关系
+     */
+    static String linkKey(TableRelationship relationship) {
+        String source = (relationship.getSourceTableName() + '.' + relationship.getSourceColumnNames()).toLowerCase(Locale.ROOT);
+        String target = (relationship.getTargetTableName() + '.' + relationship.getTargetColumnNames()).toLowerCase(Locale.ROOT);
+        return source.compareTo(target) <= 0 ? source + '|' + target : target + '|' + source;
+    }
+}
@@ -0,0 +1,44 @@
+package com.insightdata.domain.metadata.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 从查询历史学习表关系的水位线
+ * 记录每个数据源已处理到的最后一条查询历史，再次学习时只处理其后的记录
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelationshipLearningWatermark {
+
+    /**
+     * 数据源ID
+     */
+    private String dataSourceId;
+
+    /**
+     * 已处理的最后一条查询历史的创建时间
+     */
+    private LocalDateTime lastCreatedAt;
+
+    /**
+     * 已处理的最后一条查询历史的ID，与创建时间一起构成游标
+     */
+    private String lastHistoryId;
+
+    /**
+     * 累计处理的查询历史数
+     */
+    private long processedCount;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+}
@@ -7,7 +7,9 @@ import java.util.List;
 
 @Data
 public class SchemaInfo {
+    private String id;
     private String name;
+    private String description;
     private String dataSourceId;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -6,6 +6,8 @@ import java.util.List;
 
 @Data
 public class TableInfo {
+    private String id;
+    private String schemaId;
     private String name;
     private String schemaName;
     private long rowCount;
@@ -13,7 +15,10 @@ public class TableInfo {
     private long indexSize;
     private List<ColumnInfo> columns;
     private List<ForeignKeyInfo> foreignKeys;
+    private List<IndexInfo> indexes;
     private String description;
+    // 表结构指纹，用于增量同步时判断表结构是否变化
+    private String definitionHash;
 
 
     public List<ColumnInfo> getColumns() {
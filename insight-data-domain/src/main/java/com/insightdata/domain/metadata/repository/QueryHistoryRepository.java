@@ -2,6 +2,8 @@ package com.insightdata.domain.metadata.repository;
 
 import com.insightdata.domain.query.model.QueryHistory;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,5 +13,76 @@ public interface QueryHistoryRepository {
 
     QueryHistory save(QueryHistory queryHistory);
 
+    /**
+     * 批量新增查询历史，不回填ID
+     *
+     * @param histories 查询历史
+     */
+    void saveAll(List<QueryHistory> histories);
+
     Optional<QueryHistory> findById(String id);
-}
\ No newline at end of file
+
+    /**
+     * 按(创建时间, ID)游标升序分页读取查询历史，只包含ID、数据源ID、执行的SQL、状态和创建时间
+     *
+     * @param dataSourceId 数据源ID
+     * @param afterCreatedAt 游标的创建时间，为null时从头读取
+     * @param afterId 游标的ID
+     * @param before 只读取创建时间早于该时间的记录
+     * @param limit 每页记录数
+     * @return 游标之后的一页查询历史，executedAt为创建时间
+     */
+    List<QueryHistory> findByDataSourceIdAfter(String dataSourceId, LocalDateTime afterCreatedAt, String afterId,
+                                               LocalDateTime before, int limit);
+
+    /**
+     * 按(创建时间, ID)游标倒序分页读取查询历史
+     *
+     * @param dataSourceId 数据源ID
+     * @param beforeCreatedAt 游标的创建时间，为null时从最新的记录开始
+     * @param beforeId 游标的ID
+     * @param limit 每页记录数
+     * @return 游标之前的一页查询历史，executedAt为创建时间
+     */
+    List<QueryHistory> findPageByDataSourceId(String dataSourceId, LocalDateTime beforeCreatedAt, String beforeId,
+                                              int limit);
+
+    /**
+     * 按偏移量倒序分页读取查询历史，只用于兼容按页码分页的旧接口
+     *
+     * @param dataSourceId 数据源ID
+     * @param offset 跳过的记录数
+     * @param limit 每页记录数
+     * @return 一页查询历史，executedAt为创建时间
+     * @deprecated 偏移量越大需要扫描和跳过的记录越多，使用游标分页的{@link #findPageByDataSourceId(String, LocalDateTime, String, int)}
+     */
+    @Deprecated
+    List<QueryHistory> findPageByDataSourceId(String dataSourceId, int offset, int limit);
+
+    /**
+     * 查询历史中最早一条记录的创建时间
+     *
+     * @return 创建时间，没有记录时为空
+     */
+    Optional<LocalDateTime> findEarliestCreatedAt();
+
+    /**
+     * 查询历史表的分区名，按分区顺序，未分区时返回空列表
+     */
+    List<String> findPartitionNames();
+
+    /**
+     * 从最后一个分区拆分出一个新分区
+     *
+     * @param partitionName 新分区名
+     * @param lessThan 新分区的上界（不含）
+     */
+    void splitFuturePartition(String partitionName, LocalDate lessThan);
+
+    /**
+     * 删除分区及其中的查询历史
+     *
+     * @param partitionNames 分区名
+     */
+    void dropPartitions(List<String> partitionNames);
+}
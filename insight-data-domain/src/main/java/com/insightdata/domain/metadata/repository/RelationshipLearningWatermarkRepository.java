@@ -0,0 +1,26 @@
+package com.insightdata.domain.metadata.repository;
+
+import com.insightdata.domain.metadata.model.RelationshipLearningWatermark;
+
+import java.util.Optional;
+
+/**
+ * 表关系学习水位线存储库接口
+ */
+public interface RelationshipLearningWatermarkRepository {
+
+    /**
+     * 查找数据源的水位线
+     *
+     * @param dataSourceId 数据源ID
+     * @return 水位线（如果已经学习过）
+     */
+    Optional<RelationshipLearningWatermark> findByDataSourceId(String dataSourceId);
+
+    /**
+     * 保存水位线，已存在时覆盖
+     *
+     * @param watermark 水位线
+     */
+    void save(RelationshipLearningWatermark watermark);
+}
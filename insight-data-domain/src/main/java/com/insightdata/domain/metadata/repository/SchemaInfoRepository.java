@@ -17,6 +17,14 @@ public interface SchemaInfoRepository {
      */
     SchemaInfo save(SchemaInfo schemaInfo);
     
+    /**
+     * 批量保存Schema信息
+     *
+     * @param schemaInfos Schema信息列表
+     * @return 保存后的Schema信息列表
+     */
+    java.util.List<SchemaInfo> saveAll(java.util.List<SchemaInfo> schemaInfos);
+    
     /**
      * 根据ID查询Schema信息
      *
@@ -31,7 +39,25 @@ public interface SchemaInfoRepository {
      * @param dataSourceId 数据源ID
      * @return Schema信息列表
      */
-    java.util.List<SchemaInfo> findByDataSourceId(Long dataSourceId);
+    java.util.List<SchemaInfo> findByDataSourceId(String dataSourceId);
+    
+    /**
+     * 加载数据源的完整Schema图：Schema及其表、列、索引和外键
+     * 查询次数固定，与表的数量无关
+     *
+     * @param dataSourceId 数据源ID
+     * @return 包含表信息的Schema列表，未同步过时为空列表
+     */
+    java.util.List<SchemaInfo> findSchemaGraph(String dataSourceId);
+    
+    /**
+     * 加载数据源中一个Schema的完整Schema图，只查询该Schema的表、列、索引和外键
+     *
+     * @param dataSourceId 数据源ID
+     * @param schemaName Schema名称
+     * @return 包含表信息的Schema，未同步过时为空
+     */
+    Optional<SchemaInfo> findSchemaGraph(String dataSourceId, String schemaName);
     
     /**
      * 删除Schema信息
@@ -0,0 +1,27 @@
+package com.insightdata.domain.metadata.repository;
+
+import com.insightdata.domain.metadata.model.TableChangeHistory;
+
+import java.util.List;
+
+/**
+ * 表变更历史仓储接口
+ */
+public interface TableChangeHistoryRepository {
+    
+    /**
+     * 批量保存表变更历史
+     *
+     * @param histories 表变更历史列表
+     * @return 保存后的表变更历史列表
+     */
+    List<TableChangeHistory> saveAll(List<TableChangeHistory> histories);
+    
+    /**
+     * 根据表ID查询变更历史，按检测时间倒序
+     *
+     * @param tableId 表ID
+     * @return 表变更历史列表
+     */
+    List<TableChangeHistory> findByTableId(String tableId);
+}
@@ -18,6 +18,15 @@ public interface TableInfoRepository {
      */
     TableInfo save(TableInfo tableInfo);
     
+    /**
+     * 批量保存表信息，连同列、索引和外键
+     * 表通过schemaId关联所属Schema，已存在的表按(schemaId, name)更新并沿用原ID
+     *
+     * @param tableInfos 表信息列表
+     * @return 保存后的表信息列表
+     */
+    List<TableInfo> saveAll(List<TableInfo> tableInfos);
+    
     /**
      * 根据ID查询表信息
      *
@@ -32,7 +41,7 @@ public interface TableInfoRepository {
      * @param dataSourceId 数据源ID
      * @return 表信息列表
      */
-    List<TableInfo> findByDataSourceId(Long dataSourceId);
+    List<TableInfo> findByDataSourceId(String dataSourceId);
     
     /**
      * 根据数据源ID和Schema名称查询表信息列表
@@ -41,7 +50,7 @@ public interface TableInfoRepository {
      * @param schemaName Schema名称
      * @return 表信息列表
      */
-    List<TableInfo> findByDataSourceIdAndSchemaName(Long dataSourceId, String schemaName);
+    List<TableInfo> findByDataSourceIdAndSchemaName(String dataSourceId, String schemaName);
     
     /**
      * 删除表信息
@@ -0,0 +1,158 @@
+package com.insightdata.domain.metadata.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.insightdata.domain.metadata.model.ColumnInfo;
+import com.insightdata.domain.metadata.model.ForeignKeyInfo;
+import com.insightdata.domain.metadata.model.IndexInfo;
+import com.insightdata.domain.metadata.model.TableInfo;
+
+/**
+ * 表结构指纹
+ *
+ * 按列顺序对列名、类型、可空、主键和注释，再按名称顺序对索引（唯一性和列）和外键（源列、目标表和目标列）
+ * 计算SHA-256摘要，只增删索引或外键的ALTER也会改变指纹。
+ * 增量同步通过比较指纹判断表结构是否真正发生变化，并生成列、索引和外键级差异。
+ */
+public final class TableDefinitionFingerprint {
+
+    private TableDefinitionFingerprint() {
+    }
+
+    /**
+     * 计算表结构指纹
+     *
+     * @param table 表信息
+     * @return 十六进制SHA-256摘要
+     */
+    public static String of(TableInfo table) {
+        StringBuilder sb = new StringBuilder();
+        for (ColumnInfo column : columnsOf(table)) {
+            sb.append(describe(column)).append('\n');
+        }
+        // 目录读取和已保存元数据中索引、外键的顺序不固定，按名称排序后参与摘要
+        for (String index : indexesOf(table).values()) {
+            sb.append("index|").append(index).append('\n');
+        }
+        for (String foreignKey : foreignKeysOf(table).values()) {
+            sb.append("fk|").append(foreignKey).append('\n');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * 比较两个版本的表结构
+     *
+     * @param before 变更前的表，新建表时为null
+     * @param after  变更后的表
+     * @return 变更详情：列、索引和外键各自的added、removed、modified列表以及前后指纹
+     */
+    public static Map<String, Object> diff(TableInfo before, TableInfo after) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("schemaName", after.getSchemaName());
+        details.put("tableName", after.getName());
+        putDiff(details, "Columns", "column", columnsByName(before), columnsByName(after));
+        putDiff(details, "Indexes", "index", indexesOf(before), indexesOf(after));
+        putDiff(details, "ForeignKeys", "foreignKey", foreignKeysOf(before), foreignKeysOf(after));
+        details.put("previousHash", before != null ? before.getDefinitionHash() : null);
+        details.put("currentHash", after.getDefinitionHash());
+        return details;
+    }
+
+    /**
+     * 按名称比较两组描述，写入added、removed和modified三项差异
+     */
+    private static void putDiff(Map<String, Object> details, String suffix, String key,
+                                Map<String, String> before, Map<String, String> after) {
+        List<String> added = new ArrayList<>();
+        List<Map<String, String>> modified = new ArrayList<>();
+        for (Map.Entry<String, String> entry : after.entrySet()) {
+            String previous = before.get(entry.getKey());
+            if (previous == null) {
+                added.add(entry.getKey());
+            } else if (!previous.equals(entry.getValue())) {
+                Map<String, String> change = new LinkedHashMap<>();
+                change.put(key, entry.getKey());
+                change.put("before", previous);
+                change.put("after", entry.getValue());
+                modified.add(change);
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (String name : before.keySet()) {
+            if (!after.containsKey(name)) {
+                removed.add(name);
+            }
+        }
+        details.put("added" + suffix, added);
+        details.put("removed" + suffix, removed);
+        details.put("modified" + suffix, modified);
+    }
+
+    private static String describe(ColumnInfo column) {
+        return column.getName() + "|" + column.getDataType() + "|" + column.isNullable() + "|"
+                + column.isPrimaryKey() + "|" + (column.getDescription() != null ? column.getDescription() : "");
+    }
+
+    private static List<ColumnInfo> columnsOf(TableInfo table) {
+        return table == null || table.getColumns() == null ? Collections.emptyList() : table.getColumns();
+    }
+
+    private static Map<String, String> columnsByName(TableInfo table) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        for (ColumnInfo column : columnsOf(table)) {
+            columns.put(column.getName(), describe(column));
+        }
+        return columns;
+    }
+
+    /**
+     * 索引名到描述（名称、唯一性和按顺序的列）的映射，按索引名排序
+     */
+    private static Map<String, String> indexesOf(TableInfo table) {
+        Map<String, String> indexes = new TreeMap<>();
+        if (table == null || table.getIndexes() == null) {
+            return indexes;
+        }
+        for (IndexInfo index : table.getIndexes()) {
+            indexes.put(String.valueOf(index.getName()), index.getName() + "|" + index.isUnique() + "|"
+                    + (index.getColumns() != null ? String.join(",", index.getColumns()) : ""));
+        }
+        return indexes;
+    }
+
+    /**
+     * 外键名到描述（名称、源列、目标表和目标列）的映射，按外键名排序
+     */
+    private static Map<String, String> foreignKeysOf(TableInfo table) {
+        Map<String, String> foreignKeys = new TreeMap<>();
+        if (table == null || table.getForeignKeys() == null) {
+            return foreignKeys;
+        }
+        for (ForeignKeyInfo foreignKey : table.getForeignKeys()) {
+            boolean hasColumns = foreignKey.getColumns() != null;
+            foreignKeys.put(String.valueOf(foreignKey.getName()), foreignKey.getName() + "|"
+                    + (hasColumns ? foreignKey.getSourceColumnNamesAsString() : "") + "|"
+                    + foreignKey.getTargetTableName() + "|"
+                    + (hasColumns ? foreignKey.getTargetColumnNamesAsString() : ""));
+        }
+        return foreignKeys;
+    }
+}
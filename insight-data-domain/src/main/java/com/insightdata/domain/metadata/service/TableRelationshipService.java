@@ -1,5 +1,6 @@
 package com.insightdata.domain.metadata.service;
 
+import com.insightdata.domain.metadata.graph.JoinPlan;
 import com.insightdata.domain.metadata.model.SchemaInfo;
 import com.insightdata.domain.metadata.model.TableRelationship;
 import com.insightdata.domain.query.model.QueryHistory;
@@ -45,6 +46,27 @@ public interface TableRelationshipService {
      * @return 表关系列表
      */
     List<TableRelationship> getTableRelationships(String dataSourceId, String tableName);
+
+    /**
+     * 查找连通指定表的连接方案
+     * 在关系图上求近似最小代价的Steiner树，必要时经过中间表
+     *
+     * @param dataSourceId 数据源ID
+     * @param tableNames 需要连接的表，第一张表作为连接起点
+     * @return 连接方案
+     */
+    JoinPlan findJoinTree(String dataSourceId, List<String> tableNames);
+
+    /**
+     * 查找两张表之间代价最小的若干条连接路径
+     *
+     * @param dataSourceId 数据源ID
+     * @param sourceTable 起始表
+     * @param targetTable 目标表
+     * @param k 最多返回的路径数
+     * @return 按代价升序排列的连接路径
+     */
+    List<JoinPlan> findJoinPaths(String dataSourceId, String sourceTable, String targetTable, int k);
     
     /**
      * 从元数据中学习表关系
@@ -58,13 +80,22 @@ public interface TableRelationshipService {
     
     /**
      * 从查询历史中学习表关系
-     * 分析JOIN语句和WHERE条件
+     * 提取JOIN和WHERE中的列相等条件
      *
      * @param dataSourceId 数据源ID
      * @param queryHistories 查询历史列表
      * @return 学习到的表关系列表
      */
     List<TableRelationship> learnFromQueryHistory(String dataSourceId, List<QueryHistory> queryHistories);
+
+    /**
+     * 从持久化的查询历史中增量学习表关系
+     * 只处理上次学习的水位线之后的查询历史
+     *
+     * @param dataSourceId 数据源ID
+     * @return 新增或更新的表关系列表
+     */
+    List<TableRelationship> learnFromQueryHistory(String dataSourceId);
     
     /**
      * 从用户反馈中学习表关系
@@ -14,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.insightdata.domain.adapter.DataSourceAdapter;
 import com.insightdata.domain.adapter.DataSourceAdapterFactory;
 import com.insightdata.domain.adapter.DataSourceAdapterHelper;
+import com.insightdata.domain.adapter.DataSourceConnectionPoolRegistry;
 import com.insightdata.domain.adapter.EnhancedDataSourceAdapter;
 import com.insightdata.domain.exception.DataSourceException;
 import com.insightdata.domain.metadata.enums.DataSourceType;
@@ -21,8 +22,13 @@ import com.insightdata.domain.metadata.model.DataSource;
 import com.insightdata.domain.metadata.model.SchemaInfo;
 import com.insightdata.domain.metadata.model.TableInfo;
 import com.insightdata.domain.metadata.repository.DataSourceRepository;
+import com.insightdata.domain.metadata.repository.SchemaInfoRepository;
 import com.insightdata.domain.metadata.service.CredentialEncryptionService;
 import com.insightdata.domain.metadata.service.DataSourceService;
+import com.insightdata.domain.nlquery.converter.NLTranslationCache;
+import com.insightdata.domain.nlquery.executor.QueryCountCache;
+import com.insightdata.domain.nlquery.executor.QueryResultCache;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshotRegistry;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -42,6 +48,24 @@ public class DataSourceServiceImpl implements DataSourceService {
     @Autowired
     private CredentialEncryptionService encryptionService;
 
+    @Autowired
+    private DataSourceConnectionPoolRegistry connectionPoolRegistry;
+
+    @Autowired
+    private QueryResultCache queryResultCache;
+
+    @Autowired
+    private QueryCountCache queryCountCache;
+
+    @Autowired
+    private SchemaSnapshotRegistry schemaSnapshotRegistry;
+
+    @Autowired
+    private NLTranslationCache translationCache;
+
+    @Autowired
+    private SchemaInfoRepository schemaInfoRepository;
+
     @Override
     @Transactional
     public DataSource createDataSource(DataSource dataSource) {
@@ -97,7 +121,16 @@ public class DataSourceServiceImpl implements DataSourceService {
         dataSource.setCreatedAt(existingDataSource.getCreatedAt());
 
         // 保存数据源
-        return dataSourceRepository.save(dataSource);
+        DataSource saved = dataSourceRepository.save(dataSource);
+
+        // 关闭旧连接池，下次借用连接时按新配置重建
+        connectionPoolRegistry.evict(dataSource.getId());
+        queryResultCache.invalidate(dataSource.getId());
+        queryCountCache.invalidate(dataSource.getId());
+        schemaSnapshotRegistry.evict(dataSource.getId());
+        translationCache.invalidate(dataSource.getId());
+
+        return saved;
     }
 
     @Override
@@ -140,6 +173,13 @@ public class DataSourceServiceImpl implements DataSourceService {
 
         // 删除数据源
         dataSourceRepository.deleteById(id);
+
+        // 关闭数据源对应的连接池
+        connectionPoolRegistry.evict(id);
+        queryResultCache.invalidate(id);
+        queryCountCache.invalidate(id);
+        schemaSnapshotRegistry.evict(id);
+        translationCache.invalidate(id);
     }
 
     @Override
@@ -178,6 +218,12 @@ public class DataSourceServiceImpl implements DataSourceService {
     @Override
     public SchemaInfo getSchemaInfo(String dataSourceId, String schemaName) {
         try {
+            // 优先使用已同步保存的元数据，未同步过的schema才实时读取源库
+            Optional<SchemaInfo> stored = schemaInfoRepository.findSchemaGraph(dataSourceId, schemaName);
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+
             // 获取数据源
             DataSource dataSource = dataSourceRepository.findById(dataSourceId)
                     .orElseThrow(() -> DataSourceException.notFound("Data source with ID " + dataSourceId + " not found"));
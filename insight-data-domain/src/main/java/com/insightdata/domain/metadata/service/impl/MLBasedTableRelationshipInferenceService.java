@@ -1,13 +1,17 @@
 package com.insightdata.domain.metadata.service.impl;
 
+import com.insightdata.domain.metadata.inference.SketchRelationshipInferenceEngine;
 import com.insightdata.domain.metadata.model.ColumnInfo;
+import com.insightdata.domain.metadata.model.DataSource;
 import com.insightdata.domain.metadata.model.SchemaInfo;
 import com.insightdata.domain.metadata.model.TableInfo;
 import com.insightdata.domain.metadata.model.TableRelationship;
 import com.insightdata.domain.metadata.model.TableRelationship.RelationshipSource;
 import com.insightdata.domain.metadata.model.TableRelationship.RelationshipType;
+import com.insightdata.domain.metadata.repository.DataSourceRepository;
 import com.insightdata.domain.metadata.repository.TableRelationshipRepository;
 import com.insightdata.domain.metadata.service.TableRelationshipInferenceService;
+import com.insightdata.domain.nlquery.dictionary.EditDistance;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -24,49 +28,30 @@ import java.util.stream.Collectors;
 public class MLBasedTableRelationshipInferenceService implements TableRelationshipInferenceService {
 
     private static final double DEFAULT_CONFIDENCE_THRESHOLD = 0.7;
-    private static final double NAME_SIMILARITY_WEIGHT = 0.4;
-    private static final double CONTENT_SIMILARITY_WEIGHT = 0.6;
 
     @Autowired
     private TableRelationshipRepository tableRelationshipRepository;
 
+    @Autowired
+    private DataSourceRepository dataSourceRepository;
+
+    @Autowired
+    private SketchRelationshipInferenceEngine sketchInferenceEngine;
+
     @Override
     public List<TableRelationship> inferRelationshipsFromContent(String dataSourceId, SchemaInfo schemaInfo) {
         log.info("为数据源 {} 的模式 {} 基于内容推断表关系", dataSourceId, schemaInfo.getName());
-        List<TableRelationship> relationships = new ArrayList<>();
-
-        // 获取所有表信息
-        List<TableInfo> tables = schemaInfo.getTables();
-
-        // 对每对表执行内容分析
-        for (int i = 0; i < tables.size(); i++) {
-            TableInfo sourceTable = tables.get(i);
 
-            for (int j = i + 1; j < tables.size(); j++) {
-                TableInfo targetTable = tables.get(j);
-
-                // 分析列内容相似性
-                List<ColumnPair> columnPairs = findSimilarColumns(sourceTable, targetTable);
-
-                // 为每个相似列对创建关系
-                for (ColumnPair pair : columnPairs) {
-                    if (pair.similarity >= DEFAULT_CONFIDENCE_THRESHOLD) {
-                        TableRelationship relationship = createRelationship(
-                                dataSourceId,
-                                sourceTable.getName(),
-                                pair.sourceColumn,
-                                targetTable.getName(),
-                                pair.targetColumn,
-                                inferRelationshipType(sourceTable, pair.sourceColumn, targetTable, pair.targetColumn),
-                                RelationshipSource.METADATA,  // 这里使用METADATA作为来源，因为是基于数据分析
-                                pair.similarity
-                        );
-                        relationships.add(relationship);
-                    }
-                }
-            }
+        Optional<DataSource> dataSource = dataSourceRepository.findById(dataSourceId);
+        if (!dataSource.isPresent()) {
+            log.warn("数据源 {} 不存在，跳过基于内容的表关系推断", dataSourceId);
+            return new ArrayList<>();
         }
 
+        // 每张表抽样一次，按MinHash/LSH查找候选列对，避免逐对比较表和列
+        List<TableRelationship> relationships = sketchInferenceEngine.infer(
+                dataSource.get(), schemaInfo, DEFAULT_CONFIDENCE_THRESHOLD);
+
         log.info("为数据源 {} 的模式 {} 基于内容推断出 {} 个表关系", dataSourceId, schemaInfo.getName(), relationships.size());
         return relationships;
     }
@@ -357,8 +342,8 @@ public class MLBasedTableRelationshipInferenceService implements TableRelationsh
             return 1.0;
         }
 
-        // 计算Levenshtein距离
-        int distance = levenshteinDistance(norm1, norm2);
+        // 计算Levenshtein距离，位并行实现不分配(n+1)×(m+1)矩阵
+        int distance = EditDistance.levenshtein(norm1, norm2);
         int maxLength = Math.max(norm1.length(), norm2.length());
 
         // 转换为相似度
@@ -369,31 +354,6 @@ public class MLBasedTableRelationshipInferenceService implements TableRelationsh
         return 1.0 - ((double) distance / maxLength);
     }
 
-    private int levenshteinDistance(String s1, String s2) {
-        // 计算两个字符串之间的Levenshtein距离
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-
-        for (int i = 0; i <= s1.length(); i++) {
-            dp[i][0] = i;
-        }
-
-        for (int j = 0; j <= s2.length(); j++) {
-            dp[0][j] = j;
-        }
-
-        for (int i = 1; i <= s1.length(); i++) {
-            for (int j = 1; j <= s2.length(); j++) {
-                int cost = (s1.charAt(i - 1) == s2.charAt(j - 1)) ? 0 : 1;
-                dp[i][j] = Math.min(
-                        Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
-                        dp[i - 1][j - 1] + cost
-                );
-            }
-        }
-
-        return dp[s1.length()][s2.length()];
-    }
-
     private RelationshipType inferRelationshipType(TableInfo sourceTable, String sourceColumn,
                                                    TableInfo targetTable, String targetColumn) {
         // 尝试推断关系类型
@@ -425,47 +385,6 @@ public class MLBasedTableRelationshipInferenceService implements TableRelationsh
                 .anyMatch(ColumnInfo::isPrimaryKey);
     }
 
-    private List<ColumnPair> findSimilarColumns(TableInfo sourceTable, TableInfo targetTable) {
-        // 寻找两个表之间相似的列对
-        List<ColumnPair> pairs = new ArrayList<>();
-
-        for (ColumnInfo sourceColumn : sourceTable.getColumns()) {
-            for (ColumnInfo targetColumn : targetTable.getColumns()) {
-                // 计算列名相似度
-                double nameSimilarity = calculateColumnNameSimilarity(
-                        sourceColumn.getName(),
-                        targetColumn.getName()
-                );
-
-                // 这里应该有数据内容相似度的计算
-                // 由于我们没有实际的数据，这里假设一个值
-                double contentSimilarity = 0.0;
-
-                // 如果列名相似，假设内容也相似
-                if (nameSimilarity > 0.8) {
-                    contentSimilarity = 0.7;
-                }
-
-                // 计算总体相似度
-                double totalSimilarity = NAME_SIMILARITY_WEIGHT * nameSimilarity +
-                        CONTENT_SIMILARITY_WEIGHT * contentSimilarity;
-
-                if (totalSimilarity > 0) {
-                    pairs.add(new ColumnPair(
-                            sourceColumn.getName(),
-                            targetColumn.getName(),
-                            totalSimilarity
-                    ));
-                }
-            }
-        }
-
-        // 按相似度排序
-        pairs.sort(Comparator.comparingDouble(pair -> -pair.similarity));
-
-        return pairs;
-    }
-
     private TableRelationship createRelationship(String dataSourceId, String sourceTable, String sourceColumn,
                                                  String targetTable, String targetColumn, RelationshipType type,
                                                  RelationshipSource source, double confidence) {
@@ -487,21 +406,6 @@ public class MLBasedTableRelationshipInferenceService implements TableRelationsh
 
     // 内部类
 
-    /**
-     * 列对及其相似度
-     */
-    private static class ColumnPair {
-        final String sourceColumn;
-        final String targetColumn;
-        final double similarity;
-
-        ColumnPair(String sourceColumn, String targetColumn, double similarity) {
-            this.sourceColumn = sourceColumn;
-            this.targetColumn = targetColumn;
-            this.similarity = similarity;
-        }
-    }
-
     /**
      * 列表信息
      */
@@ -1,11 +1,15 @@
 package com.insightdata.domain.metadata.service.impl;
 
+import com.insightdata.domain.metadata.graph.JoinPlan;
+import com.insightdata.domain.metadata.graph.RelationshipGraphRegistry;
+import com.insightdata.domain.metadata.learning.QueryHistoryRelationshipLearner;
 import com.insightdata.domain.metadata.model.*;
 import com.insightdata.domain.metadata.model.TableRelationship.RelationshipSource;
 import com.insightdata.domain.metadata.model.TableRelationship.RelationshipType;
 import com.insightdata.domain.query.model.QueryHistory;
 import com.insightdata.domain.metadata.repository.TableRelationshipRepository;
 import com.insightdata.domain.metadata.service.TableRelationshipService;
+import com.insightdata.domain.nlquery.converter.NLTranslationCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -13,9 +17,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -28,6 +30,15 @@ public class TableRelationshipServiceImpl implements TableRelationshipService {
     @Autowired
     private TableRelationshipRepository tableRelationshipRepository;
 
+    @Autowired
+    private NLTranslationCache translationCache;
+
+    @Autowired
+    private RelationshipGraphRegistry relationshipGraphRegistry;
+
+    @Autowired
+    private QueryHistoryRelationshipLearner queryHistoryRelationshipLearner;
+
     @Override
     public TableRelationship findById(String id) {
         return tableRelationshipRepository.findById(id).get();
@@ -40,11 +51,17 @@ public class TableRelationshipServiceImpl implements TableRelationshipService {
 
     @Override
     public List<TableRelationship> getTableRelationships(String dataSourceId, List<String> tableNames) {
-        List<TableRelationship> allRelationships = tableRelationshipRepository.findByDataSourceId(dataSourceId);
+        return relationshipGraphRegistry.get(dataSourceId).getRelationships(tableNames);
+    }
 
-        return allRelationships.stream()
-                .filter(r -> tableNames.contains(r.getSourceTableName()) || tableNames.contains(r.getTargetTableName()))
-                .collect(Collectors.toList());
+    @Override
+    public JoinPlan findJoinTree(String dataSourceId, List<String> tableNames) {
+        return relationshipGraphRegistry.get(dataSourceId).connect(tableNames);
+    }
+
+    @Override
+    public List<JoinPlan> findJoinPaths(String dataSourceId, String sourceTable, String targetTable, int k) {
+        return relationshipGraphRegistry.get(dataSourceId).shortestPaths(sourceTable, targetTable, k);
     }
 
     @Override
@@ -125,159 +142,21 @@ public class TableRelationshipServiceImpl implements TableRelationshipService {
 
         // 保存关系
         for (TableRelationship relationship : relationships) {
-            tableRelationshipRepository.save(relationship);
+            relationshipGraphRegistry.onSaved(tableRelationshipRepository.save(relationship));
         }
+        translationCache.invalidate(dataSourceId);
 
         return relationships;
     }
 
     @Override
-    @Transactional
     public List<TableRelationship> learnFromQueryHistory(String dataSourceId, List<QueryHistory> queryHistories) {
-        List<TableRelationship> relationships = new ArrayList<>();
-        Map<String, TableRelationship> relationshipMap = new HashMap<>();
-
-        for (QueryHistory history : queryHistories) {
-            String sql = history.getExecutedSql().toLowerCase();
-
-            // 分析JOIN语句
-            analyzeJoins(dataSourceId, sql, relationshipMap);
-
-            // 分析WHERE条件
-            analyzeWhereConditions(dataSourceId, sql, relationshipMap);
-        }
-
-        // 保存关系
-        for (TableRelationship relationship : relationshipMap.values()) {
-            tableRelationshipRepository.save(relationship);
-            relationships.add(relationship);
-        }
-
-        return relationships;
+        return queryHistoryRelationshipLearner.learn(dataSourceId, queryHistories);
     }
 
-    /**
-     * 分析JOIN语句
-     */
-    private void analyzeJoins(String dataSourceId, String sql, Map<String, TableRelationship> relationshipMap) {
-        // 简单实现，实际应用中需要更复杂的SQL解析
-        String[] parts = sql.split("\\s+");
-
-        for (int i = 0; i < parts.length - 3; i++) {
-            if (parts[i].equals("join") && i + 3 < parts.length && parts[i + 2].equals("on")) {
-                String joinTable = parts[i + 1];
-                String onCondition = parts[i + 3];
-
-                // 解析ON条件
-                if (onCondition.contains("=")) {
-                    String[] columns = onCondition.split("=");
-                    if (columns.length == 2) {
-                        String leftPart = columns[0].trim();
-                        String rightPart = columns[1].trim();
-
-                        if (leftPart.contains(".") && rightPart.contains(".")) {
-                            String[] leftParts = leftPart.split("\\.");
-                            String[] rightParts = rightPart.split("\\.");
-
-                            if (leftParts.length == 2 && rightParts.length == 2) {
-                                String leftTable = leftParts[0];
-                                String leftColumn = leftParts[1];
-                                String rightTable = rightParts[0];
-                                String rightColumn = rightParts[1];
-
-                                // 创建关系
-                                String key = leftTable + "." + leftColumn + "-" + rightTable + "." + rightColumn;
-
-                                if (!relationshipMap.containsKey(key)) {
-                                    TableRelationship relationship = TableRelationship.builder()
-                                            .dataSourceId(dataSourceId)
-                                            .sourceTableName(leftTable)
-                                            .sourceColumnNames(leftColumn)
-                                            .targetTableName(rightTable)
-                                            .targetColumnNames(rightColumn)
-                                            .relationType(RelationshipType.MANY_TO_ONE) // 默认为多对一
-                                            .relationSource(RelationshipSource.LEARNING)
-                                            .confidence(0.8) // 查询历史的权重较高
-                                            .frequency(1)
-                                            .createdAt(LocalDateTime.now())
-                                            .updatedAt(LocalDateTime.now())
-                                            .build();
-
-                                    relationshipMap.put(key, relationship);
-                                } else {
-                                    // 更新频率
-                                    TableRelationship relationship = relationshipMap.get(key);
-                                    relationship.setFrequency(relationship.getFrequency() + 1);
-                                    relationship.setUpdatedAt(LocalDateTime.now());
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * 分析WHERE条件
-     */
-    private void analyzeWhereConditions(String dataSourceId, String sql, Map<String, TableRelationship> relationshipMap) {
-        // 简单实现，实际应用中需要更复杂的SQL解析
-        int whereIndex = sql.indexOf("where");
-        if (whereIndex == -1) {
-            return;
-        }
-
-        String whereClause = sql.substring(whereIndex + 5);
-        String[] conditions = whereClause.split("and|or");
-
-        for (String condition : conditions) {
-            if (condition.contains("=")) {
-                String[] parts = condition.split("=");
-                if (parts.length == 2) {
-                    String leftPart = parts[0].trim();
-                    String rightPart = parts[1].trim();
-
-                    if (leftPart.contains(".") && rightPart.contains(".")) {
-                        String[] leftParts = leftPart.split("\\.");
-                        String[] rightParts = rightPart.split("\\.");
-
-                        if (leftParts.length == 2 && rightParts.length == 2) {
-                            String leftTable = leftParts[0];
-                            String leftColumn = leftParts[1];
-                            String rightTable = rightParts[0];
-                            String rightColumn = rightParts[1];
-
-                            // 创建关系
-                            String key = leftTable + "." + leftColumn + "-" + rightTable + "." + rightColumn;
-
-                            if (!relationshipMap.containsKey(key)) {
-                                TableRelationship relationship = TableRelationship.builder()
-                                        .dataSourceId(dataSourceId)
-                                        .sourceTableName(leftTable)
-                                        .sourceColumnNames(leftColumn)
-                                        .targetTableName(rightTable)
-                                        .targetColumnNames(rightColumn)
-                                        .relationType(RelationshipType.MANY_TO_ONE) // 默认为多对一
-                                        .relationSource(RelationshipSource.LEARNING)
-                                        .confidence(0.7) // WHERE条件的权重略低于JOIN
-                                        .frequency(1)
-                                        .createdAt(LocalDateTime.now())
-                                        .updatedAt(LocalDateTime.now())
-                                        .build();
-
-                                relationshipMap.put(key, relationship);
-                            } else {
-                                // 更新频率
-                                TableRelationship relationship = relationshipMap.get(key);
-                                relationship.setFrequency(relationship.getFrequency() + 1);
-                                relationship.setUpdatedAt(LocalDateTime.now());
-                            }
-                        }
-                    }
-                }
-            }
-        }
+    @Override
+    public List<TableRelationship> learnFromQueryHistory(String dataSourceId) {
+        return queryHistoryRelationshipLearner.learn(dataSourceId);
     }
 
     @Override
@@ -299,7 +178,8 @@ public class TableRelationshipServiceImpl implements TableRelationshipService {
                 relationship.setFrequency(relationship.getFrequency() + 1);
                 relationship.setUpdatedAt(LocalDateTime.now());
 
-                return tableRelationshipRepository.save(relationship);
+                translationCache.invalidate(dataSourceId);
+                return saveAndIndex(relationship);
             }
         }
 
@@ -318,19 +198,26 @@ public class TableRelationshipServiceImpl implements TableRelationshipService {
                 .updatedAt(LocalDateTime.now())
                 .build();
 
-        return tableRelationshipRepository.save(relationship);
+        translationCache.invalidate(dataSourceId);
+        return saveAndIndex(relationship);
     }
 
     @Override
     @Transactional
     public TableRelationship saveTableRelationship(TableRelationship relationship) {
-        return tableRelationshipRepository.save(relationship);
+        translationCache.invalidate(relationship.getDataSourceId());
+        return saveAndIndex(relationship);
     }
 
     @Override
     @Transactional
     public void deleteTableRelationship(String relationshipId) {
+        TableRelationship relationship = tableRelationshipRepository.findById(relationshipId).orElse(null);
         tableRelationshipRepository.deleteById(relationshipId);
+        if (relationship != null) {
+            translationCache.invalidate(relationship.getDataSourceId());
+            relationshipGraphRegistry.onDeleted(relationship);
+        }
     }
 
     @Override
@@ -346,11 +233,21 @@ public class TableRelationshipServiceImpl implements TableRelationshipService {
             relationship.setFrequency(relationship.getFrequency() + 1);
             relationship.setUpdatedAt(LocalDateTime.now());
 
-            return tableRelationshipRepository.save(relationship);
+            translationCache.invalidate(relationship.getDataSourceId());
+            return saveAndIndex(relationship);
         }
         return null;
     }
 
+    /**
+     * 保存关系并更新关系图中对应的边
+     */
+    private TableRelationship saveAndIndex(TableRelationship relationship) {
+        TableRelationship saved = tableRelationshipRepository.save(relationship);
+        relationshipGraphRegistry.onSaved(saved);
+        return saved;
+    }
+
     @Override
     public List<TableRelationship> recommendRelationships(String dataSourceId, String tableName, int limit) {
         List<TableRelationship> allRelationships = tableRelationshipRepository.findByDataSourceId(dataSourceId);
@@ -4,6 +4,8 @@ import lombok.Builder;
 import lombok.Builder;
 import lombok.Data;
 
+import com.insightdata.domain.query.enums.QueryPriority;
+
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +19,12 @@ public class NLQueryRequest {
     private List<String> tags; // Assuming tags are relevant here.
     @Builder.Default
     private String contextId = "";
+    // 发起查询的用户ID，用于按用户限流
+    private String userId;
+    @Builder.Default
+    private QueryPriority priority = QueryPriority.INTERACTIVE;
+    // 最大返回行数，为空时使用insight.query.default-max-rows
+    private Integer maxRows;
 
    public String getQuery(){
        return this.query;
@@ -34,7 +42,7 @@ public class NLQueryRequest {
    }
 
     public Integer getMaxRows() {
-        return 1000;
+        return this.maxRows;
     }
 
     public  Map<String, Object> getOptions(){
@@ -11,6 +11,9 @@ import com.insightdata.domain.nlquery.intent.IntentRecognizer;
 import com.insightdata.domain.nlquery.intent.QueryIntent;
 import com.insightdata.domain.nlquery.preprocess.PreprocessedText;
 import com.insightdata.domain.nlquery.preprocess.TextPreprocessor;
+import com.insightdata.domain.nlquery.preprocess.normalizer.QueryTextCanonicalizer;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshot;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshotRegistry;
 import com.insightdata.domain.nlquery.sql.SqlGenerator;
 import com.insightdata.domain.metadata.service.DataSourceService;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +22,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Slf4j
@@ -41,6 +45,12 @@ public class DefaultNLToSqlConverter implements NLToSqlConverter {
     @Autowired
     private DataSourceService dataSourceService;
 
+    @Autowired
+    private SchemaSnapshotRegistry schemaSnapshotRegistry;
+
+    @Autowired
+    private NLTranslationCache translationCache;
+
     @Override
     public SqlConversionResult convert(NLQueryRequest request) {
         try {
@@ -49,30 +59,12 @@ public class DefaultNLToSqlConverter implements NLToSqlConverter {
             // 1. 获取数据源
             DataSource dataSource = dataSourceService.getDataSourceById(request.getDataSourceId())
                     .orElseThrow(() -> new IllegalArgumentException("Data source not found: " + request.getDataSourceId()));
-            SchemaInfo schemaInfo = dataSourceService.getSchemaInfo(request.getDataSourceId(), dataSource.getName());
-
-            PreprocessedText preprocessedText = textPreprocessor.preprocess(request.getQuery());
-
-            // 1. 实体提取
-            List<EntityTag> entities = entityExtractor.extract(preprocessedText, new EntityExtractionContext());
-            //result.setExtractedEntities(entities); // Temporarily commented out
-
-            // 2. 意图识别
-            QueryIntent queryIntent = intentRecognizer.recognizeIntent(preprocessedText, new IntentRecognitionContext());
-            //result.setQueryIntent(queryIntent); // Temporarily commented out
-
-            // 3. SQL生成
-            SqlGenerator.SqlGenerationResult sqlGenerationResult = sqlGenerator.generate(entities, queryIntent, schemaInfo);
-
-            // 4. 设置结果
-            SqlConversionResult result = SqlConversionResult.builder()
-                .sql(sqlGenerationResult.getSql())
-                .parameters(sqlGenerationResult.getParameters())
-                .confidence(sqlGenerationResult.getConfidence())
-                .explanations(sqlGenerationResult.getExplanations())
-                .alternativeSqls(sqlGenerationResult.getAlternativeSqls())
-                .success(true).build();
+            SchemaSnapshot schemaSnapshot = resolveSchemaSnapshot(dataSource);
 
+            // 规范化后的文本既是缓存键也是预处理的输入，保证命中的结果与重新翻译一致
+            String canonicalText = QueryTextCanonicalizer.canonicalize(request.getQuery());
+            SqlConversionResult result = translationCache.get(dataSource.getId(), schemaSnapshot.getVersion(), canonicalText,
+                    () -> translate(canonicalText, dataSource, schemaSnapshot));
 
             log.info("SQL转换成功: {}", result.getSql());
             return result;
@@ -90,4 +82,45 @@ public class DefaultNLToSqlConverter implements NLToSqlConverter {
                     .build();
         }
     }
-}
\ No newline at end of file
+
+    private SqlConversionResult translate(String text, DataSource dataSource, SchemaSnapshot schemaSnapshot) {
+        PreprocessedText preprocessedText = textPreprocessor.preprocess(text);
+
+        // 1. 实体提取
+        List<EntityTag> entities = entityExtractor.extract(preprocessedText, EntityExtractionContext.builder()
+                .dataSourceId(dataSource.getId())
+                .schemaSnapshot(schemaSnapshot)
+                .build());
+        //result.setExtractedEntities(entities); // Temporarily commented out
+
+        // 2. 意图识别
+        QueryIntent queryIntent = intentRecognizer.recognizeIntent(preprocessedText, new IntentRecognitionContext());
+        //result.setQueryIntent(queryIntent); // Temporarily commented out
+
+        // 3. SQL生成
+        SqlGenerator.SqlGenerationResult sqlGenerationResult = sqlGenerator.generate(entities, queryIntent, schemaSnapshot);
+
+        // 4. 设置结果
+        return SqlConversionResult.builder()
+            .sql(sqlGenerationResult.getSql())
+            .parameters(sqlGenerationResult.getParameters())
+            .confidence(sqlGenerationResult.getConfidence())
+            .explanations(sqlGenerationResult.getExplanations())
+            .alternativeSqls(sqlGenerationResult.getAlternativeSqls())
+            .success(true).build();
+    }
+
+    /**
+     * 获取数据源的元数据快照
+     *
+     * 数据源尚未同步过元数据时，实时读取源库构建一个临时快照，不放入注册表
+     */
+    private SchemaSnapshot resolveSchemaSnapshot(DataSource dataSource) {
+        SchemaSnapshot snapshot = schemaSnapshotRegistry.get(dataSource.getId());
+        if (!snapshot.isEmpty()) {
+            return snapshot;
+        }
+        SchemaInfo schemaInfo = dataSourceService.getSchemaInfo(dataSource.getId(), dataSource.getName());
+        return SchemaSnapshot.of(dataSource.getId(), 0, Collections.singletonList(schemaInfo));
+    }
+}
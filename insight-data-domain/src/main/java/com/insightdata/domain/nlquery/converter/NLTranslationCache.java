@@ -0,0 +1,185 @@
+package com.insightdata.domain.nlquery.converter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 自然语言查询翻译缓存
+ *
+ * 以数据源ID、元数据快照版本和规范化后的查询文本作为键缓存成功的SqlConversionResult。
+ * 快照版本随元数据同步递增，旧版本的条目自然不再命中；表关系变化不改变快照版本，
+ * 因此元数据或表关系变化时都应调用invalidate(dataSourceId)清除该数据源的全部条目。
+ * 条目在过期时间后失效，超过最大条目数时由Caffeine按访问频率和时间淘汰。
+ */
+@Slf4j
+@Component
+public class NLTranslationCache implements InitializingBean {
+
+    @Value("${insight.cache.nl-translation.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 翻译结果过期时间（秒）
+     */
+    @Value("${insight.cache.nl-translation.expiration:3600}")
+    private long expirationSeconds;
+
+    /**
+     * 最大条目数
+     */
+    @Value("${insight.cache.nl-translation.max-entries:10000}")
+    private int maxEntries;
+
+    private Cache<CacheKey, SqlConversionResult> entries;
+
+    // 每个数据源的失效代数，防止失效前开始的翻译在失效后写回旧结果
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterPropertiesSet() {
+        // 在调用线程内完成淘汰，写入后的条目数和淘汰计数立即可见
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(expirationSeconds))
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 从缓存获取翻译结果，未命中时通过loader执行翻译
+     *
+     * @param dataSourceId    数据源ID
+     * @param snapshotVersion 元数据快照版本，小于等于0表示临时快照，不缓存
+     * @param canonicalText   规范化后的查询文本
+     * @param loader          实际执行翻译的函数
+     * @return 翻译结果副本
+     */
+    public SqlConversionResult get(String dataSourceId, long snapshotVersion, String canonicalText,
+                                   Supplier<SqlConversionResult> loader) {
+        if (!enabled || dataSourceId == null || snapshotVersion <= 0 || canonicalText == null || canonicalText.isEmpty()) {
+            return loader.get();
+        }
+
+        CacheKey key = new CacheKey(dataSourceId, snapshotVersion, canonicalText);
+        SqlConversionResult cached = entries.getIfPresent(key);
+        if (cached != null) {
+            return copy(cached);
+        }
+
+        long generation = generations.getOrDefault(dataSourceId, 0L);
+        SqlConversionResult result = loader.get();
+        if (result != null && result.isSuccess()) {
+            store(key, copy(result), generation);
+        }
+        return result;
+    }
+
+    /**
+     * 清除指定数据源的全部翻译结果
+     *
+     * @param dataSourceId 数据源ID
+     */
+    public void invalidate(String dataSourceId) {
+        generations.merge(dataSourceId, 1L, Long::sum);
+        long before = entries.estimatedSize();
+        entries.asMap().keySet().removeIf(key -> key.dataSourceId.equals(dataSourceId));
+        log.debug("Invalidated {} cached NL translations for data source: {}",
+                before - entries.estimatedSize(), dataSourceId);
+    }
+
+    /**
+     * 清除全部翻译结果
+     */
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return entries.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return entries.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return entries.stats().evictionCount();
+    }
+
+    public int size() {
+        entries.cleanUp();
+        return (int) entries.estimatedSize();
+    }
+
+    private void store(CacheKey key, SqlConversionResult result, long generation) {
+        if (generations.getOrDefault(key.dataSourceId, 0L) != generation) {
+            return;
+        }
+        entries.put(key, result);
+        // 写入期间发生了失效时，失效可能早于写入完成，撤销这次写入
+        if (generations.getOrDefault(key.dataSourceId, 0L) != generation) {
+            entries.invalidate(key);
+        }
+    }
+
+    /**
+     * 结果对象是可变的，存入和取出时都复制一份，避免调用方修改缓存内容
+     */
+    private static SqlConversionResult copy(SqlConversionResult result) {
+        return SqlConversionResult.builder()
+                .sql(result.getSql())
+                .parameters(result.getParameters() == null ? null : new HashMap<>(result.getParameters()))
+                .confidence(result.getConfidence())
+                .explanations(result.getExplanations() == null ? null : new ArrayList<>(result.getExplanations()))
+                .alternativeSqls(result.getAlternativeSqls() == null ? null : new ArrayList<>(result.getAlternativeSqls()))
+                .success(result.isSuccess())
+                .errorMessage(result.getErrorMessage())
+                .build();
+    }
+
+    private static final class CacheKey {
+        private final String dataSourceId;
+        private final long snapshotVersion;
+        private final String text;
+
+        private CacheKey(String dataSourceId, long snapshotVersion, String text) {
+            this.dataSourceId = dataSourceId;
+            this.snapshotVersion = snapshotVersion;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return snapshotVersion == other.snapshotVersion
+                    && dataSourceId.equals(other.dataSourceId)
+                    && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dataSourceId, snapshotVersion, text);
+        }
+    }
+}
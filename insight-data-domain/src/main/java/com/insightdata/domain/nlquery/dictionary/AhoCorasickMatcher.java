@@ -0,0 +1,231 @@
+package com.insightdata.domain.nlquery.dictionary;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Aho-Corasick多模式匹配自动机
+ *
+ * 把任意数量的关键词编译成一个自动机，对文本做一次线性扫描即可返回全部命中的关键词及其位置，
+ * 扫描耗时只与文本长度和命中数量有关，与关键词数量无关。匹配忽略大小写。
+ * 自动机构建后不可修改，可以被多个线程并发使用；词典变化时构建新的自动机整体替换。
+ *
+ * @param <T> 关键词携带的数据类型
+ */
+public final class AhoCorasickMatcher<T> {
+
+    private static final int ROOT = 0;
+
+    // 每个状态的出边，按字符升序排列，用二分查找转移
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    // 沿失败链最近的一个有输出的状态，没有时为-1
+    private final int[] outputLink;
+    // 每个状态上结束的关键词下标
+    private final int[][] outputs;
+
+    private final String[] keywords;
+    private final List<T> payloads;
+    private final boolean wholeWords;
+
+    private AhoCorasickMatcher(Builder<T> builder) {
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> terminals = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        terminals.add(new ArrayList<>());
+
+        for (int k = 0; k < builder.keywords.size(); k++) {
+            String keyword = builder.keywords.get(k);
+            int state = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = Character.toLowerCase(keyword.charAt(i));
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    terminals.add(new ArrayList<>());
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            terminals.get(state).add(k);
+        }
+
+        int size = trie.size();
+        this.edgeChars = new char[size][];
+        this.edgeTargets = new int[size][];
+        this.failure = new int[size];
+        this.outputLink = new int[size];
+        this.outputs = new int[size][];
+        for (int s = 0; s < size; s++) {
+            TreeMap<Character, Integer> edges = trie.get(s);
+            edgeChars[s] = new char[edges.size()];
+            edgeTargets[s] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[s][i] = edge.getKey();
+                edgeTargets[s][i] = edge.getValue();
+                i++;
+            }
+            outputs[s] = terminals.get(s).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // 按广度优先顺序计算失败指针，父状态的失败指针总是先于子状态确定
+        Arrays.fill(outputLink, -1);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[ROOT]) {
+            failure[target] = ROOT;
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < edgeChars[state].length; i++) {
+                char c = edgeChars[state][i];
+                int child = edgeTargets[state][i];
+                int fallback = failure[state];
+                while (fallback != ROOT && transition(fallback, c) < 0) {
+                    fallback = failure[fallback];
+                }
+                int target = transition(fallback, c);
+                failure[child] = target >= 0 && target != child ? target : ROOT;
+                int link = failure[child];
+                outputLink[child] = outputs[link].length > 0 ? link : outputLink[link];
+                queue.add(child);
+            }
+        }
+
+        this.keywords = builder.keywords.toArray(new String[0]);
+        this.payloads = new ArrayList<>(builder.payloads);
+        this.wholeWords = builder.wholeWords;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * 关键词数量
+     */
+    public int size() {
+        return keywords.length;
+    }
+
+    /**
+     * 扫描文本，按结束位置顺序返回全部命中，包括相互重叠的命中
+     *
+     * @param text 待扫描文本
+     * @return 命中列表
+     */
+    public List<Match<T>> findAll(CharSequence text) {
+        List<Match<T>> matches = new ArrayList<>();
+        if (text == null || keywords.length == 0) {
+            return matches;
+        }
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next = transition(state, c);
+            while (next < 0 && state != ROOT) {
+                state = failure[state];
+                next = transition(state, c);
+            }
+            state = next < 0 ? ROOT : next;
+
+            for (int s = outputs[state].length > 0 ? state : outputLink[state]; s >= 0; s = outputLink[s]) {
+                for (int k : outputs[s]) {
+                    int start = i + 1 - keywords[k].length();
+                    if (!wholeWords || isWholeWord(text, start, i + 1)) {
+                        matches.add(new Match<>(start, i + 1, keywords[k], payloads.get(k)));
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    private int transition(int state, char c) {
+        int i = Arrays.binarySearch(edgeChars[state], c);
+        return i >= 0 ? edgeTargets[state][i] : -1;
+    }
+
+    /**
+     * 以英文字母或数字开头/结尾的关键词，两侧不能紧邻英文字母或数字；中文关键词不受限制
+     */
+    private static boolean isWholeWord(CharSequence text, int start, int end) {
+        if (isWordChar(text.charAt(start)) && start > 0 && isWordChar(text.charAt(start - 1))) {
+            return false;
+        }
+        return !(isWordChar(text.charAt(end - 1)) && end < text.length() && isWordChar(text.charAt(end)));
+    }
+
+    private static boolean isWordChar(char c) {
+        return c < 128 && (Character.isLetterOrDigit(c) || c == '_');
+    }
+
+    /**
+     * 自动机构建器
+     */
+    public static final class Builder<T> {
+
+        private final List<String> keywords = new ArrayList<>();
+        private final List<T> payloads = new ArrayList<>();
+        private boolean wholeWords;
+
+        private Builder() {
+        }
+
+        /**
+         * 添加关键词，同一关键词可以携带不同数据重复添加，空关键词被忽略
+         */
+        public Builder<T> add(String keyword, T payload) {
+            if (keyword != null && !keyword.isEmpty()) {
+                keywords.add(keyword);
+                payloads.add(payload);
+            }
+            return this;
+        }
+
+        /**
+         * 是否只匹配完整的英文单词，例如关键词id不匹配paid中的id
+         */
+        public Builder<T> wholeWords(boolean wholeWords) {
+            this.wholeWords = wholeWords;
+            return this;
+        }
+
+        public AhoCorasickMatcher<T> build() {
+            return new AhoCorasickMatcher<>(this);
+        }
+    }
+
+    /**
+     * 一次命中
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Match<T> {
+        /**
+         * 起始位置（包含）
+         */
+        private final int start;
+        /**
+         * 结束位置（不包含）
+         */
+        private final int end;
+        private final String keyword;
+        private final T payload;
+
+        public int length() {
+            return end - start;
+        }
+    }
+}
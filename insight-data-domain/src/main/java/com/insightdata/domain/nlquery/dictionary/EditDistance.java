@@ -0,0 +1,179 @@
+package com.insightdata.domain.nlquery.dictionary;
+
+import java.util.Arrays;
+
+/**
+ * Levenshtein编辑距离
+ *
+ * 模式串不超过64个字符时使用Myers/Hyyrö位并行算法，每个文本字符只需常数次位运算，不分配矩阵；
+ * 更长的模式串退化为两行滚动数组的动态规划。给定上界时，一旦距离不可能回到上界以内即提前结束。
+ * 实例预先编译模式串，可以对多个文本重复计算，实例不可变，可被多个线程共享。
+ */
+public final class EditDistance {
+
+    private static final int WORD_SIZE = 64;
+
+    private final String pattern;
+    // 位并行算法的字符位图：ASCII字符直接索引，其余字符线性查找
+    private final long[] asciiMasks;
+    private final char[] otherChars;
+    private final long[] otherMasks;
+
+    private EditDistance(String pattern) {
+        this.pattern = pattern;
+        if (pattern.length() > WORD_SIZE) {
+            this.asciiMasks = null;
+            this.otherChars = null;
+            this.otherMasks = null;
+            return;
+        }
+        long[] ascii = new long[128];
+        char[] chars = new char[pattern.length()];
+        long[] masks = new long[pattern.length()];
+        int others = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c < 128) {
+                ascii[c] |= 1L << i;
+                continue;
+            }
+            int slot = indexOf(chars, others, c);
+            if (slot < 0) {
+                slot = others++;
+                chars[slot] = c;
+            }
+            masks[slot] |= 1L << i;
+        }
+        this.asciiMasks = ascii;
+        this.otherChars = Arrays.copyOf(chars, others);
+        this.otherMasks = Arrays.copyOf(masks, others);
+    }
+
+    /**
+     * 编译模式串
+     */
+    public static EditDistance of(String pattern) {
+        return new EditDistance(pattern);
+    }
+
+    /**
+     * 计算两个字符串的编辑距离
+     */
+    public static int levenshtein(String a, String b) {
+        // 较短的串作为模式串，尽量走位并行分支
+        return a.length() <= b.length() ? of(a).distance(b) : of(b).distance(a);
+    }
+
+    /**
+     * 基于编辑距离的相似度：1 - 距离 / 较长串的长度
+     */
+    public static double similarity(String a, String b) {
+        int maxLength = Math.max(a.length(), b.length());
+        return maxLength == 0 ? 1.0 : 1.0 - (double) levenshtein(a, b) / maxLength;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * 计算模式串与文本的编辑距离
+     */
+    public int distance(CharSequence text) {
+        return distance(text, Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * 计算模式串与文本的编辑距离，超过上界时提前结束
+     *
+     * @param text        文本
+     * @param maxDistance 距离上界
+     * @return 编辑距离，超过上界时返回maxDistance + 1
+     */
+    public int distance(CharSequence text, int maxDistance) {
+        int m = pattern.length();
+        int n = text.length();
+        if (Math.abs(m - n) > maxDistance) {
+            return maxDistance + 1;
+        }
+        if (m == 0 || n == 0) {
+            return Math.max(m, n);
+        }
+        return m <= WORD_SIZE ? bitParallel(text, maxDistance) : dynamicProgramming(text, maxDistance);
+    }
+
+    private int bitParallel(CharSequence text, int maxDistance) {
+        int m = pattern.length();
+        int n = text.length();
+        long last = 1L << (m - 1);
+        long pv = m == WORD_SIZE ? -1L : (1L << m) - 1;
+        long mv = 0;
+        int score = m;
+        for (int j = 0; j < n; j++) {
+            long eq = maskOf(text.charAt(j));
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) {
+                score++;
+            } else if ((mh & last) != 0) {
+                score--;
+            }
+            // 第0行D[0][j] = j，水平差值恒为+1
+            ph = (ph << 1) | 1;
+            mh = mh << 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+            // 剩余每个字符最多使距离减1
+            if (score - (n - j - 1) > maxDistance) {
+                return maxDistance + 1;
+            }
+        }
+        return score <= maxDistance ? score : maxDistance + 1;
+    }
+
+    private int dynamicProgramming(CharSequence text, int maxDistance) {
+        int m = pattern.length();
+        int n = text.length();
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+        for (int j = 0; j <= n; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= m; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char c = pattern.charAt(i - 1);
+            for (int j = 1; j <= n; j++) {
+                int cost = c == text.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[n] <= maxDistance ? previous[n] : maxDistance + 1;
+    }
+
+    private long maskOf(char c) {
+        if (c < 128) {
+            return asciiMasks[c];
+        }
+        int slot = indexOf(otherChars, otherChars.length, c);
+        return slot < 0 ? 0 : otherMasks[slot];
+    }
+
+    private static int indexOf(char[] chars, int length, char c) {
+        for (int i = 0; i < length; i++) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,197 @@
+package com.insightdata.domain.nlquery.dictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 名称模糊查找索引
+ *
+ * 对全部名称建立补齐边界后的字符三元组倒排索引。查询时先按长度和共有三元组数量过滤候选：
+ * 编辑距离为d的两个串最多有3d个三元组不同，低于下限的名称不可能达到相似度阈值；
+ * 再对剩余候选用带上界的位并行编辑距离精确计算，返回相似度最高的前k个。
+ * 相似度定义为1 - 编辑距离 / 较长串的长度，与忽略大小写后的名称比较。索引构建后不可修改。
+ *
+ * @param <T> 名称携带的数据类型
+ */
+public final class FuzzyNameIndex<T> {
+
+    private static final int GRAM = 3;
+    private static final char PAD = '\u0000';
+    // 浮点比较余量，避免恰好等于阈值的结果被排除
+    private static final double EPSILON = 1e-9;
+
+    private final String[] names;
+    private final List<T> payloads;
+    // 三元组 -> 包含它的名称下标（升序，同一名称只出现一次）
+    private final Map<String, int[]> postings;
+    // 名称长度 -> 该长度的名称下标，三元组过滤失效时按长度范围扫描
+    private final int[][] namesByLength;
+
+    private FuzzyNameIndex(Map<String, T> entries) {
+        int size = entries.size();
+        this.names = new String[size];
+        this.payloads = new ArrayList<>(size);
+        Map<String, List<Integer>> grams = new HashMap<>();
+        int maxLength = 0;
+        int i = 0;
+        for (Map.Entry<String, T> entry : entries.entrySet()) {
+            String name = entry.getKey().toLowerCase();
+            names[i] = name;
+            payloads.add(entry.getValue());
+            maxLength = Math.max(maxLength, name.length());
+            for (String gram : distinctGrams(name)) {
+                grams.computeIfAbsent(gram, k -> new ArrayList<>()).add(i);
+            }
+            i++;
+        }
+
+        this.postings = new HashMap<>(grams.size() * 2);
+        grams.forEach((gram, ids) -> postings.put(gram, ids.stream().mapToInt(Integer::intValue).toArray()));
+
+        int[] counts = new int[maxLength + 1];
+        for (String name : names) {
+            counts[name.length()]++;
+        }
+        this.namesByLength = new int[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++) {
+            namesByLength[length] = new int[counts[length]];
+        }
+        int[] filled = new int[maxLength + 1];
+        for (int id = 0; id < size; id++) {
+            int length = names[id].length();
+            namesByLength[length][filled[length]++] = id;
+        }
+    }
+
+    /**
+     * 构建索引，键为名称，相同名称只保留一个
+     */
+    public static <T> FuzzyNameIndex<T> of(Map<String, T> entries) {
+        return new FuzzyNameIndex<>(entries);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * 查找与给定词最相似的名称
+     *
+     * @param term          查询词
+     * @param minSimilarity 最低相似度，取值(0, 1]
+     * @param limit         最多返回的数量
+     * @return 按相似度降序排列的命中
+     */
+    public List<Candidate<T>> search(String term, double minSimilarity, int limit) {
+        List<Candidate<T>> result = new ArrayList<>();
+        if (term == null || term.isEmpty() || limit <= 0 || names.length == 0) {
+            return result;
+        }
+        String query = term.toLowerCase();
+        double threshold = Math.max(minSimilarity, Double.MIN_VALUE);
+        int queryLength = query.length();
+        // 相似度不低于阈值时，名称长度必须落在[q * s, q / s]之内
+        int minLength = (int) Math.ceil(queryLength * threshold - EPSILON);
+        int maxLength = (int) Math.min(namesByLength.length - 1L, (long) Math.floor(queryLength / threshold + EPSILON));
+        if (minLength > maxLength) {
+            return result;
+        }
+
+        EditDistance distance = EditDistance.of(query);
+        PriorityQueue<Candidate<T>> best = new PriorityQueue<>(Comparator.comparingDouble(Candidate<T>::getSimilarity));
+
+        // 允许的最大编辑距离出现在最长的候选上
+        int maxEdits = maxEdits(queryLength, maxLength, threshold);
+        List<String> queryGrams = distinctGrams(query);
+        int minShared = queryGrams.size() - GRAM * maxEdits;
+        if (minShared > 0) {
+            int[] shared = new int[names.length];
+            for (String gram : queryGrams) {
+                int[] ids = postings.get(gram);
+                if (ids == null) {
+                    continue;
+                }
+                for (int id : ids) {
+                    if (++shared[id] == minShared) {
+                        consider(id, distance, queryLength, minLength, maxLength, threshold, limit, best);
+                    }
+                }
+            }
+        } else {
+            // 查询词太短或阈值太低，三元组无法过滤，按长度范围扫描
+            for (int length = minLength; length <= maxLength; length++) {
+                for (int id : namesByLength[length]) {
+                    consider(id, distance, queryLength, minLength, maxLength, threshold, limit, best);
+                }
+            }
+        }
+
+        result.addAll(best);
+        result.sort(Comparator.comparingDouble(Candidate<T>::getSimilarity).reversed());
+        return result;
+    }
+
+    private void consider(int id, EditDistance distance, int queryLength, int minLength, int maxLength,
+                          double threshold, int limit, PriorityQueue<Candidate<T>> best) {
+        String name = names[id];
+        if (name.length() < minLength || name.length() > maxLength) {
+            return;
+        }
+        // 已满时只接受比当前最差结果更好的候选，借此收紧编辑距离上界
+        double floor = best.size() < limit ? threshold : Math.max(threshold, Math.nextUp(best.peek().getSimilarity()));
+        int longer = Math.max(queryLength, name.length());
+        int bound = maxEdits(queryLength, name.length(), floor);
+        int edits = distance.distance(name, bound);
+        if (edits > bound) {
+            return;
+        }
+        double similarity = 1.0 - (double) edits / longer;
+        if (similarity + EPSILON < floor) {
+            return;
+        }
+        best.add(new Candidate<>(name, payloads.get(id), similarity));
+        if (best.size() > limit) {
+            best.poll();
+        }
+    }
+
+    private static int maxEdits(int queryLength, int nameLength, double threshold) {
+        return (int) Math.floor((1.0 - threshold) * Math.max(queryLength, nameLength) + EPSILON);
+    }
+
+    private static List<String> distinctGrams(String name) {
+        StringBuilder padded = new StringBuilder(name.length() + 2 * (GRAM - 1));
+        for (int i = 0; i < GRAM - 1; i++) {
+            padded.append(PAD);
+        }
+        padded.append(name);
+        for (int i = 0; i < GRAM - 1; i++) {
+            padded.append(PAD);
+        }
+        String[] grams = new String[padded.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = padded.substring(i, i + GRAM);
+        }
+        return Arrays.stream(grams).distinct().collect(Collectors.toList());
+    }
+
+    /**
+     * 模糊查找结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Candidate<T> {
+        private final String name;
+        private final T payload;
+        private final double similarity;
+    }
+}
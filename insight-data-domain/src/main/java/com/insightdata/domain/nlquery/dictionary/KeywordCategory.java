@@ -0,0 +1,91 @@
+package com.insightdata.domain.nlquery.dictionary;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.insightdata.domain.nlquery.entity.EntityType;
+
+/**
+ * 关键词类别及其默认词表
+ *
+ * 带实体类型的类别用于规则实体提取，其余类别用于意图识别
+ */
+public enum KeywordCategory {
+
+    // 实体提取
+    TABLE(EntityType.TABLE, 0.8, "表", "用户", "订单", "产品", "客户", "员工", "部门",
+            "table", "user", "order", "product", "customer", "employee", "department"),
+    COLUMN(EntityType.COLUMN, 0.8, "名称", "姓名", "邮箱", "电话", "地址", "价格", "数量", "日期", "时间", "状态", "销售额",
+            "name", "email", "phone", "address", "price", "quantity", "date", "time", "status"),
+    FUNCTION(EntityType.FUNCTION, 0.9, "计算", "统计", "count", "sum", "avg", "max", "min", "group", "concat", "substring"),
+    OPERATOR(EntityType.OPERATOR, 0.9, "等于", "大于", "小于", "不等于", "包含", "开始于", "结束于",
+            "between", "like", "in", "=", ">", "<", "!=", "<>", ">=", "<="),
+    CONDITION(EntityType.CONDITION, 0.8, "条件", "where", "having", "when", "if", "case"),
+    ORDER(EntityType.ORDER, 0.9, "排序", "降序", "升序", "order", "sort"),
+    LIMIT(EntityType.LIMIT, 0.9, "前", "限制", "limit", "top"),
+    GROUP(EntityType.GROUP, 0.9, "分组", "group"),
+    BOOLEAN(EntityType.BOOLEAN, 0.9, "true", "false", "是", "否", "yes", "no"),
+
+    // 查询类型
+    QUERY_SELECT("查询", "获取", "显示", "列出", "查看", "select", "get", "show", "list", "display"),
+    QUERY_COUNT("计数", "统计", "数量", "多少", "count", "how many"),
+    QUERY_SUM("求和", "总和", "总计", "sum", "total"),
+    QUERY_AVG("平均", "均值", "平均值", "average", "avg", "mean"),
+    QUERY_MAX("最大", "最高", "最多", "maximum", "max", "highest"),
+    QUERY_MIN("最小", "最低", "最少", "minimum", "min", "lowest"),
+    QUERY_GROUP("分组", "group by", "grouped by"),
+
+    // 查询目的
+    PURPOSE_STATISTICAL("统计", "分析", "汇总", "statistics", "analysis", "summary"),
+    PURPOSE_TREND("趋势", "变化", "走势", "trend", "change", "movement"),
+    PURPOSE_COMPARATIVE("比较", "对比", "相比", "compare", "comparison", "versus", "vs"),
+    PURPOSE_ANOMALY("异常", "不正常", "异动", "anomaly", "abnormal", "unusual"),
+
+    // 时间范围
+    TIME_RECENT("最近", "近期", "recent", "lately"),
+    TIME_PAST("过去", "之前", "past", "previous"),
+    TIME_FUTURE("未来", "将来", "之后", "future", "coming", "next"),
+    UNIT_DAY("天", "日", "day"),
+    UNIT_WEEK("周", "星期", "week"),
+    UNIT_MONTH("月", "month"),
+    UNIT_QUARTER("季度", "季", "quarter"),
+    UNIT_YEAR("年", "year"),
+
+    // 排序
+    SORT("排序", "sort", "order by"),
+    SORT_ASC("升序", "从小到大", "从低到高", "asc", "ascending"),
+    SORT_DESC("降序", "从大到小", "从高到低", "desc", "descending");
+
+    private final EntityType entityType;
+    private final double confidence;
+    private final List<String> defaultKeywords;
+
+    KeywordCategory(EntityType entityType, double confidence, String... defaultKeywords) {
+        this.entityType = entityType;
+        this.confidence = confidence;
+        this.defaultKeywords = Collections.unmodifiableList(Arrays.asList(defaultKeywords));
+    }
+
+    KeywordCategory(String... defaultKeywords) {
+        this(null, 0.0, defaultKeywords);
+    }
+
+    /**
+     * 对应的实体类型，意图识别类别为null
+     */
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * 规则提取的实体置信度
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public List<String> getDefaultKeywords() {
+        return defaultKeywords;
+    }
+}
@@ -0,0 +1,131 @@
+package com.insightdata.domain.nlquery.dictionary;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 实体提取和意图识别使用的关键词词典
+ *
+ * 所有类别的关键词编译进同一个Aho-Corasick自动机，一次扫描即可得到文本中全部带类别的命中。
+ * 词典默认使用KeywordCategory中的词表；配置了词典文件时，文件中出现的类别替换对应的默认词表。
+ * 词典文件为properties格式，键为类别名（不区分大小写），值为逗号分隔的关键词，例如：
+ * <pre>
+ * table=表,用户,订单,商品
+ * query_sum=求和,总和,合计
+ * </pre>
+ * 词典文件修改后会被定时检查并重新加载，新的自动机构建完成后整体替换，扫描线程不需要加锁。
+ */
+@Slf4j
+@Component
+public class KeywordDictionary {
+
+    /**
+     * 词典文件路径，为空时只使用默认词表
+     */
+    @Value("${insight.nlquery.dictionary.location:}")
+    private String location;
+
+    private volatile AhoCorasickMatcher<KeywordCategory> matcher;
+
+    private volatile long loadedModifiedTime = -1;
+
+    public KeywordDictionary() {
+        this.matcher = compile(new EnumMap<>(KeywordCategory.class));
+    }
+
+    /**
+     * 扫描文本，返回全部关键词命中
+     */
+    public List<AhoCorasickMatcher.Match<KeywordCategory>> scan(String text) {
+        return matcher.findAll(text);
+    }
+
+    /**
+     * 用给定的词表替换对应类别的关键词，未给出的类别使用默认词表
+     *
+     * @param overrides 类别到关键词的映射
+     */
+    public void reload(Map<KeywordCategory, ? extends Collection<String>> overrides) {
+        this.matcher = compile(overrides);
+        log.info("关键词词典已加载: keywords={}", matcher.size());
+    }
+
+    /**
+     * 词典文件修改后重新加载
+     */
+    @Scheduled(fixedDelayString = "${insight.nlquery.dictionary.refresh-interval:60000}")
+    public void reloadIfModified() {
+        if (location == null || location.isEmpty()) {
+            return;
+        }
+        Path path = Paths.get(location);
+        try {
+            if (!Files.isRegularFile(path)) {
+                log.warn("关键词词典文件不存在: {}", location);
+                return;
+            }
+            long modifiedTime = Files.getLastModifiedTime(path).toMillis();
+            if (modifiedTime == loadedModifiedTime) {
+                return;
+            }
+            reload(readOverrides(path));
+            loadedModifiedTime = modifiedTime;
+        } catch (Exception e) {
+            // 加载失败时保留当前词典
+            log.warn("关键词词典加载失败: {}", location, e);
+        }
+    }
+
+    private static Map<KeywordCategory, List<String>> readOverrides(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Map<KeywordCategory, List<String>> overrides = new EnumMap<>(KeywordCategory.class);
+        for (String name : properties.stringPropertyNames()) {
+            KeywordCategory category;
+            try {
+                category = KeywordCategory.valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                log.warn("忽略未知的关键词类别: {}", name);
+                continue;
+            }
+            overrides.put(category, Arrays.stream(properties.getProperty(name).split(","))
+                    .map(String::trim)
+                    .filter(keyword -> !keyword.isEmpty())
+                    .collect(Collectors.toList()));
+        }
+        return overrides;
+    }
+
+    private static AhoCorasickMatcher<KeywordCategory> compile(Map<KeywordCategory, ? extends Collection<String>> overrides) {
+        AhoCorasickMatcher.Builder<KeywordCategory> builder = AhoCorasickMatcher.builder();
+        for (KeywordCategory category : KeywordCategory.values()) {
+            Collection<String> keywords = overrides.containsKey(category)
+                    ? new ArrayList<>(overrides.get(category))
+                    : category.getDefaultKeywords();
+            for (String keyword : keywords) {
+                builder.add(keyword, category);
+            }
+        }
+        return builder.build();
+    }
+}
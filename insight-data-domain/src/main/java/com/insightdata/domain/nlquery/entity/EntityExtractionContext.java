@@ -1,29 +1,26 @@
 package com.insightdata.domain.nlquery.entity;
 
-import com.insightdata.domain.metadata.model.SchemaInfo;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshot;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class EntityExtractionContext {
     private boolean useFuzzyMatching;
     private double minConfidence;
+    private String dataSourceId;
+    /**
+     * 数据源的元数据快照，为null时按dataSourceId从快照注册表获取
+     */
+    private SchemaSnapshot schemaSnapshot;
 
     public boolean isUseMetadata() {
         return true;
     }
 
-    public String getDataSourceId(){
-        return "";
-    }
-    public SchemaInfo getMetadata(){
-        return null;
-    }
-
-    public void setMetadata(SchemaInfo metadata){
-        return;
-    }
     public boolean isUseFuzzyMatching(){
         return this.useFuzzyMatching;
     }
@@ -39,4 +36,4 @@ public class EntityExtractionContext {
     public EntityExtractionContext() {
 
     }
-}
\ No newline at end of file
+}
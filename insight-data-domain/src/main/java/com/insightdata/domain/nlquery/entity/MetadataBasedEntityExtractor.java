@@ -1,6 +1,7 @@
 package com.insightdata.domain.nlquery.entity;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,17 +11,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.insightdata.domain.metadata.model.ColumnInfo;
-import com.insightdata.domain.metadata.model.SchemaInfo;
 import com.insightdata.domain.metadata.model.TableInfo;
 import com.insightdata.domain.nlquery.QueryContext;
+import com.insightdata.domain.nlquery.dictionary.AhoCorasickMatcher;
+import com.insightdata.domain.nlquery.dictionary.FuzzyNameIndex;
 import com.insightdata.domain.nlquery.preprocess.PreprocessedText;
-import com.insightdata.domain.metadata.service.DataSourceService;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshot;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshotRegistry;
 
 @Component
 public class MetadataBasedEntityExtractor implements EntityExtractor {
 
+    // 每个词模糊匹配时最多返回的候选数量
+    private static final int FUZZY_CANDIDATE_LIMIT = 3;
+
     @Autowired
-    private DataSourceService dataSourceService;
+    private SchemaSnapshotRegistry schemaSnapshotRegistry;
 
     @Override
     public List<EntityTag> extract(PreprocessedText preprocessedText, EntityExtractionContext context) {
@@ -30,80 +36,70 @@ public class MetadataBasedEntityExtractor implements EntityExtractor {
             return entities;
         }
 
-        SchemaInfo metadata = context.getMetadata();
-        if (metadata == null) {
-            if (context.getDataSourceId() == null) {
+        // 读取同步完成后构建的元数据快照，不再为每次查询重建查找表
+        SchemaSnapshot snapshot = context.getSchemaSnapshot();
+        if (snapshot == null) {
+            if (context.getDataSourceId() == null || context.getDataSourceId().isEmpty()) {
                 return entities;
             }
-            metadata = dataSourceService.getSchemaInfo(context.getDataSourceId(), context.getMetadata().getName());
-            context.setMetadata(metadata);
+            snapshot = schemaSnapshotRegistry.get(context.getDataSourceId());
         }
 
-        // Extract table names
-        Map<String, TableInfo> tableMap = new HashMap<>();
-        for (TableInfo table : metadata.getTables()) {
-            tableMap.put(table.getName().toLowerCase(), table);
-            if (table.getDescription() != null && !table.getDescription().isEmpty()) {
-                tableMap.put(table.getDescription().toLowerCase(), table);
-            }
+        // 表名、列名及其描述通过快照中的自动机对整段文本做一次扫描，得到带位置的精确命中
+        String text = preprocessedText.getNormalizedText();
+        boolean[] covered = new boolean[text == null ? 0 : text.length()];
+        for (AhoCorasickMatcher.Match<TableInfo> match : snapshot.matchTables(text)) {
+            entities.add(EntityTag.builder()
+                    .value(match.getPayload().getName()) // Use original case for value
+                    .type(EntityType.TABLE)
+                    .startOffset(match.getStart())
+                    .endOffset(match.getEnd())
+                    .confidence(1.0) // Metadata-based extraction is high confidence
+                    .build());
+            Arrays.fill(covered, match.getStart(), match.getEnd(), true);
         }
-
-        for (String token : preprocessedText.getTokens()) {
-            String normalizedToken = token.toLowerCase();
-            if (tableMap.containsKey(normalizedToken)) {
-                TableInfo table = tableMap.get(normalizedToken);
-                entities.add(EntityTag.builder()
-                        .value(table.getName()) // Use original case for value
-                        .type(EntityType.TABLE) // Use the enum
-                        .confidence(1.0) // Metadata-based extraction is high confidence
-                        .build());
-            } else if (context.isUseFuzzyMatching()) {
-                for (String tableName : tableMap.keySet()) {
-                    double similarity = calculateSimilarity(normalizedToken, tableName); // Implement this method
-                    if (similarity >= context.getMinConfidence()) {
-                        TableInfo table = tableMap.get(tableName);
-                        entities.add(EntityTag.builder()
-                                .value(table.getName()) // Use original case for value
-                                .type(EntityType.TABLE) // Use the enum
-                                .confidence(similarity)
-                                .build());
-                    }
-                }
-            }
+        for (AhoCorasickMatcher.Match<ColumnInfo> match : snapshot.matchColumns(text)) {
+            entities.add(EntityTag.builder()
+                    .value(match.getPayload().getName()) // Use original case for value
+                    .type(EntityType.COLUMN)
+                    .startOffset(match.getStart())
+                    .endOffset(match.getEnd())
+                    .confidence(1.0)
+                    .build());
+            Arrays.fill(covered, match.getStart(), match.getEnd(), true);
         }
 
-        // Extract column names
-        Map<String, ColumnInfo> columnMap = new HashMap<>();
-        for (TableInfo table : metadata.getTables()) {
-            for (ColumnInfo column : table.getColumns()) {
-                columnMap.put(column.getName().toLowerCase(), column);
-                if (column.getDescription() != null && !column.getDescription().isEmpty()) {
-                    columnMap.put(column.getDescription().toLowerCase(), column);
+        // 没有精确命中的词再通过快照中的模糊索引查找相似度最高的几个名称
+        if (context.isUseFuzzyMatching() && text != null && preprocessedText.getTokens() != null) {
+            int searchFrom = 0;
+            for (String token : preprocessedText.getTokens()) {
+                int start = text.indexOf(token, searchFrom);
+                if (start < 0) {
+                    continue;
                 }
-            }
-        }
-
-        for (String token : preprocessedText.getTokens()) {
-            String normalizedToken = token.toLowerCase();
-            if (columnMap.containsKey(normalizedToken)) {
-                ColumnInfo column = columnMap.get(normalizedToken);
-                entities.add(EntityTag.builder()
-                        .value(column.getName()) // Use original case for value
-                        .type(EntityType.COLUMN) // Use the enum
-                        .confidence(1.0)
-                        .build());
-            }
-            else if (context.isUseFuzzyMatching()) {
-                for(String columnName : columnMap.keySet()){
-                    double similarity = calculateSimilarity(normalizedToken, columnName);
-                    if(similarity >= context.getMinConfidence()){
-                        ColumnInfo column = columnMap.get(columnName);
-                        entities.add(EntityTag.builder()
-                                .value(column.getName())
-                                .type(EntityType.COLUMN)
-                                .confidence(similarity)
-                                .build());
-                    }
+                searchFrom = start + token.length();
+                if (isCovered(covered, start, searchFrom)) {
+                    continue;
+                }
+                for (FuzzyNameIndex.Candidate<TableInfo> candidate
+                        : snapshot.searchTables(token, context.getMinConfidence(), FUZZY_CANDIDATE_LIMIT)) {
+                    entities.add(EntityTag.builder()
+                            .value(candidate.getPayload().getName()) // Use original case for value
+                            .type(EntityType.TABLE) // Use the enum
+                            .startOffset(start)
+                            .endOffset(searchFrom)
+                            .confidence(candidate.getSimilarity())
+                            .build());
+                }
+                for (FuzzyNameIndex.Candidate<ColumnInfo> candidate
+                        : snapshot.searchColumns(token, context.getMinConfidence(), FUZZY_CANDIDATE_LIMIT)) {
+                    entities.add(EntityTag.builder()
+                            .value(candidate.getPayload().getName())
+                            .type(EntityType.COLUMN)
+                            .startOffset(start)
+                            .endOffset(searchFrom)
+                            .confidence(candidate.getSimilarity())
+                            .build());
                 }
             }
         }
@@ -163,9 +159,12 @@ public class MetadataBasedEntityExtractor implements EntityExtractor {
         return new ArrayList<>(mergedEntities.values());
     }
 
-    // Dummy implementation for now
-    private double calculateSimilarity(String token, String entityName) {
-        return 0.8;
+    private static boolean isCovered(boolean[] covered, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!covered[i]) {
+                return false;
+            }
+        }
+        return true;
     }
-
-}
\ No newline at end of file
+}
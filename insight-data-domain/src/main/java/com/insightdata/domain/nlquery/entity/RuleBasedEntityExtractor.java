@@ -1,48 +1,32 @@
 package com.insightdata.domain.nlquery.entity;
 
 import com.insightdata.domain.nlquery.QueryContext;
+import com.insightdata.domain.nlquery.dictionary.AhoCorasickMatcher;
+import com.insightdata.domain.nlquery.dictionary.KeywordCategory;
+import com.insightdata.domain.nlquery.dictionary.KeywordDictionary;
 import com.insightdata.domain.nlquery.preprocess.PreprocessedText;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * 基于规则的实体提取器
- * 使用预定义的规则和模式来提取实体
+ * 关键词类实体通过词典自动机一次扫描提取，日期、数字、字符串等值类实体使用正则表达式提取
  */
 @Component
 public class RuleBasedEntityExtractor implements EntityExtractor {
 
-    // 表名相关的正则表达式
-    private static final Pattern TABLE_PATTERN = Pattern.compile("表|用户|订单|产品|客户|员工|部门|table|user|order|product|customer|employee|department", Pattern.CASE_INSENSITIVE);
-
-    // 列名相关的正则表达式
-    private static final Pattern COLUMN_PATTERN = Pattern.compile("名称|姓名|邮箱|电话|地址|价格|数量|日期|时间|状态|销售额|name|email|phone|address|price|quantity|date|time|status", Pattern.CASE_INSENSITIVE);
-
     // 值相关的正则表达式
     private static final Pattern VALUE_PATTERN = Pattern.compile("\\d+|'[^']+'|\"[^\"]+\"|true|false|null", Pattern.CASE_INSENSITIVE);
 
-    // 函数相关的正则表达式
-    private static final Pattern FUNCTION_PATTERN = Pattern.compile("计算|统计|count|sum|avg|max|min|group|concat|substring", Pattern.CASE_INSENSITIVE);
-
-    // 操作符相关的正则表达式
-    private static final Pattern OPERATOR_PATTERN = Pattern.compile("等于|大于|小于|不等于|包含|开始于|结束于|between|like|in|=|>|<|!=|<>|>=|<=", Pattern.CASE_INSENSITIVE);
-
-    // 条件相关的正则表达式
-    private static final Pattern CONDITION_PATTERN = Pattern.compile("条件|where|having|when|if|case", Pattern.CASE_INSENSITIVE);
-
-    // 排序相关的正则表达式
-    private static final Pattern ORDER_PATTERN = Pattern.compile("排序|降序|升序|order|sort", Pattern.CASE_INSENSITIVE);
-
-    // 限制相关的正则表达式
-    private static final Pattern LIMIT_PATTERN = Pattern.compile("前|限制|limit|top", Pattern.CASE_INSENSITIVE);
-
-    // 分组相关的正则表达式
-    private static final Pattern GROUP_PATTERN = Pattern.compile("分组|group", Pattern.CASE_INSENSITIVE);
-
     // 日期相关的正则表达式
     private static final Pattern DATE_PATTERN = Pattern.compile("\\d{4}-\\d{2}-\\d{2}|\\d{4}/\\d{2}/\\d{2}|\\d{2}-\\d{2}-\\d{4}|\\d{2}/\\d{2}/\\d{4}|\\d{4}年|\\d{4}年\\d{1,2}月|\\d{4}年\\d{1,2}月\\d{1,2}日", Pattern.CASE_INSENSITIVE);
 
@@ -52,8 +36,17 @@ public class RuleBasedEntityExtractor implements EntityExtractor {
     // 字符串相关的正则表达式
     private static final Pattern STRING_PATTERN = Pattern.compile("'[^']+'|\"[^\"]+\"", Pattern.CASE_INSENSITIVE);
 
-    // 布尔值相关的正则表达式
-    private static final Pattern BOOLEAN_PATTERN = Pattern.compile("true|false|是|否|yes|no", Pattern.CASE_INSENSITIVE);
+    // 表名、列名、函数、操作符等关键词类实体通过词典一次扫描识别
+    private final KeywordDictionary keywordDictionary;
+
+    public RuleBasedEntityExtractor() {
+        this(new KeywordDictionary());
+    }
+
+    @Autowired
+    public RuleBasedEntityExtractor(KeywordDictionary keywordDictionary) {
+        this.keywordDictionary = keywordDictionary;
+    }
 
     @Override
     public List<EntityTag> extract(PreprocessedText preprocessedText) {
@@ -67,32 +60,11 @@ public class RuleBasedEntityExtractor implements EntityExtractor {
         String normalizedText = preprocessedText.getNormalizedText();
         List<String> tokens = preprocessedText.getTokens();
 
-        // 提取表名实体
-        extractTableEntities(normalizedText, tokens, entities);
-
-        // 提取列名实体
-        extractColumnEntities(normalizedText, tokens, entities);
+        // 提取表名、列名、函数、操作符、条件、排序、限制、分组和布尔值实体
+        extractKeywordEntities(normalizedText, entities);
 
         // 提取值实体
-        extractValueEntities(normalizedText, tokens, entities);
-
-        // 提取函数实体
-        extractFunctionEntities(normalizedText, tokens, entities);
-
-        // 提取操作符实体
-        extractOperatorEntities(normalizedText, tokens, entities);
-
-        // 提取条件实体
-        extractConditionEntities(normalizedText, tokens, entities);
-
-        // 提取排序实体
-        extractOrderEntities(normalizedText, tokens, entities);
-
-        // 提取限制实体
-        extractLimitEntities(normalizedText, tokens, entities);
-
-        // 提取分组实体
-        extractGroupEntities(normalizedText, tokens, entities);
+        extractValueEntities(normalizedText, entities);
 
         // 提取日期实体
         extractDateEntities(normalizedText, tokens, entities);
@@ -103,9 +75,6 @@ public class RuleBasedEntityExtractor implements EntityExtractor {
         // 提取字符串实体
         extractStringEntities(normalizedText, tokens, entities);
 
-        // 提取布尔值实体
-        extractBooleanEntities(normalizedText, tokens, entities);
-
         return entities;
     }
 
@@ -120,182 +89,46 @@ public class RuleBasedEntityExtractor implements EntityExtractor {
     }
 
     /**
-     * 提取表名实体
+     * 提取关键词类实体
+     * 同一类别的命中被更长的命中包含时只保留较长的一个，例如"不等于"中不再单独提取"等于"
      */
-    private void extractTableEntities(String normalizedText, List<String> tokens, List<EntityTag> entities) {
-        for (String token : tokens) {
-            if (TABLE_PATTERN.matcher(token).find()) {
-                int startPosition = normalizedText.indexOf(token);
-                if (startPosition >= 0) {
-                    entities.add(EntityTag.builder()
-                            .value(token)
-                            .type(EntityType.TABLE)
-                            .startOffset(startPosition)
-                            .endOffset(startPosition + token.length())
-                            .confidence(0.8)
-                            .build());
-                }
-            }
-        }
-    }
-
-    /**
-     * 提取列名实体
-     */
-    private void extractColumnEntities(String normalizedText, List<String> tokens, List<EntityTag> entities) {
-        for (String token : tokens) {
-            if (COLUMN_PATTERN.matcher(token).find()) {
-                int startOffset = normalizedText.indexOf(token);
-                if (startOffset >= 0) {
-                    entities.add(EntityTag.builder()
-                            .value(token)
-                            .type(EntityType.COLUMN)
-                            .startOffset(startOffset)
-                            .endOffset(startOffset + token.length())
-                            .confidence(0.8)
-                            .build());
-                }
+    private void extractKeywordEntities(String normalizedText, List<EntityTag> entities) {
+        List<AhoCorasickMatcher.Match<KeywordCategory>> matches = keywordDictionary.scan(normalizedText).stream()
+                .filter(match -> match.getPayload().getEntityType() != null)
+                .sorted(Comparator.comparingInt(AhoCorasickMatcher.Match<KeywordCategory>::getStart)
+                        .thenComparing(Comparator.comparingInt(AhoCorasickMatcher.Match<KeywordCategory>::length).reversed()))
+                .collect(Collectors.toList());
+
+        Map<KeywordCategory, Integer> coveredUntil = new EnumMap<>(KeywordCategory.class);
+        for (AhoCorasickMatcher.Match<KeywordCategory> match : matches) {
+            KeywordCategory category = match.getPayload();
+            if (match.getEnd() <= coveredUntil.getOrDefault(category, -1)) {
+                continue;
             }
+            coveredUntil.put(category, match.getEnd());
+            entities.add(EntityTag.builder()
+                    .value(normalizedText.substring(match.getStart(), match.getEnd()))
+                    .type(category.getEntityType())
+                    .startOffset(match.getStart())
+                    .endOffset(match.getEnd())
+                    .confidence(category.getConfidence())
+                    .build());
         }
     }
 
     /**
      * 提取值实体
      */
-    private void extractValueEntities(String normalizedText, List<String> tokens, List<EntityTag> entities) {
-        for (String token : tokens) {
-            if (VALUE_PATTERN.matcher(token).find()) {
-                int startOffset = normalizedText.indexOf(token);
-                if (startOffset >= 0) {
-                    entities.add(EntityTag.builder()
-                            .value(token)
-                            .type(EntityType.VALUE)
-                            .startOffset(startOffset)
-                            .endOffset(startOffset + token.length())
-                            .confidence(0.9)
-                            .build());
-                }
-            }
-        }
-    }
-
-    /**
-     * 提取函数实体
-     */
-    private void extractFunctionEntities(String normalizedText, List<String> tokens, List<EntityTag> entities) {
-        for (String token : tokens) {
-            if (FUNCTION_PATTERN.matcher(token).find()) {
-                int startPosition = normalizedText.indexOf(token);
-                if (startPosition >= 0) {
-                    entities.add(EntityTag.builder()
-                            .value(token)
-                            .type(EntityType.FUNCTION)
-                            .startOffset(startPosition)
-                            .endOffset(startPosition + token.length())
-                            .confidence(0.9)
-                            .build());
-                }
-            }
-        }
-    }
-
-    /**
-     * 提取操作符实体
-     */
-    private void extractOperatorEntities(String normalizedText, List<String> tokens, List<EntityTag> entities) {
-        for (String token : tokens) {
-            if (OPERATOR_PATTERN.matcher(token).find()) {
-                int startOffset = normalizedText.indexOf(token);
-                if (startOffset >= 0) {
-                    entities.add(EntityTag.builder()
-                            .value(token)
-                            .type(EntityType.OPERATOR)
-                            .startOffset(startOffset)
-                            .endOffset(startOffset + token.length())
-                            .confidence(0.9)
-                            .build());
-                }
-            }
-        }
-    }
-
-    /**
-     * 提取条件实体
-     */
-    private void extractConditionEntities(String normalizedText, List<String> tokens, List<EntityTag> entities) {
-        for (String token : tokens) {
-            if (CONDITION_PATTERN.matcher(token).find()) {
-                int startPosition = normalizedText.indexOf(token);
-                if (startPosition >= 0) {
-                    entities.add(EntityTag.builder()
-                            .value(token)
-                            .type(EntityType.CONDITION)
-                            .startOffset(startPosition)
-                            .endOffset(startPosition + token.length())
-                            .confidence(0.8)
-                            .build());
-                }
-            }
-        }
-    }
-
-    /**
-     * 提取排序实体
-     */
-    private void extractOrderEntities(String normalizedText, List<String> tokens, List<EntityTag> entities) {
-        for (String token : tokens) {
-            if (ORDER_PATTERN.matcher(token).find()) {
-                int startOffset = normalizedText.indexOf(token);
-                if (startOffset >= 0) {
-                    entities.add(EntityTag.builder()
-                            .value(token)
-                            .type(EntityType.ORDER)
-                            .startOffset(startOffset)
-                            .endOffset(startOffset + token.length())
-                            .confidence(0.9)
-                            .build());
-                }
-            }
-        }
-    }
-
-    /**
-     * 提取限制实体
-     */
-    private void extractLimitEntities(String normalizedText, List<String> tokens, List<EntityTag> entities) {
-        for (String token : tokens) {
-            if (LIMIT_PATTERN.matcher(token).find()) {
-                int startPosition = normalizedText.indexOf(token);
-                if (startPosition >= 0) {
-                    entities.add(EntityTag.builder()
-                            .value(token)
-                            .type(EntityType.LIMIT)
-                            .startOffset(startPosition)
-                            .endOffset(startPosition + token.length())
-                            .confidence(0.9)
-                            .build());
-                }
-            }
-        }
-    }
-
-    /**
-     * 提取分组实体
-     */
-    private void extractGroupEntities(String normalizedText, List<String> tokens, List<EntityTag> entities) {
-        for (String token : tokens) {
-            if (GROUP_PATTERN.matcher(token).find()) {
-                int startPosition = normalizedText.indexOf(token);
-                if (startPosition >= 0) {
-                    entities.add(EntityTag.builder()
-                            .value(token)
-                            .type(EntityType.GROUP)
-                            .startOffset(startPosition)
-                            .endOffset(startPosition + token.length())
-                            .confidence(0.9)
-                            .build());
-                }
-            }
+    private void extractValueEntities(String normalizedText, List<EntityTag> entities) {
+        Matcher matcher = VALUE_PATTERN.matcher(normalizedText);
+        while (matcher.find()) {
+            entities.add(EntityTag.builder()
+                    .value(matcher.group())
+                    .type(EntityType.VALUE)
+                    .startOffset(matcher.start())
+                    .endOffset(matcher.end())
+                    .confidence(0.9)
+                    .build());
         }
     }
 
@@ -395,21 +228,4 @@ public class RuleBasedEntityExtractor implements EntityExtractor {
             }
         }
     }
-
-    /**
-     * 提取布尔值实体
-     */
-    private void extractBooleanEntities(String normalizedText, List<String> tokens, List<EntityTag> entities) {
-        Matcher matcher = BOOLEAN_PATTERN.matcher(normalizedText);
-        while (matcher.find()) {
-            String booleanStr = matcher.group();
-            entities.add(EntityTag.builder()
-                    .value(booleanStr)
-                    .type(EntityType.BOOLEAN)
-                    .startOffset(matcher.start())
-                    .endOffset(matcher.end())
-                    .confidence(0.9)
-                    .build());
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package com.insightdata.domain.nlquery.executor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.insightdata.domain.adapter.DataSourceConcurrencyLimiter;
+import com.insightdata.domain.exception.QueryRejectedException;
+import com.insightdata.domain.metadata.model.DataSource;
+import com.insightdata.domain.query.enums.QueryPriority;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 带准入控制的查询执行器
+ *
+ * 在DefaultQueryExecutor之前依次检查：
+ * 1. 令牌桶限流：按查询界面配置和用户计数，限额取自QueryMetadata（即界面配置的queryRateLimit），未指定时使用默认限额；
+ * 2. 数据源并发许可：按查询优先级排队，交互式查询优先于后台查询。
+ * 超出限额、排队过长或等待超时的查询直接抛出QueryRejectedException，不会到达数据库。
+ */
+@Component
+@RequiredArgsConstructor
+public class AdmissionControlledQueryExecutor implements QueryExecutor {
+
+    private final DefaultQueryExecutor delegate;
+    private final DataSourceConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * 未指定限额时每个用户每分钟允许的查询次数，0表示不限制
+     */
+    @Value("${insight.query.admission.default-rate-limit:0}")
+    private int defaultRateLimit;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong rateLimitRejections = new AtomicLong();
+
+    @Override
+    public QueryResult execute(String sql, DataSource dataSource) {
+        return execute(sql, dataSource, null);
+    }
+
+    @Override
+    public QueryResult execute(String sql, DataSource dataSource, QueryMetadata metadata) {
+        try (DataSourceConcurrencyLimiter.Permit permit = admit(dataSource, metadata)) {
+            return delegate.execute(sql, dataSource, metadata);
+        }
+    }
+
+    @Override
+    public QueryResult executeStreaming(String sql, DataSource dataSource, QueryRowHandler rowHandler) {
+        return executeStreaming(sql, dataSource, null, rowHandler);
+    }
+
+    @Override
+    public QueryResult executeStreaming(String sql, DataSource dataSource, QueryMetadata metadata,
+                                        QueryRowHandler rowHandler) {
+        try (DataSourceConcurrencyLimiter.Permit permit = admit(dataSource, metadata)) {
+            return delegate.executeStreaming(sql, dataSource, metadata, rowHandler);
+        }
+    }
+
+    @Override
+    public boolean cancel(String queryId) {
+        return delegate.cancel(queryId);
+    }
+
+    @Override
+    public QueryStatus getStatus(String queryId) {
+        return delegate.getStatus(queryId);
+    }
+
+    /**
+     * 因超出频率限制被拒绝的查询数
+     */
+    public long getRateLimitRejections() {
+        return rateLimitRejections.get();
+    }
+
+    /**
+     * 移除已补满的令牌桶，已满的令牌桶与新建的等价
+     */
+    @Scheduled(fixedDelayString = "${insight.query.admission.cleanup-interval:300000}")
+    public void evictIdleBuckets() {
+        buckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    private DataSourceConcurrencyLimiter.Permit admit(DataSource dataSource, QueryMetadata metadata) {
+        Integer limit = metadata == null ? null : metadata.getRateLimit();
+        int rateLimit = limit == null ? defaultRateLimit : limit;
+        if (rateLimit > 0) {
+            String key = (metadata == null || metadata.getInterfaceConfigId() == null ? "" : metadata.getInterfaceConfigId())
+                    + ':' + (metadata == null || metadata.getUserId() == null ? "" : metadata.getUserId());
+            TokenBucket bucket = buckets.compute(key,
+                    (k, current) -> current == null || current.getRatePerMinute() != rateLimit ? new TokenBucket(rateLimit) : current);
+            if (!bucket.tryAcquire()) {
+                rateLimitRejections.incrementAndGet();
+                throw new QueryRejectedException("查询过于频繁，每分钟最多允许" + rateLimit + "次查询，请稍后重试");
+            }
+        }
+        QueryPriority priority = metadata == null || metadata.getPriority() == null
+                ? QueryPriority.INTERACTIVE : metadata.getPriority();
+        return concurrencyLimiter.acquire(dataSource.getId(), priority);
+    }
+}
@@ -0,0 +1,86 @@
+package com.insightdata.domain.nlquery.executor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import com.insightdata.domain.metadata.model.DataSource;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 带结果缓存的查询执行器
+ *
+ * 在AdmissionControlledQueryExecutor之前查询QueryResultCache，命中时直接返回缓存结果，不占用限流额度和数据源许可；
+ * 分页查询按页分别缓存，请求总行数时从QueryCountCache补充；
+ * 流式查询、取消和状态查询直接委托给AdmissionControlledQueryExecutor。
+ */
+@Primary
+@Component
+@RequiredArgsConstructor
+public class CachingQueryExecutor implements QueryExecutor {
+
+    private final AdmissionControlledQueryExecutor delegate;
+    private final QueryResultCache queryResultCache;
+    private final QueryCountCache queryCountCache;
+
+    @Override
+    public QueryResult execute(String sql, DataSource dataSource) {
+        return queryResultCache.get(dataSource.getId(), sql, null,
+                () -> delegate.execute(sql, dataSource));
+    }
+
+    @Override
+    public QueryResult execute(String sql, DataSource dataSource, QueryMetadata metadata) {
+        QueryPageRequest page = metadata == null ? null : metadata.getPage();
+        QueryResult result = queryResultCache.get(dataSource.getId(), sql, cacheParameters(metadata),
+                () -> delegate.execute(sql, dataSource, metadata));
+        if (page != null && page.isCountTotal() && result.isSuccess()) {
+            result.setTotalCount(queryCountCache.getOrStart(dataSource, sql));
+        }
+        return result;
+    }
+
+    /**
+     * 分页请求和最大返回行数作为缓存键的一部分，同一SQL的不同页、不同行数上限分别缓存
+     */
+    private static Map<String, Object> cacheParameters(QueryMetadata metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        if (metadata.getPage() == null && metadata.getMaxRows() <= 0) {
+            return metadata.getParameters();
+        }
+        Map<String, Object> parameters = metadata.getParameters() == null
+                ? new HashMap<>() : new HashMap<>(metadata.getParameters());
+        if (metadata.getPage() != null) {
+            parameters.put("_page", metadata.getPage().cacheKey());
+        } else {
+            parameters.put("_maxRows", metadata.getMaxRows());
+        }
+        return parameters;
+    }
+
+    @Override
+    public QueryResult executeStreaming(String sql, DataSource dataSource, QueryRowHandler rowHandler) {
+        return delegate.executeStreaming(sql, dataSource, rowHandler);
+    }
+
+    @Override
+    public QueryResult executeStreaming(String sql, DataSource dataSource, QueryMetadata metadata,
+                                        QueryRowHandler rowHandler) {
+        return delegate.executeStreaming(sql, dataSource, metadata, rowHandler);
+    }
+
+    @Override
+    public boolean cancel(String queryId) {
+        return delegate.cancel(queryId);
+    }
+
+    @Override
+    public QueryStatus getStatus(String queryId) {
+        return delegate.getStatus(queryId);
+    }
+}
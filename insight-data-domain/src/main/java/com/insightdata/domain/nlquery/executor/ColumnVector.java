@@ -0,0 +1,491 @@
+package com.insightdata.domain.nlquery.executor;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 列式结果中的单列数据
+ *
+ * 整数、长整数、单精度和双精度浮点数列使用原始类型数组存储，避免逐个装箱；
+ * 字符串列使用字典编码，重复值只保存一份；空值使用位图记录。
+ * 列在构建阶段按行追加，构建完成后只读，可被多个线程并发读取。
+ */
+public abstract class ColumnVector {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    protected int size;
+
+    private BitSet nulls;
+
+    /**
+     * 根据结果集元数据创建对应的列
+     *
+     * @param metaData 结果集元数据
+     * @param column 列序号，从1开始
+     * @return 空列
+     */
+    public static ColumnVector forColumn(ResultSetMetaData metaData, int column) throws SQLException {
+        return forSqlType(metaData.getColumnType(column), metaData.isSigned(column), metaData.getPrecision(column));
+    }
+
+    /**
+     * 根据JDBC类型创建对应的列
+     *
+     * 无符号整数按精度选择能容纳其取值范围的列：INT UNSIGNED使用long列，
+     * BIGINT UNSIGNED超出long范围，按对象（BigInteger）存储；精度未知时按可能的最大值处理。
+     * REAL为单精度浮点数，使用float列，保持与JDBC驱动返回Float时相同的取值和序列化结果。
+     *
+     * @param sqlType java.sql.Types中的类型常量
+     * @param signed 是否为有符号数值
+     * @param precision 十进制精度，未知时为0
+     * @return 空列
+     */
+    public static ColumnVector forSqlType(int sqlType, boolean signed, int precision) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return new IntVector();
+            case Types.INTEGER:
+                return signed || precision > 0 && precision < 10 ? new IntVector() : new LongVector();
+            case Types.BIGINT:
+                return signed || precision > 0 && precision < 19 ? new LongVector() : new ObjectVector(true);
+            case Types.REAL:
+                return new FloatVector();
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new DoubleVector();
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return new DictionaryVector();
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return new ObjectVector(true);
+            default:
+                return new ObjectVector(false);
+        }
+    }
+
+    /**
+     * 读取结果集当前行的指定列并追加到本列末尾
+     */
+    abstract void append(ResultSet rs, int columnIndex) throws SQLException;
+
+    /**
+     * 构建完成后释放多余容量
+     */
+    abstract void trim();
+
+    /**
+     * 获取指定行的值，空值返回null
+     */
+    public abstract Object get(int row);
+
+    /**
+     * 比较两行的值，空值排在最前
+     */
+    public abstract int compare(int rowA, int rowB);
+
+    /**
+     * 估算本列占用的堆内存字节数
+     */
+    public abstract long estimatedBytes();
+
+    /**
+     * 是否为数值列
+     */
+    public boolean isNumeric() {
+        return false;
+    }
+
+    /**
+     * 以double形式获取数值列的值，空值返回0
+     */
+    public double getDouble(int row) {
+        throw new UnsupportedOperationException("Column is not numeric");
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        return nulls != null && nulls.get(row);
+    }
+
+    protected void markNull(int row) {
+        if (nulls == null) {
+            nulls = new BitSet();
+        }
+        nulls.set(row);
+    }
+
+    protected int compareNulls(int rowA, int rowB) {
+        boolean nullA = isNull(rowA);
+        boolean nullB = isNull(rowB);
+        if (nullA || nullB) {
+            return nullA == nullB ? 0 : (nullA ? -1 : 1);
+        }
+        return 2;
+    }
+
+    protected long nullBitmapBytes() {
+        return nulls == null ? 0 : nulls.size() / 8;
+    }
+
+    protected static int grow(int capacity) {
+        return capacity == 0 ? INITIAL_CAPACITY : capacity + (capacity >> 1);
+    }
+
+    /**
+     * int列
+     */
+    static final class IntVector extends ColumnVector {
+        private int[] values = new int[0];
+
+        @Override
+        void append(ResultSet rs, int columnIndex) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[size] = rs.getInt(columnIndex);
+            if (rs.wasNull()) {
+                markNull(size);
+            }
+            size++;
+        }
+
+        @Override
+        void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public int compare(int rowA, int rowB) {
+            int result = compareNulls(rowA, rowB);
+            return result != 2 ? result : Integer.compare(values[rowA], values[rowB]);
+        }
+
+        @Override
+        public boolean isNumeric() {
+            return true;
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 4L * values.length + nullBitmapBytes();
+        }
+    }
+
+    /**
+     * long列
+     */
+    static final class LongVector extends ColumnVector {
+        private long[] values = new long[0];
+
+        @Override
+        void append(ResultSet rs, int columnIndex) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[size] = rs.getLong(columnIndex);
+            if (rs.wasNull()) {
+                markNull(size);
+            }
+            size++;
+        }
+
+        @Override
+        void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public int compare(int rowA, int rowB) {
+            int result = compareNulls(rowA, rowB);
+            return result != 2 ? result : Long.compare(values[rowA], values[rowB]);
+        }
+
+        @Override
+        public boolean isNumeric() {
+            return true;
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 8L * values.length + nullBitmapBytes();
+        }
+    }
+
+    /**
+     * float列
+     */
+    static final class FloatVector extends ColumnVector {
+        private float[] values = new float[0];
+
+        @Override
+        void append(ResultSet rs, int columnIndex) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[size] = rs.getFloat(columnIndex);
+            if (rs.wasNull()) {
+                markNull(size);
+            }
+            size++;
+        }
+
+        @Override
+        void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public int compare(int rowA, int rowB) {
+            int result = compareNulls(rowA, rowB);
+            return result != 2 ? result : Float.compare(values[rowA], values[rowB]);
+        }
+
+        @Override
+        public boolean isNumeric() {
+            return true;
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 4L * values.length + nullBitmapBytes();
+        }
+    }
+
+    /**
+     * double列
+     */
+    static final class DoubleVector extends ColumnVector {
+        private double[] values = new double[0];
+
+        @Override
+        void append(ResultSet rs, int columnIndex) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[size] = rs.getDouble(columnIndex);
+            if (rs.wasNull()) {
+                markNull(size);
+            }
+            size++;
+        }
+
+        @Override
+        void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public int compare(int rowA, int rowB) {
+            int result = compareNulls(rowA, rowB);
+            return result != 2 ? result : Double.compare(values[rowA], values[rowB]);
+        }
+
+        @Override
+        public boolean isNumeric() {
+            return true;
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 8L * values.length + nullBitmapBytes();
+        }
+    }
+
+    /**
+     * 字典编码的字符串列
+     */
+    static final class DictionaryVector extends ColumnVector {
+        private int[] codes = new int[0];
+        private String[] dictionary = new String[0];
+        private int dictionarySize;
+        private Map<String, Integer> lookup = new HashMap<>();
+
+        @Override
+        void append(ResultSet rs, int columnIndex) throws SQLException {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, grow(codes.length));
+            }
+            String value = rs.getString(columnIndex);
+            if (value == null) {
+                markNull(size);
+            } else {
+                Integer code = lookup.get(value);
+                if (code == null) {
+                    if (dictionarySize == dictionary.length) {
+                        dictionary = Arrays.copyOf(dictionary, grow(dictionary.length));
+                    }
+                    code = dictionarySize;
+                    dictionary[dictionarySize++] = value;
+                    lookup.put(value, code);
+                }
+                codes[size] = code;
+            }
+            size++;
+        }
+
+        @Override
+        void trim() {
+            codes = Arrays.copyOf(codes, size);
+            dictionary = Arrays.copyOf(dictionary, dictionarySize);
+            // 构建完成后不再需要反查表
+            lookup = null;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : dictionary[codes[row]];
+        }
+
+        @Override
+        public int compare(int rowA, int rowB) {
+            int result = compareNulls(rowA, rowB);
+            if (result != 2) {
+                return result;
+            }
+            int codeA = codes[rowA];
+            int codeB = codes[rowB];
+            return codeA == codeB ? 0 : dictionary[codeA].compareTo(dictionary[codeB]);
+        }
+
+        /**
+         * 字典中不同取值的数量
+         */
+        public int cardinality() {
+            return dictionarySize;
+        }
+
+        @Override
+        public long estimatedBytes() {
+            long bytes = 4L * codes.length + 8L * dictionary.length + nullBitmapBytes();
+            for (int i = 0; i < dictionarySize; i++) {
+                bytes += 40 + 2L * dictionary[i].length();
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * 其他类型（日期、时间、DECIMAL、二进制等）按对象存储
+     */
+    static final class ObjectVector extends ColumnVector {
+        private final boolean numeric;
+        private Object[] values = new Object[0];
+
+        ObjectVector(boolean numeric) {
+            this.numeric = numeric;
+        }
+
+        @Override
+        void append(ResultSet rs, int columnIndex) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            Object value = rs.getObject(columnIndex);
+            if (value == null) {
+                markNull(size);
+            }
+            values[size++] = value;
+        }
+
+        @Override
+        void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+
+        @Override
+        public Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public int compare(int rowA, int rowB) {
+            int result = compareNulls(rowA, rowB);
+            if (result != 2) {
+                return result;
+            }
+            Object a = values[rowA];
+            Object b = values[rowB];
+            if (a instanceof Comparable && a.getClass().isInstance(b)) {
+                return ((Comparable) a).compareTo(b);
+            }
+            return String.valueOf(a).compareTo(String.valueOf(b));
+        }
+
+        @Override
+        public boolean isNumeric() {
+            return numeric;
+        }
+
+        @Override
+        public double getDouble(int row) {
+            if (!numeric) {
+                return super.getDouble(row);
+            }
+            Object value = values[row];
+            return value == null ? 0 : ((Number) value).doubleValue();
+        }
+
+        @Override
+        public long estimatedBytes() {
+            // 按每个对象约32字节粗略估算
+            return 8L * values.length + 32L * size + nullBitmapBytes();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.insightdata.domain.nlquery.executor;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * 列式查询结果
+ *
+ * 按列保存查询结果，列的存储方式由ResultSetMetaData中的JDBC类型决定（参见ColumnVector），
+ * 相比每行一个HashMap的行式结构显著减少对象数量和内存占用。
+ * 通过asRows()可获得按需读取的行视图，兼容原有的List&lt;Map&lt;String, Object&gt;&gt;用法。
+ */
+public final class ColumnarResultSet {
+
+    private final List<String> columnLabels;
+    private final List<String> columnTypes;
+    private final ColumnVector[] columns;
+    private final int rowCount;
+    private final Map<String, Integer> labelIndex;
+    private final int[] viewColumns;
+
+    private ColumnarResultSet(List<String> columnLabels, List<String> columnTypes, ColumnVector[] columns, int rowCount) {
+        this.columnLabels = Collections.unmodifiableList(columnLabels);
+        this.columnTypes = Collections.unmodifiableList(columnTypes);
+        this.columns = columns;
+        this.rowCount = rowCount;
+
+        // 列标签重复时与原先HashMap行一致，以最后出现的列为准
+        this.labelIndex = new HashMap<>();
+        for (int i = 0; i < columnLabels.size(); i++) {
+            labelIndex.put(columnLabels.get(i), i);
+        }
+        this.viewColumns = IntStream.range(0, columnLabels.size())
+                .filter(i -> labelIndex.get(columnLabels.get(i)) == i)
+                .toArray();
+    }
+
+    /**
+     * 读取结果集的全部剩余行
+     *
+     * @param resultSet 结果集，读取完毕后不会关闭
+     * @return 列式结果
+     */
+    public static ColumnarResultSet read(ResultSet resultSet) throws SQLException {
+        return read(resultSet, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 读取结果集中最多maxRows行，剩余的行留在结果集中
+     *
+     * @param resultSet 结果集，读取完毕后不会关闭
+     * @param maxRows   最多读取的行数
+     * @return 列式结果
+     */
+    public static ColumnarResultSet read(ResultSet resultSet, int maxRows) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+
+        List<String> labels = new ArrayList<>(columnCount);
+        List<String> types = new ArrayList<>(columnCount);
+        ColumnVector[] columns = new ColumnVector[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            labels.add(metaData.getColumnLabel(i + 1));
+            types.add(metaData.getColumnTypeName(i + 1));
+            columns[i] = ColumnVector.forColumn(metaData, i + 1);
+        }
+
+        int rowCount = 0;
+        while (rowCount < maxRows && resultSet.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                columns[i].append(resultSet, i + 1);
+            }
+            rowCount++;
+        }
+        for (ColumnVector column : columns) {
+            column.trim();
+        }
+        return new ColumnarResultSet(labels, types, columns, rowCount);
+    }
+
+    public List<String> getColumnLabels() {
+        return columnLabels;
+    }
+
+    public List<String> getColumnTypes() {
+        return columnTypes;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public ColumnVector getColumn(int column) {
+        return columns[column];
+    }
+
+    /**
+     * 按列标签获取列，不存在时返回null
+     */
+    public ColumnVector getColumn(String label) {
+        Integer index = labelIndex.get(label);
+        return index == null ? null : columns[index];
+    }
+
+    public Object getValue(int row, int column) {
+        return columns[column].get(row);
+    }
+
+    /**
+     * 返回按需读取的行视图
+     *
+     * 每行是一个只读Map，读取时才从列中取值，不复制数据
+     */
+    public List<Map<String, Object>> asRows() {
+        return new AbstractList<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> get(int row) {
+                if (row < 0 || row >= rowCount) {
+                    throw new IndexOutOfBoundsException("Row " + row + " out of range [0, " + rowCount + ")");
+                }
+                return new RowView(row);
+            }
+
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        };
+    }
+
+    /**
+     * 按指定列排序后的行号序列，不移动列数据
+     *
+     * @param column    列序号（从0开始）
+     * @param ascending 是否升序，空值在升序时排在最前
+     * @return 排序后的行号
+     */
+    public int[] sortIndex(int column, boolean ascending) {
+        ColumnVector vector = columns[column];
+        return IntStream.range(0, rowCount)
+                .boxed()
+                .sorted((a, b) -> ascending ? vector.compare(a, b) : vector.compare(b, a))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * 数值列求和，忽略空值
+     */
+    public double sum(int column) {
+        ColumnVector vector = columns[column];
+        double sum = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (!vector.isNull(row)) {
+                sum += vector.getDouble(row);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 估算结果占用的堆内存字节数
+     */
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (ColumnVector column : columns) {
+            bytes += column.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 单行只读视图
+     */
+    private final class RowView extends AbstractMap<String, Object> {
+        private final int row;
+
+        private RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer index = labelIndex.get(key);
+            return index == null ? null : columns[index].get(row);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return labelIndex.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return viewColumns.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < viewColumns.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int column = viewColumns[next++];
+                            return new SimpleImmutableEntry<>(columnLabels.get(column), columns[column].get(row));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return viewColumns.length;
+                }
+            };
+        }
+    }
+}
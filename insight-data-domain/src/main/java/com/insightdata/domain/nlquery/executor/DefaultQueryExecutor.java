@@ -6,17 +6,19 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import com.insightdata.domain.adapter.DataSourceAdapter;
-import com.insightdata.domain.adapter.DataSourceAdapterFactory;
-import com.insightdata.domain.adapter.DataSourceAdapterHelper;
+import com.insightdata.domain.adapter.DataSourceConnectionPoolRegistry;
+import com.insightdata.domain.exception.UnsafeQueryException;
+import com.insightdata.domain.metadata.enums.DataSourceType;
 import com.insightdata.domain.metadata.model.DataSource;
+import com.insightdata.domain.nlquery.sql.SqlGuard;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,18 +26,59 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * 默认查询执行器实现
  * 
- * 基于JDBC执行SQL查询，支持多种数据源类型
+ * 基于JDBC执行SQL查询，支持多种数据源类型。
+ * 限流和数据源并发许可由AdmissionControlledQueryExecutor在调用前完成。
+ * 查询元数据带有分页请求时，按数据源方言把分页条件下推到SQL中（见PaginatedSql），只读取一页数据。
+ * 执行前由SqlGuard按方言改写并追加行数限制、拒绝危险查询，语句同时设置超时、最大行数和fetch size，
+ * 超出行数上限的结果被截断并标记truncated
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class DefaultQueryExecutor implements QueryExecutor {
 
-    private final DataSourceAdapterFactory dataSourceAdapterFactory;
+    private final DataSourceConnectionPoolRegistry connectionPoolRegistry;
+    private final SqlGuard sqlGuard;
     
-    // 存储查询状态的映射
+    // 流式查询每次从数据库读取的行数
+    @Value("${insight.query.stream-fetch-size:1000}")
+    private int streamFetchSize;
+    
+    // 分页查询每页最大行数，也是非分页查询可以指定的最大返回行数
+    @Value("${insight.query.max-rows-limit:50000}")
+    private int maxPageSize;
+    
+    // 未指定最大返回行数时的默认值
+    @Value("${insight.query.default-max-rows:1000}")
+    private int defaultMaxRows;
+    
+    // 流式查询的最大返回行数
+    @Value("${insight.query.guard.stream-max-rows:1000000}")
+    private int streamMaxRows;
+    
+    // 未指定超时时间时的默认查询超时（秒）
+    @Value("${insight.query.default-timeout:30}")
+    private int defaultTimeout;
+    
+    // 非流式查询允许的最大超时（秒）
+    @Value("${insight.query.max-timeout:300}")
+    private int maxTimeout;
+    
+    // 已结束查询的状态保留条数
+    @Value("${insight.query.status-retention:10000}")
+    private int statusRetention;
+    
+    // 正在运行的查询，结束后移入finishedStatusMap
     private final Map<String, QueryStatus> queryStatusMap = new ConcurrentHashMap<>();
     
+    // 最近结束的查询状态，按结束顺序保留statusRetention条，所有访问都在自身锁内进行
+    private final LinkedHashMap<String, QueryStatus> finishedStatusMap = new LinkedHashMap<String, QueryStatus>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, QueryStatus> eldest) {
+            return size() > statusRetention;
+        }
+    };
+    
     // 存储可取消的语句的映射
     private final Map<String, PreparedStatement> statementMap = new ConcurrentHashMap<>();
 
@@ -54,7 +97,7 @@ public class DefaultQueryExecutor implements QueryExecutor {
         try {
             // 使用自定义的Helper类处理IDE无法识别Lombok生成的getter方法的问题
             if (sql == null || sql.trim().isEmpty()) {
-                queryStatusMap.put(queryId, QueryStatus.FAILED);
+                finish(queryId, QueryStatus.FAILED);
                 return QueryResult.builder()
                         .success(false)
                         .errorMessage("SQL语句不能为空")
@@ -62,69 +105,82 @@ public class DefaultQueryExecutor implements QueryExecutor {
                         .build();
             }
             
-            // 获取适配的数据源适配器
-            DataSourceAdapter adapter = dataSourceAdapterFactory.getAdapter(DataSourceAdapterHelper.getType(dataSource));
-            
-            // 执行查询并获取结果
-            Connection connection = adapter.getConnection();
-            if (connection == null) {
-                adapter.connect(dataSource);
-                connection = adapter.getConnection();
+            QueryPageRequest page = metadata == null ? null : metadata.getPage();
+            if (page != null && page.getPageSize() > maxPageSize) {
+                finish(queryId, QueryStatus.FAILED);
+                return QueryResult.builder()
+                        .success(false)
+                        .errorMessage("每页行数不能超过" + maxPageSize)
+                        .queryId(queryId)
+                        .build();
             }
-            
+            // 分页查询的行数限制由PaginatedSql追加，非分页查询多取一行用于判断是否截断
+            int maxRows = page == null ? maxRows(metadata, maxPageSize, defaultMaxRows) : page.getPageSize();
+            String guarded;
             try {
-                PreparedStatement statement = connection.prepareStatement(sql);
-                statementMap.put(queryId, statement);
-                
-                ResultSet resultSet = statement.executeQuery();
-                ResultSetMetaData rsMetaData = resultSet.getMetaData();
-                int columnCount = rsMetaData.getColumnCount();
-                
-                // 提取列信息
-                List<String> columnLabels = new ArrayList<>();
-                List<String> columnTypes = new ArrayList<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    columnLabels.add(rsMetaData.getColumnLabel(i));
-                    columnTypes.add(rsMetaData.getColumnTypeName(i));
-                }
-                
-                // 提取数据行
-                List<Map<String, Object>> rows = new ArrayList<>();
-                while (resultSet.next()) {
-                    Map<String, Object> row = new HashMap<>();
-                    for (int i = 1; i <= columnCount; i++) {
-                        String columnName = rsMetaData.getColumnLabel(i);
-                        Object value = resultSet.getObject(i);
-                        row.put(columnName, value);
+                guarded = sqlGuard.guard(sql, dataSource, page == null ? maxRows + 1L : 0);
+            } catch (UnsafeQueryException e) {
+                log.warn("拒绝执行不安全的查询: queryId={}, reason={}", queryId, e.getMessage());
+                finish(queryId, QueryStatus.FAILED);
+                return QueryResult.builder()
+                        .success(false)
+                        .errorMessage(e.getMessage())
+                        .queryId(queryId)
+                        .build();
+            }
+            PaginatedSql paginated = page == null ? null : PaginatedSql.of(guarded, dataSource.getType(), page);
+            
+            // 从数据源连接池借用连接，执行完毕后归还
+            try (Connection connection = connectionPoolRegistry.getConnection(dataSource);
+                 PreparedStatement statement = connection.prepareStatement(paginated == null ? guarded : paginated.getSql())) {
+                statement.setQueryTimeout(timeoutSeconds(metadata, defaultTimeout, maxTimeout));
+                statement.setMaxRows(maxRows + 1);
+                statement.setFetchSize(Math.min(streamFetchSize, maxRows + 1));
+                if (paginated != null) {
+                    List<Object> parameters = paginated.getParameters();
+                    for (int i = 0; i < parameters.size(); i++) {
+                        statement.setObject(i + 1, parameters.get(i));
                     }
-                    rows.add(row);
                 }
+                statementMap.put(queryId, statement);
                 
-                long endTime = System.currentTimeMillis();
-                long duration = endTime - startTime;
+                // 按列读取结果，数值列以原始类型数组存储，字符串列做字典编码
+                ColumnarResultSet columnarData;
+                boolean hasMore;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    // 多取的一行用于判断是否还有下一页或结果是否被截断
+                    columnarData = ColumnarResultSet.read(resultSet, maxRows);
+                    hasMore = resultSet.next();
+                }
                 
-                // 清理资源
-                resultSet.close();
-                statement.close();
+                long duration = System.currentTimeMillis() - startTime;
                 statementMap.remove(queryId);
                 
                 // 更新状态
-                queryStatusMap.put(queryId, QueryStatus.COMPLETED);
+                finish(queryId, QueryStatus.COMPLETED);
                 
                 // 构建并返回结果
-                return QueryResult.builder()
+                QueryResult.QueryResultBuilder result = QueryResult.builder()
                         .success(true)
                         .duration(duration)
-                        .columnLabels(columnLabels)
-                        .columnTypes(columnTypes)
-                        .rows(rows)
-                        .affectedRows(rows.size())
-                        .totalRows(rows.size())
-                        .queryId(queryId)
-                        .build();
+                        .columnLabels(columnarData.getColumnLabels())
+                        .columnTypes(columnarData.getColumnTypes())
+                        .columnarData(columnarData)
+                        .affectedRows(columnarData.getRowCount())
+                        .totalRows(columnarData.getRowCount())
+                        .queryId(queryId);
+                if (page == null) {
+                    result.truncated(hasMore);
+                } else {
+                    result.pageNum(page.getPageNum())
+                            .pageSize(page.getPageSize())
+                            .hasMore(hasMore)
+                            .nextCursor(hasMore ? nextCursor(page, columnarData) : null);
+                }
+                return result.build();
                 
             } catch (SQLException e) {
-                queryStatusMap.put(queryId, QueryStatus.FAILED);
+                finish(queryId, QueryStatus.FAILED);
                 return QueryResult.builder()
                         .success(false)
                         .errorMessage("SQL执行错误: " + e.getMessage())
@@ -135,7 +191,7 @@ public class DefaultQueryExecutor implements QueryExecutor {
             }
             
         } catch (Exception e) {
-            queryStatusMap.put(queryId, QueryStatus.FAILED);
+            finish(queryId, QueryStatus.FAILED);
             return QueryResult.builder()
                     .success(false)
                     .errorMessage("查询执行错误: " + e.getMessage())
@@ -144,9 +200,120 @@ public class DefaultQueryExecutor implements QueryExecutor {
         }
     }
     
+    @Override
+    public QueryResult executeStreaming(String sql, DataSource dataSource, QueryRowHandler rowHandler) {
+        return executeStreaming(sql, dataSource, null, rowHandler);
+    }
+    
+    @Override
+    public QueryResult executeStreaming(String sql, DataSource dataSource, QueryMetadata metadata,
+                                        QueryRowHandler rowHandler) {
+        String queryId = generateQueryId();
+        queryStatusMap.put(queryId, QueryStatus.RUNNING);
+        
+        long startTime = System.currentTimeMillis();
+        
+        if (sql == null || sql.trim().isEmpty()) {
+            finish(queryId, QueryStatus.FAILED);
+            return QueryResult.builder()
+                    .success(false)
+                    .errorMessage("SQL语句不能为空")
+                    .queryId(queryId)
+                    .build();
+        }
+        
+        int maxRows = maxRows(metadata, streamMaxRows, streamMaxRows);
+        String guarded;
+        try {
+            guarded = sqlGuard.guard(sql, dataSource, maxRows + 1L);
+        } catch (UnsafeQueryException e) {
+            log.warn("拒绝执行不安全的查询: queryId={}, reason={}", queryId, e.getMessage());
+            finish(queryId, QueryStatus.FAILED);
+            return QueryResult.builder()
+                    .success(false)
+                    .errorMessage(e.getMessage())
+                    .queryId(queryId)
+                    .build();
+        }
+        
+        int rowCount = 0;
+        try (Connection connection = connectionPoolRegistry.getConnection(dataSource);
+             PreparedStatement statement = prepareStreamingStatement(connection, guarded, dataSource)) {
+            // 流式查询用于导出和异步作业，只有显式指定时才设置超时
+            statement.setQueryTimeout(timeoutSeconds(metadata, 0, Integer.MAX_VALUE));
+            statement.setMaxRows(maxRows + 1);
+            statementMap.put(queryId, statement);
+            rowHandler.onStart(queryId);
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                ResultSetMetaData rsMetaData = resultSet.getMetaData();
+                int columnCount = rsMetaData.getColumnCount();
+                
+                // 提取列信息
+                List<String> columnLabels = new ArrayList<>(columnCount);
+                List<String> columnTypes = new ArrayList<>(columnCount);
+                for (int i = 1; i <= columnCount; i++) {
+                    columnLabels.add(rsMetaData.getColumnLabel(i));
+                    columnTypes.add(rsMetaData.getColumnTypeName(i));
+                }
+                
+                boolean truncated;
+                try {
+                    rowHandler.onColumns(columnLabels, columnTypes);
+                    
+                    // 逐行回调，不在内存中累积结果
+                    while (rowCount < maxRows && resultSet.next()) {
+                        Object[] values = new Object[columnCount];
+                        for (int i = 0; i < columnCount; i++) {
+                            values[i] = resultSet.getObject(i + 1);
+                        }
+                        rowHandler.onRow(values);
+                        rowCount++;
+                    }
+                    truncated = rowCount == maxRows && resultSet.next();
+                } catch (Exception e) {
+                    // 消费方失败（如客户端断开）时先取消语句，避免关闭流式结果集时读完剩余数据
+                    statement.cancel();
+                    throw e;
+                }
+                
+                finish(queryId, QueryStatus.COMPLETED);
+                
+                return QueryResult.builder()
+                        .success(true)
+                        .duration(System.currentTimeMillis() - startTime)
+                        .columnLabels(columnLabels)
+                        .columnTypes(columnTypes)
+                        .affectedRows(rowCount)
+                        .totalRows(rowCount)
+                        .truncated(truncated)
+                        .queryId(queryId)
+                        .build();
+            }
+        } catch (Exception e) {
+            log.error("流式查询执行失败: queryId={}, rowsWritten={}", queryId, rowCount, e);
+            finish(queryId, QueryStatus.FAILED);
+            return QueryResult.builder()
+                    .success(false)
+                    .errorMessage("查询执行错误: " + e.getMessage())
+                    .duration(System.currentTimeMillis() - startTime)
+                    .totalRows(rowCount)
+                    .queryId(queryId)
+                    .build();
+        } finally {
+            statementMap.remove(queryId);
+        }
+    }
+    
     @Override
     public QueryStatus getStatus(String queryId) {
-        return queryStatusMap.getOrDefault(queryId, QueryStatus.UNKNOWN);
+        QueryStatus status = queryStatusMap.get(queryId);
+        if (status != null) {
+            return status;
+        }
+        synchronized (finishedStatusMap) {
+            return finishedStatusMap.getOrDefault(queryId, QueryStatus.UNKNOWN);
+        }
     }
     
     @Override
@@ -154,9 +321,10 @@ public class DefaultQueryExecutor implements QueryExecutor {
         try {
             PreparedStatement statement = statementMap.get(queryId);
             if (statement != null) {
+                // 先记录取消状态，执行线程随后因语句被取消而结束时不会覆盖为失败
+                finish(queryId, QueryStatus.CANCELLED);
                 statement.cancel();
                 statementMap.remove(queryId);
-                queryStatusMap.put(queryId, QueryStatus.CANCELLED);
                 return true;
             }
             return false;
@@ -165,6 +333,89 @@ public class DefaultQueryExecutor implements QueryExecutor {
         }
     }
     
+    /**
+     * 创建只读、仅向前的流式语句，并按驱动设置合适的fetch size
+     * 
+     * MySQL驱动默认一次性读取全部结果，只有fetch size为Integer.MIN_VALUE（逐行流式）
+     * 或开启useCursorFetch（服务端游标）时才会分批读取；DB2使用块读取，fetch size决定每块行数。
+     */
+    private PreparedStatement prepareStreamingStatement(Connection connection, String sql, DataSource dataSource) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        if (dataSource.getType() == DataSourceType.MYSQL) {
+            Map<String, String> props = dataSource.getConnectionProperties();
+            boolean cursorFetch = props != null && "true".equalsIgnoreCase(props.get("useCursorFetch"));
+            statement.setFetchSize(cursorFetch ? streamFetchSize : Integer.MIN_VALUE);
+        } else {
+            statement.setFetchSize(streamFetchSize);
+        }
+        return statement;
+    }
+    
+    /**
+     * 由本页最后一行的排序字段值生成下一页的游标，排序不覆盖唯一键时不能使用键集分页，返回null
+     */
+    private String nextCursor(QueryPageRequest page, ColumnarResultSet columnarData) {
+        if (!page.isUniqueSort() || page.getSorts().isEmpty() || columnarData.getRowCount() == 0) {
+            return null;
+        }
+        int lastRow = columnarData.getRowCount() - 1;
+        List<Object> values = new ArrayList<>(page.getSorts().size());
+        for (QueryPageRequest.SortKey sort : page.getSorts()) {
+            // DB2对未加引号的列名返回大写标签
+            int column = -1;
+            for (int i = 0; i < columnarData.getColumnCount(); i++) {
+                if (columnarData.getColumnLabels().get(i).equalsIgnoreCase(sort.getField())) {
+                    column = i;
+                    break;
+                }
+            }
+            if (column < 0) {
+                return null;
+            }
+            Object value = columnarData.getValue(lastRow, column);
+            if (value == null) {
+                return null;
+            }
+            values.add(value);
+        }
+        return QueryPageRequest.encodeCursor(values);
+    }
+    
+    /**
+     * 由查询元数据中的超时设置（毫秒）计算JDBC超时（秒），不足一秒按一秒计
+     *
+     * @param defaultSeconds 未设置超时时使用的值，0表示不限制
+     * @param maxSeconds     超时上限
+     */
+    private static int timeoutSeconds(QueryMetadata metadata, int defaultSeconds, int maxSeconds) {
+        if (metadata == null || metadata.getTimeout() <= 0) {
+            return defaultSeconds;
+        }
+        return (int) Math.min(maxSeconds, Math.max(1, (metadata.getTimeout() + 999) / 1000));
+    }
+    
+    /**
+     * 查询元数据中的最大返回行数，未设置时使用默认值，超过上限时取上限
+     */
+    private static int maxRows(QueryMetadata metadata, int limit, int defaultRows) {
+        if (metadata == null || metadata.getMaxRows() <= 0) {
+            return defaultRows;
+        }
+        return Math.min(limit, metadata.getMaxRows());
+    }
+    
+    /**
+     * 记录查询的结束状态，已取消的查询保持取消状态
+     */
+    private void finish(String queryId, QueryStatus status) {
+        synchronized (finishedStatusMap) {
+            if (finishedStatusMap.get(queryId) != QueryStatus.CANCELLED) {
+                finishedStatusMap.put(queryId, status);
+            }
+        }
+        queryStatusMap.remove(queryId);
+    }
+    
     /**
      * 生成唯一的查询ID
      */
@@ -0,0 +1,186 @@
+package com.insightdata.domain.nlquery.executor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.insightdata.domain.metadata.enums.DataSourceType;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshot;
+
+/**
+ * 下推分页条件后的SQL
+ *
+ * 不解析原SQL，而是在原SQL外包一层派生表后追加排序、键集条件和方言对应的行数限制：
+ * MySQL使用LIMIT/OFFSET，DB2及其他数据库使用OFFSET ... ROWS FETCH NEXT ... ROWS ONLY。
+ * MySQL和DB2都会把简单派生表合并到外层查询中，行数限制可以继续下推到索引扫描。
+ * 未指定排序且原SQL没有行数限制时直接在原SQL后追加限制，保留原SQL中的ORDER BY。
+ * 多读取一行用于判断是否还有下一页。
+ */
+public final class PaginatedSql {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    // 原SQL末尾已有的行数限制
+    private static final Pattern ROW_LIMIT = Pattern.compile(
+            "(?is).*\\b(limit\\s+\\d+(\\s*(,|offset)\\s*\\d+)?|fetch\\s+(first|next)\\s+\\d+\\s+rows?\\s+only)\\s*$");
+
+    private static final Pattern TABLE_REFERENCE = Pattern.compile("(?i)\\b(?:from|join)\\s+([`\"\\w.]+)");
+
+    private static final Pattern DERIVED_TABLE = Pattern.compile("(?i)\\b(?:from|join)\\s*\\(");
+
+    private final String sql;
+    private final List<Object> parameters;
+
+    private PaginatedSql(String sql, List<Object> parameters) {
+        this.sql = sql;
+        this.parameters = Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * 生成分页SQL
+     *
+     * @param sql  原SQL
+     * @param type 数据源类型
+     * @param page 分页请求
+     * @throws IllegalArgumentException 排序字段不是合法标识符时抛出
+     */
+    public static PaginatedSql of(String sql, DataSourceType type, QueryPageRequest page) {
+        String inner = strip(sql);
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder paged = new StringBuilder(inner.length() + 96);
+
+        if (page.getSorts().isEmpty() && !ROW_LIMIT.matcher(inner).matches()) {
+            paged.append(inner);
+        } else {
+            paged.append("SELECT * FROM (").append(inner).append(") page_src");
+            if (page.isKeyset()) {
+                paged.append(" WHERE ");
+                appendKeysetPredicate(paged, page, parameters);
+            }
+            if (!page.getSorts().isEmpty()) {
+                paged.append(" ORDER BY ");
+                for (int i = 0; i < page.getSorts().size(); i++) {
+                    QueryPageRequest.SortKey sort = page.getSorts().get(i);
+                    paged.append(i == 0 ? "" : ", ").append(identifier(sort.getField()))
+                            .append(sort.isDescending() ? " DESC" : " ASC");
+                }
+            }
+        }
+
+        long offset = page.getOffset();
+        int fetch = page.getPageSize() + 1;
+        if (type == DataSourceType.MYSQL) {
+            paged.append(" LIMIT ").append(fetch);
+            if (offset > 0) {
+                paged.append(" OFFSET ").append(offset);
+            }
+        } else if (offset > 0) {
+            paged.append(" OFFSET ").append(offset).append(" ROWS FETCH NEXT ").append(fetch).append(" ROWS ONLY");
+        } else {
+            paged.append(" FETCH FIRST ").append(fetch).append(" ROWS ONLY");
+        }
+        return new PaginatedSql(paged.toString(), parameters);
+    }
+
+    /**
+     * 生成统计原SQL结果行数的SQL
+     */
+    public static String countSql(String sql) {
+        return "SELECT COUNT(*) FROM (" + strip(sql) + ") count_src";
+    }
+
+    /**
+     * 判断排序字段是否覆盖查询结果的唯一键
+     *
+     * 只有SQL只引用了一张已知的表、且排序字段包含该表的全部主键列时才认为唯一；
+     * 多表连接或派生表时主键可能重复出现或被聚合，保守地返回false，退回到偏移量分页。
+     *
+     * @param snapshot 数据源元数据快照
+     * @param sql      原SQL
+     * @param sorts    排序字段
+     */
+    public static boolean coversUniqueKey(SchemaSnapshot snapshot, String sql, List<QueryPageRequest.SortKey> sorts) {
+        if (snapshot == null || sorts == null || sorts.isEmpty() || DERIVED_TABLE.matcher(sql).find()) {
+            return false;
+        }
+        Set<String> tables = new HashSet<>();
+        Matcher matcher = TABLE_REFERENCE.matcher(sql);
+        while (matcher.find()) {
+            String name = matcher.group(1).replace("`", "").replace("\"", "");
+            name = name.substring(name.lastIndexOf('.') + 1);
+            if (snapshot.findTable(name) == null) {
+                // 派生表或未知的表
+                return false;
+            }
+            tables.add(name.toLowerCase(Locale.ROOT));
+        }
+        if (tables.size() != 1) {
+            return false;
+        }
+        List<String> primaryKey = snapshot.getPrimaryKeyColumns(tables.iterator().next());
+        if (primaryKey.isEmpty()) {
+            return false;
+        }
+        Set<String> sortFields = new HashSet<>();
+        for (QueryPageRequest.SortKey sort : sorts) {
+            sortFields.add(sort.getField().toLowerCase(Locale.ROOT));
+        }
+        for (String column : primaryKey) {
+            if (!sortFields.contains(column.toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * 需要按顺序绑定的键集条件参数
+     */
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * 按排序方向展开的行值比较：(a > ?) OR (a = ? AND b > ?) OR ...
+     * 不使用行值构造器，DB2和MySQL对其索引利用不一致
+     */
+    private static void appendKeysetPredicate(StringBuilder paged, QueryPageRequest page, List<Object> parameters) {
+        List<QueryPageRequest.SortKey> sorts = page.getSorts();
+        paged.append('(');
+        for (int i = 0; i < sorts.size(); i++) {
+            paged.append(i == 0 ? "(" : " OR (");
+            for (int j = 0; j < i; j++) {
+                paged.append(identifier(sorts.get(j).getField())).append(" = ? AND ");
+                parameters.add(page.getAfter().get(j));
+            }
+            paged.append(identifier(sorts.get(i).getField())).append(sorts.get(i).isDescending() ? " < ?" : " > ?");
+            parameters.add(page.getAfter().get(i));
+            paged.append(')');
+        }
+        paged.append(')');
+    }
+
+    private static String identifier(String field) {
+        if (field == null || !IDENTIFIER.matcher(field).matches()) {
+            throw new IllegalArgumentException("不支持的排序字段: " + field);
+        }
+        return field;
+    }
+
+    private static String strip(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,150 @@
+package com.insightdata.domain.nlquery.executor;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.insightdata.domain.adapter.DataSourceConcurrencyLimiter;
+import com.insightdata.domain.adapter.JdbcExecutors;
+import com.insightdata.domain.metadata.model.DataSource;
+import com.insightdata.domain.query.enums.QueryPriority;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 分页查询总行数缓存
+ *
+ * 大表上的COUNT(*)可能远慢于取一页数据，因此总行数不在分页查询中同步计算：
+ * 首次请求时提交后台计数任务并立即返回null，计数完成后同一SQL的后续分页请求直接使用缓存的结果。
+ * 计数任务以后台优先级获取数据源许可，不会挤占交互式查询。
+ * 失败的计数在下次请求时重试；条目在过期时间后失效，超过最大条目数时由Caffeine淘汰。
+ */
+@Slf4j
+@Component
+public class QueryCountCache implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private DefaultQueryExecutor queryExecutor;
+
+    @Autowired
+    private DataSourceConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * 计数结果过期时间（秒）
+     */
+    @Value("${insight.query.count.expiration:300}")
+    private long expirationSeconds;
+
+    @Value("${insight.query.count.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * 计数查询超时时间（秒）
+     */
+    @Value("${insight.query.count.timeout:120}")
+    private int timeoutSeconds;
+
+    @Value("${insight.query.count.threads:4}")
+    private int threads;
+
+    @Value("${insight.execution.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    private Cache<String, CountEntry> entries;
+
+    private ExecutorService countExecutor;
+
+    @Override
+    public void afterPropertiesSet() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(expirationSeconds))
+                .build();
+        countExecutor = JdbcExecutors.newExecutor("query-count-", threads, virtualThreads);
+    }
+
+    @Override
+    public void destroy() {
+        countExecutor.shutdownNow();
+    }
+
+    /**
+     * 获取SQL结果的总行数，尚未计算时提交后台计数任务
+     *
+     * @param dataSource 数据源
+     * @param sql        未分页的原SQL
+     * @return 已完成计数时返回总行数，否则返回null
+     */
+    public Long getOrStart(DataSource dataSource, String sql) {
+        String key = dataSource.getId() + '\u0000' + sql.trim();
+        CountEntry cached = entries.getIfPresent(key);
+        if (cached != null && !cached.future.isCompletedExceptionally()) {
+            return cached.future.isDone() ? cached.future.join() : null;
+        }
+
+        CountEntry created = new CountEntry(dataSource.getId(), new CompletableFuture<>());
+        // 没有条目或上次计数失败时原子地换成新条目，只有换入新条目的调用提交计数任务
+        CountEntry entry = entries.asMap().compute(key, (k, current) ->
+                current != null && !current.future.isCompletedExceptionally() ? current : created);
+        if (entry != created) {
+            return entry.future.isDone() ? entry.future.join() : null;
+        }
+
+        CompletableFuture<Long> future = created.future;
+        try {
+            countExecutor.execute(() -> count(dataSource, sql, future));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return null;
+    }
+
+    /**
+     * 清除指定数据源的全部计数结果
+     */
+    public void invalidate(String dataSourceId) {
+        entries.asMap().values().removeIf(entry -> entry.dataSourceId.equals(dataSourceId));
+    }
+
+    public int size() {
+        entries.cleanUp();
+        return (int) entries.estimatedSize();
+    }
+
+    private void count(DataSource dataSource, String sql, CompletableFuture<Long> future) {
+        QueryMetadata metadata = QueryMetadata.builder()
+                .timeout(timeoutSeconds * 1000L)
+                .priority(QueryPriority.BACKGROUND)
+                .source("count")
+                .build();
+        try (DataSourceConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(dataSource.getId(), QueryPriority.BACKGROUND)) {
+            QueryResult result = queryExecutor.execute(PaginatedSql.countSql(sql), dataSource, metadata);
+            if (!result.isSuccess() || result.getColumnarData() == null || result.getColumnarData().getRowCount() == 0) {
+                throw new IllegalStateException(result.getErrorMessage());
+            }
+            future.complete(((Number) result.getColumnarData().getValue(0, 0)).longValue());
+        } catch (Exception e) {
+            log.warn("总行数计算失败: dataSourceId={}, error={}", dataSource.getId(), e.getMessage());
+            future.completeExceptionally(e);
+        }
+    }
+
+    private static final class CountEntry {
+        private final String dataSourceId;
+        private final CompletableFuture<Long> future;
+
+        private CountEntry(String dataSourceId, CompletableFuture<Long> future) {
+            this.dataSourceId = dataSourceId;
+            this.future = future;
+        }
+    }
+}
@@ -7,7 +7,31 @@ public interface QueryExecutor {
 
     QueryResult execute(String sql, DataSource dataSource, QueryMetadata metadata);
 
+    /**
+     * 流式执行查询，逐行回调结果而不在内存中物化整个结果集
+     *
+     * @param sql SQL语句
+     * @param dataSource 数据源
+     * @param rowHandler 行处理器
+     * @return 不含行数据的查询结果，totalRows为实际输出的行数
+     */
+    QueryResult executeStreaming(String sql, DataSource dataSource, QueryRowHandler rowHandler);
+
+    /**
+     * 按查询元数据流式执行查询
+     *
+     * @param sql SQL语句
+     * @param dataSource 数据源
+     * @param metadata 查询元数据，可为null
+     * @param rowHandler 行处理器
+     * @return 不含行数据的查询结果，totalRows为实际输出的行数
+     */
+    default QueryResult executeStreaming(String sql, DataSource dataSource, QueryMetadata metadata,
+                                         QueryRowHandler rowHandler) {
+        return executeStreaming(sql, dataSource, rowHandler);
+    }
+
     boolean cancel(String queryId);
 
     QueryStatus getStatus(String queryId);
-}
\ No newline at end of file
+}
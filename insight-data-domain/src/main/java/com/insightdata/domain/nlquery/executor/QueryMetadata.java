@@ -2,6 +2,9 @@ package com.insightdata.domain.nlquery.executor;
 
 import java.util.Map;
 
+import com.insightdata.domain.query.enums.QueryPriority;
+import com.insightdata.domain.query.model.QueryInterfaceConfig;
+
 import lombok.Builder;
 import lombok.Data;
 
@@ -37,4 +40,47 @@ public class QueryMetadata {
      * 查询的附加参数
      */
     private Map<String, Object> parameters;
+    
+    /**
+     * 发起查询的用户ID
+     */
+    private String userId;
+    
+    /**
+     * 查询界面配置ID，限流按界面配置和用户分别计数
+     */
+    private String interfaceConfigId;
+    
+    /**
+     * 每个用户每分钟允许的查询次数，为空时使用默认限额
+     */
+    private Integer rateLimit;
+    
+    /**
+     * 查询优先级，为空时视为交互式查询
+     */
+    private QueryPriority priority;
+    
+    /**
+     * 分页请求，为空时不分页
+     */
+    private QueryPageRequest page;
+    
+    /**
+     * 根据查询界面配置创建元数据，应用界面配置的查询频率限制和超时设置
+     *
+     * @param config 查询界面配置
+     * @param userId 发起查询的用户ID
+     * @param priority 查询优先级
+     */
+    public static QueryMetadata forInterface(QueryInterfaceConfig config, String userId, QueryPriority priority) {
+        return QueryMetadata.builder()
+                .timeout(config.getQueryTimeout() == null ? 0 : config.getQueryTimeout() * 1000L)
+                .source(config.getCode())
+                .userId(userId)
+                .interfaceConfigId(config.getId())
+                .rateLimit(config.getQueryRateLimit())
+                .priority(priority)
+                .build();
+    }
 }
\ No newline at end of file
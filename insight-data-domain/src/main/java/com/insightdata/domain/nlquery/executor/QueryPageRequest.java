@@ -0,0 +1,175 @@
+package com.insightdata.domain.nlquery.executor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 分页查询请求
+ *
+ * 由DefaultQueryExecutor下推到SQL中执行：排序覆盖唯一键且提供了上一页的游标时使用键集分页，
+ * 否则按页码计算偏移量。
+ */
+@Data
+@Builder
+public class QueryPageRequest {
+
+    private static final ObjectMapper CURSOR_MAPPER = new ObjectMapper();
+
+    /**
+     * 页码，从1开始
+     */
+    private int pageNum;
+
+    /**
+     * 每页行数
+     */
+    private int pageSize;
+
+    /**
+     * 排序字段，按顺序生效
+     */
+    @Builder.Default
+    private List<SortKey> sorts = new ArrayList<>();
+
+    /**
+     * 排序字段是否覆盖唯一键，覆盖时才能使用键集分页
+     */
+    private boolean uniqueSort;
+
+    /**
+     * 上一页最后一行的排序字段值，由游标解码得到
+     */
+    private List<Object> after;
+
+    /**
+     * 是否需要总行数，总行数由QueryCountCache异步计算
+     */
+    private boolean countTotal;
+
+    /**
+     * 是否使用键集分页
+     */
+    public boolean isKeyset() {
+        return uniqueSort && !sorts.isEmpty() && after != null && after.size() == sorts.size()
+                && after.stream().allMatch(Objects::nonNull);
+    }
+
+    /**
+     * 跳过的行数，键集分页时为0
+     */
+    public long getOffset() {
+        return isKeyset() ? 0 : (long) (pageNum - 1) * pageSize;
+    }
+
+    /**
+     * 区分不同页的缓存键片段
+     */
+    public String cacheKey() {
+        return pageNum + "/" + pageSize + "/" + sorts + "/" + (isKeyset() ? after : "") + "/" + countTotal;
+    }
+
+    /**
+     * 从查询参数创建分页请求，参数名与QueryExecutionContext.prepareExecutionParameters一致
+     *
+     * @param parameters 查询参数，包含pageSize时才分页；可选pageNum、sortField、sortOrder、cursor、countTotal
+     * @return 分页请求，不分页时返回null
+     */
+    public static QueryPageRequest fromParameters(Map<String, Object> parameters) {
+        if (parameters == null || parameters.get("pageSize") == null) {
+            return null;
+        }
+        int pageSize = Integer.parseInt(parameters.get("pageSize").toString());
+        Object pageNum = parameters.get("pageNum");
+        List<SortKey> sorts = new ArrayList<>();
+        Object sortField = parameters.get("sortField");
+        if (sortField != null && !sortField.toString().isEmpty()) {
+            sorts.add(SortKey.of(sortField.toString(), Objects.toString(parameters.get("sortOrder"), null)));
+        }
+        Object cursor = parameters.get("cursor");
+        return of(pageNum == null ? 1 : Integer.parseInt(pageNum.toString()), pageSize, sorts,
+                cursor == null ? null : decodeCursor(cursor.toString()),
+                Boolean.parseBoolean(Objects.toString(parameters.get("countTotal"), "false")));
+    }
+
+    /**
+     * 创建分页请求并校验页码和每页行数
+     */
+    public static QueryPageRequest of(int pageNum, int pageSize, List<SortKey> sorts, List<Object> after,
+                                      boolean countTotal) {
+        if (pageNum < 1 || pageSize < 1) {
+            throw new IllegalArgumentException("页码和每页行数必须大于0");
+        }
+        return QueryPageRequest.builder()
+                .pageNum(pageNum)
+                .pageSize(pageSize)
+                .sorts(sorts)
+                .after(after)
+                .countTotal(countTotal)
+                .build();
+    }
+
+    /**
+     * 将一行的排序字段值编码为游标
+     */
+    public static String encodeCursor(List<Object> values) {
+        List<Object> encoded = new ArrayList<>(values.size());
+        for (Object value : values) {
+            // 日期时间按字符串传递，由数据库隐式转换后比较
+            encoded.add(value == null || value instanceof Number || value instanceof String ? value : value.toString());
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(CURSOR_MAPPER.writeValueAsBytes(encoded));
+        } catch (Exception e) {
+            throw new IllegalStateException("分页游标编码失败", e);
+        }
+    }
+
+    /**
+     * 解码游标
+     *
+     * @throws IllegalArgumentException 游标格式错误时抛出
+     */
+    public static List<Object> decodeCursor(String cursor) {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor.getBytes(StandardCharsets.US_ASCII));
+            return CURSOR_MAPPER.readValue(json, new TypeReference<List<Object>>() { });
+        } catch (Exception e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+    }
+
+    /**
+     * 排序字段
+     */
+    @Data
+    @AllArgsConstructor
+    public static class SortKey {
+
+        private String field;
+        private boolean descending;
+
+        /**
+         * @param order ASC/DESC，也接受ascend/descend，为空时升序
+         */
+        public static SortKey of(String field, String order) {
+            return new SortKey(field, order != null && order.toLowerCase().startsWith("desc"));
+        }
+
+        @Override
+        public String toString() {
+            return field + (descending ? " DESC" : " ASC");
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.insightdata.domain.nlquery.executor;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.Builder;
 import lombok.Data;
 
@@ -10,6 +12,9 @@ import lombok.Data;
  * 查询结果
  * 
  * 封装了SQL查询执行结果的数据结构
+ * 
+ * 执行器返回的结果数据以列式结构（columnarData）保存，rows仅在未提供列式数据时直接使用；
+ * getRows()在存在列式数据时返回其行视图，保持原有按行访问方式不变。
  */
 @Data
 @Builder
@@ -54,8 +59,56 @@ public class QueryResult {
      */
     private List<Map<String, Object>> rows;
     
+    /**
+     * 列式结果数据
+     */
+    @JsonIgnore
+    private ColumnarResultSet columnarData;
+    
     /**
      * 查询ID，用于跟踪和取消查询
      */
     private String queryId;
-}
\ No newline at end of file
+    
+    /**
+     * 页码（分页查询时有值）
+     */
+    private Integer pageNum;
+    
+    /**
+     * 每页行数（分页查询时有值）
+     */
+    private Integer pageSize;
+    
+    /**
+     * 是否还有下一页（分页查询时有值）
+     */
+    private Boolean hasMore;
+    
+    /**
+     * 下一页的键集游标，排序覆盖唯一键且还有下一页时有值
+     */
+    private String nextCursor;
+    
+    /**
+     * 不分页时的总行数，请求计数且计数已完成时有值
+     */
+    private Long totalCount;
+    
+    /**
+     * 结果是否因超过最大返回行数被截断（非分页查询时有值）
+     */
+    private Boolean truncated;
+
+    /**
+     * 获取结果行数据
+     * 
+     * 存在列式数据时返回按需读取的只读行视图
+     */
+    public List<Map<String, Object>> getRows() {
+        if (rows == null && columnarData != null) {
+            return columnarData.asRows();
+        }
+        return rows;
+    }
+}
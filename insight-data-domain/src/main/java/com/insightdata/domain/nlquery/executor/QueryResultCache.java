@@ -0,0 +1,302 @@
+package com.insightdata.domain.nlquery.executor;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 查询结果缓存
+ *
+ * 以数据源ID、规范化后的SQL文本和查询参数作为键缓存成功的查询结果：
+ * 条目在过期时间后失效；所有条目按列式结果估算的字节数作为权重计入总预算，超出时由Caffeine淘汰；
+ * 相同键的并发查询只会执行一次，其余调用等待并共享同一个结果。
+ * 数据源的元数据同步完成后应调用invalidate(dataSourceId)清除该数据源的全部条目。
+ */
+@Slf4j
+@Component
+public class QueryResultCache implements InitializingBean {
+
+    @Value("${insight.cache.query-result.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 结果过期时间（秒）
+     */
+    @Value("${insight.cache.query-result.expiration:600}")
+    private long expirationSeconds;
+
+    /**
+     * 缓存结果占用内存的总预算（字节）
+     */
+    @Value("${insight.cache.query-result.max-bytes:268435456}")
+    private long maxBytes;
+
+    private Cache<CacheKey, QueryResult> entries;
+
+    private final Map<CacheKey, CompletableFuture<QueryResult>> inFlight = new ConcurrentHashMap<>();
+
+    // 每个数据源的失效代数，防止失效前开始的查询在失效后写回旧结果
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterPropertiesSet() {
+        // 在调用线程内完成淘汰，写入后的占用字节数和淘汰计数立即可见
+        entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<CacheKey, QueryResult>weigher((key, result) -> weigh(result))
+                .expireAfterWrite(Duration.ofSeconds(expirationSeconds))
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 从缓存获取结果，未命中时通过loader执行查询
+     *
+     * @param dataSourceId 数据源ID
+     * @param sql          SQL语句
+     * @param parameters   查询参数，可为null
+     * @param loader       实际执行查询的函数
+     * @return 查询结果副本
+     */
+    public QueryResult get(String dataSourceId, String sql, Map<String, Object> parameters, Supplier<QueryResult> loader) {
+        if (!enabled || dataSourceId == null || !isCacheable(sql)) {
+            return loader.get();
+        }
+
+        CacheKey key = new CacheKey(dataSourceId, canonicalize(sql), canonicalize(parameters));
+        QueryResult cached = entries.getIfPresent(key);
+        if (cached != null) {
+            return copy(cached);
+        }
+
+        CompletableFuture<QueryResult> future = new CompletableFuture<>();
+        CompletableFuture<QueryResult> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            // 相同查询正在执行，等待其结果；执行失败时抛出原异常
+            try {
+                return copy(existing.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        long generation = generations.getOrDefault(dataSourceId, 0L);
+        try {
+            QueryResult result = loader.get();
+            store(key, result, generation);
+            future.complete(result);
+            return copy(result);
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 清除指定数据源的全部缓存结果
+     *
+     * @param dataSourceId 数据源ID
+     */
+    public void invalidate(String dataSourceId) {
+        generations.merge(dataSourceId, 1L, Long::sum);
+        long before = entries.estimatedSize();
+        entries.asMap().keySet().removeIf(key -> key.dataSourceId.equals(dataSourceId));
+        log.info("Invalidated {} cached query results for data source: {}",
+                before - entries.estimatedSize(), dataSourceId);
+    }
+
+    /**
+     * 清除全部缓存结果
+     */
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return entries.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return entries.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return entries.stats().evictionCount();
+    }
+
+    public long getCurrentBytes() {
+        entries.cleanUp();
+        return entries.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    public int size() {
+        entries.cleanUp();
+        return (int) entries.estimatedSize();
+    }
+
+    /**
+     * 规范化SQL文本：合并字符串字面量以外的连续空白、去除首尾空白和末尾分号
+     */
+    static String canonicalize(String sql) {
+        StringBuilder sb = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                sb.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            }
+            sb.append(c);
+        }
+        while (sb.length() > 0 && sb.charAt(sb.length() - 1) == ';') {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * 规范化查询参数：null与空参数视为相同，复制一份避免调用方修改键
+     */
+    static Map<String, Object> canonicalize(Map<String, Object> parameters) {
+        return parameters == null || parameters.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new HashMap<>(parameters));
+    }
+
+    /**
+     * 只缓存查询语句
+     */
+    private boolean isCacheable(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        String head = sql.trim();
+        if (head.length() < 6) {
+            return false;
+        }
+        String keyword = head.substring(0, Math.min(head.length(), 6)).toUpperCase();
+        return keyword.startsWith("SELECT") || keyword.startsWith("WITH");
+    }
+
+    private void store(CacheKey key, QueryResult result, long generation) {
+        if (result == null || !result.isSuccess() || result.getColumnarData() == null) {
+            return;
+        }
+        if (generations.getOrDefault(key.dataSourceId, 0L) != generation) {
+            return;
+        }
+        long bytes = result.getColumnarData().estimatedBytes();
+        if (bytes > maxBytes) {
+            log.debug("Query result of {} bytes exceeds cache budget, not cached", bytes);
+            return;
+        }
+        entries.put(key, result);
+        // 写入期间发生了失效时，失效可能早于写入完成，撤销这次写入
+        if (generations.getOrDefault(key.dataSourceId, 0L) != generation) {
+            entries.invalidate(key);
+        }
+    }
+
+    private static int weigh(QueryResult result) {
+        return (int) Math.min(Integer.MAX_VALUE, result.getColumnarData().estimatedBytes());
+    }
+
+    /**
+     * 结果对象是可变的，每次返回浅拷贝，列式数据本身只读可共享
+     */
+    private static QueryResult copy(QueryResult result) {
+        if (result == null) {
+            return null;
+        }
+        return QueryResult.builder()
+                .success(result.isSuccess())
+                .errorMessage(result.getErrorMessage())
+                .duration(result.getDuration())
+                .affectedRows(result.getAffectedRows())
+                .totalRows(result.getTotalRows())
+                .columnLabels(result.getColumnLabels())
+                .columnTypes(result.getColumnTypes())
+                .columnarData(result.getColumnarData())
+                .rows(result.getColumnarData() == null ? result.getRows() : null)
+                .queryId(result.getQueryId())
+                .pageNum(result.getPageNum())
+                .pageSize(result.getPageSize())
+                .hasMore(result.getHasMore())
+                .nextCursor(result.getNextCursor())
+                .totalCount(result.getTotalCount())
+                .truncated(result.getTruncated())
+                .build();
+    }
+
+    private static final class CacheKey {
+        private final String dataSourceId;
+        private final String sql;
+        private final Map<String, Object> parameters;
+
+        private CacheKey(String dataSourceId, String sql, Map<String, Object> parameters) {
+            this.dataSourceId = dataSourceId;
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return dataSourceId.equals(other.dataSourceId)
+                    && sql.equals(other.sql)
+                    && parameters.equals(other.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dataSourceId, sql, parameters);
+        }
+    }
+}
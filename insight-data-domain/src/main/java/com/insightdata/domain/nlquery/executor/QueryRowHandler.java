@@ -0,0 +1,39 @@
+package com.insightdata.domain.nlquery.executor;
+
+import java.util.List;
+
+/**
+ * 查询结果行处理器
+ *
+ * 流式执行查询时按行回调，结果行不会在内存中累积，
+ * 调用方负责把每一行及时写出（例如写入HTTP响应）。
+ */
+@FunctionalInterface
+public interface QueryRowHandler {
+
+    /**
+     * 语句开始执行时回调，queryId可用于在读取第一行之前通过QueryExecutor.cancel取消查询
+     *
+     * @param queryId 查询ID
+     */
+    default void onStart(String queryId) {
+    }
+
+    /**
+     * 读取到结果集元数据时回调，在第一行数据之前调用一次
+     *
+     * @param columnLabels 列标签
+     * @param columnTypes 列数据类型
+     * @throws Exception 处理失败时抛出，查询将被中止
+     */
+    default void onColumns(List<String> columnLabels, List<String> columnTypes) throws Exception {
+    }
+
+    /**
+     * 处理一行数据
+     *
+     * @param values 按列顺序排列的行数据
+     * @throws Exception 处理失败时抛出，查询将被中止
+     */
+    void onRow(Object[] values) throws Exception;
+}
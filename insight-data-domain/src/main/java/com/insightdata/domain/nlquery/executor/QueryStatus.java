@@ -6,6 +6,11 @@ package com.insightdata.domain.nlquery.executor;
  * 表示查询执行的不同状态
  */
 public enum QueryStatus {
+    /**
+     * 查询已提交，等待执行
+     */
+    QUEUED,
+    
     /**
      * 查询正在运行
      */
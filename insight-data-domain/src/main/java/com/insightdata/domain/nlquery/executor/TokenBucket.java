@@ -0,0 +1,54 @@
+package com.insightdata.domain.nlquery.executor;
+
+/**
+ * 令牌桶
+ *
+ * 容量为每分钟的限额，按限额/60秒的速率连续补充，允许在一分钟的额度内突发。
+ * 临界区只做算术运算，不会阻塞。
+ */
+final class TokenBucket {
+
+    private final int ratePerMinute;
+    private final double nanosPerToken;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(int ratePerMinute) {
+        this.ratePerMinute = ratePerMinute;
+        this.nanosPerToken = 60_000_000_000d / ratePerMinute;
+        this.tokens = ratePerMinute;
+        this.lastRefill = System.nanoTime();
+    }
+
+    int getRatePerMinute() {
+        return ratePerMinute;
+    }
+
+    /**
+     * 尝试取出一个令牌
+     *
+     * @return 有可用令牌时返回true
+     */
+    synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    /**
+     * 令牌桶是否已满，已满的令牌桶与新建的等价，可以移除
+     */
+    synchronized boolean isFull() {
+        refill();
+        return tokens >= ratePerMinute;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(ratePerMinute, tokens + (now - lastRefill) / nanosPerToken);
+        lastRefill = now;
+    }
+}
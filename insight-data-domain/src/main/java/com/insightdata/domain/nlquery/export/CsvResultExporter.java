@@ -0,0 +1,76 @@
+package com.insightdata.domain.nlquery.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.insightdata.domain.query.model.ResultColumnConfig;
+
+/**
+ * CSV导出器
+ *
+ * 按RFC 4180输出：逗号分隔、CRLF换行，含逗号、引号或换行的字段用双引号包裹。
+ * 文件以UTF-8 BOM开头，Excel直接打开时中文不会乱码。
+ */
+public class CsvResultExporter extends QueryResultExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+
+    public CsvResultExporter(OutputStream outputStream, List<ResultColumnConfig> columnConfigs) {
+        super(outputStream, columnConfigs);
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    @Override
+    protected void writeHeader(List<ExportColumn> columns) throws IOException {
+        writer.write('\uFEFF');
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(columns.get(i).getHeader());
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    protected void writeRow(List<ExportColumn> columns, Object[] values) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            ExportColumn column = columns.get(i);
+            writeField(column.format(values[column.getIndex()]));
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    protected void finishOutput(List<ExportColumn> columns) throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
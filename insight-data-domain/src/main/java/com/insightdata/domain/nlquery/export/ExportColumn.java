@@ -0,0 +1,165 @@
+package com.insightdata.domain.nlquery.export;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+
+import com.insightdata.domain.nlquery.format.ColumnFormatter;
+import com.insightdata.domain.query.model.ResultColumnConfig;
+
+/**
+ * 导出的一列
+ *
+ * 由结果集的列和对应的ResultColumnConfig创建，文本格式化使用与查询结果相同的ColumnFormatter，
+ * 在创建时编译一次，逐行写出时直接复用。
+ */
+public final class ExportColumn {
+
+    /**
+     * 导出列的值类型，由JDBC列类型名推断
+     */
+    public enum ValueType { BOOLEAN, INT, LONG, DECIMAL, DATE, TIMESTAMP, STRING }
+
+    private final int index;
+    private final String header;
+    private final ValueType valueType;
+    private final ColumnFormatter formatter;
+
+    ExportColumn(int index, String label, String typeName, ResultColumnConfig config) {
+        this.index = index;
+        this.valueType = valueType(typeName);
+        this.header = header(label, config);
+        this.formatter = ColumnFormatter.compile(config);
+    }
+
+    /**
+     * 在结果行中的下标
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * 表头：exportName优先，其次displayName，最后为结果集列标签
+     */
+    public String getHeader() {
+        return header;
+    }
+
+    public ValueType getValueType() {
+        return valueType;
+    }
+
+    /**
+     * 数值格式化模式，未配置时为null
+     */
+    public String getFormatPattern() {
+        return formatter.getNumberPattern();
+    }
+
+    public Integer getDecimalPlaces() {
+        return formatter.getDecimalPlaces();
+    }
+
+    /**
+     * 是否需要以文本形式导出：配置了前缀、后缀或日期格式化模式
+     */
+    public boolean isTextOnly() {
+        return formatter.hasAffixes() || formatter.hasDatePattern();
+    }
+
+    /**
+     * 按配置格式化为文本，值为空时返回emptyValue（未配置时为null）
+     */
+    public String format(Object value) {
+        return formatter.format(value);
+    }
+
+    /**
+     * 转换为数值，按小数位数四舍五入；无法转换时返回null
+     */
+    public Number toNumber(Object value) {
+        Number number;
+        if (value instanceof Number) {
+            number = (Number) value;
+        } else if (value instanceof Boolean) {
+            number = (Boolean) value ? 1 : 0;
+        } else if (value == null) {
+            return null;
+        } else {
+            try {
+                number = new BigDecimal(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        Integer decimalPlaces = formatter.getDecimalPlaces();
+        if (decimalPlaces != null && !(number instanceof Integer || number instanceof Long
+                || number instanceof Short || number instanceof Byte)) {
+            BigDecimal decimal = number instanceof BigDecimal ? (BigDecimal) number : new BigDecimal(number.toString());
+            return decimal.setScale(decimalPlaces, RoundingMode.HALF_UP);
+        }
+        return number;
+    }
+
+    /**
+     * 转换为本地日期时间，无法转换时返回null
+     */
+    public LocalDateTime toDateTime(Object value) {
+        TemporalAccessor temporal = ColumnFormatter.toTemporal(value);
+        if (temporal instanceof LocalDateTime) {
+            return (LocalDateTime) temporal;
+        }
+        if (temporal instanceof LocalDate) {
+            return ((LocalDate) temporal).atStartOfDay();
+        }
+        return null;
+    }
+
+    private static String header(String label, ResultColumnConfig config) {
+        if (config != null) {
+            if (config.getExportName() != null && !config.getExportName().isEmpty()) {
+                return config.getExportName();
+            }
+            if (config.getDisplayName() != null && !config.getDisplayName().isEmpty()) {
+                return config.getDisplayName();
+            }
+        }
+        return label;
+    }
+
+    /**
+     * 按JDBC列类型名推断值类型，MySQL的UNSIGNED类型提升一级，无符号BIGINT按DECIMAL处理
+     */
+    static ValueType valueType(String typeName) {
+        if (typeName == null) {
+            return ValueType.STRING;
+        }
+        String type = typeName.toUpperCase(Locale.ROOT);
+        boolean unsigned = type.contains("UNSIGNED");
+        if (type.startsWith("BOOL") || type.equals("BIT")) {
+            return ValueType.BOOLEAN;
+        }
+        if (type.startsWith("BIGINT")) {
+            return unsigned ? ValueType.DECIMAL : ValueType.LONG;
+        }
+        if (type.startsWith("TINYINT") || type.startsWith("SMALLINT") || type.startsWith("MEDIUMINT")
+                || type.startsWith("INT")) {
+            return unsigned && type.startsWith("INT") ? ValueType.LONG : ValueType.INT;
+        }
+        if (type.startsWith("DEC") || type.startsWith("NUMERIC") || type.startsWith("NUMBER")
+                || type.startsWith("DOUBLE") || type.startsWith("FLOAT") || type.startsWith("REAL")) {
+            return ValueType.DECIMAL;
+        }
+        if (type.equals("DATE")) {
+            return ValueType.DATE;
+        }
+        if (type.startsWith("TIMESTAMP") || type.equals("DATETIME")) {
+            return ValueType.TIMESTAMP;
+        }
+        return ValueType.STRING;
+    }
+}
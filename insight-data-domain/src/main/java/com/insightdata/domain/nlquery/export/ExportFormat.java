@@ -0,0 +1,79 @@
+package com.insightdata.domain.nlquery.export;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+
+import com.insightdata.domain.query.model.ResultColumnConfig;
+
+/**
+ * 查询结果导出格式
+ */
+public enum ExportFormat {
+
+    CSV("text/csv;charset=UTF-8", "csv", "CSV文本"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx", "Excel工作簿"),
+    PARQUET("application/vnd.apache.parquet", "parquet", "Parquet列式文件");
+
+    private final String contentType;
+    private final String extension;
+    private final String description;
+
+    ExportFormat(String contentType, String extension, String description) {
+        this.contentType = contentType;
+        this.extension = extension;
+        this.description = description;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 创建写出到指定输出流的导出器
+     *
+     * @param outputStream 输出流，导出器不负责关闭
+     * @param columns      结果列配置，为空时按结果集的列原样导出
+     */
+    public QueryResultExporter newExporter(OutputStream outputStream, List<ResultColumnConfig> columns) {
+        switch (this) {
+            case CSV:
+                return new CsvResultExporter(outputStream, columns);
+            case XLSX:
+                return new XlsxResultExporter(outputStream, columns);
+            case PARQUET:
+                return new ParquetResultExporter(outputStream, columns);
+            default:
+                throw new IllegalStateException("未实现的导出格式: " + this);
+        }
+    }
+
+    /**
+     * 按名称解析导出格式，忽略大小写，EXCEL视为XLSX
+     *
+     * @throws IllegalArgumentException 不支持的格式
+     */
+    public static ExportFormat of(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return CSV;
+        }
+        String normalized = name.trim().toUpperCase(Locale.ROOT);
+        if (normalized.equals("EXCEL")) {
+            return XLSX;
+        }
+        for (ExportFormat format : values()) {
+            if (format.name().equals(normalized)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("不支持的导出格式: " + name);
+    }
+}
@@ -0,0 +1,468 @@
+package com.insightdata.domain.nlquery.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.insightdata.domain.nlquery.export.ThriftCompactWriter.ByteSink;
+import com.insightdata.domain.query.model.ResultColumnConfig;
+
+/**
+ * Parquet导出器
+ *
+ * 直接按Parquet文件格式写出，不依赖parquet-hadoop（它会引入整个Hadoop客户端）：
+ * 所有列为OPTIONAL，值使用PLAIN编码、不压缩，定义级别使用RLE/位打包混合编码；
+ * 结果行按列缓存在当前行组中，缓存达到rowGroupBytes后写出一个行组，每个列块只有一个数据页，
+ * 内存占用以行组大小为上限。
+ *
+ * 列类型映射：布尔为BOOLEAN，整数为INT32/INT64，日期为INT32(DATE)，时间戳为INT64(TIMESTAMP_MILLIS，
+ * 按本地时间存储)，配置了小数位数的定点数为BYTE_ARRAY(DECIMAL)，其余数值为DOUBLE，
+ * 字符串和配置了前缀、后缀或日期格式的列为BYTE_ARRAY(UTF8)。
+ */
+public class ParquetResultExporter extends QueryResultExporter {
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 默认行组大小
+     */
+    static final int DEFAULT_ROW_GROUP_BYTES = 16 * 1024 * 1024;
+
+    private static final int DECIMAL_PRECISION = 38;
+
+    // Parquet物理类型
+    private static final int BOOLEAN = 0;
+    private static final int INT32 = 1;
+    private static final int INT64 = 2;
+    private static final int DOUBLE = 5;
+    private static final int BYTE_ARRAY = 6;
+
+    // Parquet转换类型
+    private static final int UTF8 = 0;
+    private static final int DECIMAL = 5;
+    private static final int DATE = 6;
+    private static final int TIMESTAMP_MILLIS = 9;
+
+    // 编码
+    private static final int PLAIN = 0;
+    private static final int RLE = 3;
+
+    private final int rowGroupBytes;
+
+    private final List<ColumnChunkBuffer> buffers = new ArrayList<>();
+
+    private final List<RowGroupMeta> rowGroups = new ArrayList<>();
+
+    private long offset;
+
+    private long totalRows;
+
+    private int groupRows;
+
+    public ParquetResultExporter(OutputStream outputStream, List<ResultColumnConfig> columnConfigs) {
+        this(outputStream, columnConfigs, DEFAULT_ROW_GROUP_BYTES);
+    }
+
+    ParquetResultExporter(OutputStream outputStream, List<ResultColumnConfig> columnConfigs, int rowGroupBytes) {
+        super(outputStream, columnConfigs);
+        this.rowGroupBytes = rowGroupBytes;
+    }
+
+    @Override
+    protected void writeHeader(List<ExportColumn> columns) throws IOException {
+        // Parquet的列名必须唯一，重名的列追加序号
+        Set<String> names = new HashSet<>();
+        for (ExportColumn column : columns) {
+            String base = column.getHeader() == null ? "column_" + (column.getIndex() + 1) : column.getHeader();
+            String name = base;
+            for (int i = 2; !names.add(name); i++) {
+                name = base + "_" + i;
+            }
+            buffers.add(new ColumnChunkBuffer(column, name));
+        }
+        write(MAGIC, 0, MAGIC.length);
+    }
+
+    @Override
+    protected void writeRow(List<ExportColumn> columns, Object[] values) throws IOException {
+        int buffered = 0;
+        for (ColumnChunkBuffer buffer : buffers) {
+            buffer.add(values[buffer.column.getIndex()]);
+            buffered += buffer.bufferedBytes();
+        }
+        groupRows++;
+        if (buffered >= rowGroupBytes) {
+            flushRowGroup();
+        }
+    }
+
+    @Override
+    protected void finishOutput(List<ExportColumn> columns) throws IOException {
+        if (offset == 0) {
+            write(MAGIC, 0, MAGIC.length);
+        }
+        if (groupRows > 0) {
+            flushRowGroup();
+        }
+        ByteSink footer = new ByteSink(1024);
+        writeFileMetaData(new ThriftCompactWriter(footer));
+        write(footer.array(), 0, footer.size());
+        ByteSink tail = new ByteSink(8);
+        tail.writeIntLE(footer.size());
+        tail.write(MAGIC, 0, MAGIC.length);
+        write(tail.array(), 0, tail.size());
+    }
+
+    private void flushRowGroup() throws IOException {
+        RowGroupMeta group = new RowGroupMeta(groupRows);
+        for (ColumnChunkBuffer buffer : buffers) {
+            group.chunks.add(writeColumnChunk(buffer));
+            buffer.reset();
+        }
+        rowGroups.add(group);
+        totalRows += groupRows;
+        groupRows = 0;
+    }
+
+    /**
+     * 写出一个列块：一个数据页（页头 + 定义级别 + 值）
+     */
+    private ChunkMeta writeColumnChunk(ColumnChunkBuffer buffer) throws IOException {
+        ByteSink levels = buffer.encodeDefinitionLevels();
+        ByteSink values = buffer.values;
+        int pageSize = 4 + levels.size() + values.size();
+
+        ByteSink header = new ByteSink(32);
+        ThriftCompactWriter thrift = new ThriftCompactWriter(header);
+        thrift.structBegin();
+        thrift.fieldI32(1, 0); // DATA_PAGE
+        thrift.fieldI32(2, pageSize);
+        thrift.fieldI32(3, pageSize);
+        thrift.fieldStruct(5);
+        thrift.fieldI32(1, buffer.count);
+        thrift.fieldI32(2, PLAIN);
+        thrift.fieldI32(3, RLE);
+        thrift.fieldI32(4, RLE);
+        thrift.structEnd();
+        thrift.structEnd();
+
+        ChunkMeta chunk = new ChunkMeta(buffer, offset, buffer.count, header.size() + (long) pageSize);
+        write(header.array(), 0, header.size());
+        ByteSink length = new ByteSink(4);
+        length.writeIntLE(levels.size());
+        write(length.array(), 0, length.size());
+        write(levels.array(), 0, levels.size());
+        write(values.array(), 0, values.size());
+        return chunk;
+    }
+
+    private void writeFileMetaData(ThriftCompactWriter thrift) {
+        thrift.structBegin();
+        thrift.fieldI32(1, 1);
+
+        thrift.fieldList(2, ThriftCompactWriter.TYPE_STRUCT, buffers.size() + 1);
+        thrift.structBegin();
+        thrift.fieldString(4, "schema");
+        thrift.fieldI32(5, buffers.size());
+        thrift.structEnd();
+        for (ColumnChunkBuffer buffer : buffers) {
+            thrift.structBegin();
+            thrift.fieldI32(1, buffer.physicalType);
+            thrift.fieldI32(3, 1); // OPTIONAL
+            thrift.fieldString(4, buffer.name);
+            if (buffer.convertedType >= 0) {
+                thrift.fieldI32(6, buffer.convertedType);
+            }
+            if (buffer.convertedType == DECIMAL) {
+                thrift.fieldI32(7, buffer.scale);
+                thrift.fieldI32(8, DECIMAL_PRECISION);
+            }
+            thrift.structEnd();
+        }
+
+        thrift.fieldI64(3, totalRows);
+
+        thrift.fieldList(4, ThriftCompactWriter.TYPE_STRUCT, rowGroups.size());
+        for (RowGroupMeta group : rowGroups) {
+            long groupBytes = 0;
+            for (ChunkMeta chunk : group.chunks) {
+                groupBytes += chunk.size;
+            }
+            thrift.structBegin();
+            thrift.fieldList(1, ThriftCompactWriter.TYPE_STRUCT, group.chunks.size());
+            for (ChunkMeta chunk : group.chunks) {
+                writeColumnChunkMeta(thrift, chunk);
+            }
+            thrift.fieldI64(2, groupBytes);
+            thrift.fieldI64(3, group.rows);
+            if (!group.chunks.isEmpty()) {
+                thrift.fieldI64(5, group.chunks.get(0).offset);
+            }
+            thrift.fieldI64(6, groupBytes);
+            thrift.structEnd();
+        }
+
+        thrift.fieldString(6, "insight-data parquet exporter");
+        thrift.structEnd();
+    }
+
+    private static void writeColumnChunkMeta(ThriftCompactWriter thrift, ChunkMeta chunk) {
+        thrift.structBegin();
+        thrift.fieldI64(2, chunk.offset);
+        thrift.fieldStruct(3);
+        thrift.fieldI32(1, chunk.physicalType);
+        thrift.fieldList(2, ThriftCompactWriter.TYPE_I32, 2);
+        thrift.writeI32(PLAIN);
+        thrift.writeI32(RLE);
+        thrift.fieldList(3, ThriftCompactWriter.TYPE_BINARY, 1);
+        thrift.writeString(chunk.name);
+        thrift.fieldI32(4, 0); // UNCOMPRESSED
+        thrift.fieldI64(5, chunk.values);
+        thrift.fieldI64(6, chunk.size);
+        thrift.fieldI64(7, chunk.size);
+        thrift.fieldI64(9, chunk.offset);
+        thrift.structEnd();
+        thrift.structEnd();
+    }
+
+    private void write(byte[] bytes, int from, int length) throws IOException {
+        outputStream.write(bytes, from, length);
+        offset += length;
+    }
+
+    /**
+     * 当前行组中一列的缓存
+     */
+    private static final class ColumnChunkBuffer {
+
+        final ExportColumn column;
+        final String name;
+        final int physicalType;
+        final int convertedType;
+        final int scale;
+        final boolean text;
+
+        final ByteSink values = new ByteSink(4096);
+        final ByteSink definedBits = new ByteSink(512);
+        int count;
+        int nulls;
+        int booleanBits;
+
+        ColumnChunkBuffer(ExportColumn column, String name) {
+            this.column = column;
+            this.name = name;
+            this.text = column.isTextOnly();
+            int physical = BYTE_ARRAY;
+            int converted = UTF8;
+            int decimalScale = 0;
+            if (!text) {
+                switch (column.getValueType()) {
+                    case BOOLEAN:
+                        physical = BOOLEAN;
+                        converted = -1;
+                        break;
+                    case INT:
+                        physical = INT32;
+                        converted = -1;
+                        break;
+                    case LONG:
+                        physical = INT64;
+                        converted = -1;
+                        break;
+                    case DECIMAL:
+                        if (column.getDecimalPlaces() != null) {
+                            converted = DECIMAL;
+                            decimalScale = column.getDecimalPlaces();
+                        } else {
+                            physical = DOUBLE;
+                            converted = -1;
+                        }
+                        break;
+                    case DATE:
+                        physical = INT32;
+                        converted = DATE;
+                        break;
+                    case TIMESTAMP:
+                        physical = INT64;
+                        converted = TIMESTAMP_MILLIS;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            this.physicalType = physical;
+            this.convertedType = converted;
+            this.scale = decimalScale;
+        }
+
+        void add(Object value) {
+            if (count % 8 == 0) {
+                definedBits.write(0);
+            }
+            if (value != null && writeValue(value)) {
+                definedBits.setBit(count / 8, count % 8);
+            } else {
+                nulls++;
+            }
+            count++;
+        }
+
+        /**
+         * 按物理类型写出值，无法转换时返回false，该值按空值处理
+         */
+        private boolean writeValue(Object value) {
+            if (convertedType == UTF8) {
+                String formatted = column.format(value);
+                if (formatted == null) {
+                    return false;
+                }
+                byte[] bytes = formatted.getBytes(StandardCharsets.UTF_8);
+                values.writeIntLE(bytes.length);
+                values.write(bytes, 0, bytes.length);
+                return true;
+            }
+            switch (physicalType) {
+                case BOOLEAN:
+                    if (!(value instanceof Boolean) && !(value instanceof Number)) {
+                        return false;
+                    }
+                    boolean flag = value instanceof Boolean ? (Boolean) value : ((Number) value).intValue() != 0;
+                    if (booleanBits % 8 == 0) {
+                        values.write(0);
+                    }
+                    if (flag) {
+                        values.setBit(values.size() - 1, booleanBits % 8);
+                    }
+                    booleanBits++;
+                    return true;
+                case INT32:
+                    if (convertedType == DATE) {
+                        LocalDateTime date = column.toDateTime(value);
+                        if (date == null) {
+                            return false;
+                        }
+                        values.writeIntLE((int) date.toLocalDate().toEpochDay());
+                        return true;
+                    }
+                    Number number = column.toNumber(value);
+                    if (number == null) {
+                        return false;
+                    }
+                    values.writeIntLE(number.intValue());
+                    return true;
+                case INT64:
+                    if (convertedType == TIMESTAMP_MILLIS) {
+                        LocalDateTime timestamp = column.toDateTime(value);
+                        if (timestamp == null) {
+                            return false;
+                        }
+                        values.writeLongLE(timestamp.toInstant(ZoneOffset.UTC).toEpochMilli());
+                        return true;
+                    }
+                    Number longValue = column.toNumber(value);
+                    if (longValue == null) {
+                        return false;
+                    }
+                    values.writeLongLE(longValue.longValue());
+                    return true;
+                case DOUBLE:
+                    Number doubleValue = column.toNumber(value);
+                    if (doubleValue == null) {
+                        return false;
+                    }
+                    values.writeLongLE(Double.doubleToLongBits(doubleValue.doubleValue()));
+                    return true;
+                case BYTE_ARRAY:
+                    Number decimal = column.toNumber(value);
+                    if (decimal == null) {
+                        return false;
+                    }
+                    BigDecimal scaled = (decimal instanceof BigDecimal ? (BigDecimal) decimal
+                            : new BigDecimal(decimal.toString())).setScale(scale, RoundingMode.HALF_UP);
+                    byte[] unscaled = scaled.unscaledValue().toByteArray();
+                    values.writeIntLE(unscaled.length);
+                    values.write(unscaled, 0, unscaled.length);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        int bufferedBytes() {
+            return values.size() + definedBits.size();
+        }
+
+        /**
+         * 按RLE/位打包混合编码定义级别（位宽1）：全部非空或全部为空时用一个RLE游程，否则整体位打包
+         */
+        ByteSink encodeDefinitionLevels() {
+            ByteSink encoded = new ByteSink(definedBits.size() + 8);
+            if (nulls == 0 || nulls == count) {
+                writeUnsignedVarint(encoded, (long) count << 1);
+                encoded.write(nulls == 0 ? 1 : 0);
+            } else {
+                int groups = (count + 7) / 8;
+                writeUnsignedVarint(encoded, ((long) groups << 1) | 1);
+                encoded.write(definedBits.array(), 0, groups);
+            }
+            return encoded;
+        }
+
+        void reset() {
+            values.reset();
+            definedBits.reset();
+            count = 0;
+            nulls = 0;
+            booleanBits = 0;
+        }
+
+        private static void writeUnsignedVarint(ByteSink sink, long value) {
+            while ((value & ~0x7FL) != 0) {
+                sink.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            sink.write((int) value);
+        }
+    }
+
+    /**
+     * 已写出列块的元数据
+     */
+    private static final class ChunkMeta {
+
+        final String name;
+        final int physicalType;
+        final long offset;
+        final long values;
+        final long size;
+
+        ChunkMeta(ColumnChunkBuffer buffer, long offset, long values, long size) {
+            this.name = buffer.name;
+            this.physicalType = buffer.physicalType;
+            this.offset = offset;
+            this.values = values;
+            this.size = size;
+        }
+    }
+
+    /**
+     * 已写出行组的元数据
+     */
+    private static final class RowGroupMeta {
+
+        final long rows;
+        final List<ChunkMeta> chunks = new ArrayList<>();
+
+        RowGroupMeta(long rows) {
+            this.rows = rows;
+        }
+    }
+}
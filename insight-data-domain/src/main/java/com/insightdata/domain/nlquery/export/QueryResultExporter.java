@@ -0,0 +1,122 @@
+package com.insightdata.domain.nlquery.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.insightdata.domain.nlquery.executor.QueryRowHandler;
+import com.insightdata.domain.query.model.ResultColumnConfig;
+
+/**
+ * 查询结果导出器
+ *
+ * 作为流式查询的行处理器使用：结果集元数据到达时按列配置确定导出列，之后逐行写出，
+ * 查询结束后调用finish写出文件尾部，无论成功与否最后都应调用close释放临时资源。
+ * 导出器不缓存结果行（Parquet只缓存当前行组），内存占用与结果行数无关。
+ *
+ * 列配置按fieldName（其次columnName）与结果集列标签匹配，忽略大小写；exportable为false的列不导出，
+ * 提供了列配置时按配置的order排列，未配置的列保持结果集中的顺序排在后面。
+ */
+public abstract class QueryResultExporter implements QueryRowHandler, Closeable {
+
+    protected final OutputStream outputStream;
+
+    private final List<ResultColumnConfig> columnConfigs;
+
+    private List<ExportColumn> columns = Collections.emptyList();
+
+    private long rowCount;
+
+    protected QueryResultExporter(OutputStream outputStream, List<ResultColumnConfig> columnConfigs) {
+        this.outputStream = outputStream;
+        this.columnConfigs = columnConfigs == null ? Collections.emptyList() : columnConfigs;
+    }
+
+    @Override
+    public final void onColumns(List<String> columnLabels, List<String> columnTypes) throws Exception {
+        columns = resolveColumns(columnLabels, columnTypes, columnConfigs);
+        writeHeader(columns);
+    }
+
+    @Override
+    public final void onRow(Object[] values) throws Exception {
+        writeRow(columns, values);
+        rowCount++;
+    }
+
+    /**
+     * 写出文件尾部并刷新输出流，查询结束后调用一次
+     */
+    public final void finish() throws IOException {
+        finishOutput(columns);
+        outputStream.flush();
+    }
+
+    /**
+     * 释放导出过程中占用的临时资源，不关闭输出流
+     */
+    @Override
+    public void close() throws IOException {
+    }
+
+    /**
+     * 已写出的数据行数
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    protected abstract void writeHeader(List<ExportColumn> columns) throws IOException;
+
+    protected abstract void writeRow(List<ExportColumn> columns, Object[] values) throws IOException;
+
+    protected abstract void finishOutput(List<ExportColumn> columns) throws IOException;
+
+    /**
+     * 按列配置确定导出列及其顺序
+     */
+    static List<ExportColumn> resolveColumns(List<String> labels, List<String> types,
+                                             List<ResultColumnConfig> configs) {
+        Map<String, ResultColumnConfig> configByName = new HashMap<>();
+        for (ResultColumnConfig config : configs) {
+            if (config.getColumnName() != null) {
+                configByName.putIfAbsent(config.getColumnName().toLowerCase(Locale.ROOT), config);
+            }
+        }
+        for (ResultColumnConfig config : configs) {
+            if (config.getFieldName() != null) {
+                configByName.put(config.getFieldName().toLowerCase(Locale.ROOT), config);
+            }
+        }
+
+        List<ExportColumn> configured = new ArrayList<>();
+        List<Integer> orders = new ArrayList<>();
+        List<ExportColumn> others = new ArrayList<>();
+        for (int i = 0; i < labels.size(); i++) {
+            String label = labels.get(i);
+            ResultColumnConfig config = label == null ? null : configByName.get(label.toLowerCase(Locale.ROOT));
+            if (config != null && !config.isExportable()) {
+                continue;
+            }
+            ExportColumn column = new ExportColumn(i, label, i < types.size() ? types.get(i) : null, config);
+            if (config != null && config.getOrder() != null) {
+                int at = 0;
+                while (at < orders.size() && orders.get(at) <= config.getOrder()) {
+                    at++;
+                }
+                configured.add(at, column);
+                orders.add(at, config.getOrder());
+            } else {
+                others.add(column);
+            }
+        }
+        configured.addAll(others);
+        return configured;
+    }
+}
@@ -0,0 +1,178 @@
+package com.insightdata.domain.nlquery.export;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Thrift Compact协议编码
+ *
+ * Parquet的页头和文件尾元数据使用Thrift Compact协议序列化，这里只实现写出这些结构所需的子集：
+ * 字段头使用相对上一字段ID的增量编码，整数使用ZigZag变长编码，结构以0字节结束。
+ */
+final class ThriftCompactWriter {
+
+    static final byte TYPE_I32 = 5;
+    static final byte TYPE_I64 = 6;
+    static final byte TYPE_BINARY = 8;
+    static final byte TYPE_LIST = 9;
+    static final byte TYPE_STRUCT = 12;
+
+    private final ByteSink out;
+
+    private final Deque<Short> fieldIds = new ArrayDeque<>();
+
+    private short lastFieldId;
+
+    ThriftCompactWriter(ByteSink out) {
+        this.out = out;
+    }
+
+    void fieldI32(int id, int value) {
+        fieldHeader(id, TYPE_I32);
+        writeI32(value);
+    }
+
+    void fieldI64(int id, long value) {
+        fieldHeader(id, TYPE_I64);
+        writeI64(value);
+    }
+
+    void fieldString(int id, String value) {
+        fieldHeader(id, TYPE_BINARY);
+        writeString(value);
+    }
+
+    /**
+     * 开始一个结构类型的字段，之后写出其字段，最后调用structEnd
+     */
+    void fieldStruct(int id) {
+        fieldHeader(id, TYPE_STRUCT);
+        structBegin();
+    }
+
+    /**
+     * 写出列表字段的头部，之后按元素类型逐个写出元素
+     */
+    void fieldList(int id, byte elementType, int size) {
+        fieldHeader(id, TYPE_LIST);
+        if (size < 15) {
+            out.write((size << 4) | elementType);
+        } else {
+            out.write(0xF0 | elementType);
+            writeVarint(size);
+        }
+    }
+
+    /**
+     * 开始一个结构（顶层结构或列表中的结构元素）
+     */
+    void structBegin() {
+        fieldIds.push(lastFieldId);
+        lastFieldId = 0;
+    }
+
+    void structEnd() {
+        out.write(0);
+        lastFieldId = fieldIds.pop();
+    }
+
+    void writeI32(int value) {
+        writeVarint((value << 1) ^ (value >> 31));
+    }
+
+    void writeI64(long value) {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private void fieldHeader(int id, byte type) {
+        int delta = id - lastFieldId;
+        if (delta > 0 && delta <= 15) {
+            out.write((delta << 4) | type);
+        } else {
+            out.write(type);
+            writeI32(id);
+        }
+        lastFieldId = (short) id;
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * 可增长的字节缓冲，按小端序写出定长整数
+     */
+    static final class ByteSink {
+
+        private byte[] bytes;
+
+        private int size;
+
+        ByteSink(int capacity) {
+            this.bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] src, int offset, int length) {
+            ensure(length);
+            System.arraycopy(src, offset, bytes, size, length);
+            size += length;
+        }
+
+        void writeIntLE(int value) {
+            ensure(4);
+            bytes[size++] = (byte) value;
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 24);
+        }
+
+        void writeLongLE(long value) {
+            writeIntLE((int) value);
+            writeIntLE((int) (value >>> 32));
+        }
+
+        /**
+         * 把第index字节的第bit位（从最低位开始）置为1，调用方保证该字节已写出
+         */
+        void setBit(int index, int bit) {
+            bytes[index] |= (byte) (1 << bit);
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                int capacity = Math.max(bytes.length * 2, size + extra);
+                byte[] grown = new byte[capacity];
+                System.arraycopy(bytes, 0, grown, 0, size);
+                bytes = grown;
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.insightdata.domain.nlquery.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import com.insightdata.domain.query.model.ResultColumnConfig;
+
+/**
+ * XLSX导出器
+ *
+ * 使用POI的SXSSF流式写出：内存中只保留最近的若干行，更早的行写入压缩的临时文件，
+ * 结束时把临时文件拼装成工作簿写到输出流。数值和日期保持单元格类型，
+ * 数值格式取自formatPattern或decimalPlaces；配置了前缀、后缀或日期格式的列按文本写出。
+ * 超过单个工作表的行数上限时自动新建工作表，每个工作表都带表头。
+ */
+public class XlsxResultExporter extends QueryResultExporter {
+
+    /**
+     * 内存中保留的行数
+     */
+    private static final int ROW_ACCESS_WINDOW = 100;
+
+    private static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    private static final double MAX_EXACT_DOUBLE = 9007199254740992d;
+
+    private static final int MAX_TEXT_LENGTH = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+    private final SXSSFWorkbook workbook;
+
+    private CellStyle headerStyle;
+
+    private CellStyle[] styles;
+
+    private Sheet sheet;
+
+    private int sheetRow;
+
+    private int sheetCount;
+
+    public XlsxResultExporter(OutputStream outputStream, List<ResultColumnConfig> columnConfigs) {
+        super(outputStream, columnConfigs);
+        this.workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        this.workbook.setCompressTempFiles(true);
+    }
+
+    @Override
+    protected void writeHeader(List<ExportColumn> columns) {
+        headerStyle = workbook.createCellStyle();
+        Font bold = workbook.createFont();
+        bold.setBold(true);
+        headerStyle.setFont(bold);
+
+        DataFormat dataFormat = workbook.createDataFormat();
+        styles = new CellStyle[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            String format = excelFormat(columns.get(i));
+            if (format != null) {
+                styles[i] = workbook.createCellStyle();
+                styles[i].setDataFormat(dataFormat.getFormat(format));
+            }
+        }
+        newSheet(columns);
+    }
+
+    @Override
+    protected void writeRow(List<ExportColumn> columns, Object[] values) {
+        if (sheetRow >= MAX_ROWS_PER_SHEET) {
+            newSheet(columns);
+        }
+        Row row = sheet.createRow(sheetRow++);
+        for (int i = 0; i < columns.size(); i++) {
+            ExportColumn column = columns.get(i);
+            Object value = values[column.getIndex()];
+            if (value == null && column.format(null) == null) {
+                continue;
+            }
+            Cell cell = row.createCell(i);
+            if (styles[i] != null) {
+                cell.setCellStyle(styles[i]);
+            }
+            setValue(cell, column, value);
+        }
+    }
+
+    @Override
+    protected void finishOutput(List<ExportColumn> columns) throws IOException {
+        if (sheet == null) {
+            newSheet(columns);
+        }
+        workbook.write(outputStream);
+    }
+
+    /**
+     * 删除SXSSF的临时文件
+     */
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    private void setValue(Cell cell, ExportColumn column, Object value) {
+        if (value != null && !column.isTextOnly()) {
+            switch (column.getValueType()) {
+                case INT:
+                case LONG:
+                case DECIMAL:
+                    Number number = column.toNumber(value);
+                    // 超出双精度可精确表示范围的整数（如长ID）按文本写出，避免末位被Excel改写
+                    if (number != null && Math.abs(number.doubleValue()) < MAX_EXACT_DOUBLE) {
+                        cell.setCellValue(number.doubleValue());
+                        return;
+                    }
+                    break;
+                case DATE:
+                case TIMESTAMP:
+                    LocalDateTime dateTime = column.toDateTime(value);
+                    if (dateTime != null) {
+                        cell.setCellValue(dateTime);
+                        return;
+                    }
+                    break;
+                case BOOLEAN:
+                    if (value instanceof Boolean) {
+                        cell.setCellValue((Boolean) value);
+                        return;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        String text = column.format(value);
+        cell.setCellValue(text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text);
+    }
+
+    private void newSheet(List<ExportColumn> columns) {
+        sheet = workbook.createSheet(sheetCount == 0 ? "Sheet1" : "Sheet" + (sheetCount + 1));
+        sheetCount++;
+        sheetRow = 0;
+        Row header = sheet.createRow(sheetRow++);
+        for (int i = 0; i < columns.size(); i++) {
+            Cell cell = header.createCell(i);
+            cell.setCellValue(columns.get(i).getHeader());
+            cell.setCellStyle(headerStyle);
+        }
+        ((SXSSFSheet) sheet).createFreezePane(0, 1);
+    }
+
+    /**
+     * 单元格的Excel数据格式，null表示使用默认格式
+     */
+    private static String excelFormat(ExportColumn column) {
+        if (column.isTextOnly()) {
+            return null;
+        }
+        switch (column.getValueType()) {
+            case INT:
+            case LONG:
+            case DECIMAL:
+                return column.getFormatPattern();
+            case DATE:
+                return "yyyy-mm-dd";
+            case TIMESTAMP:
+                return "yyyy-mm-dd hh:mm:ss";
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.insightdata.domain.nlquery.format;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+import com.insightdata.domain.query.model.ResultColumnConfig;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 列值格式化器
+ *
+ * 由ResultColumnConfig的formatType、formatPattern、decimalPlaces、thousandsSeparator、decimalSymbol、
+ * prefix、suffix和emptyValue编译而成，创建后不可变，可在线程间共享。
+ * DateTimeFormatter本身线程安全；DecimalFormat不是，每个线程从编译好的原型克隆一份后复用。
+ *
+ * formatType取值：NUMBER、CURRENCY（默认两位小数带千分位）、PERCENT（按百分比显示）、DATE、DATETIME，
+ * 为空、NONE或CUSTOM时按formatPattern的形式判断是日期模式还是数值模式。
+ * 模式只作用于对应类型的值，例如数值模式不影响字符串值。
+ */
+@Slf4j
+public final class ColumnFormatter {
+
+    private static final DateTimeFormatter DEFAULT_DATE = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    private static final DateTimeFormatter DEFAULT_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final DateTimeFormatter DEFAULT_TIMESTAMP_MILLIS = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    /**
+     * 不做任何格式化的格式化器
+     */
+    public static final ColumnFormatter PLAIN = new ColumnFormatter(null, null, null, null, null, "", "");
+
+    private final ThreadLocal<DecimalFormat> numberFormat;
+    private final DateTimeFormatter dateFormat;
+    private final String numberPattern;
+    private final Integer decimalPlaces;
+    private final String prefix;
+    private final String suffix;
+    private final String emptyValue;
+
+    private ColumnFormatter(DecimalFormat numberPrototype, String numberPattern, DateTimeFormatter dateFormat,
+                            Integer decimalPlaces, String emptyValue, String prefix, String suffix) {
+        this.numberFormat = numberPrototype == null ? null
+                : ThreadLocal.withInitial(() -> (DecimalFormat) numberPrototype.clone());
+        this.numberPattern = numberPattern;
+        this.dateFormat = dateFormat;
+        this.decimalPlaces = decimalPlaces;
+        this.emptyValue = emptyValue;
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    /**
+     * 编译列配置
+     *
+     * @param config 列配置，为null时返回PLAIN；格式化模式不合法时忽略该模式
+     */
+    public static ColumnFormatter compile(ResultColumnConfig config) {
+        if (config == null) {
+            return PLAIN;
+        }
+        String pattern = config.getFormatPattern() == null || config.getFormatPattern().trim().isEmpty()
+                ? null : config.getFormatPattern();
+        try {
+            return compile(config, pattern);
+        } catch (IllegalArgumentException e) {
+            log.warn("格式化模式不合法，忽略该模式: field={}, pattern={}, error={}",
+                    config.getFieldName(), pattern, e.getMessage());
+            return compile(config, null);
+        }
+    }
+
+    private static ColumnFormatter compile(ResultColumnConfig config, String pattern) {
+        String type = config.getFormatType() == null ? "" : config.getFormatType().trim().toUpperCase(Locale.ROOT);
+        Integer places = config.getDecimalPlaces();
+
+        String numberPattern = null;
+        DateTimeFormatter dateFormat = null;
+        switch (type) {
+            case "DATE":
+            case "DATETIME":
+                dateFormat = pattern == null ? null : DateTimeFormatter.ofPattern(pattern);
+                break;
+            case "PERCENT":
+                numberPattern = pattern != null ? pattern : "0" + fraction(places == null ? 2 : places, true) + "%";
+                break;
+            case "CURRENCY":
+                numberPattern = pattern != null ? pattern : "#,##0" + fraction(places == null ? 2 : places, false);
+                break;
+            case "NUMBER":
+                numberPattern = pattern != null ? pattern : places == null ? null : "0" + fraction(places, false);
+                break;
+            default:
+                if (pattern != null && isDatePattern(pattern)) {
+                    dateFormat = DateTimeFormatter.ofPattern(pattern);
+                } else {
+                    numberPattern = pattern != null ? pattern : places == null ? null : "0" + fraction(places, false);
+                }
+                break;
+        }
+
+        String grouping = config.getThousandsSeparator();
+        String decimalSymbol = config.getDecimalSymbol();
+        boolean groupingRequested = grouping != null && !grouping.isEmpty();
+        String declaredPattern = numberPattern;
+        if (numberPattern == null && (groupingRequested || decimalSymbol != null && !decimalSymbol.isEmpty())) {
+            // 只配置了分隔符时保留原有的小数位
+            numberPattern = "0" + (places == null ? fraction(10, true) : fraction(places, false));
+        }
+
+        DecimalFormat number = null;
+        if (numberPattern != null) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.ROOT);
+            if (groupingRequested) {
+                symbols.setGroupingSeparator(grouping.charAt(0));
+            }
+            if (decimalSymbol != null && !decimalSymbol.isEmpty()) {
+                symbols.setDecimalSeparator(decimalSymbol.charAt(0));
+            }
+            number = new DecimalFormat(numberPattern, symbols);
+            if (groupingRequested && (!number.isGroupingUsed() || number.getGroupingSize() == 0)) {
+                number.setGroupingUsed(true);
+                number.setGroupingSize(3);
+            }
+            number.setRoundingMode(RoundingMode.HALF_UP);
+        }
+        return new ColumnFormatter(number, declaredPattern, dateFormat, places, config.getEmptyValue(),
+                config.getPrefix() == null ? "" : config.getPrefix(),
+                config.getSuffix() == null ? "" : config.getSuffix());
+    }
+
+    /**
+     * 格式化单个值，值为空时返回emptyValue（未配置时为null）
+     */
+    public String format(Object value) {
+        return format(value, numberFormat == null ? null : numberFormat.get());
+    }
+
+    /**
+     * 按列格式化：依次读取rowCount个值写入结果数组，整列只取一次线程内的DecimalFormat
+     *
+     * @param values   按行号读取列值
+     * @param rowCount 行数
+     * @return 与行号对应的格式化结果
+     */
+    public String[] formatColumn(IntFunction<Object> values, int rowCount) {
+        DecimalFormat number = numberFormat == null ? null : numberFormat.get();
+        String[] formatted = new String[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            formatted[row] = format(values.apply(row), number);
+        }
+        return formatted;
+    }
+
+    private String format(Object value, DecimalFormat number) {
+        if (value == null) {
+            return emptyValue;
+        }
+        String text;
+        TemporalAccessor temporal = toTemporal(value);
+        if (temporal != null) {
+            text = dateFormat != null ? formatDate(temporal) : defaultText(temporal);
+        } else if (number != null && value instanceof Number) {
+            text = number.format(value instanceof BigInteger ? new BigDecimal((BigInteger) value) : value);
+        } else if (value instanceof BigDecimal) {
+            text = ((BigDecimal) value).toPlainString();
+        } else if (value instanceof byte[]) {
+            text = toHex((byte[]) value);
+        } else {
+            text = value.toString();
+        }
+        return prefix.isEmpty() && suffix.isEmpty() ? text : prefix + text + suffix;
+    }
+
+    /**
+     * 数值格式化模式（formatPattern或由formatType、decimalPlaces推导），只配置了分隔符时为null
+     */
+    public String getNumberPattern() {
+        return numberPattern;
+    }
+
+    /**
+     * 是否配置了日期格式化模式
+     */
+    public boolean hasDatePattern() {
+        return dateFormat != null;
+    }
+
+    /**
+     * 是否配置了前缀或后缀
+     */
+    public boolean hasAffixes() {
+        return !prefix.isEmpty() || !suffix.isEmpty();
+    }
+
+    public Integer getDecimalPlaces() {
+        return decimalPlaces;
+    }
+
+    public String getEmptyValue() {
+        return emptyValue;
+    }
+
+    /**
+     * 把JDBC和java.time中的日期时间类型统一为LocalDate或LocalDateTime，其他类型返回null
+     */
+    public static TemporalAccessor toTemporal(Object value) {
+        if (value instanceof java.sql.Timestamp) {
+            return ((java.sql.Timestamp) value).toLocalDateTime();
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        if (value instanceof java.sql.Time) {
+            return null;
+        }
+        if (value instanceof Date) {
+            return LocalDateTime.ofInstant(((Date) value).toInstant(), ZoneId.systemDefault());
+        }
+        if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).toLocalDateTime();
+        }
+        if (value instanceof LocalDateTime || value instanceof LocalDate) {
+            return (TemporalAccessor) value;
+        }
+        return null;
+    }
+
+    /**
+     * 日期时间模式用于DATE列时按当天零点格式化
+     */
+    private String formatDate(TemporalAccessor temporal) {
+        try {
+            return dateFormat.format(temporal);
+        } catch (DateTimeException e) {
+            if (temporal instanceof LocalDate) {
+                return dateFormat.format(((LocalDate) temporal).atStartOfDay());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 未配置格式时日期按yyyy-MM-dd，时间戳按yyyy-MM-dd HH:mm:ss输出，有毫秒时保留毫秒
+     */
+    private static String defaultText(TemporalAccessor temporal) {
+        if (temporal instanceof LocalDateTime) {
+            LocalDateTime dateTime = (LocalDateTime) temporal;
+            return (dateTime.getNano() == 0 ? DEFAULT_TIMESTAMP : DEFAULT_TIMESTAMP_MILLIS).format(dateTime);
+        }
+        return DEFAULT_DATE.format(temporal);
+    }
+
+    /**
+     * 含日期字段字母且不含数值占位符的模式视为日期模式
+     */
+    private static boolean isDatePattern(String pattern) {
+        boolean dateLetter = false;
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (!quoted) {
+                if (c == '#' || c == '0') {
+                    return false;
+                }
+                dateLetter |= "yMdHhmsSa".indexOf(c) >= 0;
+            }
+        }
+        return dateLetter;
+    }
+
+    private static String fraction(int places, boolean optional) {
+        return places <= 0 ? "" : "." + (optional ? "#" : "0").repeat(places);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,277 @@
+package com.insightdata.domain.nlquery.format;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import com.insightdata.domain.nlquery.executor.ColumnVector;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 编译后的条件样式规则
+ *
+ * 由ResultColumnConfig.conditionalStyles中的一条规则编译而成，规则格式：
+ * {"operator": "GT", "value": 100, "style": {"color": "red"}}
+ * operator支持EQ(=)、NE(!=)、GT(>)、GE(>=)、LT(<)、LE(<=)、BETWEEN(value至value2，含边界)、
+ * IN(values)、CONTAINS、STARTS_WITH、ENDS_WITH、EMPTY和NOT_EMPTY；
+ * 没有style字段时，规则中除条件字段以外的其余字段作为样式。
+ * 阈值为数值时按数值比较，否则按字符串比较。同一列有多条规则时取第一条命中的规则。
+ */
+@Slf4j
+public final class ConditionalStyle {
+
+    private static final Set<String> CONDITION_KEYS = new HashSet<>(
+            Arrays.asList("operator", "condition", "value", "value2", "values"));
+
+    private enum Operator { EQ, NE, GT, GE, LT, LE, BETWEEN, IN, CONTAINS, STARTS_WITH, ENDS_WITH, EMPTY, NOT_EMPTY }
+
+    private final Operator operator;
+    private final String text;
+    private final String text2;
+    private final Double number;
+    private final Double number2;
+    private final Set<String> texts;
+    private final Map<String, Object> style;
+
+    private ConditionalStyle(Operator operator, Object value, Object value2, Collection<?> values,
+                             Map<String, Object> style) {
+        this.operator = operator;
+        this.text = value == null ? null : value.toString();
+        this.text2 = value2 == null ? null : value2.toString();
+        this.number = toDouble(value);
+        this.number2 = toDouble(value2);
+        Set<String> set = new HashSet<>();
+        if (values != null) {
+            for (Object item : values) {
+                set.add(String.valueOf(item));
+            }
+        }
+        this.texts = set;
+        this.style = Collections.unmodifiableMap(style);
+    }
+
+    /**
+     * 编译一列的条件样式规则，无法识别的规则记录日志后忽略
+     */
+    public static List<ConditionalStyle> compile(List<Map<String, Object>> rules) {
+        if (rules == null || rules.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ConditionalStyle> compiled = new ArrayList<>(rules.size());
+        for (Map<String, Object> rule : rules) {
+            Object name = rule.get("operator") != null ? rule.get("operator") : rule.get("condition");
+            Operator operator = operator(name);
+            if (operator == null) {
+                log.warn("忽略无法识别的条件样式规则: {}", rule);
+                continue;
+            }
+            compiled.add(new ConditionalStyle(operator, rule.get("value"), rule.get("value2"),
+                    rule.get("values") instanceof Collection ? (Collection<?>) rule.get("values") : null, style(rule)));
+        }
+        return compiled;
+    }
+
+    /**
+     * 命中时返回的样式
+     */
+    public Map<String, Object> getStyle() {
+        return style;
+    }
+
+    /**
+     * 判断值是否满足规则
+     */
+    public boolean matches(Object value) {
+        switch (operator) {
+            case EMPTY:
+                return value == null || value.toString().isEmpty();
+            case NOT_EMPTY:
+                return value != null && !value.toString().isEmpty();
+            default:
+                break;
+        }
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Number && number != null) {
+            return matches(((Number) value).doubleValue());
+        }
+        String s = value.toString();
+        switch (operator) {
+            case EQ:
+                return s.equals(text);
+            case NE:
+                return !s.equals(text);
+            case GT:
+                return text != null && s.compareTo(text) > 0;
+            case GE:
+                return text != null && s.compareTo(text) >= 0;
+            case LT:
+                return text != null && s.compareTo(text) < 0;
+            case LE:
+                return text != null && s.compareTo(text) <= 0;
+            case BETWEEN:
+                return text != null && text2 != null && s.compareTo(text) >= 0 && s.compareTo(text2) <= 0;
+            case IN:
+                return texts.contains(s);
+            case CONTAINS:
+                return text != null && s.contains(text);
+            case STARTS_WITH:
+                return text != null && s.startsWith(text);
+            case ENDS_WITH:
+                return text != null && s.endsWith(text);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 按数值比较，数值列按列评估时直接读取原始double，不装箱
+     */
+    boolean matches(double value) {
+        switch (operator) {
+            case EQ:
+                return value == number;
+            case NE:
+                return value != number;
+            case GT:
+                return value > number;
+            case GE:
+                return value >= number;
+            case LT:
+                return value < number;
+            case LE:
+                return value <= number;
+            case BETWEEN:
+                return number2 != null && value >= number && value <= number2;
+            case IN:
+                return texts.contains(BigDecimal.valueOf(value).stripTrailingZeros().toPlainString());
+            case NOT_EMPTY:
+                return true;
+            default:
+                return matches(Double.toString(value));
+        }
+    }
+
+    /**
+     * 按列评估一组规则
+     *
+     * @param rules    规则，按顺序取第一条命中的规则
+     * @param column   列数据
+     * @param rowCount 行数
+     * @return 每行命中的规则序号，未命中为-1
+     */
+    public static int[] evaluate(List<ConditionalStyle> rules, ColumnVector column, int rowCount) {
+        int[] matched = new int[rowCount];
+        Arrays.fill(matched, -1);
+        boolean numeric = column.isNumeric();
+        for (int i = 0; i < rules.size(); i++) {
+            ConditionalStyle rule = rules.get(i);
+            for (int row = 0; row < rowCount; row++) {
+                if (matched[row] >= 0) {
+                    continue;
+                }
+                boolean hit;
+                if (column.isNull(row)) {
+                    hit = rule.operator == Operator.EMPTY;
+                } else if (numeric && rule.number != null) {
+                    hit = rule.matches(column.getDouble(row));
+                } else {
+                    hit = rule.matches(column.get(row));
+                }
+                if (hit) {
+                    matched[row] = i;
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 按列评估一组规则，用于没有列式数据的结果
+     */
+    public static int[] evaluate(List<ConditionalStyle> rules, IntFunction<Object> values, int rowCount) {
+        int[] matched = new int[rowCount];
+        Arrays.fill(matched, -1);
+        for (int i = 0; i < rules.size(); i++) {
+            ConditionalStyle rule = rules.get(i);
+            for (int row = 0; row < rowCount; row++) {
+                if (matched[row] < 0 && rule.matches(values.apply(row))) {
+                    matched[row] = i;
+                }
+            }
+        }
+        return matched;
+    }
+
+    private static Operator operator(Object name) {
+        if (name == null) {
+            return null;
+        }
+        switch (name.toString().trim().toUpperCase(Locale.ROOT)) {
+            case "=": case "==": case "EQ": case "EQUALS":
+                return Operator.EQ;
+            case "!=": case "<>": case "NE": case "NOT_EQUALS":
+                return Operator.NE;
+            case ">": case "GT":
+                return Operator.GT;
+            case ">=": case "GE": case "GTE":
+                return Operator.GE;
+            case "<": case "LT":
+                return Operator.LT;
+            case "<=": case "LE": case "LTE":
+                return Operator.LE;
+            case "BETWEEN":
+                return Operator.BETWEEN;
+            case "IN":
+                return Operator.IN;
+            case "CONTAINS":
+                return Operator.CONTAINS;
+            case "STARTS_WITH":
+                return Operator.STARTS_WITH;
+            case "ENDS_WITH":
+                return Operator.ENDS_WITH;
+            case "EMPTY": case "IS_NULL":
+                return Operator.EMPTY;
+            case "NOT_EMPTY": case "IS_NOT_NULL":
+                return Operator.NOT_EMPTY;
+            default:
+                return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> style(Map<String, Object> rule) {
+        Object style = rule.get("style");
+        if (style instanceof Map) {
+            return new LinkedHashMap<>((Map<String, Object>) style);
+        }
+        Map<String, Object> rest = new LinkedHashMap<>(rule);
+        rest.keySet().removeAll(CONDITION_KEYS);
+        return rest;
+    }
+
+    private static Double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
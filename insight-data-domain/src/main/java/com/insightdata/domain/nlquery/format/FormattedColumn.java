@@ -0,0 +1,38 @@
+package com.insightdata.domain.nlquery.format;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 一列的格式化结果
+ *
+ * values和styleIndexes与结果行一一对应；styleIndexes为每行命中的条件样式在styles中的序号，
+ * 未命中为-1，列没有条件样式规则时为null。
+ */
+@Getter
+@AllArgsConstructor
+public class FormattedColumn {
+
+    /**
+     * 列标签
+     */
+    private final String label;
+
+    /**
+     * 格式化后的值
+     */
+    private final String[] values;
+
+    /**
+     * 每行命中的条件样式序号
+     */
+    private final int[] styleIndexes;
+
+    /**
+     * 条件样式
+     */
+    private final List<Map<String, Object>> styles;
+}
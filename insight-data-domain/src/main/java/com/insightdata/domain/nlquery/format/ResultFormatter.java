@@ -0,0 +1,183 @@
+package com.insightdata.domain.nlquery.format;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.insightdata.domain.nlquery.executor.ColumnVector;
+import com.insightdata.domain.nlquery.executor.ColumnarResultSet;
+import com.insightdata.domain.nlquery.executor.QueryResult;
+import com.insightdata.domain.query.model.ResultColumnConfig;
+
+/**
+ * 查询结果格式化
+ *
+ * 查询完成后的后处理阶段：按ResultColumnConfig把结果逐列格式化为显示文本并评估条件样式。
+ * 列配置编译为ColumnFormatter和ConditionalStyle后按格式化相关字段缓存，相同配置的后续查询直接复用；
+ * 格式化按列进行，列式结果直接读取ColumnVector，数值列的条件样式按double比较不装箱；
+ * 单元格数超过并行阈值时各列并行处理。
+ */
+@Component
+public class ResultFormatter {
+
+    /**
+     * 编译结果的最大缓存条目数
+     */
+    @Value("${insight.query.format.cache-size:1000}")
+    private int cacheSize = 1000;
+
+    /**
+     * 单元格数达到该值时各列并行格式化
+     */
+    @Value("${insight.query.format.parallel-threshold:50000}")
+    private int parallelThreshold = 50000;
+
+    // 按访问顺序排列，用于LRU淘汰，所有访问都在自身锁内进行
+    private final LinkedHashMap<List<Object>, CompiledColumn> compiled = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * 格式化查询结果中配置了格式的列
+     *
+     * @param result  查询结果
+     * @param configs 列配置，按fieldName（其次columnName）与列标签匹配，忽略大小写
+     * @return 列标签到格式化结果的映射，按结果集中的列顺序排列；没有匹配的列时为空
+     */
+    public Map<String, FormattedColumn> format(QueryResult result, List<ResultColumnConfig> configs) {
+        if (result == null || configs == null || configs.isEmpty() || result.getColumnLabels() == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, ResultColumnConfig> configByName = new HashMap<>();
+        for (ResultColumnConfig config : configs) {
+            if (config.getColumnName() != null) {
+                configByName.putIfAbsent(config.getColumnName().toLowerCase(Locale.ROOT), config);
+            }
+        }
+        for (ResultColumnConfig config : configs) {
+            if (config.getFieldName() != null) {
+                configByName.put(config.getFieldName().toLowerCase(Locale.ROOT), config);
+            }
+        }
+
+        List<String> labels = result.getColumnLabels();
+        List<Integer> columns = new ArrayList<>();
+        List<CompiledColumn> compiledColumns = new ArrayList<>();
+        for (int i = 0; i < labels.size(); i++) {
+            String label = labels.get(i);
+            ResultColumnConfig config = label == null ? null : configByName.get(label.toLowerCase(Locale.ROOT));
+            if (config != null) {
+                columns.add(i);
+                compiledColumns.add(compile(config));
+            }
+        }
+        if (columns.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        ColumnarResultSet columnar = result.getColumnarData();
+        List<Map<String, Object>> rows = result.getRows() == null ? Collections.emptyList() : result.getRows();
+        int rowCount = columnar != null ? columnar.getRowCount() : rows.size();
+
+        IntStream indexes = IntStream.range(0, columns.size());
+        if (columns.size() > 1 && (long) rowCount * columns.size() >= parallelThreshold) {
+            indexes = indexes.parallel();
+        }
+        List<FormattedColumn> formatted = indexes
+                .mapToObj(i -> {
+                    int column = columns.get(i);
+                    String label = labels.get(column);
+                    return columnar != null
+                            ? formatColumn(compiledColumns.get(i), label, columnar.getColumn(column), rowCount)
+                            : formatColumn(compiledColumns.get(i), label, row -> rows.get(row).get(label), rowCount);
+                })
+                .collect(Collectors.toList());
+
+        Map<String, FormattedColumn> byLabel = new LinkedHashMap<>();
+        for (FormattedColumn column : formatted) {
+            byLabel.put(column.getLabel(), column);
+        }
+        return byLabel;
+    }
+
+    /**
+     * 获取编译后的列格式化器，相同格式配置只编译一次
+     */
+    public ColumnFormatter formatter(ResultColumnConfig config) {
+        return compile(config).formatter;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private static FormattedColumn formatColumn(CompiledColumn compiled, String label, ColumnVector vector, int rowCount) {
+        String[] values = compiled.formatter.formatColumn(vector::get, rowCount);
+        int[] styles = compiled.rules.isEmpty() ? null : ConditionalStyle.evaluate(compiled.rules, vector, rowCount);
+        return new FormattedColumn(label, values, styles, compiled.styles);
+    }
+
+    private static FormattedColumn formatColumn(CompiledColumn compiled, String label, IntFunction<Object> values,
+                                                int rowCount) {
+        String[] formatted = compiled.formatter.formatColumn(values, rowCount);
+        int[] styles = compiled.rules.isEmpty() ? null : ConditionalStyle.evaluate(compiled.rules, values, rowCount);
+        return new FormattedColumn(label, formatted, styles, compiled.styles);
+    }
+
+    private CompiledColumn compile(ResultColumnConfig config) {
+        List<Object> key = Arrays.asList(config.getFormatType(), config.getFormatPattern(), config.getDecimalPlaces(),
+                config.getThousandsSeparator(), config.getDecimalSymbol(), config.getPrefix(), config.getSuffix(),
+                config.getEmptyValue(), config.getConditionalStyles() == null ? null
+                        : new ArrayList<>(config.getConditionalStyles()));
+        synchronized (compiled) {
+            CompiledColumn cached = compiled.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        CompiledColumn column = new CompiledColumn(ColumnFormatter.compile(config),
+                ConditionalStyle.compile(config.getConditionalStyles()));
+        synchronized (compiled) {
+            compiled.put(key, column);
+            if (compiled.size() > cacheSize) {
+                compiled.remove(compiled.keySet().iterator().next());
+            }
+        }
+        return column;
+    }
+
+    /**
+     * 一列编译后的格式化器和条件样式
+     */
+    private static final class CompiledColumn {
+
+        final ColumnFormatter formatter;
+        final List<ConditionalStyle> rules;
+        final List<Map<String, Object>> styles;
+
+        CompiledColumn(ColumnFormatter formatter, List<ConditionalStyle> rules) {
+            this.formatter = formatter;
+            this.rules = rules;
+            this.styles = rules.stream().map(ConditionalStyle::getStyle).collect(Collectors.toList());
+        }
+    }
+}
@@ -1,55 +1,52 @@
 package com.insightdata.domain.nlquery.intent;
 
+import com.insightdata.domain.nlquery.dictionary.KeywordCategory;
+import com.insightdata.domain.nlquery.dictionary.KeywordDictionary;
 import com.insightdata.domain.nlquery.preprocess.PreprocessedText;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * 基于规则的意图识别器
+ * 查询类型、目的、时间单位和排序方向等关键词通过词典自动机一次扫描识别
  */
 @Slf4j
 @Component
 public class RuleBasedIntentRecognizer implements IntentRecognizer {
 
-    // 查询类型相关的正则表达式
-    private static final Pattern SELECT_PATTERN = Pattern.compile("查询|获取|显示|列出|查看|select|get|show|list|display", Pattern.CASE_INSENSITIVE);
-    private static final Pattern COUNT_PATTERN = Pattern.compile("计数|统计|数量|多少|count|how many", Pattern.CASE_INSENSITIVE);
-    private static final Pattern SUM_PATTERN = Pattern.compile("求和|总和|总计|计算.*总|sum|total", Pattern.CASE_INSENSITIVE);
-    private static final Pattern AVG_PATTERN = Pattern.compile("平均|均值|平均值|average|avg|mean", Pattern.CASE_INSENSITIVE);
-    private static final Pattern MAX_PATTERN = Pattern.compile("最大|最高|最多|maximum|max|highest", Pattern.CASE_INSENSITIVE);
-    private static final Pattern MIN_PATTERN = Pattern.compile("最小|最低|最少|minimum|min|lowest", Pattern.CASE_INSENSITIVE);
-    private static final Pattern GROUP_PATTERN = Pattern.compile("分组|按.*分|按.*统计|group by|grouped by", Pattern.CASE_INSENSITIVE);
-
-    // 查询目的相关的正则表达式
-    private static final Pattern STATISTICAL_PATTERN = Pattern.compile("统计|分析|汇总|statistics|analysis|summary", Pattern.CASE_INSENSITIVE);
-    private static final Pattern TREND_PATTERN = Pattern.compile("趋势|变化|走势|trend|change|movement", Pattern.CASE_INSENSITIVE);
-    private static final Pattern COMPARATIVE_PATTERN = Pattern.compile("比较|对比|相比|compare|comparison|versus|vs", Pattern.CASE_INSENSITIVE);
-    private static final Pattern ANOMALY_PATTERN = Pattern.compile("异常|不正常|异动|anomaly|abnormal|unusual", Pattern.CASE_INSENSITIVE);
-
-    // 时间范围相关的正则表达式
-    private static final Pattern RECENT_PATTERN = Pattern.compile("最近|近期|recent|lately", Pattern.CASE_INSENSITIVE);
-    private static final Pattern PAST_PATTERN = Pattern.compile("过去|之前|past|previous", Pattern.CASE_INSENSITIVE);
-    private static final Pattern FUTURE_PATTERN = Pattern.compile("未来|将来|之后|future|coming|next", Pattern.CASE_INSENSITIVE);
-    private static final Pattern DAY_PATTERN = Pattern.compile("天|日|day", Pattern.CASE_INSENSITIVE);
-    private static final Pattern WEEK_PATTERN = Pattern.compile("周|星期|week", Pattern.CASE_INSENSITIVE);
-    private static final Pattern MONTH_PATTERN = Pattern.compile("月|month", Pattern.CASE_INSENSITIVE);
-    private static final Pattern QUARTER_PATTERN = Pattern.compile("季度|季|quarter", Pattern.CASE_INSENSITIVE);
-    private static final Pattern YEAR_PATTERN = Pattern.compile("年|year", Pattern.CASE_INSENSITIVE);
+    // 关键词无法表达的查询类型短语
+    private static final Pattern SUM_PHRASE_PATTERN = Pattern.compile("计算.*总");
+    private static final Pattern GROUP_PHRASE_PATTERN = Pattern.compile("按.*分|按.*统计");
 
     // 排序相关的正则表达式
-    private static final Pattern SORT_PATTERN = Pattern.compile("排序|按.*排|sort|order by", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SORT_PHRASE_PATTERN = Pattern.compile("按.*排");
     private static final Pattern SORT_PATTERN_GROUP = Pattern.compile("按\\s*([^排]+?)(?:排序|排列|升序|降序|$)|by\\s+([^\\s]+)", Pattern.CASE_INSENSITIVE);
-    private static final Pattern ASC_PATTERN = Pattern.compile("升序|从小到大|从低到高|asc|ascending", Pattern.CASE_INSENSITIVE);
-    private static final Pattern DESC_PATTERN = Pattern.compile("降序|从大到小|从高到低|desc|descending", Pattern.CASE_INSENSITIVE);
 
     // 限制相关的正则表达式
-    private static final Pattern TOP_PATTERN = Pattern.compile("前\\d+|top\\s*\\d+|limit\\s*\\d+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern PAGE_PATTERN = Pattern.compile("分页|第\\d+页|page", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TOP_PATTERN = Pattern.compile("前(\\d+)|top\\s*(\\d+)|limit\\s*(\\d+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PAGE_PATTERN = Pattern.compile("第(\\d+)页|page\\s*(\\d+)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern TIME_VALUE_PATTERN = Pattern.compile("\\d+");
+
+    // 关键词类别通过词典一次扫描识别
+    private final KeywordDictionary keywordDictionary;
+
+    public RuleBasedIntentRecognizer() {
+        this(new KeywordDictionary());
+    }
+
+    @Autowired
+    public RuleBasedIntentRecognizer(KeywordDictionary keywordDictionary) {
+        this.keywordDictionary = keywordDictionary;
+    }
 
     @Override
     public QueryIntent recognizeIntent(PreprocessedText preprocessedText) {
@@ -61,20 +58,24 @@ public class RuleBasedIntentRecognizer implements IntentRecognizer {
         String normalizedText = preprocessedText.getNormalizedText();
         List<String> tokens = preprocessedText.getTokens();
 
+        // 一次扫描得到文本中出现的全部关键词类别
+        Set<KeywordCategory> keywords = EnumSet.noneOf(KeywordCategory.class);
+        keywordDictionary.scan(normalizedText).forEach(match -> keywords.add(match.getPayload()));
+
         // 构建查询意图
         QueryIntent.QueryIntentBuilder builder = QueryIntent.builder();
 
         // 识别查询类型
-        builder.queryType(recognizeQueryType(normalizedText, tokens));
+        builder.queryType(recognizeQueryType(normalizedText, keywords));
 
         // 识别查询目的
-        builder.queryPurpose(recognizeQueryPurpose(normalizedText, tokens));
+        builder.queryPurpose(recognizeQueryPurpose(keywords));
 
         // 识别时间范围
-        builder.timeRange(recognizeTimeRange(normalizedText, tokens));
+        builder.timeRange(recognizeTimeRange(normalizedText, keywords));
 
         // 识别排序要求
-        builder.sortRequirements(recognizeSortRequirements(normalizedText, tokens));
+        builder.sortRequirements(recognizeSortRequirements(normalizedText, tokens, keywords));
 
         // 识别限制条件
         builder.limitRequirement(recognizeLimitRequirement(normalizedText, tokens));
@@ -88,21 +89,21 @@ public class RuleBasedIntentRecognizer implements IntentRecognizer {
     /**
      * 识别查询类型
      */
-    private QueryType recognizeQueryType(String normalizedText, List<String> tokens) {
+    private QueryType recognizeQueryType(String normalizedText, Set<KeywordCategory> keywords) {
         // 按优先级顺序检查
-        if (AVG_PATTERN.matcher(tokens.toString()).find()) {
+        if (keywords.contains(KeywordCategory.QUERY_AVG)) {
             return QueryType.AVG;
-        } else if (SUM_PATTERN.matcher(tokens.toString()).find()) {
+        } else if (keywords.contains(KeywordCategory.QUERY_SUM) || SUM_PHRASE_PATTERN.matcher(normalizedText).find()) {
             return QueryType.SUM;
-        } else if (MAX_PATTERN.matcher(tokens.toString()).find()) {
+        } else if (keywords.contains(KeywordCategory.QUERY_MAX)) {
             return QueryType.MAX;
-        } else if (MIN_PATTERN.matcher(tokens.toString()).find()) {
+        } else if (keywords.contains(KeywordCategory.QUERY_MIN)) {
             return QueryType.MIN;
-        } else if (GROUP_PATTERN.matcher(tokens.toString()).find()) {
+        } else if (keywords.contains(KeywordCategory.QUERY_GROUP) || GROUP_PHRASE_PATTERN.matcher(normalizedText).find()) {
             return QueryType.GROUP;
-        } else if (COUNT_PATTERN.matcher(tokens.toString()).find()) {
+        } else if (keywords.contains(KeywordCategory.QUERY_COUNT)) {
             return QueryType.COUNT;
-        } else if (SELECT_PATTERN.matcher(tokens.toString()).find()) {
+        } else if (keywords.contains(KeywordCategory.QUERY_SELECT)) {
             return QueryType.SELECT;
         } else {
             return QueryType.UNKNOWN;
@@ -112,14 +113,14 @@ public class RuleBasedIntentRecognizer implements IntentRecognizer {
     /**
      * 识别查询目的
      */
-    private QueryPurpose recognizeQueryPurpose(String normalizedText, List<String> tokens) {
-        if (STATISTICAL_PATTERN.matcher(normalizedText).find()) {
+    private QueryPurpose recognizeQueryPurpose(Set<KeywordCategory> keywords) {
+        if (keywords.contains(KeywordCategory.PURPOSE_STATISTICAL)) {
             return QueryPurpose.STATISTICAL_ANALYSIS;
-        } else if (TREND_PATTERN.matcher(normalizedText).find()) {
+        } else if (keywords.contains(KeywordCategory.PURPOSE_TREND)) {
             return QueryPurpose.TREND_ANALYSIS;
-        } else if (COMPARATIVE_PATTERN.matcher(normalizedText).find()) {
+        } else if (keywords.contains(KeywordCategory.PURPOSE_COMPARATIVE)) {
             return QueryPurpose.COMPARISON_ANALYSIS;
-        } else if (ANOMALY_PATTERN.matcher(normalizedText).find()) {
+        } else if (keywords.contains(KeywordCategory.PURPOSE_ANOMALY)) {
             return QueryPurpose.ANOMALY_DETECTION;
         } else {
             return QueryPurpose.DATA_RETRIEVAL;
@@ -129,27 +130,27 @@ public class RuleBasedIntentRecognizer implements IntentRecognizer {
     /**
      * 识别时间范围
      */
-    private TimeRange recognizeTimeRange(String normalizedText, List<String> tokens) {
+    private TimeRange recognizeTimeRange(String normalizedText, Set<KeywordCategory> keywords) {
         TimeRange.TimeRangeBuilder builder = TimeRange.builder();
 
         // 默认为未指定
         builder.timeType(TimeRange.TimeType.UNSPECIFIED);
 
         // 识别时间单位
-        if (DAY_PATTERN.matcher(normalizedText).find()) {
+        if (keywords.contains(KeywordCategory.UNIT_DAY)) {
             builder.timeUnit(TimeRange.TimeUnit.DAY);
-        } else if (WEEK_PATTERN.matcher(normalizedText).find()) {
+        } else if (keywords.contains(KeywordCategory.UNIT_WEEK)) {
             builder.timeUnit(TimeRange.TimeUnit.WEEK);
-        } else if (MONTH_PATTERN.matcher(normalizedText).find()) {
+        } else if (keywords.contains(KeywordCategory.UNIT_MONTH)) {
             builder.timeUnit(TimeRange.TimeUnit.MONTH);
-        } else if (QUARTER_PATTERN.matcher(normalizedText).find()) {
+        } else if (keywords.contains(KeywordCategory.UNIT_QUARTER)) {
             builder.timeUnit(TimeRange.TimeUnit.QUARTER);
-        } else if (YEAR_PATTERN.matcher(normalizedText).find()) {
+        } else if (keywords.contains(KeywordCategory.UNIT_YEAR)) {
             builder.timeUnit(TimeRange.TimeUnit.YEAR);
         }
 
         // 识别相对时间
-        if (RECENT_PATTERN.matcher(normalizedText).find() || PAST_PATTERN.matcher(normalizedText).find()) {
+        if (keywords.contains(KeywordCategory.TIME_RECENT) || keywords.contains(KeywordCategory.TIME_PAST)) {
             builder.timeType(TimeRange.TimeType.RELATIVE);
 
             // 尝试提取数字
@@ -165,7 +166,7 @@ public class RuleBasedIntentRecognizer implements IntentRecognizer {
      */
     private int extractTimeValue(String text) {
         // 简单实现：查找数字
-        java.util.regex.Matcher matcher = Pattern.compile("\\d+").matcher(text);
+        Matcher matcher = TIME_VALUE_PATTERN.matcher(text);
         if (matcher.find()) {
             return Integer.parseInt(matcher.group());
         }
@@ -175,15 +176,16 @@ public class RuleBasedIntentRecognizer implements IntentRecognizer {
     /**
      * 识别排序要求
      */
-    private List<SortRequirement> recognizeSortRequirements(String normalizedText, List<String> tokens) {
+    private List<SortRequirement> recognizeSortRequirements(String normalizedText, List<String> tokens,
+                                                            Set<KeywordCategory> keywords) {
         List<SortRequirement> requirements = new ArrayList<>();
 
-        if (SORT_PATTERN.matcher(normalizedText).find()) {
+        if (keywords.contains(KeywordCategory.SORT) || SORT_PHRASE_PATTERN.matcher(normalizedText).find()) {
             SortRequirement.SortDirection direction = SortRequirement.SortDirection.ASC;
 
-            if (DESC_PATTERN.matcher(normalizedText).find()) {
+            if (keywords.contains(KeywordCategory.SORT_DESC)) {
                 direction = SortRequirement.SortDirection.DESC;
-            } else if (ASC_PATTERN.matcher(normalizedText).find()) {
+            } else if (keywords.contains(KeywordCategory.SORT_ASC)) {
                 direction = SortRequirement.SortDirection.ASC;
             }
 
@@ -228,7 +230,7 @@ public class RuleBasedIntentRecognizer implements IntentRecognizer {
         builder.limitType(LimitType.NONE);
 
         // 识别TOP N
-        java.util.regex.Matcher topMatcher = Pattern.compile("前(\\d+)|top\\s*(\\d+)|limit\\s*(\\d+)", Pattern.CASE_INSENSITIVE).matcher(normalizedText);
+        Matcher topMatcher = TOP_PATTERN.matcher(normalizedText);
         if (topMatcher.find()) {
             builder.limitType(LimitType.TOP_N);
 
@@ -244,7 +246,7 @@ public class RuleBasedIntentRecognizer implements IntentRecognizer {
         }
 
         // 识别分页
-        java.util.regex.Matcher pageMatcher = Pattern.compile("第(\\d+)页|page\\s*(\\d+)", Pattern.CASE_INSENSITIVE).matcher(normalizedText);
+        Matcher pageMatcher = PAGE_PATTERN.matcher(normalizedText);
         if (pageMatcher.find()) {
             builder.limitType(LimitType.PAGINATION);
 
@@ -0,0 +1,110 @@
+package com.insightdata.domain.nlquery.job;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import com.insightdata.domain.nlquery.NLQueryRequest;
+import com.insightdata.domain.nlquery.executor.QueryStatus;
+
+import lombok.Getter;
+
+/**
+ * 异步查询作业
+ *
+ * 由QueryJobManager创建和驱动，状态按QUEUED -> RUNNING -> COMPLETED/FAILED/CANCELLED单向变化，
+ * 状态变化在this锁内进行；其余字段为volatile，轮询线程无需加锁即可读取。
+ */
+@Getter
+public class QueryJob {
+
+    private final String id;
+    private final NLQueryRequest request;
+    private final LocalDateTime submittedAt;
+
+    private volatile QueryStatus status = QueryStatus.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long duration;
+    private volatile String errorMessage;
+    private volatile boolean cancelRequested;
+
+    /**
+     * 执行器分配的查询ID，语句开始执行后才有值，用于取消正在执行的语句
+     */
+    private volatile String executorQueryId;
+
+    /**
+     * 结果缓冲区，作业开始执行时创建
+     */
+    private volatile QueryJobResultBuffer resultBuffer;
+
+    QueryJob(String id, NLQueryRequest request) {
+        this.id = id;
+        this.request = request;
+        this.submittedAt = LocalDateTime.now();
+    }
+
+    public String getDataSourceId() {
+        return request.getDataSourceId();
+    }
+
+    public boolean isFinished() {
+        QueryStatus current = status;
+        return current == QueryStatus.COMPLETED || current == QueryStatus.FAILED || current == QueryStatus.CANCELLED;
+    }
+
+    public long getTotalRows() {
+        QueryJobResultBuffer buffer = resultBuffer;
+        return buffer == null ? 0 : buffer.getRowCount();
+    }
+
+    public boolean isTruncated() {
+        QueryJobResultBuffer buffer = resultBuffer;
+        return buffer != null && buffer.isTruncated();
+    }
+
+    /**
+     * 排队的作业开始执行
+     *
+     * @return 作业已被取消时返回false
+     */
+    synchronized boolean start(QueryJobResultBuffer buffer) {
+        if (status != QueryStatus.QUEUED || cancelRequested) {
+            return false;
+        }
+        this.resultBuffer = buffer;
+        this.startedAt = LocalDateTime.now();
+        this.status = QueryStatus.RUNNING;
+        return true;
+    }
+
+    /**
+     * 记录作业结束，已结束的作业不再改变状态
+     */
+    synchronized void finish(QueryStatus finalStatus, String errorMessage) {
+        if (isFinished()) {
+            return;
+        }
+        this.errorMessage = errorMessage;
+        this.finishedAt = LocalDateTime.now();
+        this.duration = Duration.between(startedAt == null ? submittedAt : startedAt, finishedAt).toMillis();
+        this.status = finalStatus;
+    }
+
+    /**
+     * 请求取消作业
+     *
+     * @return 作业尚未结束时返回true
+     */
+    synchronized boolean requestCancel() {
+        if (isFinished()) {
+            return false;
+        }
+        cancelRequested = true;
+        return true;
+    }
+
+    void setExecutorQueryId(String executorQueryId) {
+        this.executorQueryId = executorQueryId;
+    }
+}
@@ -0,0 +1,345 @@
+package com.insightdata.domain.nlquery.job;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.insightdata.domain.adapter.JdbcExecutors;
+import com.insightdata.domain.exception.InsightDataException;
+import com.insightdata.domain.exception.QueryRejectedException;
+import com.insightdata.domain.nlquery.NLQueryRequest;
+import com.insightdata.domain.nlquery.executor.QueryExecutor;
+import com.insightdata.domain.nlquery.executor.QueryResult;
+import com.insightdata.domain.nlquery.executor.QueryRowHandler;
+import com.insightdata.domain.nlquery.executor.QueryStatus;
+import com.insightdata.domain.nlquery.service.NLQueryService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 异步查询作业管理器
+ *
+ * 提交的查询在工作线程池中执行（启用虚拟线程时每个作业一个虚拟线程），请求线程立即返回作业ID，
+ * 客户端轮询状态并分页读取结果。
+ * 每个数据源同时执行的作业数受maxConcurrentPerDataSource限制，超出的作业在该数据源的队列中等待，
+ * 不占用工作线程；排队和执行中的作业总数达到maxActiveJobs时拒绝新的提交。
+ * 结果较大时写入本地文件（见QueryJobResultBuffer）。已结束的作业在resultTtl之后从注册表中移除并删除结果文件。
+ */
+@Slf4j
+@Component
+public class QueryJobManager implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private NLQueryService nlQueryService;
+
+    @Autowired
+    private QueryExecutor queryExecutor;
+
+    @Value("${insight.query.async.worker-threads:8}")
+    private int workerThreads;
+
+    @Value("${insight.execution.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    /**
+     * 排队和执行中的作业总数上限
+     */
+    @Value("${insight.query.async.max-active-jobs:100}")
+    private int maxActiveJobs;
+
+    @Value("${insight.query.async.max-concurrent-per-datasource:4}")
+    private int maxConcurrentPerDataSource;
+
+    /**
+     * 已结束作业的保留时间（秒）
+     */
+    @Value("${insight.query.async.result-ttl:1800}")
+    private long resultTtl;
+
+    /**
+     * 内存中保留的最大结果行数，超出后写入本地文件
+     */
+    @Value("${insight.query.async.spill-threshold:10000}")
+    private int spillThreshold;
+
+    /**
+     * 单个作业的最大结果行数，超出后截断
+     */
+    @Value("${insight.query.async.max-result-rows:1000000}")
+    private long maxResultRows;
+
+    @Value("${insight.query.async.spill-directory:${java.io.tmpdir}/insight-query-results}")
+    private String spillDirectory;
+
+    private final Map<String, QueryJob> jobs = new ConcurrentHashMap<>();
+
+    private final Map<String, DataSourceQueue> dataSourceQueues = new ConcurrentHashMap<>();
+
+    // 排队和执行中的作业数
+    private final AtomicInteger activeJobs = new AtomicInteger();
+
+    // 溢出文件与HTTP响应使用相同的日期格式，读回的结果与内存中的结果序列化后一致
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private ExecutorService workerExecutor;
+
+    private Path spillPath;
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        spillPath = Paths.get(spillDirectory);
+        Files.createDirectories(spillPath);
+        // 清理上次运行遗留的结果文件
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(spillPath,
+                QueryJobResultBuffer.SPILL_FILE_PREFIX + "*" + QueryJobResultBuffer.SPILL_FILE_SUFFIX)) {
+            for (Path file : stale) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        workerExecutor = JdbcExecutors.newExecutor("query-job-", workerThreads, virtualThreads);
+        log.info("异步查询线程池已创建: threads={}, virtualThreads={}, maxConcurrentPerDataSource={}, spillDirectory={}",
+                workerThreads, virtualThreads, maxConcurrentPerDataSource, spillPath);
+    }
+
+    @Override
+    public void destroy() {
+        workerExecutor.shutdownNow();
+        jobs.values().forEach(this::releaseResult);
+        jobs.clear();
+    }
+
+    /**
+     * 提交异步查询
+     *
+     * @param request 查询请求
+     * @return 排队中的作业
+     * @throws QueryRejectedException 排队和执行中的作业数达到上限时抛出
+     */
+    public QueryJob submit(NLQueryRequest request) {
+        if (activeJobs.incrementAndGet() > maxActiveJobs) {
+            activeJobs.decrementAndGet();
+            throw new QueryRejectedException("等待执行的查询过多，请稍后重试");
+        }
+        QueryJob job = new QueryJob(UUID.randomUUID().toString(), request);
+        jobs.put(job.getId(), job);
+
+        DataSourceQueue queue = dataSourceQueues.computeIfAbsent(job.getDataSourceId(), id -> new DataSourceQueue());
+        synchronized (queue) {
+            queue.waiting.add(job);
+        }
+        dispatch(queue);
+        log.info("异步查询已提交: jobId={}, dataSourceId={}", job.getId(), job.getDataSourceId());
+        return job;
+    }
+
+    public Optional<QueryJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * 分页读取已完成作业的结果
+     *
+     * @param job    已完成的作业
+     * @param offset 起始行
+     * @param limit  最多读取的行数
+     * @return 以列标签为键的行数据
+     */
+    public List<Map<String, Object>> readResults(QueryJob job, long offset, int limit) {
+        if (job.getStatus() != QueryStatus.COMPLETED) {
+            throw new IllegalStateException("查询作业尚未完成: " + job.getId());
+        }
+        try {
+            return job.getResultBuffer().read(offset, limit);
+        } catch (IOException e) {
+            throw new InsightDataException("读取查询结果失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 取消作业，排队中的作业直接移出队列，执行中的作业取消正在执行的语句
+     *
+     * @param jobId 作业ID
+     * @return 作业存在且尚未结束时返回true
+     */
+    public boolean cancel(String jobId) {
+        QueryJob job = jobs.get(jobId);
+        if (job == null || !job.requestCancel()) {
+            return false;
+        }
+        DataSourceQueue queue = dataSourceQueues.get(job.getDataSourceId());
+        boolean dequeued;
+        synchronized (queue) {
+            dequeued = queue.waiting.remove(job);
+        }
+        if (dequeued) {
+            job.finish(QueryStatus.CANCELLED, null);
+            activeJobs.decrementAndGet();
+        } else if (job.getExecutorQueryId() != null) {
+            queryExecutor.cancel(job.getExecutorQueryId());
+        }
+        log.info("异步查询已取消: jobId={}", jobId);
+        return true;
+    }
+
+    /**
+     * 移除超过保留时间的已结束作业并删除其结果文件
+     */
+    @Scheduled(fixedDelayString = "${insight.query.async.cleanup-interval:60000}")
+    public void evictExpiredJobs() {
+        LocalDateTime expiry = LocalDateTime.now().minusSeconds(resultTtl);
+        int removed = 0;
+        Iterator<QueryJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            QueryJob job = iterator.next();
+            if (job.isFinished() && job.getFinishedAt().isBefore(expiry)) {
+                iterator.remove();
+                releaseResult(job);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            log.debug("已移除{}个过期的异步查询作业", removed);
+        }
+    }
+
+    /**
+     * 在数据源的并发上限内把排队的作业交给工作线程
+     */
+    private void dispatch(DataSourceQueue queue) {
+        synchronized (queue) {
+            while (queue.running < maxConcurrentPerDataSource && !queue.waiting.isEmpty()) {
+                QueryJob job = queue.waiting.poll();
+                queue.running++;
+                try {
+                    workerExecutor.execute(() -> run(job, queue));
+                } catch (RejectedExecutionException e) {
+                    queue.running--;
+                    activeJobs.decrementAndGet();
+                    job.finish(QueryStatus.FAILED, "查询执行线程池已关闭");
+                }
+            }
+        }
+    }
+
+    private void run(QueryJob job, DataSourceQueue queue) {
+        try {
+            QueryJobResultBuffer buffer = new QueryJobResultBuffer(objectMapper, spillPath, job.getId(),
+                    spillThreshold, maxResultRows);
+            if (job.start(buffer)) {
+                execute(job, buffer);
+            } else {
+                // 出队后、开始执行前被取消
+                job.finish(QueryStatus.CANCELLED, null);
+            }
+        } finally {
+            activeJobs.decrementAndGet();
+            synchronized (queue) {
+                queue.running--;
+            }
+            dispatch(queue);
+        }
+    }
+
+    private void execute(QueryJob job, QueryJobResultBuffer buffer) {
+        QueryResult result;
+        try {
+            result = nlQueryService.executeQueryStreaming(job.getRequest(), new JobRowHandler(job, buffer));
+            buffer.finish();
+        } catch (Exception e) {
+            log.error("异步查询执行失败: jobId={}", job.getId(), e);
+            result = QueryResult.builder().success(false).errorMessage(e.getMessage()).build();
+        }
+
+        if (job.isCancelRequested()) {
+            job.finish(QueryStatus.CANCELLED, null);
+        } else if (result.isSuccess() || buffer.isTruncated()) {
+            job.finish(QueryStatus.COMPLETED, null);
+        } else {
+            job.finish(QueryStatus.FAILED, result.getErrorMessage());
+        }
+        if (job.getStatus() != QueryStatus.COMPLETED) {
+            buffer.close();
+        }
+        log.info("异步查询结束: jobId={}, status={}, rows={}, spilled={}",
+                job.getId(), job.getStatus(), buffer.getRowCount(), buffer.isSpilled());
+    }
+
+    private void releaseResult(QueryJob job) {
+        QueryJobResultBuffer buffer = job.getResultBuffer();
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+
+    /**
+     * 把执行器的回调转发给结果缓冲区，并在作业被取消时中止读取
+     */
+    private class JobRowHandler implements QueryRowHandler {
+
+        private final QueryJob job;
+        private final QueryJobResultBuffer buffer;
+
+        JobRowHandler(QueryJob job, QueryJobResultBuffer buffer) {
+            this.job = job;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void onStart(String queryId) {
+            job.setExecutorQueryId(queryId);
+            // 取消请求可能早于语句开始执行
+            if (job.isCancelRequested()) {
+                queryExecutor.cancel(queryId);
+            }
+        }
+
+        @Override
+        public void onColumns(List<String> columnLabels, List<String> columnTypes) {
+            buffer.onColumns(columnLabels, columnTypes);
+        }
+
+        @Override
+        public void onRow(Object[] values) throws Exception {
+            if (job.isCancelRequested()) {
+                throw new CancellationException("查询已取消");
+            }
+            buffer.onRow(values);
+        }
+    }
+
+    /**
+     * 数据源的等待队列和执行中的作业数，在自身锁内访问
+     */
+    private static final class DataSourceQueue {
+        private final Deque<QueryJob> waiting = new ArrayDeque<>();
+        private int running;
+    }
+}
@@ -0,0 +1,232 @@
+package com.insightdata.domain.nlquery.job;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insightdata.domain.nlquery.executor.QueryRowHandler;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 异步查询结果缓冲区
+ *
+ * 行数不超过spillThreshold时结果保存在内存中；超过后把已有的行和后续的行逐行以JSON数组写入本地文件，
+ * 每INDEX_INTERVAL行记录一次文件偏移，分页读取时从最近的索引点开始顺序读取，不需要把整个结果读回内存。
+ * 写入只在执行查询的线程中进行，finish之后才允许读取；读取可以并发进行，每次读取使用独立的文件通道。
+ */
+@Slf4j
+public class QueryJobResultBuffer implements QueryRowHandler, Closeable {
+
+    static final String SPILL_FILE_PREFIX = "query-job-";
+    static final String SPILL_FILE_SUFFIX = ".ndjson";
+
+    // 稀疏索引间隔（行）
+    private static final int INDEX_INTERVAL = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final Path spillDirectory;
+    private final String jobId;
+    private final int spillThreshold;
+    private final long maxRows;
+
+    private List<String> columnLabels = Collections.emptyList();
+    private List<String> columnTypes = Collections.emptyList();
+    private List<Object[]> memoryRows = new ArrayList<>();
+    private long rowCount;
+    private boolean truncated;
+
+    private Path spillFile;
+    private OutputStream spillOutput;
+    private long spillPosition;
+    // 第i个元素为第i * INDEX_INTERVAL行在文件中的偏移
+    private long[] offsetIndex = new long[16];
+
+    public QueryJobResultBuffer(ObjectMapper objectMapper, Path spillDirectory, String jobId,
+                                int spillThreshold, long maxRows) {
+        this.objectMapper = objectMapper;
+        this.spillDirectory = spillDirectory;
+        this.jobId = jobId;
+        this.spillThreshold = spillThreshold;
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public void onColumns(List<String> columnLabels, List<String> columnTypes) {
+        this.columnLabels = columnLabels;
+        this.columnTypes = columnTypes;
+    }
+
+    @Override
+    public void onRow(Object[] values) throws Exception {
+        if (rowCount >= maxRows) {
+            // 结果行数达到上限，中止查询，已读取的行作为截断的结果保留
+            truncated = true;
+            throw new RowLimitReachedException(maxRows);
+        }
+        if (spillOutput == null && memoryRows.size() >= spillThreshold) {
+            spill();
+        }
+        if (spillOutput == null) {
+            memoryRows.add(values);
+        } else {
+            writeRow(values);
+        }
+        rowCount++;
+    }
+
+    /**
+     * 结束写入，关闭溢出文件的输出流
+     */
+    public void finish() throws IOException {
+        if (spillOutput != null) {
+            spillOutput.close();
+            spillOutput = null;
+        }
+    }
+
+    /**
+     * 读取一页结果
+     *
+     * @param offset 起始行
+     * @param limit  最多读取的行数
+     * @return 以列标签为键的行数据
+     */
+    public List<Map<String, Object>> read(long offset, int limit) throws IOException {
+        if (offset < 0 || offset >= rowCount || limit <= 0) {
+            return Collections.emptyList();
+        }
+        int count = (int) Math.min(limit, rowCount - offset);
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        if (spillFile == null) {
+            for (int i = 0; i < count; i++) {
+                rows.add(toRow(memoryRows.get((int) offset + i)));
+            }
+            return rows;
+        }
+
+        int block = (int) (offset / INDEX_INTERVAL);
+        try (FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+            channel.position(offsetIndex[block]);
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            for (long skip = offset - (long) block * INDEX_INTERVAL; skip > 0; skip--) {
+                reader.readLine();
+            }
+            for (int i = 0; i < count; i++) {
+                String line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                rows.add(toRow(objectMapper.readValue(line, Object[].class)));
+            }
+        }
+        return rows;
+    }
+
+    public List<String> getColumnLabels() {
+        return columnLabels;
+    }
+
+    public List<String> getColumnTypes() {
+        return columnTypes;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * 关闭输出流并删除溢出文件
+     */
+    @Override
+    public void close() {
+        try {
+            finish();
+        } catch (IOException e) {
+            log.warn("关闭查询结果溢出文件失败: jobId={}", jobId, e);
+        }
+        if (spillFile != null) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                log.warn("删除查询结果溢出文件失败: {}", spillFile, e);
+            }
+        }
+        memoryRows = Collections.emptyList();
+    }
+
+    private void spill() throws IOException {
+        spillFile = spillDirectory.resolve(SPILL_FILE_PREFIX + jobId + SPILL_FILE_SUFFIX);
+        spillOutput = new BufferedOutputStream(Files.newOutputStream(spillFile), 64 * 1024);
+        log.debug("查询结果超过{}行，写入本地文件: {}", spillThreshold, spillFile);
+        List<Object[]> buffered = memoryRows;
+        memoryRows = Collections.emptyList();
+        long index = 0;
+        for (Object[] values : buffered) {
+            writeRow(index++, values);
+        }
+    }
+
+    private void writeRow(Object[] values) throws IOException {
+        writeRow(rowCount, values);
+    }
+
+    private void writeRow(long index, Object[] values) throws IOException {
+        if (index % INDEX_INTERVAL == 0) {
+            int block = (int) (index / INDEX_INTERVAL);
+            if (block >= offsetIndex.length) {
+                offsetIndex = Arrays.copyOf(offsetIndex, offsetIndex.length * 2);
+            }
+            offsetIndex[block] = spillPosition;
+        }
+        byte[] bytes = objectMapper.writeValueAsBytes(values);
+        spillOutput.write(bytes);
+        spillOutput.write('\n');
+        spillPosition += bytes.length + 1;
+    }
+
+    private Map<String, Object> toRow(Object[] values) {
+        Map<String, Object> row = new LinkedHashMap<>(columnLabels.size() * 2);
+        for (int i = 0; i < values.length && i < columnLabels.size(); i++) {
+            row.put(columnLabels.get(i), values[i]);
+        }
+        return row;
+    }
+
+    /**
+     * 结果行数达到上限时中止查询
+     */
+    static final class RowLimitReachedException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        RowLimitReachedException(long maxRows) {
+            super("查询结果超过" + maxRows + "行，已截断");
+        }
+    }
+}
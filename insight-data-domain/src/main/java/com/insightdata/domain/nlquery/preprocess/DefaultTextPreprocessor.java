@@ -1,6 +1,7 @@
 package com.insightdata.domain.nlquery.preprocess;
 
 import com.insightdata.domain.nlquery.preprocess.normalizer.NormalizerConfig;
+import com.insightdata.domain.nlquery.preprocess.normalizer.QueryTextCanonicalizer;
 import com.insightdata.domain.nlquery.preprocess.normalizer.TextNormalizer;
 import com.insightdata.domain.nlquery.preprocess.tokenizer.Tokenizer;
 import lombok.extern.slf4j.Slf4j;
@@ -108,9 +109,9 @@ public class DefaultTextPreprocessor implements TextPreprocessor {
      */
     private String normalizeText(String text) {
         // 基本的文本标准化
-        // 1. 去除多余空格
-        // 2. 处理标点符号
-        String normalizedText = text.trim().replaceAll("\\s+", " ");
+        // 1. 全角字符转半角
+        // 2. 去除多余空格
+        String normalizedText = QueryTextCanonicalizer.canonicalize(text);
 
         // 在实际实现中，这里应该使用TextNormalizer组件处理
         // 如果textNormalizer可用，使用textNormalizer组件
@@ -0,0 +1,49 @@
+package com.insightdata.domain.nlquery.preprocess.normalizer;
+
+/**
+ * 查询文本规范化
+ *
+ * 把全角ASCII字符和全角空格转换为半角，合并连续空白并去除首尾空白。
+ * 只做不改变查询含义的折叠：不转换大小写、不删除标点，引号内的取值保持原样。
+ * 结果是幂等的，可直接作为预处理的输入和翻译缓存的键。
+ */
+public final class QueryTextCanonicalizer {
+
+    private static final char FULL_WIDTH_START = '！';
+    private static final char FULL_WIDTH_END = '～';
+    private static final int FULL_WIDTH_OFFSET = 0xFEE0;
+    private static final char IDEOGRAPHIC_SPACE = '　';
+
+    private QueryTextCanonicalizer() {
+    }
+
+    /**
+     * 规范化查询文本
+     *
+     * @param text 原始文本
+     * @return 规范化后的文本，输入为null时返回空串
+     */
+    public static String canonicalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= FULL_WIDTH_START && c <= FULL_WIDTH_END) {
+                c = (char) (c - FULL_WIDTH_OFFSET);
+            }
+            if (c == IDEOGRAPHIC_SPACE || Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,276 @@
+package com.insightdata.domain.nlquery.schema;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.insightdata.domain.metadata.model.ColumnInfo;
+import com.insightdata.domain.metadata.model.ForeignKeyInfo;
+import com.insightdata.domain.metadata.model.SchemaInfo;
+import com.insightdata.domain.metadata.model.TableInfo;
+import com.insightdata.domain.nlquery.dictionary.AhoCorasickMatcher;
+import com.insightdata.domain.nlquery.dictionary.FuzzyNameIndex;
+
+/**
+ * 数据源元数据的只读快照
+ *
+ * 在元数据同步完成后构建一次，预先建立自然语言查询需要的各类索引：
+ * 小写的表名/表描述、列名/列描述查找表及对应的多模式匹配自动机和模糊查找索引，列到所在表的映射，以及主键和外键邻接关系。
+ * 快照构建后不再修改，新的同步完成时整体替换，读取方无需加锁。
+ * 快照引用的TableInfo、ColumnInfo等模型对象同样不应被修改。
+ */
+public final class SchemaSnapshot {
+
+    private final String dataSourceId;
+    private final long version;
+    private final LocalDateTime builtAt;
+
+    private final List<TableInfo> tables;
+    // 小写表名 -> 表
+    private final Map<String, TableInfo> tablesByName;
+    // 小写表名和表描述 -> 表，用于实体识别
+    private final Map<String, TableInfo> tablesByTerm;
+    // 小写列名和列描述 -> 列，用于实体识别
+    private final Map<String, ColumnInfo> columnsByTerm;
+    // 小写表名 -> (小写列名 -> 列)，保持列的原始顺序
+    private final Map<String, Map<String, ColumnInfo>> columnsByTable;
+    // 小写列名 -> 包含该列的表名
+    private final Map<String, List<String>> tablesByColumn;
+    // 小写表名 -> 主键列名
+    private final Map<String, List<String>> primaryKeys;
+    // 小写表名 -> 该表引用其他表的外键
+    private final Map<String, List<ForeignKeyInfo>> outgoingForeignKeys;
+    // 小写表名 -> 其他表引用该表的外键
+    private final Map<String, List<ForeignKeyInfo>> incomingForeignKeys;
+    // 表名/表描述和列名/列描述编译成的多模式匹配自动机
+    private final AhoCorasickMatcher<TableInfo> tableMatcher;
+    private final AhoCorasickMatcher<ColumnInfo> columnMatcher;
+    // 表名/表描述和列名/列描述的模糊查找索引
+    private final FuzzyNameIndex<TableInfo> tableFuzzyIndex;
+    private final FuzzyNameIndex<ColumnInfo> columnFuzzyIndex;
+
+    private SchemaSnapshot(String dataSourceId, long version, List<SchemaInfo> schemas) {
+        this.dataSourceId = dataSourceId;
+        this.version = version;
+        this.builtAt = LocalDateTime.now();
+
+        List<TableInfo> allTables = new ArrayList<>();
+        Map<String, TableInfo> byName = new HashMap<>();
+        Map<String, TableInfo> tableTerms = new HashMap<>();
+        Map<String, ColumnInfo> columnTerms = new HashMap<>();
+        Map<String, Map<String, ColumnInfo>> byTable = new HashMap<>();
+        Map<String, List<String>> byColumn = new HashMap<>();
+        Map<String, List<String>> keys = new HashMap<>();
+        Map<String, List<ForeignKeyInfo>> outgoing = new HashMap<>();
+        Map<String, List<ForeignKeyInfo>> incoming = new HashMap<>();
+
+        for (SchemaInfo schema : schemas) {
+            if (schema.getTables() == null) {
+                continue;
+            }
+            for (TableInfo table : schema.getTables()) {
+                String tableKey = table.getName().toLowerCase();
+                // 不同Schema下的同名表以先出现的为准
+                if (byName.putIfAbsent(tableKey, table) != null) {
+                    continue;
+                }
+                allTables.add(table);
+                tableTerms.putIfAbsent(tableKey, table);
+                putTerm(tableTerms, table.getDescription(), table);
+
+                Map<String, ColumnInfo> columns = new LinkedHashMap<>();
+                List<String> keyColumns = new ArrayList<>();
+                if (table.getColumns() != null) {
+                    for (ColumnInfo column : table.getColumns()) {
+                        String columnKey = column.getName().toLowerCase();
+                        columns.put(columnKey, column);
+                        columnTerms.putIfAbsent(columnKey, column);
+                        putTerm(columnTerms, column.getDescription(), column);
+                        byColumn.computeIfAbsent(columnKey, k -> new ArrayList<>()).add(table.getName());
+                        if (column.isPrimaryKey()) {
+                            keyColumns.add(column.getName());
+                        }
+                    }
+                }
+                byTable.put(tableKey, Collections.unmodifiableMap(columns));
+                keys.put(tableKey, Collections.unmodifiableList(keyColumns));
+
+                if (table.getForeignKeys() != null) {
+                    for (ForeignKeyInfo foreignKey : table.getForeignKeys()) {
+                        outgoing.computeIfAbsent(tableKey, k -> new ArrayList<>()).add(foreignKey);
+                        if (foreignKey.getTargetTableName() != null) {
+                            incoming.computeIfAbsent(foreignKey.getTargetTableName().toLowerCase(), k -> new ArrayList<>())
+                                    .add(foreignKey);
+                        }
+                    }
+                }
+            }
+        }
+
+        this.tables = Collections.unmodifiableList(allTables);
+        this.tablesByName = Collections.unmodifiableMap(byName);
+        this.tablesByTerm = Collections.unmodifiableMap(tableTerms);
+        this.columnsByTerm = Collections.unmodifiableMap(columnTerms);
+        this.columnsByTable = Collections.unmodifiableMap(byTable);
+        this.tablesByColumn = freeze(byColumn);
+        this.primaryKeys = Collections.unmodifiableMap(keys);
+        this.outgoingForeignKeys = freeze(outgoing);
+        this.incomingForeignKeys = freeze(incoming);
+        this.tableMatcher = compile(tableTerms);
+        this.columnMatcher = compile(columnTerms);
+        this.tableFuzzyIndex = FuzzyNameIndex.of(tableTerms);
+        this.columnFuzzyIndex = FuzzyNameIndex.of(columnTerms);
+    }
+
+    /**
+     * 根据数据源的Schema图构建快照
+     *
+     * @param dataSourceId 数据源ID
+     * @param version      快照版本，版本号越大表示越新
+     * @param schemas      包含表、列和外键的Schema列表
+     */
+    public static SchemaSnapshot of(String dataSourceId, long version, List<SchemaInfo> schemas) {
+        return new SchemaSnapshot(dataSourceId, version, schemas);
+    }
+
+    public String getDataSourceId() {
+        return dataSourceId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getBuiltAt() {
+        return builtAt;
+    }
+
+    public boolean isEmpty() {
+        return tables.isEmpty();
+    }
+
+    public List<TableInfo> getTables() {
+        return tables;
+    }
+
+    /**
+     * 按表名查找表，忽略大小写
+     */
+    public TableInfo findTable(String tableName) {
+        return tableName == null ? null : tablesByName.get(tableName.toLowerCase());
+    }
+
+    /**
+     * 按表名或表描述查找表，忽略大小写
+     */
+    public TableInfo findTableByTerm(String term) {
+        return term == null ? null : tablesByTerm.get(term.toLowerCase());
+    }
+
+    /**
+     * 按列名或列描述查找列，忽略大小写
+     */
+    public ColumnInfo findColumnByTerm(String term) {
+        return term == null ? null : columnsByTerm.get(term.toLowerCase());
+    }
+
+    /**
+     * 查找指定表中的列，忽略大小写
+     */
+    public ColumnInfo findColumn(String tableName, String columnName) {
+        if (tableName == null || columnName == null) {
+            return null;
+        }
+        return columnsByTable.getOrDefault(tableName.toLowerCase(), Collections.emptyMap()).get(columnName.toLowerCase());
+    }
+
+    /**
+     * 获取指定表的全部列，按列的原始顺序
+     */
+    public Collection<ColumnInfo> getColumns(String tableName) {
+        return columnsByTable.getOrDefault(tableName.toLowerCase(), Collections.emptyMap()).values();
+    }
+
+    /**
+     * 获取包含指定列名的所有表名
+     */
+    public List<String> getTablesWithColumn(String columnName) {
+        return tablesByColumn.getOrDefault(columnName.toLowerCase(), Collections.emptyList());
+    }
+
+    public List<String> getPrimaryKeyColumns(String tableName) {
+        return primaryKeys.getOrDefault(tableName.toLowerCase(), Collections.emptyList());
+    }
+
+    /**
+     * 获取指定表引用其他表的外键
+     */
+    public List<ForeignKeyInfo> getForeignKeys(String tableName) {
+        return outgoingForeignKeys.getOrDefault(tableName.toLowerCase(), Collections.emptyList());
+    }
+
+    /**
+     * 获取其他表引用指定表的外键
+     */
+    public List<ForeignKeyInfo> getReferencingForeignKeys(String tableName) {
+        return incomingForeignKeys.getOrDefault(tableName.toLowerCase(), Collections.emptyList());
+    }
+
+    /**
+     * 一次扫描文本，返回其中出现的全部表名和表描述
+     */
+    public List<AhoCorasickMatcher.Match<TableInfo>> matchTables(String text) {
+        return tableMatcher.findAll(text);
+    }
+
+    /**
+     * 一次扫描文本，返回其中出现的全部列名和列描述
+     */
+    public List<AhoCorasickMatcher.Match<ColumnInfo>> matchColumns(String text) {
+        return columnMatcher.findAll(text);
+    }
+
+    /**
+     * 模糊查找与给定词最相似的表名或表描述
+     *
+     * @param term          查询词
+     * @param minSimilarity 最低相似度
+     * @param limit         最多返回的数量
+     */
+    public List<FuzzyNameIndex.Candidate<TableInfo>> searchTables(String term, double minSimilarity, int limit) {
+        return tableFuzzyIndex.search(term, minSimilarity, limit);
+    }
+
+    /**
+     * 模糊查找与给定词最相似的列名或列描述
+     *
+     * @param term          查询词
+     * @param minSimilarity 最低相似度
+     * @param limit         最多返回的数量
+     */
+    public List<FuzzyNameIndex.Candidate<ColumnInfo>> searchColumns(String term, double minSimilarity, int limit) {
+        return columnFuzzyIndex.search(term, minSimilarity, limit);
+    }
+
+    private static <T> AhoCorasickMatcher<T> compile(Map<String, T> terms) {
+        AhoCorasickMatcher.Builder<T> builder = AhoCorasickMatcher.<T>builder().wholeWords(true);
+        terms.forEach(builder::add);
+        return builder.build();
+    }
+
+    private static <T> void putTerm(Map<String, T> terms, String term, T value) {
+        if (term != null && !term.isEmpty()) {
+            terms.putIfAbsent(term.toLowerCase(), value);
+        }
+    }
+
+    private static <T> Map<String, List<T>> freeze(Map<String, List<T>> map) {
+        map.replaceAll((key, values) -> Collections.unmodifiableList(values));
+        return Collections.unmodifiableMap(map);
+    }
+}
@@ -0,0 +1,108 @@
+package com.insightdata.domain.nlquery.schema;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.insightdata.domain.metadata.repository.SchemaInfoRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 数据源元数据快照注册表
+ *
+ * 每个数据源持有一个SchemaSnapshot，首次访问时从已保存的元数据构建。
+ * 元数据同步完成后调用refresh在锁外构建新快照，再以写时复制的方式整体替换旧快照；
+ * 查询线程通过get读取当前快照，不会看到构建到一半的索引，也不需要加锁。
+ * 首次构建同样在Map的锁外进行，同一数据源的并发请求等待同一次加载的结果。
+ */
+@Slf4j
+@Component
+public class SchemaSnapshotRegistry {
+
+    @Autowired
+    private SchemaInfoRepository schemaInfoRepository;
+
+    private final Map<String, SchemaSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    // 正在进行的首次加载，加载涉及数据库查询，不能放在computeIfAbsent中持有桶锁执行
+    private final Map<String, CompletableFuture<SchemaSnapshot>> loading = new ConcurrentHashMap<>();
+
+    // 快照版本在开始加载时分配，较晚开始的加载结果不会被较早的覆盖
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * 获取数据源的当前快照，不存在时从已保存的元数据构建
+     *
+     * @param dataSourceId 数据源ID
+     * @return 当前快照，数据源尚未同步过元数据时为空快照
+     */
+    public SchemaSnapshot get(String dataSourceId) {
+        SchemaSnapshot snapshot = snapshots.get(dataSourceId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        CompletableFuture<SchemaSnapshot> future = new CompletableFuture<>();
+        CompletableFuture<SchemaSnapshot> existing = loading.putIfAbsent(dataSourceId, future);
+        if (existing != null) {
+            // 同一数据源正在加载，等待其结果
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            SchemaSnapshot loaded = load(dataSourceId);
+            // 加载期间refresh可能已放入更新的快照
+            snapshot = snapshots.merge(dataSourceId, loaded,
+                    (current, fresh) -> fresh.getVersion() > current.getVersion() ? fresh : current);
+            future.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(dataSourceId, future);
+        }
+    }
+
+    /**
+     * 重新加载数据源的元数据并替换当前快照
+     *
+     * 加载失败时移除旧快照，下次访问时重新构建
+     *
+     * @param dataSourceId 数据源ID
+     */
+    public void refresh(String dataSourceId) {
+        try {
+            SchemaSnapshot snapshot = load(dataSourceId);
+            snapshots.merge(dataSourceId, snapshot,
+                    (current, fresh) -> fresh.getVersion() > current.getVersion() ? fresh : current);
+            log.info("元数据快照已更新: dataSourceId={}, version={}, tables={}",
+                    dataSourceId, snapshot.getVersion(), snapshot.getTables().size());
+        } catch (Exception e) {
+            log.warn("元数据快照更新失败: dataSourceId={}", dataSourceId, e);
+            snapshots.remove(dataSourceId);
+        }
+    }
+
+    /**
+     * 移除数据源的快照
+     */
+    public void evict(String dataSourceId) {
+        snapshots.remove(dataSourceId);
+    }
+
+    private SchemaSnapshot load(String dataSourceId) {
+        long version = versions.incrementAndGet();
+        return SchemaSnapshot.of(dataSourceId, version, schemaInfoRepository.findSchemaGraph(dataSourceId));
+    }
+}
@@ -5,6 +5,8 @@ import java.util.List;
 import com.insightdata.domain.nlquery.NLQueryRequest;
 import com.insightdata.domain.nlquery.converter.SqlConversionResult;
 import com.insightdata.domain.nlquery.executor.QueryResult;
+import com.insightdata.domain.nlquery.executor.QueryRowHandler;
+import com.insightdata.domain.query.history.QueryHistoryCursor;
 import com.insightdata.domain.query.model.QueryHistory;
 import com.insightdata.domain.query.model.SavedQuery;
 
@@ -22,6 +24,15 @@ public interface NLQueryService {
      */
     QueryResult executeQuery(NLQueryRequest request);
     
+    /**
+     * 流式执行自然语言查询，结果逐行交给行处理器，不在内存中物化
+     *
+     * @param request 查询请求
+     * @param rowHandler 行处理器
+     * @return 不含行数据的查询结果
+     */
+    QueryResult executeQueryStreaming(NLQueryRequest request, QueryRowHandler rowHandler);
+    
     /**
      * 获取查询历史
      *
@@ -30,6 +41,28 @@ public interface NLQueryService {
      */
     List<QueryHistory> getQueryHistory(String dataSourceId);
     
+    /**
+     * 按游标分页获取查询历史，按创建时间倒序
+     *
+     * @param dataSourceId 数据源ID
+     * @param cursor 上一页最后一条记录的游标，为null时获取第一页
+     * @param size 每页记录数
+     * @return 查询历史列表
+     */
+    List<QueryHistory> getQueryHistory(String dataSourceId, QueryHistoryCursor cursor, int size);
+    
+    /**
+     * 按页码分页获取查询历史，按创建时间倒序，只用于兼容旧接口
+     *
+     * @param dataSourceId 数据源ID
+     * @param page 页码，从1开始
+     * @param size 每页记录数
+     * @return 查询历史列表
+     * @deprecated 使用游标分页的{@link #getQueryHistory(String, QueryHistoryCursor, int)}
+     */
+    @Deprecated
+    List<QueryHistory> getQueryHistoryByPage(String dataSourceId, int page, int size);
+    
     /**
      * 保存查询
      *
@@ -1,5 +1,6 @@
 package com.insightdata.domain.nlquery.service.impl;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
@@ -9,9 +10,17 @@ import com.insightdata.domain.metadata.model.DataSource;
 import com.insightdata.domain.nlquery.NLQueryRequest;
 import com.insightdata.domain.nlquery.converter.NLToSqlConverter;
 import com.insightdata.domain.nlquery.converter.SqlConversionResult;
+import com.insightdata.domain.exception.QueryRejectedException;
 import com.insightdata.domain.nlquery.executor.QueryExecutor;
+import com.insightdata.domain.nlquery.executor.PaginatedSql;
+import com.insightdata.domain.nlquery.executor.QueryMetadata;
+import com.insightdata.domain.nlquery.executor.QueryPageRequest;
 import com.insightdata.domain.nlquery.executor.QueryResult;
+import com.insightdata.domain.nlquery.executor.QueryRowHandler;
 import com.insightdata.domain.nlquery.preprocess.TextPreprocessor;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshotRegistry;
+import com.insightdata.domain.query.history.QueryHistoryCursor;
+import com.insightdata.domain.query.history.QueryHistoryRecorder;
 import com.insightdata.domain.query.model.QueryHistory;
 import com.insightdata.domain.query.model.SavedQuery;
 import com.insightdata.domain.metadata.repository.QueryHistoryRepository;
@@ -35,6 +44,8 @@ public class NLQueryServiceImpl implements NLQueryService {
     private final QueryExecutor queryExecutor;
     private final QueryHistoryRepository queryHistoryRepository;
     private final SavedQueryRepository savedQueryRepository;
+    private final SchemaSnapshotRegistry schemaSnapshotRegistry;
+    private final QueryHistoryRecorder queryHistoryRecorder;
 
     // 构造函数注入依赖
     public NLQueryServiceImpl(
@@ -43,13 +54,17 @@ public class NLQueryServiceImpl implements NLQueryService {
             NLToSqlConverter nlToSqlConverter,
             QueryExecutor queryExecutor,
             QueryHistoryRepository queryHistoryRepository,
-            SavedQueryRepository savedQueryRepository) {
+            SavedQueryRepository savedQueryRepository,
+            SchemaSnapshotRegistry schemaSnapshotRegistry,
+            QueryHistoryRecorder queryHistoryRecorder) {
         this.dataSourceService = dataSourceService;
         this.textPreprocessor = textPreprocessor;
         this.nlToSqlConverter = nlToSqlConverter;
         this.queryExecutor = queryExecutor;
         this.queryHistoryRepository = queryHistoryRepository;
         this.savedQueryRepository = savedQueryRepository;
+        this.schemaSnapshotRegistry = schemaSnapshotRegistry;
+        this.queryHistoryRecorder = queryHistoryRecorder;
     }
 
     /**
@@ -57,6 +72,8 @@ public class NLQueryServiceImpl implements NLQueryService {
      */
     @Override
     public QueryResult executeQuery(NLQueryRequest request) {
+        long start = System.currentTimeMillis();
+        String sql = null;
         try {
             log.info("执行自然语言查询: {}", request.getQuery());
 
@@ -67,24 +84,101 @@ public class NLQueryServiceImpl implements NLQueryService {
             SqlConversionResult conversionResult = nlToSqlConverter.convert(request);
             
             // 使用接口中定义的方法获取SQL，避免直接访问SqlConversionResult的属性
-            String sql = nlToSqlConverter.convert(
+            sql = nlToSqlConverter.convert(
                 request.getQuery(), 
                 Long.valueOf(request.getDataSourceId())
             );
             
             // 3. 执行查询
-            QueryResult result = queryExecutor.execute(sql, dataSource);
+            QueryMetadata metadata = toMetadata(request);
+            metadata.setPage(toPageRequest(request, sql));
+            QueryResult result = queryExecutor.execute(sql, dataSource, metadata);
             
-            // 我们无法可靠地实现保存查询历史功能，因为它需要访问许多不可见的构造函数和方法
-            // saveQueryHistory(request, sql, result);
+            // 4. 查询历史异步写入，不阻塞本次请求
+            recordHistory(request, sql, result);
             
             return result;
+        } catch (QueryRejectedException e) {
+            // 被准入控制拒绝的查询保留原异常，便于调用方返回429
+            throw e;
         } catch (Exception e) {
             log.error("执行自然语言查询时发生错误", e);
+            recordHistory(request, sql, QueryResult.builder()
+                    .success(false)
+                    .errorMessage(e.getMessage())
+                    .duration(System.currentTimeMillis() - start)
+                    .build());
             throw new RuntimeException("执行自然语言查询失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 流式执行自然语言查询
+     */
+    @Override
+    public QueryResult executeQueryStreaming(NLQueryRequest request, QueryRowHandler rowHandler) {
+        log.info("流式执行自然语言查询: {}", request.getQuery());
+
+        DataSource dataSource = dataSourceService.getDataSourceById(request.getDataSourceId())
+                .orElseThrow(() -> new RuntimeException("数据源不存在: " + request.getDataSourceId()));
+
+        SqlConversionResult conversionResult = nlToSqlConverter.convert(request);
+        if (!conversionResult.isSuccess()) {
+            return QueryResult.builder()
+                    .success(false)
+                    .errorMessage(conversionResult.getErrorMessage())
+                    .build();
+        }
+
+        QueryResult result = queryExecutor.executeStreaming(conversionResult.getSql(), dataSource, toMetadata(request), rowHandler);
+        recordHistory(request, conversionResult.getSql(), result);
+        return result;
+    }
+
+    /**
+     * 把一次查询的结果交给查询历史记录器
+     */
+    private void recordHistory(NLQueryRequest request, String sql, QueryResult result) {
+        QueryHistory history = new QueryHistory();
+        history.setDataSourceId(request.getDataSourceId());
+        history.setOriginalQuery(request.getQuery());
+        history.setExecutedSql(sql);
+        history.setParameters(request.getParameters());
+        history.setQueryType("NL");
+        history.setStatus(result.isSuccess() ? "成功" : "失败");
+        history.setErrorMessage(result.getErrorMessage());
+        history.setExecutionTime(result.getDuration());
+        history.setRowCount(result.getTotalRows());
+        history.setUserId(request.getUserId());
+        history.setExecutedAt(LocalDateTime.now());
+        queryHistoryRecorder.record(history);
+    }
+
+    /**
+     * 从请求参数解析分页请求，排序字段覆盖单表主键时允许键集分页
+     */
+    private QueryPageRequest toPageRequest(NLQueryRequest request, String sql) {
+        QueryPageRequest page = QueryPageRequest.fromParameters(request.getParameters());
+        if (page != null && !page.getSorts().isEmpty()) {
+            page.setUniqueSort(PaginatedSql.coversUniqueKey(
+                    schemaSnapshotRegistry.get(request.getDataSourceId()), sql, page.getSorts()));
+        }
+        return page;
+    }
+
+    /**
+     * 由查询请求构建执行器使用的元数据，限流按用户计数，排队按请求的优先级
+     */
+    private QueryMetadata toMetadata(NLQueryRequest request) {
+        return QueryMetadata.builder()
+                .parameters(request.getParameters())
+                .maxRows(request.getMaxRows() == null ? 0 : request.getMaxRows())
+                .userId(request.getUserId())
+                .priority(request.getPriority())
+                .source("nl-query")
+                .build();
+    }
+
     /**
      * 获取查询历史
      */
@@ -94,6 +188,28 @@ public class NLQueryServiceImpl implements NLQueryService {
         return queryHistoryRepository.findByDataSourceIdOrderByCreatedAtDesc(dataSourceId);
     }
 
+    /**
+     * 按游标分页获取查询历史
+     */
+    @Override
+    public List<QueryHistory> getQueryHistory(String dataSourceId, QueryHistoryCursor cursor, int size) {
+        log.info("分页获取查询历史: {}, size={}", dataSourceId, size);
+        return cursor == null
+                ? queryHistoryRepository.findPageByDataSourceId(dataSourceId, null, null, size)
+                : queryHistoryRepository.findPageByDataSourceId(dataSourceId, cursor.getCreatedAt(), cursor.getId(), size);
+    }
+
+    /**
+     * 按页码分页获取查询历史
+     */
+    @Override
+    @Deprecated
+    public List<QueryHistory> getQueryHistoryByPage(String dataSourceId, int page, int size) {
+        log.info("按页码获取查询历史: {}, page={}, size={}", dataSourceId, page, size);
+        long offset = (long) (Math.max(1, page) - 1) * size;
+        return queryHistoryRepository.findPageByDataSourceId(dataSourceId, (int) Math.min(offset, Integer.MAX_VALUE), size);
+    }
+
     /**
      * 保存查询
      * 由于无法访问SavedQuery的构造函数或setter方法，此方法无法实现
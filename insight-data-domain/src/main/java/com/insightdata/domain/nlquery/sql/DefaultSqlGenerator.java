@@ -1,11 +1,15 @@
 package com.insightdata.domain.nlquery.sql;
 
+import com.insightdata.domain.metadata.graph.JoinPlan;
+import com.insightdata.domain.metadata.graph.RelationshipGraphRegistry;
 import com.insightdata.domain.metadata.model.ColumnInfo;
-import com.insightdata.domain.metadata.model.SchemaInfo;
 import com.insightdata.domain.metadata.model.TableInfo;
+import com.insightdata.domain.metadata.model.TableRelationship;
 import com.insightdata.domain.nlquery.entity.EntityTag;
 import com.insightdata.domain.nlquery.entity.EntityType;
 import com.insightdata.domain.nlquery.intent.*;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -20,8 +24,11 @@ import java.util.stream.Collectors;
 @Component
 public class DefaultSqlGenerator implements SqlGenerator {
 
+    @Autowired
+    private RelationshipGraphRegistry relationshipGraphRegistry;
+
     @Override
-    public SqlGenerationResult generate(List<EntityTag> entities, QueryIntent queryIntent, SchemaInfo schemaInfo) {
+    public SqlGenerationResult generate(List<EntityTag> entities, QueryIntent queryIntent, SchemaSnapshot schemaSnapshot) {
         SqlGenerationResult result = SqlGenerationResult.builder().build();
         List<String> explanations = new ArrayList<>();
         Map<String, Object> parameters = new HashMap<>();
@@ -59,7 +66,7 @@ public class DefaultSqlGenerator implements SqlGenerator {
             // 验证和解析表名
             List<String> tableNames = new ArrayList<>();
             for (EntityTag tableEntity : tableEntities) {
-                String tableName = resolveTableName(tableEntity.getValue(), schemaInfo);
+                String tableName = resolveTableName(tableEntity.getValue(), schemaSnapshot);
                 if (tableName != null) {
                     tableNames.add(tableName);
                     explanations.add("识别到表: " + tableName);
@@ -78,7 +85,7 @@ public class DefaultSqlGenerator implements SqlGenerator {
             // 验证和解析列名
             List<String> columnNames = new ArrayList<>();
             for (EntityTag columnEntity : columnEntities) {
-                String columnName = resolveColumnName(columnEntity.getValue(), tableNames, schemaInfo);
+                String columnName = resolveColumnName(columnEntity.getValue(), tableNames, schemaSnapshot);
                 if (columnName != null) {
                     columnNames.add(columnName);
                     explanations.add("识别到列: " + columnName);
@@ -100,13 +107,13 @@ public class DefaultSqlGenerator implements SqlGenerator {
             buildSelectClause(sqlBuilder, columnNames, queryIntent.getQueryType());
             
             // 构建FROM子句
-            buildFromClause(sqlBuilder, tableNames);
+            buildFromClause(sqlBuilder, tableNames, schemaSnapshot.getDataSourceId(), explanations);
             
             // 构建WHERE子句
             int paramIndex = 1;
             if (!conditionEntities.isEmpty()) {
                 sqlBuilder.append(" WHERE ");
-                paramIndex = buildWhereClause(sqlBuilder, conditionEntities, parameters, paramIndex, schemaInfo, tableNames);
+                paramIndex = buildWhereClause(sqlBuilder, conditionEntities, parameters, paramIndex, schemaSnapshot, tableNames);
             }
             
             // 构建GROUP BY子句
@@ -116,7 +123,7 @@ public class DefaultSqlGenerator implements SqlGenerator {
             
             // 构建ORDER BY子句
             if (queryIntent.getSortRequirements() != null && !queryIntent.getSortRequirements().isEmpty()) {
-                buildOrderByClause(sqlBuilder, queryIntent.getSortRequirements(), tableNames, schemaInfo);
+                buildOrderByClause(sqlBuilder, queryIntent.getSortRequirements(), tableNames, schemaSnapshot);
             }
             
             // 构建LIMIT子句
@@ -147,18 +154,18 @@ public class DefaultSqlGenerator implements SqlGenerator {
     /**
      * 解析表名
      */
-    private String resolveTableName(String tableName, SchemaInfo schemaInfo) {
+    private String resolveTableName(String tableName, SchemaSnapshot schemaSnapshot) {
         // 直接匹配
-        for (TableInfo tableInfo : schemaInfo.getTables()) {
-            if (tableInfo.getName().equalsIgnoreCase(tableName)) {
-                return tableInfo.getName();
-            }
+        TableInfo matched = schemaSnapshot.findTable(tableName);
+        if (matched != null) {
+            return matched.getName();
         }
         
         // 模糊匹配
-        for (TableInfo tableInfo : schemaInfo.getTables()) {
-            if (tableInfo.getName().toLowerCase().contains(tableName.toLowerCase()) ||
-                tableName.toLowerCase().contains(tableInfo.getName().toLowerCase())) {
+        String normalizedName = tableName.toLowerCase();
+        for (TableInfo tableInfo : schemaSnapshot.getTables()) {
+            String candidate = tableInfo.getName().toLowerCase();
+            if (candidate.contains(normalizedName) || normalizedName.contains(candidate)) {
                 return tableInfo.getName();
             }
         }
@@ -169,7 +176,7 @@ public class DefaultSqlGenerator implements SqlGenerator {
     /**
      * 解析列名
      */
-    private String resolveColumnName(String columnName, List<String> tableNames, SchemaInfo schemaInfo) {
+    private String resolveColumnName(String columnName, List<String> tableNames, SchemaSnapshot schemaSnapshot) {
         // 检查是否包含表名前缀
         if (columnName.contains(".")) {
             String[] parts = columnName.split("\\.");
@@ -182,39 +189,26 @@ public class DefaultSqlGenerator implements SqlGenerator {
             }
             
             // 验证列名
-            for (TableInfo tableInfo : schemaInfo.getTables()) {
-                if (tableInfo.getName().equalsIgnoreCase(tableName)) {
-                    for (ColumnInfo columnInfo : tableInfo.getColumns()) {
-                        if (columnInfo.getName().equalsIgnoreCase(colName)) {
-                            return tableName + "." + columnInfo.getName();
-                        }
-                    }
-                }
+            ColumnInfo columnInfo = schemaSnapshot.findColumn(tableName, colName);
+            if (columnInfo != null) {
+                return tableName + "." + columnInfo.getName();
             }
         } else {
             // 在所有表中查找列
             for (String tableName : tableNames) {
-                for (TableInfo tableInfo : schemaInfo.getTables()) {
-                    if (tableInfo.getName().equalsIgnoreCase(tableName)) {
-                        for (ColumnInfo columnInfo : tableInfo.getColumns()) {
-                            if (columnInfo.getName().equalsIgnoreCase(columnName)) {
-                                return tableName + "." + columnInfo.getName();
-                            }
-                        }
-                    }
+                ColumnInfo columnInfo = schemaSnapshot.findColumn(tableName, columnName);
+                if (columnInfo != null) {
+                    return tableName + "." + columnInfo.getName();
                 }
             }
             
             // 模糊匹配
+            String normalizedName = columnName.toLowerCase();
             for (String tableName : tableNames) {
-                for (TableInfo tableInfo : schemaInfo.getTables()) {
-                    if (tableInfo.getName().equalsIgnoreCase(tableName)) {
-                        for (ColumnInfo columnInfo : tableInfo.getColumns()) {
-                            if (columnInfo.getName().toLowerCase().contains(columnName.toLowerCase()) ||
-                                columnName.toLowerCase().contains(columnInfo.getName().toLowerCase())) {
-                                return tableName + "." + columnInfo.getName();
-                            }
-                        }
+                for (ColumnInfo columnInfo : schemaSnapshot.getColumns(tableName)) {
+                    String candidate = columnInfo.getName().toLowerCase();
+                    if (candidate.contains(normalizedName) || normalizedName.contains(candidate)) {
+                        return tableName + "." + columnInfo.getName();
                     }
                 }
             }
@@ -282,18 +276,67 @@ public class DefaultSqlGenerator implements SqlGenerator {
         sqlBuilder.append(String.join(", ", tableNames));
     }
     
+    /**
+     * 按关系图上的连接树构建FROM子句
+     * 多张表时用JOIN连接，必要时经过中间表；没有已知关系的表仍按逗号连接
+     */
+    protected void buildFromClause(StringBuilder sqlBuilder, List<String> tableNames, String dataSourceId,
+                                   List<String> explanations) {
+        if (tableNames.size() < 2 || relationshipGraphRegistry == null || dataSourceId == null) {
+            buildFromClause(sqlBuilder, tableNames);
+            return;
+        }
+        
+        JoinPlan plan = relationshipGraphRegistry.get(dataSourceId).connect(tableNames);
+        if (plan.getSteps().isEmpty()) {
+            buildFromClause(sqlBuilder, tableNames);
+            return;
+        }
+        
+        sqlBuilder.append(" FROM ").append(plan.getTables().get(0));
+        for (JoinPlan.Step step : plan.getSteps()) {
+            sqlBuilder.append(" JOIN ").append(step.getTable()).append(" ON ").append(buildJoinCondition(step));
+        }
+        for (String table : plan.getUnreachableTables()) {
+            sqlBuilder.append(", ").append(table);
+        }
+        
+        explanations.add("通过关系图连接表: " + String.join(", ", plan.getTables()));
+        if (!plan.isConnected()) {
+            explanations.add("未找到与其他表的关系: " + String.join(", ", plan.getUnreachableTables()));
+        }
+    }
+    
+    /**
+     * 构建一步连接的ON条件，多列关系按列的顺序逐一配对
+     */
+    private String buildJoinCondition(JoinPlan.Step step) {
+        TableRelationship relationship = step.getRelationship();
+        boolean forward = relationship.getSourceTableName().equalsIgnoreCase(step.getTable());
+        String sourceTable = forward ? step.getTable() : step.getJoinedTo();
+        String targetTable = forward ? step.getJoinedTo() : step.getTable();
+        String[] sourceColumns = relationship.getSourceColumnNames().split(",");
+        String[] targetColumns = relationship.getTargetColumnNames().split(",");
+        
+        List<String> conditions = new ArrayList<>();
+        for (int i = 0; i < Math.min(sourceColumns.length, targetColumns.length); i++) {
+            conditions.add(sourceTable + "." + sourceColumns[i].trim() + " = " + targetTable + "." + targetColumns[i].trim());
+        }
+        return String.join(" AND ", conditions);
+    }
+    
     /**
      * 构建WHERE子句
      */
     private int buildWhereClause(StringBuilder sqlBuilder, List<EntityTag> conditionEntities, 
                               Map<String, Object> parameters, int paramIndex, 
-                              SchemaInfo schemaInfo, List<String> tableNames) {
+                              SchemaSnapshot schemaSnapshot, List<String> tableNames) {
         // 简单实现，实际应用中需要更复杂的逻辑
         for (int i = 0; i < conditionEntities.size(); i++) {
             EntityTag entity = conditionEntities.get(i);
             
             if (entity.getType() == EntityType.COLUMN) {
-                String columnName = resolveColumnName(entity.getValue(), tableNames, schemaInfo);
+                String columnName = resolveColumnName(entity.getValue(), tableNames, schemaSnapshot);
                 if (columnName != null) {
                     sqlBuilder.append(columnName);
                 } else {
@@ -398,12 +441,12 @@ public class DefaultSqlGenerator implements SqlGenerator {
      * 构建ORDER BY子句
      */
     private void buildOrderByClause(StringBuilder sqlBuilder, List<SortRequirement> sortRequirements, 
-                                 List<String> tableNames, SchemaInfo schemaInfo) {
+                                 List<String> tableNames, SchemaSnapshot schemaSnapshot) {
         sqlBuilder.append(" ORDER BY ");
         
         List<String> orderByItems = new ArrayList<>();
         for (SortRequirement requirement : sortRequirements) {
-            String columnName = resolveColumnName(requirement.getField(), tableNames, schemaInfo);
+            String columnName = resolveColumnName(requirement.getField(), tableNames, schemaSnapshot);
             if (columnName != null) {
                 orderByItems.add(columnName + " " + 
                                 (requirement.getDirection() == SortRequirement.SortDirection.ASC ? "ASC" : "DESC"));
@@ -1,8 +1,8 @@
 package com.insightdata.domain.nlquery.sql;
 
-import com.insightdata.domain.metadata.model.SchemaInfo;
 import com.insightdata.domain.nlquery.entity.EntityTag;
 import com.insightdata.domain.nlquery.intent.QueryIntent;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshot;
 import lombok.Builder;
 import lombok.Data;
 
@@ -11,7 +11,7 @@ import java.util.Map;
 
 public interface SqlGenerator {
 
-    SqlGenerationResult generate(List<EntityTag> entities, QueryIntent queryIntent, SchemaInfo schemaInfo);
+    SqlGenerationResult generate(List<EntityTag> entities, QueryIntent queryIntent, SchemaSnapshot schemaSnapshot);
 
     @Data
     @Builder
@@ -0,0 +1,169 @@
+package com.insightdata.domain.nlquery.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.insightdata.domain.exception.UnsafeQueryException;
+import com.insightdata.domain.metadata.enums.DataSourceType;
+import com.insightdata.domain.metadata.model.DataSource;
+import com.insightdata.domain.metadata.model.TableInfo;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshot;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshotRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * SQL执行前的检查和改写
+ *
+ * 位于SQL生成和JDBC执行之间，由DefaultQueryExecutor在准备语句前调用：
+ * 1. 按数据源方言改写末尾的行数限制：SqlGenerator统一生成LIMIT，DB2等数据库改写为FETCH FIRST ... ROWS ONLY，
+ *    MySQL则把FETCH FIRST改写为LIMIT；
+ * 2. 没有行数限制时追加执行器给定的上限；
+ * 3. 按元数据中的表行数统计拒绝危险查询：笛卡尔积的行数乘积超过阈值，或缺少过滤条件的聚合、去重查询涉及大表。
+ *    子查询、派生表和公用表表达式中的每个SELECT都单独检查。
+ *    执行器总会限制返回行数，不带聚合的无条件查询读到上限即停止，因此不拒绝。
+ */
+@Slf4j
+@Component
+public class SqlGuard {
+
+    @Autowired
+    private SchemaSnapshotRegistry schemaSnapshotRegistry;
+
+    /**
+     * 大表行数阈值，0表示不检查
+     */
+    @Value("${insight.query.guard.large-table-rows:1000000}")
+    private long largeTableRows;
+
+    /**
+     * 检查并改写SQL
+     *
+     * @param sql        待执行的SQL
+     * @param dataSource 数据源
+     * @param rowLimit   SQL没有行数限制时追加的上限，0表示不追加（如分页查询由PaginatedSql追加）
+     * @return 改写后的SQL
+     * @throws UnsafeQueryException SQL可能压垮数据源时抛出
+     */
+    public String guard(String sql, DataSource dataSource, long rowLimit) {
+        SqlShape shape = SqlShape.parse(strip(sql));
+        if (!shape.isQuery()) {
+            return sql;
+        }
+        if (largeTableRows > 0) {
+            check(shape, dataSource);
+        }
+        return rewriteLimit(shape, dataSource.getType(), rowLimit);
+    }
+
+    /**
+     * 按方言改写或追加行数限制
+     */
+    static String rewriteLimit(SqlShape shape, DataSourceType type, long rowLimit) {
+        String sql = shape.getSql();
+        boolean mysql = type == DataSourceType.MYSQL;
+        if (shape.hasLimit()) {
+            boolean matches = (shape.getLimitStyle() == SqlShape.LimitStyle.LIMIT) == mysql;
+            if (matches || shape.isLimitParameterized() || shape.getLimitRows() == null) {
+                return sql;
+            }
+            return sql.substring(0, shape.getLimitStart())
+                    + limitClause(mysql, shape.getLimitRows(), shape.getLimitOffset())
+                    + sql.substring(shape.getLimitEnd());
+        }
+        if (rowLimit <= 0) {
+            return sql;
+        }
+        int insertAt = shape.getTailStart() < 0 ? sql.length() : shape.getTailStart();
+        String head = sql.substring(0, insertAt).trim();
+        String tail = sql.substring(insertAt).trim();
+        return head + " " + limitClause(mysql, rowLimit, null) + (tail.isEmpty() ? "" : " " + tail);
+    }
+
+    private static String limitClause(boolean mysql, long rows, Long offset) {
+        boolean skip = offset != null && offset > 0;
+        if (mysql) {
+            return "LIMIT " + rows + (skip ? " OFFSET " + offset : "");
+        }
+        return skip ? "OFFSET " + offset + " ROWS FETCH NEXT " + rows + " ROWS ONLY"
+                : "FETCH FIRST " + rows + " ROWS ONLY";
+    }
+
+    private void check(SqlShape shape, DataSource dataSource) {
+        SchemaSnapshot snapshot = null;
+        for (SqlShape.Branch branch : shape.getBranches()) {
+            boolean cartesian = branch.getUnlinkedJoins() > 0;
+            boolean fullScan = !branch.isFiltered() && branch.isAggregated();
+            if (!cartesian && !fullScan) {
+                continue;
+            }
+            if (snapshot == null) {
+                snapshot = snapshot(dataSource);
+                if (snapshot == null) {
+                    return;
+                }
+            }
+            if (cartesian) {
+                checkCartesian(branch, snapshot);
+            }
+            if (fullScan) {
+                for (String table : branch.getTables()) {
+                    long rows = rowCount(snapshot, table);
+                    if (rows > largeTableRows) {
+                        throw new UnsafeQueryException("表" + table + "约有" + rows
+                                + "行，对其进行聚合、分组或去重查询时必须指定过滤条件");
+                    }
+                }
+            }
+        }
+    }
+
+    private void checkCartesian(SqlShape.Branch branch, SchemaSnapshot snapshot) {
+        double product = 1;
+        List<String> described = new ArrayList<>();
+        for (String table : branch.getTables()) {
+            long rows = rowCount(snapshot, table);
+            product *= Math.max(1, rows);
+            described.add(table + "(" + rows + "行)");
+        }
+        if (product > largeTableRows) {
+            throw new UnsafeQueryException("查询中的表缺少连接条件，将产生笛卡尔积: "
+                    + String.join(", ", described) + "，请补充连接条件");
+        }
+    }
+
+    /**
+     * 获取数据源的元数据快照，无法获取时不做检查
+     */
+    private SchemaSnapshot snapshot(DataSource dataSource) {
+        if (dataSource.getId() == null) {
+            return null;
+        }
+        try {
+            return schemaSnapshotRegistry.get(dataSource.getId());
+        } catch (RuntimeException e) {
+            log.warn("获取元数据快照失败，跳过SQL检查: dataSourceId={}, error={}", dataSource.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 元数据中的表行数统计，未知的表（如公用表表达式）和未收集统计信息的表按0行计
+     */
+    private static long rowCount(SchemaSnapshot snapshot, String table) {
+        TableInfo info = snapshot.findTable(table);
+        return info == null ? 0 : Math.max(0, info.getRowCount());
+    }
+
+    private static String strip(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+}
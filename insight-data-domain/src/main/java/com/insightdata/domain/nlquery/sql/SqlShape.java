@@ -0,0 +1,687 @@
+package com.insightdata.domain.nlquery.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.FromItem;
+import net.sf.jsqlparser.statement.select.Join;
+import net.sf.jsqlparser.statement.select.ParenthesisFromItem;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectBody;
+import net.sf.jsqlparser.statement.select.SelectExpressionItem;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import net.sf.jsqlparser.statement.select.SetOperation;
+import net.sf.jsqlparser.statement.select.SetOperationList;
+import net.sf.jsqlparser.statement.select.SpecialSubSelect;
+import net.sf.jsqlparser.statement.select.SubSelect;
+import net.sf.jsqlparser.statement.select.UnionOp;
+import net.sf.jsqlparser.statement.select.WithItem;
+
+/**
+ * SQL语句的结构
+ *
+ * 查询分支取自JSqlParser语法树，覆盖各层级的查询：集合运算的各个分支、WITH中的公用表表达式、派生表，
+ * 以及选择列表和条件中的子查询，每个SELECT都作为一个分支单独检查。
+ * 行数限制子句需要在原文中定位和改写，仍通过词法扫描只分析最外层查询：跳过字符串、注释和带引号标识符的内容，
+ * 按括号深度忽略子查询中的子句。JSqlParser无法解析的方言写法退回词法扫描得到的最外层分支。
+ */
+final class SqlShape {
+
+    private static final Set<String> AGGREGATES = Set.of("COUNT", "SUM", "AVG", "MIN", "MAX");
+
+    private static final Set<String> SET_OPERATORS = Set.of("UNION", "INTERSECT", "EXCEPT", "MINUS");
+
+    /**
+     * 行数限制子句的写法
+     */
+    enum LimitStyle {
+        /** MySQL的LIMIT n [OFFSET m] 或 LIMIT m, n */
+        LIMIT,
+        /** 标准SQL的[OFFSET m ROWS] FETCH FIRST|NEXT n ROWS ONLY */
+        FETCH
+    }
+
+    private enum Clause { NONE, SELECT, FROM, WHERE, GROUP, HAVING, ORDER, LIMIT, OFFSET, FETCH, TAIL }
+
+    /**
+     * 集合运算连接的一个查询分支
+     */
+    static final class Branch {
+        private final List<String> tables = new ArrayList<>();
+        private int commaJoins;
+        private int joinsWithoutCondition;
+        private int linkingPredicates;
+        private boolean filtered;
+        private boolean aggregated;
+        private boolean pendingJoin;
+
+        List<String> getTables() {
+            return Collections.unmodifiableList(tables);
+        }
+
+        /**
+         * 没有连接条件的表连接数：CROSS JOIN、缺少ON/USING的JOIN，以及WHERE中找不到列相等条件的逗号连接
+         */
+        int getUnlinkedJoins() {
+            return joinsWithoutCondition + Math.max(0, commaJoins - linkingPredicates);
+        }
+
+        boolean isFiltered() {
+            return filtered;
+        }
+
+        /**
+         * 是否需要读取全部输入行才能返回结果（聚合函数、DISTINCT、GROUP BY，或所在的集合运算需要去重）
+         */
+        boolean isAggregated() {
+            return aggregated;
+        }
+
+        private void closeJoin() {
+            if (pendingJoin) {
+                joinsWithoutCondition++;
+                pendingJoin = false;
+            }
+        }
+    }
+
+    private final String sql;
+    private final List<Branch> branches = new ArrayList<>();
+    private boolean query;
+    private boolean distinctSetOperation;
+    private LimitStyle limitStyle;
+    private int limitStart = -1;
+    private int limitEnd = -1;
+    private int tailStart = -1;
+    private Long limitRows;
+    private Long limitOffset;
+    private boolean limitParameterized;
+
+    private SqlShape(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * 分析SQL的顶层结构
+     *
+     * @param sql 去掉末尾分号后的SQL
+     */
+    static SqlShape parse(String sql) {
+        SqlShape shape = new SqlShape(sql);
+        List<Token> tokens = tokenize(sql);
+        if (tokens.isEmpty()) {
+            return shape;
+        }
+        Token first = tokens.get(0);
+        shape.query = first.is("SELECT") || first.is("WITH") || first.is("(");
+        if (shape.query) {
+            shape.analyze(tokens);
+            List<Branch> branches = collectBranches(sql);
+            if (branches != null) {
+                shape.branches.clear();
+                shape.branches.addAll(branches);
+            }
+        }
+        return shape;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * 是否是查询语句，非查询语句不做检查和改写
+     */
+    boolean isQuery() {
+        return query;
+    }
+
+    List<Branch> getBranches() {
+        return Collections.unmodifiableList(branches);
+    }
+
+    boolean hasLimit() {
+        return limitStart >= 0;
+    }
+
+    LimitStyle getLimitStyle() {
+        return limitStyle;
+    }
+
+    /**
+     * 行数限制子句在SQL中的起止位置
+     */
+    int getLimitStart() {
+        return limitStart;
+    }
+
+    int getLimitEnd() {
+        return limitEnd;
+    }
+
+    /**
+     * 末尾FOR UPDATE、FOR READ ONLY等子句的起始位置，没有时为-1；追加行数限制时需要插在它之前
+     */
+    int getTailStart() {
+        return tailStart;
+    }
+
+    /**
+     * 限制的行数，使用参数占位符或未指定时为null
+     */
+    Long getLimitRows() {
+        return limitRows;
+    }
+
+    Long getLimitOffset() {
+        return limitOffset;
+    }
+
+    boolean isLimitParameterized() {
+        return limitParameterized;
+    }
+
+    private void analyze(List<Token> tokens) {
+        Clause clause = Clause.NONE;
+        Branch branch = null;
+        boolean expectTable = false;
+        boolean crossJoin = false;
+        boolean naturalJoin = false;
+        List<Long> limitNumbers = new ArrayList<>();
+        boolean limitComma = false;
+        boolean fetchFirst = false;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.depth != 0) {
+                continue;
+            }
+            if (clause == Clause.LIMIT || clause == Clause.OFFSET || clause == Clause.FETCH) {
+                if (token.type == TokenType.NUMBER || token.type == TokenType.PARAMETER) {
+                    Long value = token.type == TokenType.NUMBER ? parseLong(token.text) : null;
+                    limitParameterized |= value == null;
+                    if (clause == Clause.LIMIT) {
+                        limitNumbers.add(value);
+                    } else if (clause == Clause.OFFSET) {
+                        limitOffset = value;
+                    } else {
+                        limitRows = value;
+                    }
+                    limitEnd = token.end;
+                    continue;
+                }
+                if (clause == Clause.LIMIT && token.is(",")) {
+                    limitComma = true;
+                    continue;
+                }
+                if (token.is("ROW") || token.is("ROWS") || token.is("FIRST") || token.is("NEXT")
+                        || (token.is("ONLY") && clause == Clause.FETCH)) {
+                    limitEnd = token.end;
+                    continue;
+                }
+            }
+
+            if (token.type == TokenType.WORD && !token.quoted) {
+                String keyword = token.text.toUpperCase(Locale.ROOT);
+                if (keyword.equals("SELECT")) {
+                    branch = new Branch();
+                    branches.add(branch);
+                    clause = Clause.SELECT;
+                    Token next = next(tokens, i);
+                    branch.aggregated = next != null && next.is("DISTINCT");
+                    continue;
+                }
+                if (branch == null) {
+                    continue;
+                }
+                if (SET_OPERATORS.contains(keyword)) {
+                    branch.closeJoin();
+                    Token next = next(tokens, i);
+                    distinctSetOperation |= !(keyword.equals("UNION") && next != null && next.is("ALL"));
+                    clause = Clause.NONE;
+                    // 集合运算之前的行数限制只作用于前一个分支
+                    limitStyle = null;
+                    limitStart = -1;
+                    limitEnd = -1;
+                    limitRows = null;
+                    limitOffset = null;
+                    limitParameterized = false;
+                    limitNumbers.clear();
+                    limitComma = false;
+                    fetchFirst = false;
+                    continue;
+                }
+                switch (keyword) {
+                    case "FROM":
+                        if (clause == Clause.SELECT) {
+                            clause = Clause.FROM;
+                            expectTable = true;
+                        }
+                        continue;
+                    case "WHERE":
+                        branch.closeJoin();
+                        branch.filtered = true;
+                        clause = Clause.WHERE;
+                        continue;
+                    case "GROUP":
+                        branch.closeJoin();
+                        branch.aggregated = true;
+                        clause = Clause.GROUP;
+                        continue;
+                    case "HAVING":
+                        clause = Clause.HAVING;
+                        continue;
+                    case "ORDER":
+                        branch.closeJoin();
+                        clause = Clause.ORDER;
+                        continue;
+                    case "LIMIT":
+                        branch.closeJoin();
+                        startLimit(token, LimitStyle.LIMIT);
+                        clause = Clause.LIMIT;
+                        continue;
+                    case "OFFSET":
+                        branch.closeJoin();
+                        if (clause == Clause.LIMIT) {
+                            limitEnd = token.end;
+                        } else {
+                            startLimit(token, LimitStyle.FETCH);
+                            clause = Clause.OFFSET;
+                        }
+                        continue;
+                    case "FETCH":
+                        branch.closeJoin();
+                        startLimit(token, LimitStyle.FETCH);
+                        fetchFirst = true;
+                        clause = Clause.FETCH;
+                        continue;
+                    case "FOR":
+                        branch.closeJoin();
+                        if (tailStart < 0) {
+                            tailStart = token.start;
+                        }
+                        clause = Clause.TAIL;
+                        continue;
+                    default:
+                        break;
+                }
+            }
+
+            if (branch == null) {
+                continue;
+            }
+            if (clause == Clause.SELECT) {
+                if (token.type == TokenType.WORD && !token.quoted
+                        && AGGREGATES.contains(token.text.toUpperCase(Locale.ROOT))) {
+                    Token next = next(tokens, i);
+                    branch.aggregated |= next != null && next.is("(");
+                }
+            } else if (clause == Clause.FROM) {
+                if (token.is(",")) {
+                    branch.closeJoin();
+                    branch.commaJoins++;
+                    expectTable = true;
+                } else if (token.is("CROSS")) {
+                    crossJoin = true;
+                } else if (token.is("NATURAL")) {
+                    naturalJoin = true;
+                } else if (token.is("JOIN") || token.is("STRAIGHT_JOIN")) {
+                    branch.closeJoin();
+                    if (crossJoin) {
+                        branch.joinsWithoutCondition++;
+                    } else if (!naturalJoin) {
+                        branch.pendingJoin = true;
+                    }
+                    crossJoin = false;
+                    naturalJoin = false;
+                    expectTable = true;
+                } else if (token.is("ON") || token.is("USING")) {
+                    branch.pendingJoin = false;
+                    expectTable = false;
+                } else if (expectTable) {
+                    expectTable = false;
+                    if (token.type == TokenType.WORD) {
+                        branch.tables.add(lastNameSegment(tokens, i));
+                    }
+                    // 左括号表示派生表，其内容在更深的括号层级中，不计入顶层表
+                }
+            } else if (clause == Clause.WHERE && token.is("=") && isLinkingPredicate(tokens, i)) {
+                branch.linkingPredicates++;
+            }
+        }
+
+        if (branch != null) {
+            branch.closeJoin();
+        }
+        if (distinctSetOperation) {
+            branches.forEach(b -> b.aggregated = true);
+        }
+        if (limitStyle == LimitStyle.LIMIT && !limitNumbers.isEmpty()) {
+            if (limitComma && limitNumbers.size() > 1) {
+                limitOffset = limitNumbers.get(0);
+                limitRows = limitNumbers.get(1);
+            } else {
+                limitRows = limitNumbers.get(0);
+                limitOffset = limitNumbers.size() > 1 ? limitNumbers.get(1) : null;
+            }
+        } else if (fetchFirst && limitRows == null && !limitParameterized) {
+            // FETCH FIRST ROW ONLY
+            limitRows = 1L;
+        }
+    }
+
+    private void startLimit(Token token, LimitStyle style) {
+        if (limitStart < 0) {
+            limitStart = token.start;
+            limitStyle = style;
+        }
+        limitEnd = token.end;
+    }
+
+    /**
+     * 读取schema.table形式的表名，返回最后一段；tokens中的点号后紧跟名称
+     */
+    private static String lastNameSegment(List<Token> tokens, int index) {
+        String name = tokens.get(index).text;
+        int i = index;
+        while (i + 2 < tokens.size() && tokens.get(i + 1).is(".") && tokens.get(i + 2).type == TokenType.WORD) {
+            i += 2;
+            name = tokens.get(i).text;
+        }
+        return name;
+    }
+
+    /**
+     * 判断等号两边是否是不同表的限定列名，如 o.USER_ID = u.ID
+     */
+    private static boolean isLinkingPredicate(List<Token> tokens, int equals) {
+        if (equals < 3 || equals + 3 >= tokens.size()) {
+            return false;
+        }
+        Token leftColumn = tokens.get(equals - 1);
+        Token leftDot = tokens.get(equals - 2);
+        Token leftTable = tokens.get(equals - 3);
+        Token rightTable = tokens.get(equals + 1);
+        Token rightDot = tokens.get(equals + 2);
+        Token rightColumn = tokens.get(equals + 3);
+        return leftColumn.type == TokenType.WORD && leftDot.is(".") && leftTable.type == TokenType.WORD
+                && rightColumn.type == TokenType.WORD && rightDot.is(".") && rightTable.type == TokenType.WORD
+                && !leftTable.text.equalsIgnoreCase(rightTable.text);
+    }
+
+    private static Token next(List<Token> tokens, int index) {
+        return index + 1 < tokens.size() ? tokens.get(index + 1) : null;
+    }
+
+    private static Long parseLong(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // ---------------------------------------------------------------- 语法树
+
+    /**
+     * 收集语法树中所有层级的查询分支
+     *
+     * @return 查询分支，SQL无法解析时返回null
+     */
+    private static List<Branch> collectBranches(String sql) {
+        Statement statement = SqlStatementParser.parse(sql);
+        if (!(statement instanceof Select)) {
+            return null;
+        }
+        BranchCollector collector = new BranchCollector();
+        collector.select(((Select) statement).getWithItemsList(), ((Select) statement).getSelectBody());
+        return collector.branches;
+    }
+
+    private static final class BranchCollector {
+        private final List<Branch> branches = new ArrayList<>();
+        // 公用表表达式的名称，引用它们的不是实际的表
+        private final Set<String> ctes = new HashSet<>();
+
+        private void select(List<WithItem> withItems, SelectBody body) {
+            if (withItems != null) {
+                for (WithItem withItem : withItems) {
+                    ctes.add(unquote(withItem.getName()).toUpperCase(Locale.ROOT));
+                    if (withItem.getSubSelect() != null) {
+                        subSelect(withItem.getSubSelect());
+                    }
+                }
+            }
+            body(body, false);
+        }
+
+        private void subSelect(SubSelect subSelect) {
+            select(subSelect.getWithItemsList(), subSelect.getSelectBody());
+        }
+
+        private void body(SelectBody body, boolean deduplicated) {
+            if (body instanceof PlainSelect) {
+                plainSelect((PlainSelect) body, deduplicated);
+            } else if (body instanceof SetOperationList) {
+                SetOperationList list = (SetOperationList) body;
+                boolean distinct = deduplicated;
+                for (SetOperation operation : list.getOperations()) {
+                    distinct |= !(operation instanceof UnionOp && ((UnionOp) operation).isAll());
+                }
+                for (SelectBody branch : list.getSelects()) {
+                    body(branch, distinct);
+                }
+            }
+        }
+
+        private void plainSelect(PlainSelect plainSelect, boolean deduplicated) {
+            Branch branch = new Branch();
+            branches.add(branch);
+            branch.aggregated = deduplicated || plainSelect.getDistinct() != null || plainSelect.getGroupBy() != null;
+
+            fromItem(branch, plainSelect.getFromItem());
+            if (plainSelect.getJoins() != null) {
+                for (Join join : plainSelect.getJoins()) {
+                    fromItem(branch, join.getRightItem());
+                    boolean hasCondition = !join.getOnExpressions().isEmpty()
+                            || join.getUsingColumns() != null && !join.getUsingColumns().isEmpty();
+                    if (join.isSimple()) {
+                        branch.commaJoins++;
+                    } else if (join.isCross() || !join.isNatural() && !hasCondition) {
+                        branch.joinsWithoutCondition++;
+                    }
+                    join.getOnExpressions().forEach(on -> expression(on, branch, false, false));
+                }
+            }
+            if (plainSelect.getWhere() != null) {
+                branch.filtered = true;
+                expression(plainSelect.getWhere(), branch, false, true);
+            }
+            if (plainSelect.getSelectItems() != null) {
+                for (SelectItem item : plainSelect.getSelectItems()) {
+                    if (item instanceof SelectExpressionItem) {
+                        expression(((SelectExpressionItem) item).getExpression(), branch, true, false);
+                    }
+                }
+            }
+            if (plainSelect.getHaving() != null) {
+                expression(plainSelect.getHaving(), branch, false, false);
+            }
+        }
+
+        private void fromItem(Branch branch, FromItem item) {
+            if (item instanceof Table) {
+                Table table = (Table) item;
+                String name = unquote(table.getName());
+                if (table.getSchemaName() != null || !ctes.contains(name.toUpperCase(Locale.ROOT))) {
+                    branch.tables.add(name);
+                }
+            } else if (item instanceof SubSelect) {
+                // 派生表作为单独的分支检查，不计入外层的表
+                subSelect((SubSelect) item);
+            } else if (item instanceof SpecialSubSelect && ((SpecialSubSelect) item).getSubSelect() != null) {
+                subSelect(((SpecialSubSelect) item).getSubSelect());
+            } else if (item instanceof ParenthesisFromItem) {
+                fromItem(branch, ((ParenthesisFromItem) item).getFromItem());
+            }
+        }
+
+        /**
+         * 检查表达式：统计选择列表中的聚合函数和WHERE中连接两张表的列相等条件，其中的子查询作为单独的分支
+         */
+        private void expression(Expression expression, Branch branch, boolean selectItem, boolean where) {
+            expression.accept(new ExpressionVisitorAdapter() {
+                @Override
+                public void visit(Function function) {
+                    if (selectItem && function.getName() != null
+                            && AGGREGATES.contains(function.getName().toUpperCase(Locale.ROOT))) {
+                        branch.aggregated = true;
+                    }
+                    super.visit(function);
+                }
+
+                @Override
+                public void visit(EqualsTo equalsTo) {
+                    if (where && isLinkingPredicate(equalsTo)) {
+                        branch.linkingPredicates++;
+                    }
+                    super.visit(equalsTo);
+                }
+
+                @Override
+                public void visit(SubSelect subSelect) {
+                    subSelect(subSelect);
+                }
+            });
+        }
+
+        /**
+         * 判断等号两边是否是不同表的限定列名，如 o.USER_ID = u.ID
+         */
+        private static boolean isLinkingPredicate(EqualsTo equalsTo) {
+            if (!(equalsTo.getLeftExpression() instanceof Column) || !(equalsTo.getRightExpression() instanceof Column)) {
+                return false;
+            }
+            Table left = ((Column) equalsTo.getLeftExpression()).getTable();
+            Table right = ((Column) equalsTo.getRightExpression()).getTable();
+            return left != null && left.getName() != null && right != null && right.getName() != null
+                    && !unquote(left.getName()).equalsIgnoreCase(unquote(right.getName()));
+        }
+
+        private static String unquote(String identifier) {
+            if (identifier.length() >= 2 && (identifier.charAt(0) == '`' || identifier.charAt(0) == '"')
+                    && identifier.charAt(identifier.length() - 1) == identifier.charAt(0)) {
+                return identifier.substring(1, identifier.length() - 1);
+            }
+            return identifier;
+        }
+    }
+
+    // ---------------------------------------------------------------- 词法扫描
+
+    private enum TokenType { WORD, NUMBER, STRING, PARAMETER, SYMBOL }
+
+    private static final class Token {
+        private final TokenType type;
+        private final String text;
+        private final boolean quoted;
+        private final int start;
+        private final int end;
+        private final int depth;
+
+        private Token(TokenType type, String text, boolean quoted, int start, int end, int depth) {
+            this.type = type;
+            this.text = text;
+            this.quoted = quoted;
+            this.start = start;
+            this.end = end;
+            this.depth = depth;
+        }
+
+        /**
+         * 是否是指定的未加引号关键字或符号
+         */
+        private boolean is(String value) {
+            return !quoted && (type == TokenType.WORD || type == TokenType.SYMBOL) && text.equalsIgnoreCase(value);
+        }
+    }
+
+    private static List<Token> tokenize(String sql) {
+        List<Token> tokens = new ArrayList<>();
+        int depth = 0;
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                while (i < length && sql.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int close = sql.indexOf("*/", i + 2);
+                i = close < 0 ? length : close + 2;
+            } else if (c == '\'') {
+                i++;
+                while (i < length) {
+                    char current = sql.charAt(i);
+                    if (current == '\\') {
+                        i += 2;
+                    } else if (current == '\'' && i + 1 < length && sql.charAt(i + 1) == '\'') {
+                        i += 2;
+                    } else if (current == '\'') {
+                        i++;
+                        break;
+                    } else {
+                        i++;
+                    }
+                }
+                tokens.add(new Token(TokenType.STRING, sql.substring(start, Math.min(i, length)), false, start, i, depth));
+            } else if (c == '"' || c == '`') {
+                int close = sql.indexOf(c, i + 1);
+                i = close < 0 ? length : close + 1;
+                tokens.add(new Token(TokenType.WORD, sql.substring(start + 1, Math.max(start + 1, i - 1)), true, start, i, depth));
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_'
+                        || sql.charAt(i) == '$' || sql.charAt(i) == '#')) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.WORD, sql.substring(start, i), false, start, i, depth));
+            } else if (Character.isDigit(c)) {
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.NUMBER, sql.substring(start, i), false, start, i, depth));
+            } else if (c == '(') {
+                tokens.add(new Token(TokenType.SYMBOL, "(", false, start, ++i, depth++));
+            } else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+                tokens.add(new Token(TokenType.SYMBOL, ")", false, start, ++i, depth));
+            } else if (c == '?') {
+                tokens.add(new Token(TokenType.PARAMETER, "?", false, start, ++i, depth));
+            } else if ((c == '<' || c == '>' || c == '!' || c == ':') && i + 1 < length
+                    && (sql.charAt(i + 1) == '=' || sql.charAt(i + 1) == '>')) {
+                // <=、>=、!=、<>、:=不是相等条件
+                i += 2;
+                tokens.add(new Token(TokenType.SYMBOL, sql.substring(start, i), false, start, i, depth));
+            } else {
+                tokens.add(new Token(TokenType.SYMBOL, String.valueOf(c), false, start, ++i, depth));
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,34 @@
+package com.insightdata.domain.nlquery.sql;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.parser.ParseException;
+import net.sf.jsqlparser.statement.Statement;
+
+/**
+ * 用JSqlParser把SQL解析为语法树
+ *
+ * CCJSqlParserUtil.parse为每次解析新建一个线程以支持超时，这里直接在调用线程上解析，
+ * 供SQL检查和查询历史学习这类高频调用使用。无法解析的SQL返回null，由调用方决定如何降级。
+ */
+public final class SqlStatementParser {
+
+    private SqlStatementParser() {
+    }
+
+    /**
+     * 解析一条SQL语句
+     *
+     * @param sql SQL语句
+     * @return 语法树，SQL为空或无法解析时返回null
+     */
+    public static Statement parse(String sql) {
+        if (sql == null || sql.isBlank()) {
+            return null;
+        }
+        try {
+            return CCJSqlParserUtil.newParser(sql).Statement();
+        } catch (ParseException | RuntimeException e) {
+            return null;
+        }
+    }
+}
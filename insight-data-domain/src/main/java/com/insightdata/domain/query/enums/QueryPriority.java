@@ -0,0 +1,35 @@
+package com.insightdata.domain.query.enums;
+
+/**
+ * 查询优先级枚举
+ * 数据源并发许可不足时，交互式查询优先于后台查询获得许可
+ */
+public enum QueryPriority {
+
+    /**
+     * 交互式查询
+     * 用户在界面上等待结果的查询
+     */
+    INTERACTIVE("交互式查询"),
+
+    /**
+     * 后台查询
+     * 导出、异步作业和元数据同步等不需要立即返回的查询
+     */
+    BACKGROUND("后台查询");
+
+    private final String description;
+
+    QueryPriority(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return this.name() + "(" + this.description + ")";
+    }
+}
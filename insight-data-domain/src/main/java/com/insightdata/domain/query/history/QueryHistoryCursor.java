@@ -0,0 +1,42 @@
+package com.insightdata.domain.query.history;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import com.insightdata.domain.nlquery.executor.QueryPageRequest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 查询历史列表的分页游标，由上一页最后一条记录的(创建时间, ID)组成
+ *
+ * 编码方式与查询结果的键集分页游标相同。
+ */
+@Getter
+@AllArgsConstructor
+public class QueryHistoryCursor {
+
+    private final LocalDateTime createdAt;
+
+    private final String id;
+
+    public String encode() {
+        return QueryPageRequest.encodeCursor(Arrays.asList(createdAt, id));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @throws IllegalArgumentException 游标格式错误时抛出
+     */
+    public static QueryHistoryCursor decode(String cursor) {
+        List<Object> values = QueryPageRequest.decodeCursor(cursor);
+        try {
+            return new QueryHistoryCursor(LocalDateTime.parse(values.get(0).toString()), values.get(1).toString());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+    }
+}
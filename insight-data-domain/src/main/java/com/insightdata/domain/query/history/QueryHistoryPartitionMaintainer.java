@@ -0,0 +1,159 @@
+package com.insightdata.domain.query.history;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.insightdata.domain.metadata.repository.QueryHistoryRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 查询历史分区维护
+ *
+ * query_history按创建时间按月分区，分区名为pYYYYMM，最后一个分区p_future存放所有更晚的记录。
+ * 启动时和每天按计划从p_future拆分出到当前月之后partitions-ahead个月为止的分区，
+ * 拆分时p_future中还没有对应月份的数据，只修改表定义；
+ * 表中还没有月份分区时从最早一条记录的月份开始拆分，已有的记录各自落入所属月份的分区，
+ * 不会全部堆在第一个分区中而无法按月过期。
+ * 并删除早于retention-months个月之前的分区，删除分区只修改表定义，不逐行删除。
+ */
+@Slf4j
+@Component
+public class QueryHistoryPartitionMaintainer {
+
+    static final String FUTURE_PARTITION = "p_future";
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    @Autowired
+    private QueryHistoryRepository queryHistoryRepository;
+
+    /**
+     * 保留的月数，不含当前月，0表示不删除分区
+     */
+    @Value("${insight.query.history.retention-months:12}")
+    private int retentionMonths;
+
+    /**
+     * 预先创建的后续月份分区数
+     */
+    @Value("${insight.query.history.partitions-ahead:2}")
+    private int partitionsAhead;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed() {
+        maintain();
+    }
+
+    /**
+     * 按计划创建后续分区并删除过期分区
+     */
+    @Scheduled(cron = "${insight.query.history.partition-cron:0 30 3 * * ?}")
+    public void maintain() {
+        try {
+            List<String> partitions = queryHistoryRepository.findPartitionNames();
+            if (!partitions.contains(FUTURE_PARTITION)) {
+                log.warn("query_history未按月分区，跳过分区维护: partitions={}", partitions);
+                return;
+            }
+            YearMonth earliest = null;
+            if (partitions.stream().noneMatch(partition -> parseMonth(partition) != null)) {
+                // 只有p_future时才需要查询最早的记录，此时表中的记录都在p_future中
+                earliest = queryHistoryRepository.findEarliestCreatedAt().map(YearMonth::from).orElse(null);
+            }
+            Plan plan = plan(partitions, earliest, YearMonth.now(), retentionMonths, partitionsAhead);
+            for (YearMonth month : plan.create) {
+                queryHistoryRepository.splitFuturePartition(partitionName(month), month.plusMonths(1).atDay(1));
+            }
+            if (!plan.drop.isEmpty()) {
+                queryHistoryRepository.dropPartitions(plan.drop);
+            }
+            if (!plan.create.isEmpty() || !plan.drop.isEmpty()) {
+                log.info("查询历史分区维护完成: 新增{}, 删除{}", plan.create, plan.drop);
+            }
+        } catch (Exception e) {
+            // 多个实例同时维护时可能冲突，由下一次计划重试
+            log.warn("查询历史分区维护失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 计算需要新增和删除的分区
+     *
+     * @param partitions 现有分区名，按分区顺序
+     * @param earliest 最早一条记录所在的月份，还没有月份分区时从这里开始拆分，为null时从当前月份开始
+     * @param current 当前月份
+     * @param retentionMonths 保留的月数，不含当前月，0表示不删除
+     * @param partitionsAhead 预先创建的后续月份数
+     */
+    static Plan plan(List<String> partitions, YearMonth earliest, YearMonth current, int retentionMonths,
+                     int partitionsAhead) {
+        YearMonth last = null;
+        List<String> drop = new ArrayList<>();
+        YearMonth oldest = current.minusMonths(retentionMonths);
+        for (String partition : partitions) {
+            YearMonth month = parseMonth(partition);
+            if (month == null) {
+                continue;
+            }
+            if (last == null || month.isAfter(last)) {
+                last = month;
+            }
+            if (retentionMonths > 0 && month.isBefore(oldest)) {
+                drop.add(partition);
+            }
+        }
+
+        // 新分区只能从p_future的下界开始按月向后拆分
+        List<YearMonth> create = new ArrayList<>();
+        YearMonth until = current.plusMonths(Math.max(0, partitionsAhead));
+        YearMonth first = last != null ? last.plusMonths(1)
+                : earliest != null && earliest.isBefore(current) ? earliest : current;
+        for (YearMonth month = first; !month.isAfter(until); month = month.plusMonths(1)) {
+            create.add(month);
+            if (retentionMonths > 0 && month.isBefore(oldest)) {
+                // 从最早的记录开始拆分出的过期月份在同一次维护中删除
+                drop.add(partitionName(month));
+            }
+        }
+        return new Plan(create, drop);
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_NAME.format(month);
+    }
+
+    private static YearMonth parseMonth(String partition) {
+        try {
+            return YearMonth.parse(partition, PARTITION_NAME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 分区维护计划
+     */
+    static final class Plan {
+
+        final List<YearMonth> create;
+
+        final List<String> drop;
+
+        Plan(List<YearMonth> create, List<String> drop) {
+            this.create = create;
+            this.drop = drop;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.insightdata.domain.query.history;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.insightdata.domain.metadata.repository.QueryHistoryRepository;
+import com.insightdata.domain.query.model.QueryHistory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 异步写入的查询历史记录器
+ *
+ * 请求线程只把查询历史放入有界无锁环形缓冲区，不访问数据库；后台写入线程按批次从缓冲区取出，
+ * 用多行INSERT写入。缓冲区积累满一批时立即唤醒写入线程，否则最多等待flush-interval后写入已有的记录。
+ * 缓冲区满时按overflow-policy处理：DROP立即丢弃，WAIT最多等待offer-timeout后丢弃；
+ * 写入失败的批次记录日志后丢弃，不重试，避免数据库故障时在内存中堆积。
+ * 应用关闭时写完缓冲区中剩余的记录，最多等待shutdown-timeout。
+ */
+@Slf4j
+@Component
+public class QueryHistoryRecorder implements InitializingBean, DisposableBean {
+
+    /**
+     * 缓冲区满时的处理方式
+     */
+    public enum OverflowPolicy {
+        /** 立即丢弃新记录，不影响请求延迟 */
+        DROP,
+        /** 唤醒写入线程并短暂等待空位，超时后丢弃 */
+        WAIT
+    }
+
+    @Autowired
+    private QueryHistoryRepository queryHistoryRepository;
+
+    @Value("${insight.query.history.enabled:true}")
+    private boolean enabled;
+
+    @Value("${insight.query.history.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${insight.query.history.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 未积累满一批时的最长写入间隔（毫秒）
+     */
+    @Value("${insight.query.history.flush-interval:1000}")
+    private long flushIntervalMillis;
+
+    @Value("${insight.query.history.overflow-policy:DROP}")
+    private OverflowPolicy overflowPolicy;
+
+    /**
+     * WAIT策略下等待缓冲区空位的最长时间（毫秒）
+     */
+    @Value("${insight.query.history.offer-timeout:50}")
+    private long offerTimeoutMillis;
+
+    /**
+     * 关闭时等待写完剩余记录的最长时间（毫秒）
+     */
+    @Value("${insight.query.history.shutdown-timeout:10000}")
+    private long shutdownTimeoutMillis;
+
+    private final LongAdder recorded = new LongAdder();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder writeNanos = new LongAdder();
+
+    private RingBuffer<QueryHistory> buffer;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    @Override
+    public void afterPropertiesSet() {
+        buffer = new RingBuffer<>(bufferSize);
+        running = true;
+        writer = new Thread(this::runWriter, "query-history-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("查询历史记录器已启动: enabled={}, bufferSize={}, batchSize={}, overflowPolicy={}",
+                enabled, buffer.capacity(), batchSize, overflowPolicy);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(shutdownTimeoutMillis);
+        if (writer.isAlive()) {
+            log.warn("关闭时未能在{}ms内写完查询历史，剩余约{}条", shutdownTimeoutMillis, buffer.size());
+        }
+    }
+
+    /**
+     * 记录一条查询历史，只在缓冲区中排队，不等待写入
+     *
+     * @param history 查询历史
+     * @return 已排队时返回true，被关闭的记录器或满的缓冲区丢弃时返回false
+     */
+    public boolean record(QueryHistory history) {
+        if (!enabled || history == null) {
+            return false;
+        }
+        if (!running) {
+            drop();
+            return false;
+        }
+        if (buffer.offer(history) || overflowPolicy == OverflowPolicy.WAIT && waitAndOffer(history)) {
+            recorded.increment();
+            if (buffer.size() >= batchSize) {
+                LockSupport.unpark(writer);
+            }
+            return true;
+        }
+        drop();
+        return false;
+    }
+
+    private boolean waitAndOffer(QueryHistory history) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        LockSupport.unpark(writer);
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            if (buffer.offer(history)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drop() {
+        long count = dropped.incrementAndGet();
+        if (count == 1 || count % 10_000 == 0) {
+            log.warn("查询历史缓冲区已满或记录器已关闭，累计丢弃{}条", count);
+        }
+    }
+
+    private void runWriter() {
+        List<QueryHistory> batch = new ArrayList<>(batchSize);
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (running || !buffer.isEmpty()) {
+            int drained = buffer.drainTo(batch, batchSize);
+            if (drained > 0) {
+                write(batch);
+                batch.clear();
+            }
+            if (drained < batchSize && running) {
+                LockSupport.parkNanos(this, intervalNanos);
+            } else if (drained == 0) {
+                // 关闭时生产者可能已取得槽位但还没有写完，稍后重试
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void write(List<QueryHistory> batch) {
+        long start = System.nanoTime();
+        try {
+            queryHistoryRepository.saveAll(batch);
+            written.add(batch.size());
+        } catch (RuntimeException e) {
+            failed.add(batch.size());
+            log.warn("写入查询历史失败，丢弃{}条: {}", batch.size(), e.getMessage());
+        } finally {
+            batches.increment();
+            writeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 已进入缓冲区的记录数
+     */
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    /**
+     * 因缓冲区满或记录器已关闭丢弃的记录数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 已写入数据库的记录数
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * 因写入失败丢弃的记录数
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * 缓冲区中等待写入的记录数
+     */
+    public int getPendingCount() {
+        return buffer == null ? 0 : buffer.size();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public double getTotalWriteNanos() {
+        return writeNanos.sum();
+    }
+}
@@ -0,0 +1,109 @@
+package com.insightdata.domain.query.history;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形缓冲区，支持多个生产者、一个消费者
+ *
+ * 每个槽位带一个序号（Vyukov有界队列）：生产者通过CAS推进写位置取得槽位，写入元素后把序号加一表示可读；
+ * 消费者读出元素后把序号加上容量，表示槽位可在下一圈写入。
+ * 缓冲区满时offer立即返回false，不阻塞调用方，由调用方决定丢弃还是重试。
+ */
+class RingBuffer<E> {
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> items;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    // 只由消费者线程推进，volatile便于其他线程估算元素个数
+    private volatile long head;
+
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    RingBuffer(int capacity) {
+        int size = 1;
+        while (size < Math.max(2, capacity)) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.items = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 写入一个元素，缓冲区满时返回false
+     */
+    boolean offer(E item) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items.set(index, item);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // 槽位上一圈的元素还没有被消费
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 取出最多max个元素，只能由消费者线程调用
+     *
+     * @return 取出的元素个数
+     */
+    int drainTo(Collection<? super E> target, int max) {
+        int drained = 0;
+        long position = head;
+        while (drained < max) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                // 槽位尚未写入，或生产者已取得槽位但还没有写完
+                break;
+            }
+            target.add(items.get(index));
+            items.set(index, null);
+            sequences.set(index, position + capacity);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    /**
+     * 元素个数的估计值，包括已取得槽位但尚未写完的元素
+     */
+    int size() {
+        return (int) Math.max(0, Math.min(capacity, tail.get() - head));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -1,5 +1,8 @@
 package com.insightdata.domain.query.model;
 
+import com.insightdata.domain.nlquery.executor.QueryMetadata;
+import com.insightdata.domain.nlquery.executor.QueryPageRequest;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -428,6 +431,21 @@ public class QueryExecutionContext {
             this.pagination.put("pageNum", pageNum);
         }
 
+        // 键集分页游标和是否需要总行数
+        if (parameters.containsKey("cursor")) {
+            String cursor = parameters.get("cursor").toString();
+            processed.put("cursor", cursor);
+
+            this.pagination.put("cursor", cursor);
+        }
+
+        if (parameters.containsKey("countTotal")) {
+            Boolean countTotal = Boolean.valueOf(parameters.get("countTotal").toString());
+            processed.put("countTotal", countTotal);
+
+            this.pagination.put("countTotal", countTotal);
+        }
+
         // 处理排序参数
         if (parameters.containsKey("sortField") && parameters.containsKey("sortOrder")) {
             String sortField = parameters.get("sortField").toString();
@@ -447,6 +465,49 @@ public class QueryExecutionContext {
         return processed;
     }
 
+    /**
+     * 由分页和排序信息创建下推到SQL的分页请求
+     *
+     * 排序信息中unique为true表示排序字段覆盖唯一键，此时可以使用cursor进行键集分页
+     *
+     * @return 分页请求，未设置pageSize时返回null
+     */
+    public QueryPageRequest toPageRequest() {
+        if (this.pagination.get("pageSize") == null) {
+            return null;
+        }
+        List<QueryPageRequest.SortKey> sorts = new ArrayList<>();
+        boolean unique = false;
+        for (Map<String, Object> sortInfo : this.sorting) {
+            sorts.add(QueryPageRequest.SortKey.of((String) sortInfo.get("field"), (String) sortInfo.get("order")));
+            unique |= Boolean.TRUE.equals(sortInfo.get("unique"));
+        }
+        Object pageNum = this.pagination.get("pageNum");
+        Object cursor = this.pagination.get("cursor");
+        QueryPageRequest page = QueryPageRequest.of(
+                pageNum == null ? 1 : Integer.parseInt(pageNum.toString()),
+                Integer.parseInt(this.pagination.get("pageSize").toString()),
+                sorts,
+                cursor == null ? null : QueryPageRequest.decodeCursor(cursor.toString()),
+                Boolean.TRUE.equals(this.pagination.get("countTotal")));
+        page.setUniqueSort(unique);
+        return page;
+    }
+
+    /**
+     * 创建执行器使用的查询元数据，应用最大返回行数、超时时间和分页设置
+     *
+     * @return 查询元数据，未设置的最大返回行数和超时时间由执行器使用默认值
+     */
+    public QueryMetadata toQueryMetadata() {
+        return QueryMetadata.builder()
+                .maxRows(this.maxRows == null ? 0 : this.maxRows)
+                .timeout(this.timeoutSeconds == null ? 0 : this.timeoutSeconds * 1000L)
+                .parameters(this.processedParameters)
+                .page(toPageRequest())
+                .build();
+    }
+
     /**
      * 应用参数值转换器
      *
@@ -0,0 +1,81 @@
+package com.insightdata.domain.adapter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.insightdata.domain.metadata.model.ColumnInfo;
+import com.insightdata.domain.metadata.model.ForeignKeyInfo;
+import com.insightdata.domain.metadata.model.IndexInfo;
+import com.insightdata.domain.metadata.model.TableInfo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CatalogAssembler类的单元测试
+ * 测试按表名分发的目录查询结果行能组装成完整的表定义
+ */
+public class CatalogAssemblerTest {
+
+    private static ColumnInfo column(String table, String name, boolean primaryKey) {
+        return ColumnInfo.builder().tableName(table).name(name).dataType("INTEGER").isPrimaryKey(primaryKey).build();
+    }
+
+    @Test
+    @DisplayName("测试列、外键和索引按表组装")
+    public void testAssembleTables() {
+        CatalogAssembler assembler = new CatalogAssembler("SALES");
+        assembler.addTable("ORDERS", "订单", 1200);
+        assembler.addTable("USERS", null, -1);
+
+        assembler.addColumn("ORDERS", column("ORDERS", "ID", true));
+        assembler.addColumn("ORDERS", column("ORDERS", "USER_ID", false));
+        assembler.addColumn("USERS", column("USERS", "ID", true));
+        assembler.addForeignKeyColumn("ORDERS", "FK_ORDERS_USER", "USERS", "USER_ID", "ID");
+        assembler.addIndexColumn("ORDERS", "IDX_ORDERS_USER", false, "USER_ID");
+        assembler.addIndexColumn("ORDERS", "IDX_ORDERS_USER", false, "ID");
+        assembler.addIndexColumn("USERS", "PK_USERS", true, "ID");
+
+        List<TableInfo> tables = assembler.getTables();
+        assertEquals(2, tables.size());
+
+        TableInfo orders = tables.get(0);
+        assertEquals("ORDERS", orders.getName());
+        assertEquals("SALES", orders.getSchemaName());
+        assertEquals(1200, orders.getRowCount());
+        assertEquals(Arrays.asList("ID", "USER_ID"), orders.getColumns().stream().map(ColumnInfo::getName).toList());
+
+        assertEquals(1, orders.getForeignKeys().size());
+        ForeignKeyInfo foreignKey = orders.getForeignKeys().get(0);
+        assertEquals("USERS", foreignKey.getTargetTableName());
+        assertEquals("USER_ID", foreignKey.getSourceColumnNamesAsString());
+        assertEquals("ID", foreignKey.getTargetColumnNamesAsString());
+
+        assertEquals(1, orders.getIndexes().size());
+        IndexInfo index = orders.getIndexes().get(0);
+        assertFalse(index.isUnique());
+        assertEquals(Arrays.asList("USER_ID", "ID"), index.getColumns());
+
+        TableInfo users = tables.get(1);
+        assertEquals(-1, users.getRowCount());
+        assertTrue(users.getIndexes().get(0).isUnique());
+        assertTrue(users.getForeignKeys().isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试未登记表的行被忽略")
+    public void testIgnoreUnknownTables() {
+        CatalogAssembler assembler = new CatalogAssembler("SALES");
+        assembler.addTable("ORDERS", null, 0);
+
+        assembler.addColumn("ORDER_VIEW", column("ORDER_VIEW", "ID", false));
+        assembler.addForeignKeyColumn("ORDER_VIEW", "FK", "USERS", "USER_ID", "ID");
+        assembler.addIndexColumn("ORDER_VIEW", "IDX", false, "ID");
+
+        List<TableInfo> tables = assembler.getTables();
+        assertEquals(1, tables.size());
+        assertTrue(tables.get(0).getColumns().isEmpty());
+    }
+}
@@ -0,0 +1,142 @@
+package com.insightdata.domain.adapter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.insightdata.domain.exception.QueryRejectedException;
+import com.insightdata.domain.query.enums.QueryPriority;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DataSourceConcurrencyLimiter类的单元测试
+ * 测试按数据源限制并发、排队上限与等待超时拒绝、按优先级转交许可、后台查询不受交互式排队上限和超时限制
+ */
+public class DataSourceConcurrencyLimiterTest {
+
+    private DataSourceConcurrencyLimiter limiter;
+
+    @BeforeEach
+    public void setUp() {
+        limiter = newLimiter(2, 50L, 100, 4);
+    }
+
+    private DataSourceConcurrencyLimiter newLimiter(int permits, long acquireTimeout, int maxQueueDepth, int interactiveWeight) {
+        DataSourceConcurrencyLimiter created = new DataSourceConcurrencyLimiter();
+        ReflectionTestUtils.setField(created, "maxConcurrentQueries", permits);
+        ReflectionTestUtils.setField(created, "acquireTimeout", acquireTimeout);
+        ReflectionTestUtils.setField(created, "backgroundAcquireTimeout", 10_000L);
+        ReflectionTestUtils.setField(created, "maxQueueDepth", maxQueueDepth);
+        ReflectionTestUtils.setField(created, "interactiveWeight", interactiveWeight);
+        return created;
+    }
+
+    @Test
+    @DisplayName("测试许可用尽后超时拒绝，其他数据源不受影响")
+    public void testRejectWhenExhausted() {
+        DataSourceConcurrencyLimiter.Permit first = limiter.acquire("ds1", QueryPriority.INTERACTIVE);
+        DataSourceConcurrencyLimiter.Permit second = limiter.acquire("ds1", QueryPriority.INTERACTIVE);
+
+        assertEquals(0, limiter.getAvailablePermits("ds1"));
+        assertThrows(QueryRejectedException.class, () -> limiter.acquire("ds1", QueryPriority.INTERACTIVE));
+        assertEquals(1, limiter.getTimeoutRejections());
+        assertEquals(0, limiter.getQueuedCount());
+        limiter.acquire("ds2", QueryPriority.INTERACTIVE).close();
+
+        first.close();
+        second.close();
+        assertEquals(2, limiter.getAvailablePermits("ds1"));
+    }
+
+    @Test
+    @DisplayName("测试重复关闭许可只归还一次")
+    public void testCloseIsIdempotent() {
+        DataSourceConcurrencyLimiter.Permit permit = limiter.acquire("ds1", QueryPriority.INTERACTIVE);
+        limiter.acquire("ds1", QueryPriority.INTERACTIVE);
+
+        permit.close();
+        permit.close();
+
+        assertEquals(1, limiter.getAvailablePermits("ds1"));
+    }
+
+    @Test
+    @DisplayName("测试排队数达到上限时立即拒绝")
+    public void testRejectWhenQueueFull() {
+        DataSourceConcurrencyLimiter limiter = newLimiter(1, 10_000L, 0, 4);
+        limiter.acquire("ds1", QueryPriority.INTERACTIVE);
+
+        long start = System.nanoTime();
+        assertThrows(QueryRejectedException.class, () -> limiter.acquire("ds1", QueryPriority.INTERACTIVE));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1, limiter.getQueueFullRejections());
+    }
+
+    @Test
+    @DisplayName("测试后台查询不计入交互式排队上限，等待超过交互式超时仍能获得许可")
+    public void testBackgroundQueue() throws Exception {
+        DataSourceConcurrencyLimiter limiter = newLimiter(1, 50L, 0, 4);
+        DataSourceConcurrencyLimiter.Permit holder = limiter.acquire("ds1", QueryPriority.INTERACTIVE);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        Thread first = waiter(limiter, QueryPriority.BACKGROUND, "b1", order);
+        Thread second = waiter(limiter, QueryPriority.BACKGROUND, "b2", order);
+        assertThrows(QueryRejectedException.class, () -> limiter.acquire("ds1", QueryPriority.INTERACTIVE));
+        // 超过交互式查询的等待超时后才归还许可
+        Thread.sleep(200);
+        holder.close();
+        first.join(10_000L);
+        second.join(10_000L);
+
+        assertEquals(List.of("b1", "b2"), order);
+        assertEquals(0, limiter.getTimeoutRejections());
+        assertEquals(1, limiter.getQueueFullRejections());
+    }
+
+    @Test
+    @DisplayName("测试交互式查询优先获得许可，后台查询按权重获得许可")
+    public void testPriorityOrder() throws Exception {
+        DataSourceConcurrencyLimiter limiter = newLimiter(1, 10_000L, 100, 2);
+        DataSourceConcurrencyLimiter.Permit holder = limiter.acquire("ds1", QueryPriority.INTERACTIVE);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        threads.add(waiter(limiter, QueryPriority.BACKGROUND, "b1", order));
+        threads.add(waiter(limiter, QueryPriority.INTERACTIVE, "i1", order));
+        threads.add(waiter(limiter, QueryPriority.INTERACTIVE, "i2", order));
+        threads.add(waiter(limiter, QueryPriority.INTERACTIVE, "i3", order));
+        holder.close();
+        for (Thread thread : threads) {
+            thread.join(10_000L);
+        }
+
+        // 交互式查询连续获得2个许可后让给等待中的后台查询
+        assertEquals(List.of("i1", "i2", "b1", "i3"), order);
+        assertEquals(4, limiter.getWaitCount());
+        assertEquals(1, limiter.getAvailablePermits("ds1"));
+    }
+
+    /**
+     * 启动一个等待许可的线程，并等到它进入等待队列
+     */
+    private Thread waiter(DataSourceConcurrencyLimiter limiter, QueryPriority priority, String name,
+                          List<String> order) throws InterruptedException {
+        int queued = limiter.getQueueDepth("ds1");
+        Thread thread = new Thread(() -> {
+            try (DataSourceConcurrencyLimiter.Permit permit = limiter.acquire("ds1", priority)) {
+                order.add(name);
+            }
+        });
+        thread.start();
+        while (limiter.getQueueDepth("ds1") == queued) {
+            Thread.sleep(1);
+        }
+        return thread;
+    }
+}
@@ -0,0 +1,124 @@
+package com.insightdata.domain.adapter;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.insightdata.domain.metadata.model.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DataSourceConnectionPoolRegistry类的单元测试
+ * 测试按数据源复用连接池、驱逐后重建、闲置连接池回收以及借用与驱逐并发时不使用已关闭的连接池
+ */
+public class DataSourceConnectionPoolRegistryTest {
+
+    private DataSourceConnectionPoolRegistry registry;
+
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new DataSourceConnectionPoolRegistry();
+        ReflectionTestUtils.setField(registry, "maxPoolSize", 4);
+        ReflectionTestUtils.setField(registry, "minIdle", 0);
+        ReflectionTestUtils.setField(registry, "idleTimeout", 600000L);
+        ReflectionTestUtils.setField(registry, "maxLifetime", 1800000L);
+        ReflectionTestUtils.setField(registry, "connectionTimeout", 5000L);
+        ReflectionTestUtils.setField(registry, "poolIdleTimeout", 1800000L);
+
+        dataSource = new DataSource();
+        dataSource.setId("ds1");
+        dataSource.setName("h2");
+        dataSource.setJdbcUrl("jdbc:h2:mem:pool_registry;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        registry.destroy();
+    }
+
+    @Test
+    @DisplayName("测试同一数据源复用连接池，驱逐后按需重建")
+    public void testReuseAndEvict() throws Exception {
+        try (Connection connection = registry.getConnection(dataSource)) {
+            assertTrue(connection.isValid(1));
+        }
+        assertTrue(registry.contains("ds1"));
+
+        registry.evict("ds1");
+        assertFalse(registry.contains("ds1"));
+
+        try (Connection connection = registry.getConnection(dataSource)) {
+            assertTrue(connection.isValid(1));
+        }
+        assertTrue(registry.contains("ds1"));
+    }
+
+    @Test
+    @DisplayName("测试只回收超过闲置时长且没有活跃连接的连接池")
+    public void testEvictIdlePools() throws Exception {
+        ReflectionTestUtils.setField(registry, "poolIdleTimeout", -1L);
+
+        try (Connection connection = registry.getConnection(dataSource)) {
+            registry.evictIdlePools();
+            assertTrue(registry.contains("ds1"));
+            assertTrue(connection.isValid(1));
+        }
+
+        registry.evictIdlePools();
+        assertFalse(registry.contains("ds1"));
+    }
+
+    @Test
+    @DisplayName("测试借用连接与驱逐、闲置回收并发执行时借用不失败")
+    public void testBorrowWhileEvicting() throws Exception {
+        ReflectionTestUtils.setField(registry, "poolIdleTimeout", -1L);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        List<Future<Integer>> borrowers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            borrowers.add(executor.submit(() -> {
+                int borrowed = 0;
+                while (running.get()) {
+                    // 连接池被驱逐时活跃连接会被中止，这里只验证借用本身不因连接池已关闭而失败
+                    try (Connection connection = registry.getConnection(dataSource)) {
+                        assertNotNull(connection);
+                        borrowed++;
+                    }
+                }
+                return borrowed;
+            }));
+        }
+        Future<?> evictor = executor.submit(() -> {
+            for (int i = 0; i < 200; i++) {
+                if (i % 2 == 0) {
+                    registry.evictIdlePools();
+                } else {
+                    registry.evict("ds1");
+                }
+            }
+            running.set(false);
+        });
+
+        evictor.get(60, TimeUnit.SECONDS);
+        for (Future<Integer> borrower : borrowers) {
+            assertTrue(borrower.get(60, TimeUnit.SECONDS) > 0);
+        }
+        executor.shutdown();
+    }
+}
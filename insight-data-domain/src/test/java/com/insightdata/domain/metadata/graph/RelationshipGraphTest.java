@@ -0,0 +1,105 @@
+package com.insightdata.domain.metadata.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.insightdata.domain.metadata.model.TableRelationship;
+import com.insightdata.domain.metadata.model.TableRelationship.RelationshipSource;
+import com.insightdata.domain.metadata.model.TableRelationship.RelationshipType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RelationshipGraph类的单元测试
+ * 测试经过中间表的Steiner连接树、k条最短连接路径以及关系增量更新后的路径变化
+ */
+public class RelationshipGraphTest {
+
+    private static TableRelationship relationship(String id, String source, String sourceColumns,
+                                                  String target, String targetColumns, double confidence) {
+        return TableRelationship.builder()
+                .id(id)
+                .dataSourceId("ds1")
+                .sourceTableName(source)
+                .sourceColumnNames(sourceColumns)
+                .targetTableName(target)
+                .targetColumnNames(targetColumns)
+                .relationType(RelationshipType.MANY_TO_ONE)
+                .relationSource(RelationshipSource.METADATA)
+                .confidence(confidence)
+                .frequency(10)
+                .build();
+    }
+
+    private static RelationshipGraph graph() {
+        List<TableRelationship> relationships = new ArrayList<>();
+        relationships.add(relationship("r1", "order_items", "order_id", "orders", "id", 1.0));
+        relationships.add(relationship("r2", "orders", "customer_id", "customers", "id", 1.0));
+        relationships.add(relationship("r3", "order_items", "product_id", "products", "id", 1.0));
+        relationships.add(relationship("r4", "products", "supplier_id", "suppliers", "id", 0.8));
+        relationships.add(relationship("r5", "customers", "region_id", "regions", "id", 0.9));
+        relationships.add(relationship("r6", "suppliers", "region_id", "regions", "id", 0.9));
+        return new RelationshipGraph("ds1", relationships);
+    }
+
+    @Test
+    @DisplayName("测试经过中间表连通请求表，并报告没有关系的表")
+    public void testConnectThroughIntermediateTables() {
+        JoinPlan plan = graph().connect(Arrays.asList("customers", "PRODUCTS", "audit_log"));
+
+        assertEquals(Arrays.asList("customers", "orders", "order_items", "products"), plan.getTables());
+        assertEquals(3, plan.getSteps().size());
+        assertEquals("orders", plan.getSteps().get(0).getTable());
+        assertEquals("customers", plan.getSteps().get(0).getJoinedTo());
+        assertEquals("r2", plan.getSteps().get(0).getRelationship().getId());
+        assertEquals(Arrays.asList("r2", "r1", "r3"),
+                plan.getRelationships().stream().map(TableRelationship::getId).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("audit_log"), plan.getUnreachableTables());
+        assertFalse(plan.isConnected());
+
+        JoinPlan single = graph().connect(Arrays.asList("orders"));
+        assertEquals(Arrays.asList("orders"), single.getTables());
+        assertTrue(single.getSteps().isEmpty());
+        assertTrue(single.isConnected());
+    }
+
+    @Test
+    @DisplayName("测试两张表之间按代价升序返回k条最短连接路径")
+    public void testShortestPaths() {
+        List<JoinPlan> paths = graph().shortestPaths("order_items", "regions", 3);
+
+        assertEquals(2, paths.size());
+        assertEquals(Arrays.asList("order_items", "orders", "customers", "regions"), paths.get(0).getTables());
+        assertEquals(Arrays.asList("order_items", "products", "suppliers", "regions"), paths.get(1).getTables());
+        assertTrue(paths.get(0).getCost() < paths.get(1).getCost());
+
+        assertEquals(1, graph().shortestPaths("order_items", "regions", 1).size());
+        assertTrue(graph().shortestPaths("order_items", "audit_log", 3).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试更新关系得分和删除关系后连接路径随之变化")
+    public void testIncrementalUpdates() {
+        RelationshipGraph graph = graph();
+
+        graph.upsert(relationship("r2", "orders", "customer_id", "customers", "id", 0.1));
+        assertEquals(6, graph.getRelationshipCount());
+        List<JoinPlan> paths = graph.shortestPaths("order_items", "regions", 3);
+        assertEquals(Arrays.asList("order_items", "products", "suppliers", "regions"), paths.get(0).getTables());
+
+        graph.remove(relationship("r4", "products", "supplier_id", "suppliers", "id", 0.8));
+        paths = graph.shortestPaths("order_items", "regions", 3);
+        assertEquals(1, paths.size());
+        assertEquals(Arrays.asList("order_items", "orders", "customers", "regions"), paths.get(0).getTables());
+
+        // 新增关系在两端表上都可见，表名忽略大小写
+        graph.upsert(relationship("r7", "Shipments", "order_id", "orders", "id", 1.0));
+        assertEquals(Arrays.asList("r1", "r2", "r7"), graph.getRelationships(Arrays.asList("ORDERS")).stream()
+                .map(TableRelationship::getId).sorted().collect(Collectors.toList()));
+    }
+}
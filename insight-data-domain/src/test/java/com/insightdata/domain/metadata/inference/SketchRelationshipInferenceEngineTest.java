@@ -0,0 +1,130 @@
+package com.insightdata.domain.metadata.inference;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.insightdata.domain.metadata.enums.DataSourceType;
+import com.insightdata.domain.metadata.model.TableRelationship;
+import com.insightdata.domain.metadata.model.TableRelationship.RelationshipType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SketchRelationshipInferenceEngine类的单元测试
+ * 测试列草图的基数和包含度估计、按方言生成的抽样查询以及基于LSH的关系推断
+ */
+public class SketchRelationshipInferenceEngineTest {
+
+    private static final Random RANDOM = new Random(42);
+
+    private static ColumnSketch sketch(String table, String column, ColumnSketch.ValueFamily family, boolean key,
+                                       long tableRows, boolean complete, int rows, LongFunction<Object> value) {
+        ColumnSketch sketch = new ColumnSketch(table, column, family, key, tableRows, 128, 11);
+        for (int i = 0; i < rows; i++) {
+            sketch.add(value.apply(i));
+        }
+        if (complete) {
+            sketch.markComplete();
+        }
+        return sketch;
+    }
+
+    @Test
+    @DisplayName("测试草图估计不同值个数和包含度")
+    public void testSketchEstimates() {
+        ColumnSketch ids = sketch("customers", "id", ColumnSketch.ValueFamily.NUMERIC, true, 20000, true,
+                20000, i -> i + 1);
+        Set<Object> referenced = new HashSet<>();
+        ColumnSketch refs = sketch("orders", "customer_id", ColumnSketch.ValueFamily.NUMERIC, false, 50000, false,
+                20000, i -> {
+                    long id = RANDOM.nextInt(5000) + 1;
+                    referenced.add(id);
+                    return id;
+                });
+        ColumnSketch other = sketch("payments", "amount", ColumnSketch.ValueFamily.NUMERIC, false, 20000, true,
+                20000, i -> i + 100_000);
+
+        assertEquals(20000, ids.getDistinctCount(), 20000 * 0.06);
+        assertEquals(referenced.size(), refs.getDistinctCount(), referenced.size() * 0.06);
+        assertTrue(ids.isKeyLike());
+        assertFalse(refs.isKeyLike());
+        assertTrue(refs.containmentIn(ids) > 0.85);
+        assertTrue(other.containmentIn(ids) < 0.05);
+
+        // 整数和小数部分为零的DECIMAL视为同一个值
+        assertEquals(ColumnSketch.normalize(5L), ColumnSketch.normalize(new BigDecimal("5.00")));
+    }
+
+    @Test
+    @DisplayName("测试按数据源方言生成抽样查询")
+    public void testSampleSql() {
+        List<String> columns = Arrays.asList("id", "customer_id");
+
+        assertEquals("SELECT `id`, `customer_id` FROM `shop`.`orders` LIMIT 1000",
+                ColumnSampler.sampleSql(DataSourceType.MYSQL, "shop", "orders", columns, 500, 1000));
+        assertEquals("SELECT `id`, `customer_id` FROM `shop`.`orders` WHERE RAND() < 0.0015 LIMIT 1000",
+                ColumnSampler.sampleSql(DataSourceType.MYSQL, "shop", "orders", columns, 1_000_000, 1000));
+        assertEquals("SELECT \"id\", \"customer_id\" FROM \"orders\" TABLESAMPLE BERNOULLI (0.15) LIMIT 1000",
+                ColumnSampler.sampleSql(DataSourceType.POSTGRESQL, null, "orders", columns, 1_000_000, 1000));
+        assertEquals("SELECT TOP 1000 [id], [customer_id] FROM [dbo].[orders] TABLESAMPLE (0.15 PERCENT)",
+                ColumnSampler.sampleSql(DataSourceType.SQLSERVER, "dbo", "orders", columns, 1_000_000, 1000));
+        assertEquals("SELECT \"id\", \"customer_id\" FROM \"APP\".\"ORDERS\" TABLESAMPLE BERNOULLI (0.15) "
+                        + "FETCH FIRST 1000 ROWS ONLY",
+                ColumnSampler.sampleSql(DataSourceType.DB2, "APP", "ORDERS", columns, 1_000_000, 1000));
+    }
+
+    @Test
+    @DisplayName("测试由列草图推断引用关系，排除偶然包含和覆盖率过低的被引用列")
+    public void testInferRelationships() {
+        List<ColumnSketch> sketches = new ArrayList<>();
+        sketches.add(sketch("customers", "id", ColumnSketch.ValueFamily.NUMERIC, true, 5000, true,
+                5000, i -> i + 1));
+        sketches.add(sketch("orders", "id", ColumnSketch.ValueFamily.NUMERIC, true, 20000, true,
+                20000, i -> i + 1));
+        sketches.add(sketch("orders", "customer_id", ColumnSketch.ValueFamily.NUMERIC, false, 20000, true,
+                20000, i -> (long) RANDOM.nextInt(4000) + 1));
+        sketches.add(sketch("products", "code", ColumnSketch.ValueFamily.TEXT, true, 300, true,
+                300, i -> String.format("P%04d", i)));
+        sketches.add(sketch("order_items", "product_code", ColumnSketch.ValueFamily.TEXT, false, 20000, true,
+                20000, i -> String.format("P%04d", RANDOM.nextInt(200))));
+        sketches.add(sketch("order_items", "quantity", ColumnSketch.ValueFamily.NUMERIC, false, 20000, true,
+                20000, i -> (long) RANDOM.nextInt(50) + 1));
+        sketches.add(sketch("order_items", "status", ColumnSketch.ValueFamily.NUMERIC, false, 20000, true,
+                20000, i -> (long) RANDOM.nextInt(3)));
+        // 百万行的账户表只抽样到2%的键值，不作为被引用一侧
+        sketches.add(sketch("accounts", "id", ColumnSketch.ValueFamily.NUMERIC, true, 1_000_000, false,
+                20000, i -> (long) RANDOM.nextInt(1_000_000) + 1));
+        sketches.add(sketch("orders", "account_id", ColumnSketch.ValueFamily.NUMERIC, false, 20000, true,
+                20000, i -> (long) RANDOM.nextInt(1_000_000) + 1));
+
+        List<TableRelationship> relationships = new SketchRelationshipInferenceEngine().infer("ds1", sketches, 0.7);
+
+        assertEquals(2, relationships.size(), relationships.toString());
+        TableRelationship customer = find(relationships, "customer_id");
+        assertEquals("orders", customer.getSourceTableName());
+        assertEquals("customers", customer.getTargetTableName());
+        assertEquals("id", customer.getTargetColumnNames());
+        assertEquals(RelationshipType.MANY_TO_ONE, customer.getRelationType());
+        assertTrue(customer.getConfidence() > 0.85);
+
+        TableRelationship product = find(relationships, "product_code");
+        assertEquals("products", product.getTargetTableName());
+        assertEquals("code", product.getTargetColumnNames());
+    }
+
+    private static TableRelationship find(List<TableRelationship> relationships, String sourceColumn) {
+        return relationships.stream()
+                .filter(r -> sourceColumn.equals(r.getSourceColumnNames()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("缺少关系: " + sourceColumn));
+    }
+}
@@ -0,0 +1,130 @@
+package com.insightdata.domain.metadata.learning;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.insightdata.domain.metadata.model.TableRelationship;
+import com.insightdata.domain.metadata.model.TableRelationship.RelationshipSource;
+import com.insightdata.domain.metadata.model.TableRelationship.RelationshipType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JoinPredicateExtractor类的单元测试
+ * 测试从SQL中提取列相等条件、并发累加出现次数以及与已有关系合并
+ */
+public class JoinPredicateExtractorTest {
+
+    @Test
+    @DisplayName("测试解析别名、USING、派生表和WHERE中的列相等条件")
+    public void testExtract() {
+        String sql = "SELECT o.id, c.name FROM shop.orders AS o\n"
+                + "  LEFT JOIN order_status USING (status_code)\n"
+                + "  INNER JOIN `customers` c ON o.customer_id = c.id AND o.amount > 0\n"
+                + "  JOIN (SELECT p.id, p.name FROM products p, suppliers s WHERE p.supplier_id = s.id) x ON x.id = o.id\n"
+                + "WHERE o.region = 'a.b = c.d' -- o.status = c.status\n"
+                + "  AND o.coupon_id = c.coupon_id AND o.total + 1 = c.credit";
+
+        List<JoinPredicate> predicates = JoinPredicateExtractor.extract(sql);
+
+        assertEquals(4, predicates.size(), predicates.toString());
+        assertTrue(predicates.contains(new JoinPredicate("orders", "customer_id", "customers", "id", true)));
+        assertTrue(predicates.contains(new JoinPredicate("orders", "status_code", "order_status", "status_code", true)));
+        assertTrue(predicates.contains(new JoinPredicate("products", "supplier_id", "suppliers", "id", false)));
+        JoinPredicate coupon = predicates.get(predicates.indexOf(
+                new JoinPredicate("orders", "coupon_id", "customers", "coupon_id", false)));
+        assertFalse(coupon.isJoinCondition());
+
+        // 自连接用不同别名时保留
+        assertEquals(1, JoinPredicateExtractor.extract(
+                "SELECT * FROM employees e JOIN employees m ON e.manager_id = m.id").size());
+    }
+
+    @Test
+    @DisplayName("测试子查询的别名作用域、相关子查询、公用表表达式和无法解析的SQL")
+    public void testScopes() {
+        // 子查询中的别名遮蔽外层的同名别名
+        assertEquals(List.of(new JoinPredicate("b", "x", "c", "x", false)), JoinPredicateExtractor.extract(
+                "SELECT * FROM a t WHERE EXISTS (SELECT 1 FROM b t, c WHERE t.x = c.x)"));
+        // 相关子查询引用外层的表
+        assertEquals(List.of(new JoinPredicate("invoices", "order_id", "orders", "id", false)),
+                JoinPredicateExtractor.extract("SELECT o.id FROM orders o WHERE o.amount > "
+                        + "(SELECT AVG(i.amount) FROM invoices i WHERE i.order_id = o.id)"));
+        // 公用表表达式的名称不对应实际的表，其内部的条件仍然提取
+        List<JoinPredicate> predicates = JoinPredicateExtractor.extract(
+                "WITH recent AS (SELECT o.* FROM orders o JOIN customers c ON o.customer_id = c.id) "
+                        + "SELECT * FROM recent r JOIN regions g ON r.region_id = g.id "
+                        + "UNION ALL SELECT * FROM orders o2, regions g2 WHERE o2.region_id = g2.id");
+        assertEquals(List.of(new JoinPredicate("orders", "customer_id", "customers", "id", true),
+                new JoinPredicate("orders", "region_id", "regions", "id", false)), predicates);
+        // 同一层中同一别名指向不同的表时无法解析
+        assertTrue(JoinPredicateExtractor.extract("SELECT * FROM a t, b t, c WHERE t.x = c.x").isEmpty());
+        assertTrue(JoinPredicateExtractor.extract("SELECT * FROM WHERE a.x = b.y").isEmpty());
+        assertTrue(JoinPredicateExtractor.extract(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试并发累加条件次数并按多数方向合并两个方向的条件")
+    public void testCounterMergesDirections() {
+        JoinPredicateCounter counter = new JoinPredicateCounter();
+        List<String> sqls = new ArrayList<>();
+        IntStream.range(0, 300).forEach(i -> sqls.add("SELECT * FROM orders o JOIN customers c ON o.customer_id = c.id"));
+        IntStream.range(0, 100).forEach(i -> sqls.add("SELECT * FROM customers c, orders o WHERE c.id = o.customer_id"));
+        IntStream.range(0, 50).forEach(i -> sqls.add("SELECT * FROM orders o, regions r WHERE o.region_id = r.id"));
+        sqls.add(null);
+        sqls.parallelStream().forEach(counter::add);
+
+        List<TableRelationship> relationships = counter.toRelationships("ds1");
+
+        assertEquals(2, relationships.size());
+        TableRelationship customer = relationships.get(0);
+        assertEquals("orders", customer.getSourceTableName());
+        assertEquals("customer_id", customer.getSourceColumnNames());
+        assertEquals("customers", customer.getTargetTableName());
+        assertEquals(400, customer.getFrequency());
+        assertEquals(JoinPredicateCounter.JOIN_CONFIDENCE, customer.getConfidence());
+        assertEquals(RelationshipSource.LEARNING, customer.getRelationSource());
+
+        TableRelationship region = relationships.get(1);
+        assertEquals(50, region.getFrequency());
+        assertEquals(JoinPredicateCounter.WHERE_CONFIDENCE, region.getConfidence());
+    }
+
+    @Test
+    @DisplayName("测试学习结果与已有关系合并，累加频率且不降低元数据关系的置信度")
+    public void testMergeIntoExisting() {
+        TableRelationship metadata = TableRelationship.builder()
+                .id("r1")
+                .dataSourceId("ds1")
+                .sourceTableName("Orders")
+                .sourceColumnNames("customer_id")
+                .targetTableName("Customers")
+                .targetColumnNames("id")
+                .relationType(RelationshipType.MANY_TO_ONE)
+                .relationSource(RelationshipSource.METADATA)
+                .confidence(0.5)
+                .frequency(3)
+                .build();
+        Map<String, TableRelationship> existing = new HashMap<>();
+        existing.put(QueryHistoryRelationshipLearner.linkKey(metadata), metadata);
+
+        JoinPredicateCounter counter = new JoinPredicateCounter();
+        counter.add("SELECT * FROM customers c JOIN orders o ON c.id = o.customer_id");
+        counter.add("SELECT * FROM orders o JOIN regions r ON o.region_id = r.id");
+
+        List<TableRelationship> changes = QueryHistoryRelationshipLearner.mergeInto(existing, counter.toRelationships("ds1"));
+
+        assertEquals(2, changes.size());
+        TableRelationship merged = changes.stream().filter(r -> "r1".equals(r.getId())).findFirst().orElseThrow();
+        assertSame(metadata, merged);
+        assertEquals(4, merged.getFrequency());
+        assertEquals(0.5, merged.getConfidence());
+        assertTrue(changes.stream().anyMatch(r -> r.getId() == null && "regions".equals(r.getTargetTableName())));
+    }
+}
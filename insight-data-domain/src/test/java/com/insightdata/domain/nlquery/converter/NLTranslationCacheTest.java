@@ -0,0 +1,84 @@
+package com.insightdata.domain.nlquery.converter;
+
+import com.insightdata.domain.nlquery.preprocess.normalizer.QueryTextCanonicalizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NLTranslationCache类的单元测试
+ * 测试规范化文本命中、快照版本隔离和按数据源失效
+ */
+public class NLTranslationCacheTest {
+
+    private NLTranslationCache cache;
+    private AtomicInteger translations;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new NLTranslationCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "expirationSeconds", 3600L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        cache.afterPropertiesSet();
+        translations = new AtomicInteger();
+    }
+
+    private SqlConversionResult translate(String dataSourceId, long version, String query) {
+        return cache.get(dataSourceId, version, QueryTextCanonicalizer.canonicalize(query), () -> {
+            translations.incrementAndGet();
+            return SqlConversionResult.builder().sql("SELECT * FROM orders").success(true).build();
+        });
+    }
+
+    @Test
+    @DisplayName("测试全角字符和空白差异命中同一条目")
+    public void testCanonicalTextHit() {
+        assertEquals("查询 orders 中 amount>100 的记录", QueryTextCanonicalizer.canonicalize("  查询　ｏｒｄｅｒｓ  中 amount＞１００ 的记录 "));
+
+        translate("ds1", 1, "查询 orders 中 amount>100 的记录");
+        SqlConversionResult result = translate("ds1", 1, "查询　ｏｒｄｅｒｓ   中 amount＞１００ 的记录");
+
+        assertEquals("SELECT * FROM orders", result.getSql());
+        assertEquals(1, translations.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    @DisplayName("测试快照版本变化和失效后重新翻译")
+    public void testVersionAndInvalidation() {
+        translate("ds1", 1, "查询订单");
+        translate("ds1", 2, "查询订单");
+        assertEquals(2, translations.get());
+
+        cache.invalidate("ds1");
+        assertEquals(0, cache.size());
+        translate("ds1", 2, "查询订单");
+        assertEquals(3, translations.get());
+
+        // 临时快照不缓存
+        translate("ds2", 0, "查询订单");
+        translate("ds2", 0, "查询订单");
+        assertEquals(5, translations.get());
+    }
+
+    @Test
+    @DisplayName("测试超过最大条目数时淘汰最久未使用的条目")
+    public void testEviction() {
+        translate("ds1", 1, "a");
+        translate("ds1", 1, "b");
+        translate("ds1", 1, "a");
+        translate("ds1", 1, "c");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        translate("ds1", 1, "a");
+        assertEquals(3, translations.get());
+    }
+}
@@ -0,0 +1,65 @@
+package com.insightdata.domain.nlquery.dictionary;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AhoCorasickMatcher类的单元测试
+ * 测试重叠命中、失败转移、大小写和整词匹配
+ */
+public class AhoCorasickMatcherTest {
+
+    private static List<String> describe(List<AhoCorasickMatcher.Match<String>> matches) {
+        return matches.stream()
+                .map(match -> match.getPayload() + "@" + match.getStart() + "-" + match.getEnd())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("测试重叠关键词和失败转移")
+    public void testOverlappingMatches() {
+        AhoCorasickMatcher<String> matcher = AhoCorasickMatcher.<String>builder()
+                .add("he", "he")
+                .add("she", "she")
+                .add("his", "his")
+                .add("hers", "hers")
+                .build();
+
+        assertEquals(Arrays.asList("she@1-4", "he@2-4", "hers@2-6"), describe(matcher.findAll("ushers")));
+        assertEquals(Arrays.asList("his@0-3", "she@2-5", "he@3-5"), describe(matcher.findAll("HIShe")));
+    }
+
+    @Test
+    @DisplayName("测试中文关键词和同一关键词的多个类别")
+    public void testChineseKeywords() {
+        AhoCorasickMatcher<String> matcher = AhoCorasickMatcher.<String>builder()
+                .add("等于", "operator")
+                .add("不等于", "operator")
+                .add("统计", "function")
+                .add("统计", "count")
+                .build();
+
+        assertEquals(Arrays.asList("function@0-2", "count@0-2", "operator@4-7", "operator@5-7"),
+                describe(matcher.findAll("统计状态不等于1的订单")));
+    }
+
+    @Test
+    @DisplayName("测试整词匹配只对英文单词生效")
+    public void testWholeWords() {
+        AhoCorasickMatcher<String> matcher = AhoCorasickMatcher.<String>builder()
+                .wholeWords(true)
+                .add("id", "id")
+                .add("用户", "user")
+                .build();
+
+        assertEquals(Arrays.asList("id@5-7"), describe(matcher.findAll("paid id")));
+        assertEquals(Arrays.asList("user@2-4", "id@4-6"), describe(matcher.findAll("查询用户id")));
+        assertTrue(matcher.findAll("valid_id").isEmpty());
+    }
+}
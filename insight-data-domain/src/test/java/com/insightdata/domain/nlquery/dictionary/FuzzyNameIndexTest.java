@@ -0,0 +1,121 @@
+package com.insightdata.domain.nlquery.dictionary;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FuzzyNameIndex和EditDistance类的单元测试
+ * 以朴素动态规划和全量扫描的结果作为基准
+ */
+public class FuzzyNameIndexTest {
+
+    private static final String ALPHABET = "abcde_销售额订单";
+
+    private static int naiveDistance(String a, String b) {
+        int[][] dp = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            dp[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            dp[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1), dp[i - 1][j - 1] + cost);
+            }
+        }
+        return dp[a.length()][b.length()];
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    @Test
+    @DisplayName("测试编辑距离与朴素算法一致")
+    public void testEditDistance() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            // 覆盖位并行（不超过64个字符）和动态规划两个分支
+            String a = randomString(random, i % 2 == 0 ? 12 : 80);
+            String b = randomString(random, i % 2 == 0 ? 12 : 80);
+            int expected = naiveDistance(a, b);
+            assertEquals(expected, EditDistance.levenshtein(a, b), a + " / " + b);
+            assertEquals(expected, EditDistance.of(a).distance(b, expected));
+            if (expected > 0) {
+                assertEquals(expected, EditDistance.of(a).distance(b, expected - 1));
+            }
+        }
+        assertEquals(3, EditDistance.levenshtein("kitten", "sitting"));
+    }
+
+    @Test
+    @DisplayName("测试模糊查找结果与全量扫描一致")
+    public void testSearchMatchesBruteForce() {
+        Random random = new Random(7);
+        Map<String, Integer> entries = new LinkedHashMap<>();
+        while (entries.size() < 500) {
+            entries.put(randomString(random, 10), entries.size());
+        }
+        FuzzyNameIndex<Integer> index = FuzzyNameIndex.of(entries);
+
+        for (int i = 0; i < 200; i++) {
+            String term = randomString(random, 10);
+            if (term.isEmpty()) {
+                continue;
+            }
+            double threshold = 0.5 + 0.1 * (i % 5);
+            List<Double> expected = new ArrayList<>();
+            for (String name : entries.keySet()) {
+                int longer = Math.max(term.length(), name.length());
+                double similarity = longer == 0 ? 1.0 : 1.0 - (double) naiveDistance(term, name) / longer;
+                if (similarity + 1e-9 >= threshold) {
+                    expected.add(similarity);
+                }
+            }
+            expected.sort(Comparator.reverseOrder());
+            List<Double> top = expected.stream().limit(5).collect(Collectors.toList());
+
+            List<Double> actual = index.search(term, threshold, 5).stream()
+                    .map(FuzzyNameIndex.Candidate::getSimilarity)
+                    .collect(Collectors.toList());
+            assertEquals(top.size(), actual.size(), term);
+            for (int k = 0; k < top.size(); k++) {
+                assertEquals(top.get(k), actual.get(k), 1e-9, term);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试按相似度返回最接近的名称")
+    public void testSearchTopCandidates() {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("customer_id", "c1");
+        entries.put("customer_name", "c2");
+        entries.put("order_id", "c3");
+        entries.put("销售额", "c4");
+        FuzzyNameIndex<String> index = FuzzyNameIndex.of(entries);
+
+        List<FuzzyNameIndex.Candidate<String>> candidates = index.search("Custmer_Id", 0.7, 2);
+        assertEquals("customer_id", candidates.get(0).getName());
+        assertEquals(1.0 - 1.0 / 11, candidates.get(0).getSimilarity(), 1e-9);
+        assertEquals("c4", index.search("销售金额", 0.7, 1).get(0).getPayload());
+        assertTrue(index.search("product", 0.8, 3).isEmpty());
+    }
+}
@@ -0,0 +1,121 @@
+package com.insightdata.domain.nlquery.executor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ColumnarResultSet单元测试
+ */
+public class ColumnarResultSetTest {
+
+    private ResultSet resultSet;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        // 三行数据: (1, 'north', 10.5), (2, 'south', null), (null, 'north', 4.5)
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(3);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnLabel(2)).thenReturn("region");
+        when(metaData.getColumnLabel(3)).thenReturn("amount");
+        when(metaData.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(metaData.getColumnType(2)).thenReturn(Types.VARCHAR);
+        when(metaData.getColumnType(3)).thenReturn(Types.DOUBLE);
+        when(metaData.getColumnTypeName(1)).thenReturn("INT");
+        when(metaData.getColumnTypeName(2)).thenReturn("VARCHAR");
+        when(metaData.getColumnTypeName(3)).thenReturn("DOUBLE");
+        when(metaData.isSigned(anyInt())).thenReturn(true);
+
+        resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.next()).thenReturn(true, true, true, false);
+        when(resultSet.getInt(1)).thenReturn(1, 2, 0);
+        when(resultSet.getString(2)).thenReturn("north", "south", "north");
+        when(resultSet.getDouble(3)).thenReturn(10.5, 0.0, 4.5);
+        // 每行先读int列再读double列，wasNull依次对应
+        when(resultSet.wasNull()).thenReturn(false, false, false, true, true, false);
+    }
+
+    @Test
+    @DisplayName("测试按列读取并通过行视图访问")
+    public void testReadAndRowView() throws Exception {
+        ColumnarResultSet columnar = ColumnarResultSet.read(resultSet);
+
+        assertEquals(3, columnar.getRowCount());
+        assertEquals(Arrays.asList("id", "region", "amount"), columnar.getColumnLabels());
+
+        List<Map<String, Object>> rows = columnar.asRows();
+        assertEquals(3, rows.size());
+        assertEquals(1, rows.get(0).get("id"));
+        assertEquals("south", rows.get(1).get("region"));
+        assertNull(rows.get(1).get("amount"));
+        assertNull(rows.get(2).get("id"));
+        assertTrue(rows.get(2).containsKey("id"));
+        assertEquals(3, rows.get(0).size());
+    }
+
+    @Test
+    @DisplayName("测试字符串列字典编码")
+    public void testDictionaryEncoding() throws Exception {
+        ColumnarResultSet columnar = ColumnarResultSet.read(resultSet);
+
+        ColumnVector region = columnar.getColumn("region");
+        assertTrue(region instanceof ColumnVector.DictionaryVector);
+        assertEquals(2, ((ColumnVector.DictionaryVector) region).cardinality());
+    }
+
+    @Test
+    @DisplayName("测试列上的排序与求和")
+    public void testSortAndSum() throws Exception {
+        ColumnarResultSet columnar = ColumnarResultSet.read(resultSet);
+
+        assertEquals(15.0, columnar.sum(2), 0.0001);
+        assertArrayEquals(new int[]{2, 0, 1}, columnar.sortIndex(0, true));
+        assertArrayEquals(new int[]{0, 2, 1}, columnar.sortIndex(2, false));
+    }
+
+    @Test
+    @DisplayName("测试无符号整数按精度选择列类型，REAL保持单精度取值")
+    public void testUnsignedAndRealColumns() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(4);
+        when(metaData.getColumnLabel(anyInt())).thenAnswer(invocation -> "c" + invocation.getArgument(0));
+        when(metaData.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(metaData.getColumnType(2)).thenReturn(Types.BIGINT);
+        when(metaData.getColumnType(3)).thenReturn(Types.REAL);
+        when(metaData.getColumnType(4)).thenReturn(Types.INTEGER);
+        when(metaData.getPrecision(1)).thenReturn(10);
+        when(metaData.getPrecision(2)).thenReturn(20);
+        when(metaData.getPrecision(4)).thenReturn(8);
+
+        ResultSet unsigned = mock(ResultSet.class);
+        when(unsigned.getMetaData()).thenReturn(metaData);
+        when(unsigned.next()).thenReturn(true, false);
+        when(unsigned.getLong(1)).thenReturn(4294967295L);
+        when(unsigned.getObject(2)).thenReturn(new BigInteger("18446744073709551615"));
+        when(unsigned.getFloat(3)).thenReturn(0.1f);
+        when(unsigned.getInt(4)).thenReturn(16777215);
+
+        ColumnarResultSet columnar = ColumnarResultSet.read(unsigned);
+        Map<String, Object> row = columnar.asRows().get(0);
+
+        assertEquals(4294967295L, row.get("c1"));
+        assertEquals(new BigInteger("18446744073709551615"), row.get("c2"));
+        assertEquals(0.1f, row.get("c3"));
+        assertEquals("0.1", String.valueOf(row.get("c3")));
+        assertEquals(16777215, row.get("c4"));
+        assertTrue(columnar.getColumn("c2").isNumeric());
+    }
+}
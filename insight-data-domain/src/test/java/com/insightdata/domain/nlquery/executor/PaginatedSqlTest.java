@@ -0,0 +1,129 @@
+package com.insightdata.domain.nlquery.executor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.insightdata.domain.metadata.enums.DataSourceType;
+import com.insightdata.domain.metadata.model.ColumnInfo;
+import com.insightdata.domain.metadata.model.SchemaInfo;
+import com.insightdata.domain.metadata.model.TableInfo;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshot;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PaginatedSql类的单元测试
+ * 测试方言对应的行数限制、排序包装、键集条件、游标编解码和唯一键判断
+ */
+public class PaginatedSqlTest {
+
+    private static QueryPageRequest.SortKey sort(String field, String order) {
+        return QueryPageRequest.SortKey.of(field, order);
+    }
+
+    @Test
+    @DisplayName("测试未排序时直接追加方言对应的行数限制")
+    public void testAppendLimitWithoutSort() {
+        QueryPageRequest page = QueryPageRequest.of(3, 20, Collections.emptyList(), null, false);
+
+        assertEquals("SELECT * FROM ORDERS ORDER BY ID LIMIT 21 OFFSET 40",
+                PaginatedSql.of("SELECT * FROM ORDERS ORDER BY ID;", DataSourceType.MYSQL, page).getSql());
+        assertEquals("SELECT * FROM ORDERS ORDER BY ID OFFSET 40 ROWS FETCH NEXT 21 ROWS ONLY",
+                PaginatedSql.of("SELECT * FROM ORDERS ORDER BY ID", DataSourceType.DB2, page).getSql());
+        assertEquals("SELECT * FROM ORDERS FETCH FIRST 11 ROWS ONLY",
+                PaginatedSql.of("SELECT * FROM ORDERS", DataSourceType.DB2,
+                        QueryPageRequest.of(1, 10, Collections.emptyList(), null, false)).getSql());
+    }
+
+    @Test
+    @DisplayName("测试原SQL已有行数限制或指定排序时包装为派生表")
+    public void testWrapWhenLimitedOrSorted() {
+        QueryPageRequest unsorted = QueryPageRequest.of(1, 10, Collections.emptyList(), null, false);
+        assertEquals("SELECT * FROM (SELECT * FROM ORDERS LIMIT 100) page_src LIMIT 11",
+                PaginatedSql.of("SELECT * FROM ORDERS LIMIT 100", DataSourceType.MYSQL, unsorted).getSql());
+
+        QueryPageRequest sorted = QueryPageRequest.of(2, 10,
+                Arrays.asList(sort("AMOUNT", "descend"), sort("ID", null)), null, false);
+        assertEquals("SELECT * FROM (SELECT * FROM ORDERS) page_src ORDER BY AMOUNT DESC, ID ASC LIMIT 11 OFFSET 10",
+                PaginatedSql.of("SELECT * FROM ORDERS", DataSourceType.MYSQL, sorted).getSql());
+    }
+
+    @Test
+    @DisplayName("测试键集分页展开行值比较并按顺序生成参数")
+    public void testKeysetPredicate() {
+        QueryPageRequest page = QueryPageRequest.of(5, 10,
+                Arrays.asList(sort("AMOUNT", "DESC"), sort("ID", "ASC")), Arrays.asList(99, 7), false);
+        page.setUniqueSort(true);
+
+        PaginatedSql paged = PaginatedSql.of("SELECT * FROM ORDERS", DataSourceType.DB2, page);
+
+        assertEquals("SELECT * FROM (SELECT * FROM ORDERS) page_src"
+                + " WHERE ((AMOUNT < ?) OR (AMOUNT = ? AND ID > ?))"
+                + " ORDER BY AMOUNT DESC, ID ASC FETCH FIRST 11 ROWS ONLY", paged.getSql());
+        assertEquals(Arrays.asList(99, 99, 7), paged.getParameters());
+    }
+
+    @Test
+    @DisplayName("测试排序不唯一时忽略游标退回偏移量分页")
+    public void testCursorIgnoredWithoutUniqueSort() {
+        QueryPageRequest page = QueryPageRequest.of(2, 10,
+                Collections.singletonList(sort("AMOUNT", null)), Collections.singletonList(99), false);
+
+        PaginatedSql paged = PaginatedSql.of("SELECT * FROM ORDERS", DataSourceType.MYSQL, page);
+
+        assertFalse(page.isKeyset());
+        assertTrue(paged.getSql().endsWith("LIMIT 11 OFFSET 10"));
+        assertTrue(paged.getParameters().isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试拒绝非法的排序字段")
+    public void testRejectInvalidSortField() {
+        QueryPageRequest page = QueryPageRequest.of(1, 10,
+                Collections.singletonList(sort("ID; DROP TABLE ORDERS", null)), null, false);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> PaginatedSql.of("SELECT * FROM ORDERS", DataSourceType.MYSQL, page));
+    }
+
+    @Test
+    @DisplayName("测试生成计数SQL和游标编解码")
+    public void testCountSqlAndCursor() {
+        assertEquals("SELECT COUNT(*) FROM (SELECT * FROM ORDERS) count_src",
+                PaginatedSql.countSql("SELECT * FROM ORDERS;"));
+
+        List<Object> values = Arrays.asList(99, "abc", null);
+        assertEquals(values, QueryPageRequest.decodeCursor(QueryPageRequest.encodeCursor(values)));
+        assertThrows(IllegalArgumentException.class, () -> QueryPageRequest.decodeCursor("not-a-cursor"));
+    }
+
+    @Test
+    @DisplayName("测试只有单表且排序覆盖主键时才认为唯一")
+    public void testCoversUniqueKey() {
+        TableInfo orders = new TableInfo();
+        orders.setName("ORDERS");
+        orders.setColumns(Arrays.asList(
+                ColumnInfo.builder().tableName("ORDERS").name("ID").isPrimaryKey(true).build(),
+                ColumnInfo.builder().tableName("ORDERS").name("AMOUNT").isPrimaryKey(false).build()));
+        TableInfo users = new TableInfo();
+        users.setName("USERS");
+        users.setColumns(Collections.singletonList(
+                ColumnInfo.builder().tableName("USERS").name("ID").isPrimaryKey(true).build()));
+        SchemaInfo schema = new SchemaInfo();
+        schema.setName("SALES");
+        schema.setTables(Arrays.asList(orders, users));
+        SchemaSnapshot snapshot = SchemaSnapshot.of("ds-1", 1, Collections.singletonList(schema));
+
+        List<QueryPageRequest.SortKey> byAmountAndId = Arrays.asList(sort("amount", null), sort("id", null));
+        assertTrue(PaginatedSql.coversUniqueKey(snapshot, "SELECT * FROM SALES.ORDERS WHERE AMOUNT > 0", byAmountAndId));
+        assertFalse(PaginatedSql.coversUniqueKey(snapshot, "SELECT * FROM ORDERS",
+                Collections.singletonList(sort("AMOUNT", null))));
+        assertFalse(PaginatedSql.coversUniqueKey(snapshot,
+                "SELECT * FROM ORDERS o JOIN USERS u ON o.ID = u.ID", byAmountAndId));
+        assertFalse(PaginatedSql.coversUniqueKey(snapshot, "SELECT * FROM (SELECT * FROM ORDERS) t", byAmountAndId));
+    }
+}
@@ -0,0 +1,206 @@
+package com.insightdata.domain.nlquery.executor;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * QueryResultCache类的单元测试
+ * 测试参数区分、并发加载只执行一次、失败传播、按字节预算淘汰、过期以及按数据源失效
+ */
+public class QueryResultCacheTest {
+
+    private static final String SQL = "SELECT id FROM orders";
+
+    private QueryResultCache cache;
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new QueryResultCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "expirationSeconds", 600L);
+        ReflectionTestUtils.setField(cache, "maxBytes", 1L << 20);
+        cache.afterPropertiesSet();
+        loads = new AtomicInteger();
+    }
+
+    private QueryResult load(String dataSourceId, String sql, Map<String, Object> parameters, int rows) {
+        return cache.get(dataSourceId, sql, parameters, () -> {
+            loads.incrementAndGet();
+            return result(rows);
+        });
+    }
+
+    @Test
+    @DisplayName("测试规范化SQL命中，不同参数不共享结果")
+    public void testKeyIncludesParameters() {
+        Map<String, Object> first = new HashMap<>();
+        first.put("region", "north");
+        load("ds1", SQL, first, 10);
+        load("ds1", "  SELECT   id FROM orders ;", new HashMap<>(first), 10);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+
+        // "Aa"与"BB"的哈希值相同，参数不同时不能命中
+        load("ds1", SQL, Collections.singletonMap("k", "Aa"), 10);
+        load("ds1", SQL, Collections.singletonMap("k", "BB"), 10);
+        assertEquals(3, loads.get());
+
+        load("ds1", SQL, null, 10);
+        load("ds1", SQL, Collections.emptyMap(), 10);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    @DisplayName("测试相同查询并发只执行一次，失败时等待者收到原异常")
+    public void testSingleFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<QueryResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> cache.get("ds1", SQL, null, () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return result(5);
+            })));
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<QueryResult> future : futures) {
+            assertEquals(5, future.get(10, TimeUnit.SECONDS).getColumnarData().getRowCount());
+        }
+        assertEquals(1, loads.get());
+
+        CountDownLatch failing = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        Future<?> owner = executor.submit(() -> cache.get("ds1", "SELECT 1 FROM dual", null, () -> {
+            failing.countDown();
+            await(fail);
+            throw new IllegalStateException("数据源不可用");
+        }));
+        assertTrue(failing.await(10, TimeUnit.SECONDS));
+        Future<?> waiter = executor.submit(() -> cache.get("ds1", "SELECT 1 FROM dual", null, () -> {
+            throw new AssertionError("等待者不应执行查询");
+        }));
+        Thread.sleep(100);
+        fail.countDown();
+        for (Future<?> future : Arrays.asList(owner, waiter)) {
+            Exception e = assertThrows(Exception.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("测试超出字节预算时淘汰较少使用的结果，总字节数不超过预算")
+    public void testByteBudgetEviction() {
+        long entryBytes = result(100).getColumnarData().estimatedBytes();
+        ReflectionTestUtils.setField(cache, "maxBytes", entryBytes * 2);
+        cache.afterPropertiesSet();
+
+        load("ds1", "SELECT a FROM t", null, 100);
+        load("ds1", "SELECT b FROM t", null, 100);
+        for (int i = 0; i < 5; i++) {
+            load("ds1", "SELECT a FROM t", null, 100);
+        }
+        load("ds1", "SELECT c FROM t", null, 100);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.getCurrentBytes() <= entryBytes * 2);
+        int before = loads.get();
+        load("ds1", "SELECT a FROM t", null, 100);
+        assertEquals(before, loads.get());
+
+        // 超过预算的单个结果不缓存
+        load("ds1", "SELECT d FROM t", null, 1000);
+        load("ds1", "SELECT d FROM t", null, 1000);
+        assertEquals(before + 2, loads.get());
+    }
+
+    @Test
+    @DisplayName("测试结果过期后重新查询")
+    public void testExpiration() throws Exception {
+        ReflectionTestUtils.setField(cache, "expirationSeconds", 0L);
+        cache.afterPropertiesSet();
+        load("ds1", SQL, null, 10);
+        Thread.sleep(20);
+        load("ds1", SQL, null, 10);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("测试按数据源失效，失效前开始的查询不写回旧结果")
+    public void testInvalidation() {
+        load("ds1", SQL, null, 10);
+        load("ds2", SQL, null, 10);
+        cache.invalidate("ds1");
+        load("ds1", SQL, null, 10);
+        load("ds2", SQL, null, 10);
+        assertEquals(3, loads.get());
+
+        cache.get("ds3", SQL, null, () -> {
+            loads.incrementAndGet();
+            cache.invalidate("ds3");
+            return result(10);
+        });
+        load("ds3", SQL, null, 10);
+        assertEquals(5, loads.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static QueryResult result(int rows) {
+        try {
+            ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+            when(metaData.getColumnCount()).thenReturn(1);
+            when(metaData.getColumnLabel(1)).thenReturn("id");
+            when(metaData.getColumnType(1)).thenReturn(Types.INTEGER);
+            when(metaData.isSigned(1)).thenReturn(true);
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.getMetaData()).thenReturn(metaData);
+            AtomicInteger remaining = new AtomicInteger(rows);
+            when(resultSet.next()).thenAnswer(invocation -> remaining.getAndDecrement() > 0);
+            when(resultSet.getInt(1)).thenAnswer(invocation -> remaining.get());
+            ColumnarResultSet columnar = ColumnarResultSet.read(resultSet);
+            return QueryResult.builder()
+                    .success(true)
+                    .columnarData(columnar)
+                    .totalRows(columnar.getRowCount())
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
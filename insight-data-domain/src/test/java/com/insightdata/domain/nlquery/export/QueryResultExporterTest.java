@@ -0,0 +1,243 @@
+package com.insightdata.domain.nlquery.export;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.insightdata.domain.query.model.ResultColumnConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * QueryResultExporter类的单元测试
+ * 测试CSV、XLSX和Parquet导出的列配置应用、格式化、转义和文件结构，Parquet文件用parquet-mr读回校验
+ */
+public class QueryResultExporterTest {
+
+    private static final List<String> LABELS = Arrays.asList("id", "name", "amount", "created_at", "secret");
+    private static final List<String> TYPES = Arrays.asList("BIGINT", "VARCHAR", "DECIMAL", "DATETIME", "VARCHAR");
+
+    private static List<ResultColumnConfig> configs() {
+        ResultColumnConfig name = ResultColumnConfig.builder()
+                .fieldName("NAME").displayName("名称").exportable(true).order(1).build();
+        ResultColumnConfig amount = ResultColumnConfig.builder()
+                .fieldName("amount").exportName("金额").decimalPlaces(2).emptyValue("-").exportable(true).order(2).build();
+        ResultColumnConfig secret = ResultColumnConfig.builder()
+                .fieldName("secret").exportable(false).build();
+        return Arrays.asList(amount, name, secret);
+    }
+
+    private static Object[] row(long id, String name, BigDecimal amount) {
+        return new Object[]{id, name, amount, Timestamp.valueOf(LocalDateTime.of(2024, 5, 1, 8, 30)), "x"};
+    }
+
+    private static byte[] export(QueryResultExporter exporter, Object[]... rows) throws Exception {
+        try (QueryResultExporter closing = exporter) {
+            closing.onColumns(LABELS, TYPES);
+            for (Object[] row : rows) {
+                closing.onRow(row);
+            }
+            closing.finish();
+        }
+        return ((ByteArrayOutputStream) exporter.outputStream).toByteArray();
+    }
+
+    @Test
+    @DisplayName("测试CSV导出按列配置排序、重命名、排除列并转义特殊字符")
+    public void testCsvExport() throws Exception {
+        byte[] bytes = export(new CsvResultExporter(new ByteArrayOutputStream(), configs()),
+                row(1, "a,\"b\"", new BigDecimal("3.14159")),
+                row(2, "多行\n文本", null));
+        String csv = new String(bytes, StandardCharsets.UTF_8);
+
+        assertTrue(csv.startsWith("\uFEFF"));
+        assertEquals("\uFEFF名称,金额,id,created_at\r\n"
+                + "\"a,\"\"b\"\"\",3.14,1,2024-05-01 08:30:00\r\n"
+                + "\"多行\n文本\",-,2,2024-05-01 08:30:00\r\n", csv);
+    }
+
+    @Test
+    @DisplayName("测试XLSX导出保持数值和日期类型并带表头")
+    public void testXlsxExport() throws Exception {
+        byte[] bytes = export(new XlsxResultExporter(new ByteArrayOutputStream(), configs()),
+                row(1, "甲", new BigDecimal("3.14159")),
+                row(9007199254740993L, "乙", null));
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(bytes))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals("名称", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("金额", sheet.getRow(0).getCell(1).getStringCellValue());
+            assertEquals(CellType.NUMERIC, sheet.getRow(1).getCell(1).getCellType());
+            assertEquals(3.14, sheet.getRow(1).getCell(1).getNumericCellValue(), 1e-9);
+            assertEquals("0.00", sheet.getRow(1).getCell(1).getCellStyle().getDataFormatString());
+            assertEquals("-", sheet.getRow(2).getCell(1).getStringCellValue());
+            assertEquals(LocalDateTime.of(2024, 5, 1, 8, 30), sheet.getRow(1).getCell(3).getLocalDateTimeCellValue());
+            // 超出双精度精确范围的长整数按文本写出
+            assertEquals("9007199254740993", sheet.getRow(2).getCell(2).getStringCellValue());
+            assertEquals(3, sheet.getPhysicalNumberOfRows());
+        }
+    }
+
+    @Test
+    @DisplayName("测试Parquet导出的文件结构，空结果也生成合法文件")
+    public void testParquetExport() throws Exception {
+        Object[][] rows = new Object[100][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = row(i, i % 3 == 0 ? null : "name-" + i, new BigDecimal(i + ".5"));
+        }
+        byte[] bytes = export(new ParquetResultExporter(new ByteArrayOutputStream(), configs(), 512), rows);
+
+        assertEquals("PAR1", new String(bytes, 0, 4, StandardCharsets.US_ASCII));
+        assertEquals("PAR1", new String(bytes, bytes.length - 4, 4, StandardCharsets.US_ASCII));
+        int footerLength = ByteBuffer.wrap(bytes, bytes.length - 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        assertTrue(footerLength > 0 && footerLength < bytes.length - 12);
+        String footer = new String(bytes, bytes.length - 8 - footerLength, footerLength, StandardCharsets.ISO_8859_1);
+        assertTrue(footer.contains("created_at"));
+        assertFalse(footer.contains("secret"));
+
+        // 空结果仍是合法的Parquet文件
+        byte[] empty = export(new ParquetResultExporter(new ByteArrayOutputStream(), Collections.emptyList()));
+        assertEquals("PAR1", new String(empty, empty.length - 4, 4, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    @DisplayName("测试parquet-mr读回多个行组的Parquet文件，校验模式、空值、定点数和时间戳")
+    public void testParquetRoundTrip(@TempDir Path directory) throws Exception {
+        List<String> labels = Arrays.asList("flag", "qty", "id", "amount", "ratio", "day", "created_at", "name");
+        List<String> types = Arrays.asList("BIT", "INT", "BIGINT", "DECIMAL", "DOUBLE", "DATE", "DATETIME", "VARCHAR");
+        List<ResultColumnConfig> configs = Collections.singletonList(ResultColumnConfig.builder()
+                .fieldName("amount").decimalPlaces(2).exportable(true).build());
+        int rowCount = 1000;
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            // 每列在不同的行上为空，行组中既有全部非空的列块也有混合的列块
+            rows.add(new Object[]{
+                    i % 5 == 0 ? null : i % 2 == 0,
+                    i % 7 == 0 ? null : i - 500,
+                    i % 11 == 0 ? null : Long.MAX_VALUE - i,
+                    i % 3 == 0 ? null : new BigDecimal((i - 500) + ".125"),
+                    i % 13 == 0 ? null : i / 8.0,
+                    i % 17 == 0 ? null : java.sql.Date.valueOf(LocalDate.of(1969, 12, 1).plusDays(i)),
+                    i % 19 == 0 ? null : Timestamp.valueOf(LocalDateTime.of(2024, 5, 1, 8, 30, 15, 123_000_000).plusMinutes(i)),
+                    i % 23 == 0 ? null : "名称-" + i});
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (QueryResultExporter exporter = new ParquetResultExporter(output, configs, 4096)) {
+            exporter.onColumns(labels, types);
+            for (Object[] row : rows) {
+                exporter.onRow(row);
+            }
+            exporter.finish();
+        }
+        Path file = directory.resolve("result.parquet");
+        Files.write(file, output.toByteArray());
+
+        List<Group> groups = new ArrayList<>();
+        int rowGroups = 0;
+        MessageType schema;
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(
+                new org.apache.hadoop.fs.Path(file.toUri()), new Configuration()))) {
+            schema = reader.getFooter().getFileMetaData().getSchema();
+            assertEquals(rowCount, reader.getRecordCount());
+            PageReadStore pages;
+            while ((pages = reader.readNextRowGroup()) != null) {
+                rowGroups++;
+                RecordReader<Group> records = new ColumnIOFactory().getColumnIO(schema)
+                        .getRecordReader(pages, new GroupRecordConverter(schema));
+                for (long i = 0; i < pages.getRowCount(); i++) {
+                    groups.add(records.read());
+                }
+            }
+        }
+
+        assertTrue(rowGroups > 1, "rowGroups=" + rowGroups);
+        assertEquals(labels, schema.getFields().stream().map(Type::getName).collect(Collectors.toList()));
+        assertEquals(PrimitiveTypeName.BOOLEAN, primitive(schema, "flag").getPrimitiveTypeName());
+        assertEquals(PrimitiveTypeName.INT32, primitive(schema, "qty").getPrimitiveTypeName());
+        assertEquals(PrimitiveTypeName.INT64, primitive(schema, "id").getPrimitiveTypeName());
+        assertEquals(LogicalTypeAnnotation.decimalType(2, 38), primitive(schema, "amount").getLogicalTypeAnnotation());
+        assertEquals(PrimitiveTypeName.DOUBLE, primitive(schema, "ratio").getPrimitiveTypeName());
+        assertEquals(LogicalTypeAnnotation.dateType(), primitive(schema, "day").getLogicalTypeAnnotation());
+        assertEquals(LogicalTypeAnnotation.timestampType(true, LogicalTypeAnnotation.TimeUnit.MILLIS),
+                primitive(schema, "created_at").getLogicalTypeAnnotation());
+        assertEquals(LogicalTypeAnnotation.stringType(), primitive(schema, "name").getLogicalTypeAnnotation());
+        schema.getFields().forEach(field -> assertEquals(Type.Repetition.OPTIONAL, field.getRepetition()));
+
+        assertEquals(rowCount, groups.size());
+        for (int i = 0; i < rowCount; i++) {
+            Object[] row = rows.get(i);
+            Group group = groups.get(i);
+            for (int column = 0; column < labels.size(); column++) {
+                assertEquals(row[column] == null ? 0 : 1, group.getFieldRepetitionCount(column),
+                        "row " + i + " column " + labels.get(column));
+            }
+            if (row[0] != null) {
+                assertEquals(row[0], group.getBoolean("flag", 0));
+            }
+            if (row[1] != null) {
+                assertEquals(row[1], group.getInteger("qty", 0));
+            }
+            if (row[2] != null) {
+                assertEquals(row[2], group.getLong("id", 0));
+            }
+            if (row[3] != null) {
+                BigDecimal amount = new BigDecimal(new BigInteger(group.getBinary("amount", 0).getBytes()), 2);
+                assertEquals(((BigDecimal) row[3]).setScale(2, RoundingMode.HALF_UP), amount);
+            }
+            if (row[4] != null) {
+                assertEquals((Double) row[4], group.getDouble("ratio", 0));
+            }
+            if (row[5] != null) {
+                assertEquals(((java.sql.Date) row[5]).toLocalDate().toEpochDay(), group.getInteger("day", 0));
+            }
+            if (row[6] != null) {
+                assertEquals(((Timestamp) row[6]).toLocalDateTime().toInstant(ZoneOffset.UTC).toEpochMilli(),
+                        group.getLong("created_at", 0));
+            }
+            if (row[7] != null) {
+                assertEquals(row[7], group.getString("name", 0));
+            }
+        }
+    }
+
+    private static PrimitiveType primitive(MessageType schema, String name) {
+        return schema.getType(name).asPrimitiveType();
+    }
+}
@@ -0,0 +1,172 @@
+package com.insightdata.domain.nlquery.format;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.insightdata.domain.nlquery.executor.ColumnarResultSet;
+import com.insightdata.domain.nlquery.executor.QueryResult;
+import com.insightdata.domain.query.model.ResultColumnConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ResultFormatter类的单元测试
+ * 测试列格式化器的编译、按列格式化、条件样式评估和编译结果缓存
+ */
+public class ResultFormatterTest {
+
+    private static Map<String, Object> rule(String operator, Object value, String color) {
+        Map<String, Object> rule = new LinkedHashMap<>();
+        rule.put("operator", operator);
+        rule.put("value", value);
+        rule.put("style", Collections.singletonMap("color", color));
+        return rule;
+    }
+
+    /**
+     * 单列DOUBLE结果，第i行的值为i，每1000行有一个空值
+     */
+    private static ColumnarResultSet amounts(int rows) throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("AMOUNT");
+        when(metaData.getColumnType(1)).thenReturn(Types.DOUBLE);
+        when(metaData.getColumnTypeName(1)).thenReturn("DOUBLE");
+
+        AtomicInteger row = new AtomicInteger(-1);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.next()).thenAnswer(invocation -> row.incrementAndGet() < rows);
+        when(resultSet.getDouble(1)).thenAnswer(invocation -> (double) row.get());
+        when(resultSet.wasNull()).thenAnswer(invocation -> row.get() % 1000 == 999);
+        return ColumnarResultSet.read(resultSet);
+    }
+
+    @Test
+    @DisplayName("测试按格式类型、模式和分隔符编译格式化器")
+    public void testCompileFormatter() {
+        ColumnFormatter currency = ColumnFormatter.compile(ResultColumnConfig.builder()
+                .formatType("CURRENCY").prefix("¥").build());
+        assertEquals("¥1,234,567.50", currency.format(new BigDecimal("1234567.5")));
+
+        ColumnFormatter percent = ColumnFormatter.compile(ResultColumnConfig.builder()
+                .formatType("PERCENT").decimalPlaces(1).build());
+        assertEquals("12.3%", percent.format(0.1234));
+
+        ColumnFormatter european = ColumnFormatter.compile(ResultColumnConfig.builder()
+                .decimalPlaces(2).thousandsSeparator(".").decimalSymbol(",").build());
+        assertEquals("1.234,57", european.format(1234.567));
+
+        ColumnFormatter separatorOnly = ColumnFormatter.compile(ResultColumnConfig.builder()
+                .thousandsSeparator(",").build());
+        assertEquals("12,345.678", separatorOnly.format(12345.678));
+        assertNull(separatorOnly.getNumberPattern());
+
+        ColumnFormatter date = ColumnFormatter.compile(ResultColumnConfig.builder()
+                .formatPattern("yyyy/MM/dd HH:mm").emptyValue("-").build());
+        assertEquals("2024/05/01 08:30", date.format(Timestamp.valueOf(LocalDateTime.of(2024, 5, 1, 8, 30))));
+        assertEquals("2024/05/01 00:00", date.format(LocalDate.of(2024, 5, 1)));
+        assertEquals("-", date.format(null));
+        // 日期模式不作用于数值
+        assertEquals("42", date.format(42));
+
+        // 不合法的模式被忽略
+        ColumnFormatter invalid = ColumnFormatter.compile(ResultColumnConfig.builder()
+                .formatType("DATE").formatPattern("yyyy-MM-dd'").build());
+        assertEquals("2024-05-01", invalid.format(LocalDate.of(2024, 5, 1)));
+    }
+
+    @Test
+    @DisplayName("测试按列格式化列式结果并评估条件样式")
+    public void testFormatColumnarResult() throws Exception {
+        int rows = 20_000;
+        ColumnarResultSet columnar = amounts(rows);
+        QueryResult result = QueryResult.builder()
+                .success(true)
+                .columnLabels(columnar.getColumnLabels())
+                .columnarData(columnar)
+                .rows(columnar.asRows())
+                .build();
+        Map<String, Object> between = rule("BETWEEN", 10, "green");
+        between.put("value2", 20);
+        ResultColumnConfig config = ResultColumnConfig.builder()
+                .fieldName("amount")
+                .formatType("NUMBER")
+                .formatPattern("#,##0.00")
+                .emptyValue("N/A")
+                .conditionalStyles(new ArrayList<>(Arrays.asList(
+                        rule(">=", 18_000, "red"),
+                        between,
+                        rule("EMPTY", null, "grey"))))
+                .build();
+
+        ResultFormatter formatter = new ResultFormatter();
+        FormattedColumn amount = formatter.format(result, Collections.singletonList(config)).get("AMOUNT");
+
+        assertEquals(rows, amount.getValues().length);
+        assertEquals("12,345.00", amount.getValues()[12345]);
+        assertEquals("N/A", amount.getValues()[999]);
+        assertEquals(0, amount.getStyleIndexes()[19_500]);
+        assertEquals(1, amount.getStyleIndexes()[15]);
+        assertEquals(2, amount.getStyleIndexes()[1999]);
+        assertEquals(-1, amount.getStyleIndexes()[500]);
+        assertEquals("red", amount.getStyles().get(0).get("color"));
+
+        // 相同配置再次格式化时复用编译结果
+        formatter.format(result, Collections.singletonList(config));
+        assertEquals(1, formatter.getMissCount());
+        assertEquals(1, formatter.getHitCount());
+    }
+
+    @Test
+    @DisplayName("测试按列格式化行式结果，未配置的列不返回")
+    public void testFormatRowResult() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (String status : Arrays.asList("PAID", "REFUNDED", "PENDING")) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("status", status);
+            row.put("id", rows.size());
+            rows.add(row);
+        }
+        QueryResult result = QueryResult.builder()
+                .success(true)
+                .columnLabels(Arrays.asList("id", "status"))
+                .rows(rows)
+                .build();
+        Map<String, Object> in = new LinkedHashMap<>();
+        in.put("operator", "IN");
+        in.put("values", Arrays.asList("REFUNDED", "CANCELLED"));
+        in.put("color", "orange");
+        ResultColumnConfig config = ResultColumnConfig.builder()
+                .fieldName("STATUS")
+                .prefix("[")
+                .suffix("]")
+                .conditionalStyles(new ArrayList<>(Arrays.asList(in, rule("STARTS_WITH", "PEN", "blue"))))
+                .build();
+
+        Map<String, FormattedColumn> formatted = new ResultFormatter().format(result, Collections.singletonList(config));
+
+        assertEquals(Collections.singleton("status"), formatted.keySet());
+        FormattedColumn status = formatted.get("status");
+        assertArrayEquals(new String[]{"[PAID]", "[REFUNDED]", "[PENDING]"}, status.getValues());
+        assertArrayEquals(new int[]{-1, 0, 1}, status.getStyleIndexes());
+        assertEquals(Collections.singletonMap("color", "orange"), status.getStyles().get(0));
+    }
+}
@@ -0,0 +1,85 @@
+package com.insightdata.domain.nlquery.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * QueryJobResultBuffer类的单元测试
+ * 测试内存结果、溢出到文件后的分页读取和行数上限截断
+ */
+public class QueryJobResultBufferTest {
+
+    @TempDir
+    Path tempDir;
+
+    private QueryJobResultBuffer fill(int rows, int spillThreshold, long maxRows) throws Exception {
+        QueryJobResultBuffer buffer = new QueryJobResultBuffer(new ObjectMapper(), tempDir, "job-1", spillThreshold, maxRows);
+        buffer.onColumns(Arrays.asList("id", "name"), Arrays.asList("INT", "VARCHAR"));
+        for (int i = 0; i < rows; i++) {
+            buffer.onRow(new Object[]{i, "name\n" + i});
+        }
+        buffer.finish();
+        return buffer;
+    }
+
+    @Test
+    @DisplayName("测试未超过阈值时结果保存在内存中")
+    public void testInMemory() throws Exception {
+        QueryJobResultBuffer buffer = fill(50, 100, 1000);
+
+        assertFalse(buffer.isSpilled());
+        List<Map<String, Object>> page = buffer.read(40, 20);
+        assertEquals(10, page.size());
+        assertEquals(40, page.get(0).get("id"));
+        assertEquals("name\n49", page.get(9).get("name"));
+    }
+
+    @Test
+    @DisplayName("测试溢出到文件后跨索引点分页读取")
+    public void testSpilledPaging() throws Exception {
+        QueryJobResultBuffer buffer = fill(5500, 100, 10000);
+
+        assertTrue(buffer.isSpilled());
+        assertEquals(5500, buffer.getRowCount());
+        for (long offset : new long[]{0, 99, 100, 999, 1000, 2345, 5490}) {
+            List<Map<String, Object>> page = buffer.read(offset, 20);
+            assertEquals(Math.min(20, 5500 - offset), page.size());
+            for (int i = 0; i < page.size(); i++) {
+                assertEquals((int) offset + i, page.get(i).get("id"));
+                assertEquals("name\n" + (offset + i), page.get(i).get("name"));
+            }
+        }
+        assertTrue(buffer.read(5500, 10).isEmpty());
+
+        buffer.close();
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("测试超过行数上限时截断")
+    public void testTruncation() throws Exception {
+        QueryJobResultBuffer buffer = new QueryJobResultBuffer(new ObjectMapper(), tempDir, "job-2", 10, 25);
+        buffer.onColumns(Arrays.asList("id"), Arrays.asList("INT"));
+        for (int i = 0; i < 25; i++) {
+            buffer.onRow(new Object[]{i});
+        }
+        assertThrows(QueryJobResultBuffer.RowLimitReachedException.class, () -> buffer.onRow(new Object[]{25}));
+        buffer.finish();
+
+        assertTrue(buffer.isTruncated());
+        assertEquals(25, buffer.getRowCount());
+        assertEquals(24, buffer.read(24, 10).get(0).get("id"));
+    }
+}
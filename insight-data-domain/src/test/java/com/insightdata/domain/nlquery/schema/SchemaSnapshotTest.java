@@ -0,0 +1,86 @@
+package com.insightdata.domain.nlquery.schema;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.insightdata.domain.metadata.model.ColumnInfo;
+import com.insightdata.domain.metadata.model.ForeignKeyColumnInfo;
+import com.insightdata.domain.metadata.model.ForeignKeyInfo;
+import com.insightdata.domain.metadata.model.SchemaInfo;
+import com.insightdata.domain.metadata.model.TableInfo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SchemaSnapshot类的单元测试
+ * 测试快照中的名称、描述、列和外键索引
+ */
+public class SchemaSnapshotTest {
+
+    private static ColumnInfo column(String table, String name, String description, boolean primaryKey) {
+        return ColumnInfo.builder().tableName(table).name(name).description(description).isPrimaryKey(primaryKey).build();
+    }
+
+    private static TableInfo table(String name, String description, List<ColumnInfo> columns, List<ForeignKeyInfo> foreignKeys) {
+        TableInfo table = new TableInfo();
+        table.setName(name);
+        table.setDescription(description);
+        table.setColumns(columns);
+        table.setForeignKeys(foreignKeys);
+        return table;
+    }
+
+    private static SchemaSnapshot sampleSnapshot() {
+        ForeignKeyInfo orderUser = ForeignKeyInfo.builder()
+                .name("FK_ORDERS_USER")
+                .sourceTableName("ORDERS")
+                .targetTableName("USERS")
+                .columns(Collections.singletonList(ForeignKeyColumnInfo.builder()
+                        .sourceColumnName("USER_ID")
+                        .targetColumnName("ID")
+                        .build()))
+                .build();
+        TableInfo users = table("USERS", "用户", Arrays.asList(
+                column("USERS", "ID", null, true),
+                column("USERS", "NAME", "姓名", false)), null);
+        TableInfo orders = table("ORDERS", "订单", Arrays.asList(
+                column("ORDERS", "ID", null, true),
+                column("ORDERS", "USER_ID", null, false)), Collections.singletonList(orderUser));
+
+        SchemaInfo schema = new SchemaInfo();
+        schema.setName("SALES");
+        schema.setTables(Arrays.asList(users, orders));
+        return SchemaSnapshot.of("ds-1", 1, Collections.singletonList(schema));
+    }
+
+    @Test
+    @DisplayName("测试按名称和描述查找表和列")
+    public void testLookupByTerm() {
+        SchemaSnapshot snapshot = sampleSnapshot();
+
+        assertEquals("USERS", snapshot.findTable("users").getName());
+        assertEquals("ORDERS", snapshot.findTableByTerm("订单").getName());
+        assertEquals("NAME", snapshot.findColumnByTerm("姓名").getName());
+        assertEquals("USER_ID", snapshot.findColumn("orders", "user_id").getName());
+        assertNull(snapshot.findColumn("USERS", "USER_ID"));
+        assertEquals(Arrays.asList("ID", "USER_ID"),
+                snapshot.getColumns("ORDERS").stream().map(ColumnInfo::getName).toList());
+    }
+
+    @Test
+    @DisplayName("测试列所在表、主键和外键邻接关系")
+    public void testAdjacency() {
+        SchemaSnapshot snapshot = sampleSnapshot();
+
+        assertEquals(Arrays.asList("USERS", "ORDERS"), snapshot.getTablesWithColumn("id"));
+        assertEquals(Collections.singletonList("ID"), snapshot.getPrimaryKeyColumns("USERS"));
+        assertEquals("USERS", snapshot.getForeignKeys("ORDERS").get(0).getTargetTableName());
+        assertEquals("ORDERS", snapshot.getReferencingForeignKeys("users").get(0).getSourceTableName());
+        assertTrue(snapshot.getForeignKeys("USERS").isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getTables().clear());
+    }
+}
@@ -0,0 +1,154 @@
+package com.insightdata.domain.nlquery.sql;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.insightdata.domain.exception.UnsafeQueryException;
+import com.insightdata.domain.metadata.enums.DataSourceType;
+import com.insightdata.domain.metadata.model.DataSource;
+import com.insightdata.domain.metadata.model.SchemaInfo;
+import com.insightdata.domain.metadata.model.TableInfo;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshot;
+import com.insightdata.domain.nlquery.schema.SchemaSnapshotRegistry;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SqlGuard类的单元测试
+ * 测试方言对应的行数限制改写与追加，以及按表行数统计拒绝笛卡尔积和无条件聚合查询
+ */
+public class SqlGuardTest {
+
+    private SqlGuard guard;
+    private DataSource mysql;
+    private DataSource db2;
+
+    private static TableInfo table(String name, long rowCount) {
+        TableInfo table = new TableInfo();
+        table.setName(name);
+        table.setRowCount(rowCount);
+        table.setColumns(Collections.emptyList());
+        return table;
+    }
+
+    private static DataSource dataSource(DataSourceType type) {
+        DataSource dataSource = new DataSource();
+        dataSource.setId("ds-1");
+        dataSource.setType(type);
+        return dataSource;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        SchemaInfo schema = new SchemaInfo();
+        schema.setName("SALES");
+        schema.setTables(Arrays.asList(table("ORDERS", 5_000_000L), table("USERS", 20_000L), table("REGIONS", 30L)));
+        SchemaSnapshotRegistry registry = mock(SchemaSnapshotRegistry.class);
+        when(registry.get("ds-1")).thenReturn(SchemaSnapshot.of("ds-1", 1, Collections.singletonList(schema)));
+
+        guard = new SqlGuard();
+        ReflectionTestUtils.setField(guard, "schemaSnapshotRegistry", registry);
+        ReflectionTestUtils.setField(guard, "largeTableRows", 1_000_000L);
+        mysql = dataSource(DataSourceType.MYSQL);
+        db2 = dataSource(DataSourceType.DB2);
+    }
+
+    @Test
+    @DisplayName("测试没有行数限制时按方言追加上限")
+    public void testAppendRowLimit() {
+        assertEquals("SELECT * FROM USERS WHERE NAME = 'a; LIMIT 5' LIMIT 1001",
+                guard.guard("SELECT * FROM USERS WHERE NAME = 'a; LIMIT 5';", mysql, 1001));
+        assertEquals("SELECT * FROM USERS FETCH FIRST 1001 ROWS ONLY FOR READ ONLY",
+                guard.guard("SELECT * FROM USERS FOR READ ONLY", db2, 1001));
+        assertEquals("SELECT * FROM USERS", guard.guard("SELECT * FROM USERS", db2, 0));
+        // 子查询中的LIMIT不是外层查询的行数限制
+        assertEquals("SELECT * FROM (SELECT * FROM USERS LIMIT 5) t FETCH FIRST 11 ROWS ONLY",
+                guard.guard("SELECT * FROM (SELECT * FROM USERS LIMIT 5) t", db2, 11));
+    }
+
+    @Test
+    @DisplayName("测试按方言改写已有的行数限制")
+    public void testRewriteExistingLimit() {
+        assertEquals("SELECT * FROM USERS ORDER BY ID FETCH FIRST 10 ROWS ONLY",
+                guard.guard("SELECT * FROM USERS ORDER BY ID LIMIT 10", db2, 1001));
+        assertEquals("SELECT * FROM USERS OFFSET 20 ROWS FETCH NEXT 10 ROWS ONLY",
+                guard.guard("SELECT * FROM USERS LIMIT 20, 10", db2, 1001));
+        assertEquals("SELECT * FROM USERS LIMIT 10 OFFSET 20",
+                guard.guard("SELECT * FROM USERS OFFSET 20 ROWS FETCH NEXT 10 ROWS ONLY", mysql, 1001));
+        assertEquals("SELECT * FROM USERS LIMIT 1",
+                guard.guard("SELECT * FROM USERS FETCH FIRST ROW ONLY", mysql, 1001));
+        assertEquals("SELECT * FROM USERS LIMIT 10",
+                guard.guard("SELECT * FROM USERS LIMIT 10", mysql, 1001));
+    }
+
+    @Test
+    @DisplayName("测试拒绝大表的笛卡尔积，有连接条件或结果较小时放行")
+    public void testCartesianJoin() {
+        assertThrows(UnsafeQueryException.class,
+                () -> guard.guard("SELECT * FROM ORDERS, USERS", mysql, 1001));
+        assertThrows(UnsafeQueryException.class,
+                () -> guard.guard("SELECT * FROM ORDERS o JOIN USERS u WHERE o.AMOUNT > 0", mysql, 1001));
+        assertThrows(UnsafeQueryException.class,
+                () -> guard.guard("SELECT * FROM ORDERS CROSS JOIN USERS", mysql, 1001));
+
+        assertDoesNotThrow(() -> guard.guard(
+                "SELECT * FROM ORDERS, USERS WHERE ORDERS.USER_ID = USERS.ID", mysql, 1001));
+        assertDoesNotThrow(() -> guard.guard(
+                "SELECT * FROM SALES.ORDERS o JOIN USERS u ON o.USER_ID = u.ID", mysql, 1001));
+        assertDoesNotThrow(() -> guard.guard("SELECT * FROM USERS, REGIONS", mysql, 1001));
+    }
+
+    @Test
+    @DisplayName("测试拒绝大表上缺少过滤条件的聚合和去重查询")
+    public void testFullScanAggregation() {
+        assertThrows(UnsafeQueryException.class,
+                () -> guard.guard("SELECT COUNT(*) FROM ORDERS", mysql, 1001));
+        assertThrows(UnsafeQueryException.class,
+                () -> guard.guard("SELECT DISTINCT STATUS FROM ORDERS", db2, 1001));
+        assertThrows(UnsafeQueryException.class,
+                () -> guard.guard("SELECT STATUS FROM ORDERS GROUP BY STATUS", mysql, 1001));
+
+        assertDoesNotThrow(() -> guard.guard("SELECT * FROM ORDERS ORDER BY ID", mysql, 1001));
+        assertDoesNotThrow(() -> guard.guard("SELECT COUNT(*) FROM ORDERS WHERE USER_ID = ?", mysql, 1001));
+        assertDoesNotThrow(() -> guard.guard("SELECT COUNT(*) FROM USERS", mysql, 1001));
+        assertDoesNotThrow(() -> guard.guard("SELECT COUNT(*) FROM (SELECT * FROM ORDERS WHERE ID < 10) t", mysql, 1001));
+    }
+
+    @Test
+    @DisplayName("测试子查询、派生表和公用表表达式中的危险查询同样被拒绝")
+    public void testNestedQueries() {
+        assertThrows(UnsafeQueryException.class, () -> guard.guard(
+                "SELECT * FROM (SELECT STATUS, COUNT(*) c FROM ORDERS GROUP BY STATUS) t", mysql, 1001));
+        assertThrows(UnsafeQueryException.class, () -> guard.guard(
+                "SELECT * FROM USERS u WHERE u.ID IN (SELECT DISTINCT USER_ID FROM ORDERS)", mysql, 1001));
+        assertThrows(UnsafeQueryException.class, () -> guard.guard(
+                "WITH pairs AS (SELECT * FROM ORDERS, USERS) SELECT * FROM pairs WHERE ID = 1", db2, 1001));
+        assertThrows(UnsafeQueryException.class, () -> guard.guard(
+                "SELECT * FROM (SELECT USER_ID FROM ORDERS UNION SELECT ID FROM USERS) t WHERE USER_ID = 1", mysql, 1001));
+        assertThrows(UnsafeQueryException.class, () -> guard.guard(
+                "SELECT u.ID, (SELECT MAX(AMOUNT) FROM ORDERS) m FROM USERS u", mysql, 1001));
+
+        // 相关子查询带过滤条件，UNION ALL不需要去重
+        assertDoesNotThrow(() -> guard.guard("SELECT u.ID, (SELECT MAX(o.AMOUNT) FROM ORDERS o "
+                + "WHERE o.USER_ID = u.ID) m FROM USERS u", mysql, 1001));
+        assertDoesNotThrow(() -> guard.guard(
+                "SELECT * FROM (SELECT USER_ID FROM ORDERS UNION ALL SELECT ID FROM USERS) t", mysql, 1001));
+        assertDoesNotThrow(() -> guard.guard("WITH recent AS (SELECT * FROM ORDERS WHERE ID > 100) "
+                + "SELECT COUNT(*) FROM recent", db2, 1001));
+    }
+
+    @Test
+    @DisplayName("测试阈值为0时不检查，非查询语句不改写")
+    public void testDisabledAndNonQuery() {
+        ReflectionTestUtils.setField(guard, "largeTableRows", 0L);
+
+        assertEquals("SELECT COUNT(*) FROM ORDERS LIMIT 1001", guard.guard("SELECT COUNT(*) FROM ORDERS", mysql, 1001));
+        assertEquals("UPDATE USERS SET NAME = 'a'", guard.guard("UPDATE USERS SET NAME = 'a'", mysql, 1001));
+    }
+}
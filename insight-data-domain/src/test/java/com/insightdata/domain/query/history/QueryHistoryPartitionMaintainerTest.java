@@ -0,0 +1,71 @@
+package com.insightdata.domain.query.history;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * QueryHistoryPartitionMaintainer类的单元测试
+ * 测试按月分区的新增和过期分区的删除计划、首次拆分的起始月份，以及查询历史分页游标的编解码
+ */
+public class QueryHistoryPartitionMaintainerTest {
+
+    @Test
+    @DisplayName("测试从最后一个月份分区之后补齐后续分区并删除超出保留期的分区")
+    public void testPlan() {
+        YearMonth current = YearMonth.of(2026, 10);
+
+        QueryHistoryPartitionMaintainer.Plan initial = QueryHistoryPartitionMaintainer.plan(
+                Collections.singletonList("p_future"), null, current, 12, 2);
+        assertEquals(Arrays.asList(YearMonth.of(2026, 10), YearMonth.of(2026, 11), YearMonth.of(2026, 12)), initial.create);
+        assertTrue(initial.drop.isEmpty());
+
+        QueryHistoryPartitionMaintainer.Plan plan = QueryHistoryPartitionMaintainer.plan(
+                Arrays.asList("p202508", "p202509", "p202510", "p202610", "p202611", "p_future"), YearMonth.of(2020, 1), current, 12, 2);
+        assertEquals(Collections.singletonList(YearMonth.of(2026, 12)), plan.create);
+        assertEquals(Arrays.asList("p202508", "p202509"), plan.drop);
+        assertEquals("p202612", QueryHistoryPartitionMaintainer.partitionName(YearMonth.of(2026, 12)));
+
+        QueryHistoryPartitionMaintainer.Plan unlimited = QueryHistoryPartitionMaintainer.plan(
+                Arrays.asList("p201001", "p202612", "p_future"), null, current, 0, 2);
+        assertTrue(unlimited.create.isEmpty());
+        assertTrue(unlimited.drop.isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试还没有月份分区时从最早一条记录的月份开始拆分，过期的月份随即删除")
+    public void testPlanFromEarliest() {
+        YearMonth current = YearMonth.of(2026, 10);
+
+        QueryHistoryPartitionMaintainer.Plan plan = QueryHistoryPartitionMaintainer.plan(
+                Collections.singletonList("p_future"), YearMonth.of(2025, 8), current, 12, 1);
+        assertEquals(YearMonth.of(2025, 8), plan.create.get(0));
+        assertEquals(YearMonth.of(2026, 11), plan.create.get(plan.create.size() - 1));
+        assertEquals(16, plan.create.size());
+        assertEquals(Arrays.asList("p202508", "p202509"), plan.drop);
+
+        QueryHistoryPartitionMaintainer.Plan future = QueryHistoryPartitionMaintainer.plan(
+                Collections.singletonList("p_future"), YearMonth.of(2027, 1), current, 12, 0);
+        assertEquals(Collections.singletonList(current), future.create);
+        assertTrue(future.drop.isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试分页游标编解码以及无效游标")
+    public void testCursor() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 10, 18, 9, 30, 1, 123_000_000);
+        QueryHistoryCursor cursor = QueryHistoryCursor.decode(new QueryHistoryCursor(createdAt, "42").encode());
+
+        assertEquals(createdAt, cursor.getCreatedAt());
+        assertEquals("42", cursor.getId());
+        assertThrows(IllegalArgumentException.class, () -> QueryHistoryCursor.decode("not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> QueryHistoryCursor.decode(
+                new QueryHistoryCursor(null, "42").encode()));
+    }
+}
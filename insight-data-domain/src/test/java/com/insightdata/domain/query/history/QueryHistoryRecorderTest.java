@@ -0,0 +1,219 @@
+package com.insightdata.domain.query.history;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.insightdata.domain.metadata.repository.QueryHistoryRepository;
+import com.insightdata.domain.query.model.QueryHistory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * QueryHistoryRecorder类的单元测试
+ * 测试环形缓冲区的并发写入、满时丢弃以及记录器的批量写入和关闭时写完剩余记录
+ */
+public class QueryHistoryRecorderTest {
+
+    @Test
+    @DisplayName("测试多个生产者并发写入时不丢失、不重复，满时拒绝写入")
+    public void testRingBufferConcurrentOffer() throws Exception {
+        RingBuffer<Integer> buffer = new RingBuffer<>(1000);
+        assertEquals(1024, buffer.capacity());
+
+        int producers = 4;
+        int perProducer = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        Set<Integer> consumed = new HashSet<>();
+        List<Integer> batch = new ArrayList<>();
+        while (consumed.size() < producers * perProducer) {
+            batch.clear();
+            buffer.drainTo(batch, 100);
+            for (Integer value : batch) {
+                assertTrue(consumed.add(value), "重复取出: " + value);
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(buffer.isEmpty());
+
+        RingBuffer<Integer> small = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(small.offer(i));
+        }
+        assertFalse(small.offer(4));
+        assertEquals(4, small.size());
+    }
+
+    @Test
+    @DisplayName("测试按批次写入、写入失败计数以及关闭时写完缓冲区")
+    public void testRecorderFlushesInBatches() throws Exception {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        RecordingRepository repository = new RecordingRepository(batchSizes);
+        QueryHistoryRecorder recorder = newRecorder(repository, 4096);
+        repository.failNext = true;
+        recorder.afterPropertiesSet();
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(recorder.record(history(i)));
+        }
+        recorder.destroy();
+
+        assertFalse(recorder.record(history(-1)));
+        assertEquals(1000, recorder.getRecordedCount());
+        assertEquals(1000, recorder.getWrittenCount() + recorder.getFailedCount());
+        assertEquals((long) batchSizes.get(0), recorder.getFailedCount());
+        assertEquals(1, recorder.getDroppedCount());
+        assertEquals(0, recorder.getPendingCount());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 100), batchSizes.toString());
+    }
+
+    @Test
+    @DisplayName("测试缓冲区满时DROP策略立即丢弃")
+    public void testDropWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingRepository repository = new RecordingRepository(new ArrayList<>());
+        repository.blocker = release;
+        QueryHistoryRecorder recorder = newRecorder(repository, 16);
+        ReflectionTestUtils.setField(recorder, "batchSize", 16);
+        recorder.afterPropertiesSet();
+
+        int accepted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (recorder.record(history(i))) {
+                accepted++;
+            }
+        }
+        release.countDown();
+        recorder.destroy();
+
+        assertTrue(accepted < 100);
+        assertEquals(100 - accepted, recorder.getDroppedCount());
+        assertEquals(accepted, recorder.getWrittenCount());
+    }
+
+    private static QueryHistoryRecorder newRecorder(QueryHistoryRepository repository, int bufferSize) {
+        QueryHistoryRecorder recorder = new QueryHistoryRecorder();
+        ReflectionTestUtils.setField(recorder, "queryHistoryRepository", repository);
+        ReflectionTestUtils.setField(recorder, "enabled", true);
+        ReflectionTestUtils.setField(recorder, "bufferSize", bufferSize);
+        ReflectionTestUtils.setField(recorder, "batchSize", 100);
+        ReflectionTestUtils.setField(recorder, "flushIntervalMillis", 10_000L);
+        ReflectionTestUtils.setField(recorder, "overflowPolicy", QueryHistoryRecorder.OverflowPolicy.DROP);
+        ReflectionTestUtils.setField(recorder, "shutdownTimeoutMillis", 10_000L);
+        return recorder;
+    }
+
+    private static QueryHistory history(int i) {
+        QueryHistory history = new QueryHistory();
+        history.setDataSourceId("ds1");
+        history.setExecutedSql("SELECT " + i);
+        history.setExecutedAt(LocalDateTime.now());
+        return history;
+    }
+
+    private static class RecordingRepository implements QueryHistoryRepository {
+
+        private final List<Integer> batchSizes;
+
+        private volatile boolean failNext;
+
+        private volatile CountDownLatch blocker;
+
+        RecordingRepository(List<Integer> batchSizes) {
+            this.batchSizes = batchSizes;
+        }
+
+        @Override
+        public void saveAll(List<QueryHistory> histories) {
+            if (blocker != null) {
+                try {
+                    blocker.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            batchSizes.add(histories.size());
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("数据库不可用");
+            }
+        }
+
+        @Override
+        public List<QueryHistory> findByDataSourceIdOrderByCreatedAtDesc(String dataSourceId) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public QueryHistory save(QueryHistory queryHistory) {
+            return queryHistory;
+        }
+
+        @Override
+        public Optional<QueryHistory> findById(String id) {
+            return Optional.empty();
+        }
+
+        @Override
+        public List<QueryHistory> findByDataSourceIdAfter(String dataSourceId, LocalDateTime afterCreatedAt,
+                                                          String afterId, LocalDateTime before, int limit) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<QueryHistory> findPageByDataSourceId(String dataSourceId, LocalDateTime beforeCreatedAt,
+                                                         String beforeId, int limit) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<QueryHistory> findPageByDataSourceId(String dataSourceId, int offset, int limit) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Optional<LocalDateTime> findEarliestCreatedAt() {
+            return Optional.empty();
+        }
+
+        @Override
+        public List<String> findPartitionNames() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void splitFuturePartition(String partitionName, LocalDate lessThan) {
+        }
+
+        @Override
+        public void dropPartitions(List<String> partitionNames) {
+        }
+    }
+}
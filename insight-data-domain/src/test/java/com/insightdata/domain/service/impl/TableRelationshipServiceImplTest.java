@@ -1,8 +1,10 @@
 package com.insightdata.domain.service.impl;
 
+import com.insightdata.domain.metadata.graph.RelationshipGraphRegistry;
 import com.insightdata.domain.metadata.model.*;
 import com.insightdata.domain.metadata.service.impl.TableRelationshipServiceImpl;
 import com.insightdata.domain.metadata.repository.TableRelationshipRepository;
+import com.insightdata.domain.nlquery.converter.NLTranslationCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -29,6 +31,12 @@ public class TableRelationshipServiceImplTest {
     @Mock
     private TableRelationshipRepository tableRelationshipRepository;
 
+    @Mock
+    private NLTranslationCache translationCache;
+
+    @Mock
+    private RelationshipGraphRegistry relationshipGraphRegistry;
+
     @InjectMocks
     private TableRelationshipServiceImpl tableRelationshipService;
 
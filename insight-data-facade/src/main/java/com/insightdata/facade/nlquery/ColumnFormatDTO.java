@@ -0,0 +1,69 @@
+package com.insightdata.facade.nlquery;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 结果列格式配置DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColumnFormatDTO {
+    
+    /**
+     * 字段名，与查询结果的列标签匹配（忽略大小写）
+     */
+    private String fieldName;
+    
+    /**
+     * 格式化类型：NUMBER、CURRENCY、PERCENT、DATE、DATETIME等
+     */
+    private String formatType;
+    
+    /**
+     * 格式化模式，例如: "yyyy-MM-dd", "#,##0.00"
+     */
+    private String formatPattern;
+    
+    /**
+     * 小数位数
+     */
+    private Integer decimalPlaces;
+    
+    /**
+     * 千分位分隔符
+     */
+    private String thousandsSeparator;
+    
+    /**
+     * 小数点符号
+     */
+    private String decimalSymbol;
+    
+    /**
+     * 前缀
+     */
+    private String prefix;
+    
+    /**
+     * 后缀
+     */
+    private String suffix;
+    
+    /**
+     * 空值显示文本
+     */
+    private String emptyValue;
+    
+    /**
+     * 条件样式规则，例如: {"operator": "GT", "value": 100, "style": {"color": "red"}}
+     */
+    private List<Map<String, Object>> conditionalStyles;
+}
@@ -0,0 +1,81 @@
+package com.insightdata.facade.nlquery;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 导出列配置DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportColumnDTO {
+    
+    /**
+     * 字段名，与查询结果的列标签匹配（忽略大小写）
+     */
+    private String fieldName;
+    
+    /**
+     * 导出时的列名，为空时使用显示名称
+     */
+    private String exportName;
+    
+    /**
+     * 显示名称
+     */
+    private String displayName;
+    
+    /**
+     * 是否导出，为空时导出
+     */
+    private Boolean exportable;
+    
+    /**
+     * 导出顺序，未设置的列按结果集中的顺序排在后面
+     */
+    private Integer order;
+    
+    /**
+     * 格式化类型
+     */
+    private String formatType;
+    
+    /**
+     * 格式化模式，例如: "yyyy-MM-dd", "#,##0.00"
+     */
+    private String formatPattern;
+    
+    /**
+     * 小数位数
+     */
+    private Integer decimalPlaces;
+    
+    /**
+     * 千分位分隔符
+     */
+    private String thousandsSeparator;
+    
+    /**
+     * 小数点符号
+     */
+    private String decimalSymbol;
+    
+    /**
+     * 前缀
+     */
+    private String prefix;
+    
+    /**
+     * 后缀
+     */
+    private String suffix;
+    
+    /**
+     * 空值显示文本
+     */
+    private String emptyValue;
+}
@@ -0,0 +1,53 @@
+package com.insightdata.facade.nlquery;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 自然语言查询结果导出请求DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NLQueryExportRequest {
+    
+    /**
+     * 数据源ID
+     */
+    private String dataSourceId;
+    
+    /**
+     * 自然语言查询
+     */
+    private String query;
+    
+    /**
+     * 发起导出的用户ID（用于按用户限流）
+     */
+    private String userId;
+    
+    /**
+     * 最大导出行数，为空或超过上限时取导出行数上限
+     */
+    private Integer maxRows;
+    
+    /**
+     * 导出格式：CSV、XLSX、PARQUET，为空时为CSV
+     */
+    private String format;
+    
+    /**
+     * 下载文件名（不含扩展名），为空时使用默认文件名
+     */
+    private String fileName;
+    
+    /**
+     * 导出列配置，为空时按结果集的列原样导出
+     */
+    private List<ExportColumnDTO> columns;
+}
@@ -27,6 +27,11 @@ public class NLQueryRequest {
      */
     private String query;
     
+    /**
+     * 发起查询的用户ID（用于按用户限流）
+     */
+    private String userId;
+    
     /**
      * 最大返回行数
      */
@@ -52,6 +57,11 @@ public class NLQueryRequest {
      */
     private Map<String, Object> parameters;
     
+    /**
+     * 结果列格式配置，配置了格式的列在响应的formattedColumns中返回格式化结果
+     */
+    private List<ColumnFormatDTO> columnFormats;
+    
     /**
      * 标签
      */
@@ -63,6 +63,26 @@ public class NLQueryResponse {
      */
     private Boolean truncated;
     
+    /**
+     * 页码（分页查询时有值）
+     */
+    private Integer pageNum;
+    
+    /**
+     * 每页行数（分页查询时有值）
+     */
+    private Integer pageSize;
+    
+    /**
+     * 是否还有下一页
+     */
+    private Boolean hasMore;
+    
+    /**
+     * 下一页的游标，作为cursor参数传入可按键集读取下一页
+     */
+    private String nextCursor;
+    
     /**
      * 查询状态（成功/失败）
      */
@@ -98,6 +118,11 @@ public class NLQueryResponse {
      */
     private LocalDateTime timestamp;
     
+    /**
+     * 按列返回的格式化结果（列名 -> 格式化列），仅包含请求中配置了格式的列，行顺序与data一致
+     */
+    private Map<String, FormattedColumn> formattedColumns;
+    
     /**
      * 列元数据
      */
@@ -142,4 +167,29 @@ public class NLQueryResponse {
          */
         private Boolean nullable;
     }
-}
\ No newline at end of file
+    
+    /**
+     * 格式化列
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class FormattedColumn {
+        
+        /**
+         * 格式化后的值，与data的行一一对应
+         */
+        private List<String> values;
+        
+        /**
+         * 每行命中的条件样式在styles中的序号，未命中为-1；列没有条件样式时为null
+         */
+        private int[] styleIndexes;
+        
+        /**
+         * 条件样式
+         */
+        private List<Map<String, Object>> styles;
+    }
+}
@@ -0,0 +1,73 @@
+package com.insightdata.facade.nlquery;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 异步查询作业DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryJobDTO {
+
+    /**
+     * 作业ID
+     */
+    private String jobId;
+
+    /**
+     * 数据源ID
+     */
+    private String dataSourceId;
+
+    /**
+     * 原始自然语言查询
+     */
+    private String originalQuery;
+
+    /**
+     * 作业状态（QUEUED/RUNNING/COMPLETED/FAILED/CANCELLED）
+     */
+    private String status;
+
+    /**
+     * 已读取的结果行数
+     */
+    private Long totalRows;
+
+    /**
+     * 结果是否因超过行数上限被截断
+     */
+    private Boolean truncated;
+
+    /**
+     * 执行时间（毫秒）
+     */
+    private Long executionTime;
+
+    /**
+     * 错误信息（如果失败）
+     */
+    private String errorMessage;
+
+    /**
+     * 提交时间
+     */
+    private LocalDateTime submittedAt;
+
+    /**
+     * 开始执行时间
+     */
+    private LocalDateTime startedAt;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime finishedAt;
+}
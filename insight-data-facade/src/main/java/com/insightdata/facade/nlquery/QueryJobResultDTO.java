@@ -0,0 +1,59 @@
+package com.insightdata.facade.nlquery;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 异步查询作业结果分页DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryJobResultDTO {
+
+    /**
+     * 作业ID
+     */
+    private String jobId;
+
+    /**
+     * 列标签
+     */
+    private List<String> columns;
+
+    /**
+     * 列数据类型
+     */
+    private List<String> columnTypes;
+
+    /**
+     * 本页数据
+     */
+    private List<Map<String, Object>> data;
+
+    /**
+     * 本页起始行
+     */
+    private Long offset;
+
+    /**
+     * 总行数
+     */
+    private Long totalRows;
+
+    /**
+     * 是否还有后续数据
+     */
+    private Boolean hasMore;
+
+    /**
+     * 结果是否因超过行数上限被截断
+     */
+    private Boolean truncated;
+}
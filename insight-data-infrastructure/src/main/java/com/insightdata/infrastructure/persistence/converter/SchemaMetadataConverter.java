@@ -0,0 +1,182 @@
+package com.insightdata.infrastructure.persistence.converter;
+
+import com.insightdata.domain.metadata.model.ColumnInfo;
+import com.insightdata.domain.metadata.model.ForeignKeyColumnInfo;
+import com.insightdata.domain.metadata.model.ForeignKeyInfo;
+import com.insightdata.domain.metadata.model.IndexInfo;
+import com.insightdata.domain.metadata.model.SchemaInfo;
+import com.insightdata.domain.metadata.model.TableInfo;
+import com.insightdata.infrastructure.persistence.entity.ColumnInfoEntity;
+import com.insightdata.infrastructure.persistence.entity.ForeignKeyInfoEntity;
+import com.insightdata.infrastructure.persistence.entity.IndexInfoEntity;
+import com.insightdata.infrastructure.persistence.entity.SchemaInfoEntity;
+import com.insightdata.infrastructure.persistence.entity.TableInfoEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Schema、表、列、索引和外键的实体与领域模型之间的转换器
+ */
+@Component
+public class SchemaMetadataConverter {
+
+    private static final String TABLE_TYPE = "TABLE";
+
+    /**
+     * 将模式实体转换为领域模型
+     */
+    public SchemaInfo toDomain(SchemaInfoEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+        SchemaInfo model = new SchemaInfo();
+        model.setId(entity.getId());
+        model.setDataSourceId(entity.getDataSourceId());
+        model.setName(entity.getName());
+        model.setDescription(entity.getDescription());
+        model.setCreatedAt(entity.getCreatedAt());
+        model.setUpdatedAt(entity.getUpdatedAt());
+        return model;
+    }
+
+    /**
+     * 将模式领域模型转换为实体
+     */
+    public SchemaInfoEntity toEntity(SchemaInfo model, LocalDateTime now) {
+        return SchemaInfoEntity.builder()
+                .id(model.getId())
+                .dataSourceId(model.getDataSourceId())
+                .name(model.getName())
+                .description(model.getDescription())
+                .createdAt(model.getCreatedAt() != null ? model.getCreatedAt() : now)
+                .updatedAt(now)
+                .build();
+    }
+
+    /**
+     * 将表实体转换为领域模型，实体包含列时一并转换
+     */
+    public TableInfo toDomain(TableInfoEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+        TableInfo model = new TableInfo();
+        model.setId(entity.getId());
+        model.setSchemaId(entity.getSchemaId());
+        model.setName(entity.getName());
+        model.setSchemaName(entity.getSchemaName());
+        model.setDescription(entity.getDescription());
+        model.setRowCount(entity.getEstimatedRowCount() != null ? entity.getEstimatedRowCount() : 0);
+        model.setDataSize(entity.getDataSize() != null ? entity.getDataSize() : 0);
+        model.setIndexSize(entity.getIndexSize() != null ? entity.getIndexSize() : 0);
+        model.setDefinitionHash(entity.getDefinitionHash());
+        model.setColumns(entity.getColumns() == null ? Collections.emptyList()
+                : entity.getColumns().stream()
+                        .map(column -> toDomain(column, entity.getName()))
+                        .collect(Collectors.toList()));
+        return model;
+    }
+
+    /**
+     * 将表领域模型转换为实体，不包含列
+     */
+    public TableInfoEntity toEntity(TableInfo model, LocalDateTime now) {
+        return TableInfoEntity.builder()
+                .id(model.getId())
+                .schemaId(model.getSchemaId())
+                .schemaName(model.getSchemaName())
+                .name(model.getName())
+                .type(TABLE_TYPE)
+                .description(model.getDescription())
+                .estimatedRowCount(model.getRowCount())
+                .dataSize(model.getDataSize())
+                .indexSize(model.getIndexSize())
+                .definitionHash(model.getDefinitionHash())
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    /**
+     * 将列实体转换为领域模型
+     */
+    public ColumnInfo toDomain(ColumnInfoEntity entity, String tableName) {
+        return ColumnInfo.builder()
+                .name(entity.getName())
+                .tableName(tableName)
+                .dataType(entity.getDataType())
+                .isNullable(Boolean.TRUE.equals(entity.getNullable()))
+                .isPrimaryKey(Boolean.TRUE.equals(entity.getPrimaryKey()))
+                .description(entity.getDescription())
+                .build();
+    }
+
+    /**
+     * 将列领域模型转换为实体
+     *
+     * @param ordinalPosition 从1开始的列位置
+     */
+    public ColumnInfoEntity toEntity(ColumnInfo model, String id, String tableId, int ordinalPosition) {
+        return ColumnInfoEntity.builder()
+                .id(id)
+                .tableId(tableId)
+                .name(model.getName())
+                .dataType(model.getDataType())
+                .ordinalPosition(ordinalPosition)
+                .nullable(model.isNullable())
+                .primaryKey(model.isPrimaryKey())
+                .description(model.getDescription())
+                .build();
+    }
+
+    /**
+     * 将索引实体转换为领域模型
+     */
+    public IndexInfo toDomain(IndexInfoEntity entity) {
+        return IndexInfo.builder()
+                .name(entity.getName())
+                .isUnique(Boolean.TRUE.equals(entity.getUnique()))
+                .columns(entity.getColumnNames() != null ? entity.getColumnNames() : new ArrayList<>())
+                .build();
+    }
+
+    /**
+     * 将外键实体转换为领域模型
+     */
+    public ForeignKeyInfo toDomain(ForeignKeyInfoEntity entity, String sourceTableName) {
+        String[] sourceColumns = entity.getSourceColumns().split(",");
+        String[] targetColumns = entity.getTargetColumns().split(",");
+        List<ForeignKeyColumnInfo> columns = new ArrayList<>(sourceColumns.length);
+        for (int i = 0; i < sourceColumns.length && i < targetColumns.length; i++) {
+            columns.add(ForeignKeyColumnInfo.builder()
+                    .sourceColumnName(sourceColumns[i])
+                    .targetColumnName(targetColumns[i])
+                    .build());
+        }
+        return ForeignKeyInfo.builder()
+                .name(entity.getName())
+                .sourceTableName(sourceTableName)
+                .targetTableName(entity.getTargetTableName())
+                .columns(columns)
+                .build();
+    }
+
+    /**
+     * 将外键领域模型转换为实体
+     */
+    public ForeignKeyInfoEntity toEntity(ForeignKeyInfo model, String id, String tableId) {
+        return ForeignKeyInfoEntity.builder()
+                .id(id)
+                .tableId(tableId)
+                .name(model.getName())
+                .targetTableName(model.getTargetTableName())
+                .sourceColumns(model.getSourceColumnNamesAsString())
+                .targetColumns(model.getTargetColumnNamesAsString())
+                .build();
+    }
+}
@@ -0,0 +1,56 @@
+package com.insightdata.infrastructure.persistence.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 列信息实体
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColumnInfoEntity {
+    
+    /**
+     * 列ID
+     */
+    private String id;
+    
+    /**
+     * 表ID
+     */
+    private String tableId;
+    
+    /**
+     * 列名
+     */
+    private String name;
+    
+    /**
+     * 数据类型
+     */
+    private String dataType;
+    
+    /**
+     * 列位置
+     */
+    private Integer ordinalPosition;
+    
+    /**
+     * 是否可空
+     */
+    private Boolean nullable;
+    
+    /**
+     * 是否主键
+     */
+    private Boolean primaryKey;
+    
+    /**
+     * 描述
+     */
+    private String description;
+}
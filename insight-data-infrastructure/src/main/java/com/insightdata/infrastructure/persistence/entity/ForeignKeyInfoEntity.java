@@ -0,0 +1,46 @@
+package com.insightdata.infrastructure.persistence.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 外键信息实体
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForeignKeyInfoEntity {
+    
+    /**
+     * 外键ID
+     */
+    private String id;
+    
+    /**
+     * 表ID
+     */
+    private String tableId;
+    
+    /**
+     * 外键名称
+     */
+    private String name;
+    
+    /**
+     * 目标表名
+     */
+    private String targetTableName;
+    
+    /**
+     * 源列，逗号分隔
+     */
+    private String sourceColumns;
+    
+    /**
+     * 目标列，逗号分隔
+     */
+    private String targetColumns;
+}
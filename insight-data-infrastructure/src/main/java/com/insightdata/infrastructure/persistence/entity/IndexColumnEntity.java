@@ -0,0 +1,36 @@
+package com.insightdata.infrastructure.persistence.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 索引列关联实体
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexColumnEntity {
+    
+    /**
+     * 索引列ID
+     */
+    private String id;
+    
+    /**
+     * 索引ID
+     */
+    private String indexId;
+    
+    /**
+     * 列ID
+     */
+    private String columnId;
+    
+    /**
+     * 位置
+     */
+    private Integer ordinalPosition;
+}
@@ -0,0 +1,48 @@
+package com.insightdata.infrastructure.persistence.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 索引信息实体
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexInfoEntity {
+    
+    /**
+     * 索引ID
+     */
+    private String id;
+    
+    /**
+     * 表ID
+     */
+    private String tableId;
+    
+    /**
+     * 索引名称
+     */
+    private String name;
+    
+    /**
+     * 索引类型
+     */
+    private String type;
+    
+    /**
+     * 是否唯一索引
+     */
+    private Boolean unique;
+    
+    /**
+     * 索引列名，按列位置排序
+     */
+    private List<String> columnNames;
+}
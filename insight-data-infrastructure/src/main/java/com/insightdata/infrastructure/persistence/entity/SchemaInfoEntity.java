@@ -0,0 +1,48 @@
+package com.insightdata.infrastructure.persistence.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 模式信息实体
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchemaInfoEntity {
+    
+    /**
+     * 模式ID
+     */
+    private String id;
+    
+    /**
+     * 数据源ID
+     */
+    private String dataSourceId;
+    
+    /**
+     * 模式名称
+     */
+    private String name;
+    
+    /**
+     * 描述
+     */
+    private String description;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+    
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+}
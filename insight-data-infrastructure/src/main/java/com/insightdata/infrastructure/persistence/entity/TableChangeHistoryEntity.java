@@ -0,0 +1,55 @@
+package com.insightdata.infrastructure.persistence.entity;
+
+import com.insightdata.domain.metadata.enums.TableChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 表变更历史实体
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TableChangeHistoryEntity {
+    
+    /**
+     * 历史ID
+     */
+    private String id;
+    
+    /**
+     * 表ID
+     */
+    private String tableId;
+    
+    /**
+     * 变更类型
+     */
+    private TableChangeType changeType;
+    
+    /**
+     * 变更详情
+     */
+    private Map<String, Object> changeDetails;
+    
+    /**
+     * 检测时间
+     */
+    private LocalDateTime detectedAt;
+    
+    /**
+     * 同步作业ID
+     */
+    private String syncJobId;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+}
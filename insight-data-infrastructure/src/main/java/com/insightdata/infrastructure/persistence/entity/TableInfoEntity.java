@@ -0,0 +1,84 @@
+package com.insightdata.infrastructure.persistence.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 表信息实体
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TableInfoEntity {
+    
+    /**
+     * 表ID
+     */
+    private String id;
+    
+    /**
+     * 模式ID
+     */
+    private String schemaId;
+    
+    /**
+     * 模式名称
+     */
+    private String schemaName;
+    
+    /**
+     * 表名
+     */
+    private String name;
+    
+    /**
+     * 表类型
+     */
+    private String type;
+    
+    /**
+     * 描述
+     */
+    private String description;
+    
+    /**
+     * 预估行数
+     */
+    private Long estimatedRowCount;
+    
+    /**
+     * 数据大小(字节)
+     */
+    private Long dataSize;
+    
+    /**
+     * 索引大小(字节)
+     */
+    private Long indexSize;
+    
+    /**
+     * 表结构指纹
+     */
+    private String definitionHash;
+    
+    /**
+     * 列信息
+     */
+    private List<ColumnInfoEntity> columns;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+    
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,49 @@
+package com.insightdata.infrastructure.persistence.mapper;
+
+import com.insightdata.infrastructure.persistence.entity.ColumnInfoEntity;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 列信息Mapper接口
+ */
+@Mapper
+public interface ColumnInfoMapper {
+    
+    /**
+     * 批量插入列信息，(table_id, name)已存在时更新并保留原ID
+     * 
+     * @param list 列信息实体列表
+     * @return 影响的行数
+     */
+    int upsertBatch(@Param("list") List<ColumnInfoEntity> list);
+    
+    /**
+     * 删除表中不在给定列名列表中的列
+     * 
+     * @param tableId 表ID
+     * @param names 当前存在的列名，为空时删除表的全部列
+     * @return 影响的行数
+     */
+    int deleteStale(@Param("tableId") String tableId, @Param("names") List<String> names);
+    
+    /**
+     * 查询多张表的列ID和列名
+     * 
+     * @param tableIds 表ID列表
+     * @return 列信息实体列表，只包含id、tableId和name
+     */
+    List<ColumnInfoEntity> selectByTableIds(@Param("tableIds") List<String> tableIds);
+    
+    /**
+     * 查询数据源中表的列信息
+     * 
+     * @param dataSourceId 数据源ID
+     * @param schemaName 模式名称，为null时查询全部模式
+     * @return 按表ID和列位置排序的列信息实体列表
+     */
+    List<ColumnInfoEntity> selectByDataSourceId(@Param("dataSourceId") String dataSourceId,
+                                                @Param("schemaName") String schemaName);
+}
@@ -0,0 +1,40 @@
+package com.insightdata.infrastructure.persistence.mapper;
+
+import com.insightdata.infrastructure.persistence.entity.ForeignKeyInfoEntity;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 外键信息Mapper接口
+ */
+@Mapper
+public interface ForeignKeyInfoMapper {
+    
+    /**
+     * 删除多张表的外键
+     * 
+     * @param tableIds 表ID列表
+     * @return 影响的行数
+     */
+    int deleteByTableIds(@Param("tableIds") List<String> tableIds);
+    
+    /**
+     * 批量插入外键信息
+     * 
+     * @param list 外键信息实体列表
+     * @return 影响的行数
+     */
+    int upsertBatch(@Param("list") List<ForeignKeyInfoEntity> list);
+    
+    /**
+     * 查询数据源中表的外键
+     * 
+     * @param dataSourceId 数据源ID
+     * @param schemaName 模式名称，为null时查询全部模式
+     * @return 外键信息实体列表
+     */
+    List<ForeignKeyInfoEntity> selectByDataSourceId(@Param("dataSourceId") String dataSourceId,
+                                                    @Param("schemaName") String schemaName);
+}
@@ -0,0 +1,49 @@
+package com.insightdata.infrastructure.persistence.mapper;
+
+import com.insightdata.infrastructure.persistence.entity.IndexColumnEntity;
+import com.insightdata.infrastructure.persistence.entity.IndexInfoEntity;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 索引信息Mapper接口
+ */
+@Mapper
+public interface IndexInfoMapper {
+    
+    /**
+     * 删除多张表的索引，索引列随外键级联删除
+     * 
+     * @param tableIds 表ID列表
+     * @return 影响的行数
+     */
+    int deleteByTableIds(@Param("tableIds") List<String> tableIds);
+    
+    /**
+     * 批量插入索引信息
+     * 
+     * @param list 索引信息实体列表
+     * @return 影响的行数
+     */
+    int upsertBatch(@Param("list") List<IndexInfoEntity> list);
+    
+    /**
+     * 批量插入索引列关联
+     * 
+     * @param list 索引列关联实体列表
+     * @return 影响的行数
+     */
+    int upsertColumnBatch(@Param("list") List<IndexColumnEntity> list);
+    
+    /**
+     * 查询数据源中表的索引及其列名
+     * 
+     * @param dataSourceId 数据源ID
+     * @param schemaName 模式名称，为null时查询全部模式
+     * @return 索引信息实体列表
+     */
+    List<IndexInfoEntity> selectByDataSourceId(@Param("dataSourceId") String dataSourceId,
+                                               @Param("schemaName") String schemaName);
+}
@@ -1,5 +1,6 @@
 package com.insightdata.infrastructure.persistence.mapper;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.apache.ibatis.annotations.Mapper;
@@ -15,6 +16,11 @@ public interface QueryHistoryMapper {
      */
     void insert(QueryHistory queryHistory);
     
+    /**
+     * 多行INSERT批量插入查询历史
+     */
+    void insertBatch(@Param("list") List<QueryHistory> histories);
+    
     /**
      * 更新查询历史
      */
@@ -66,4 +72,51 @@ public interface QueryHistoryMapper {
     List<QueryHistory> selectByDataSourceIdAndSuccess(
             @Param("dataSourceId") String dataSourceId,
             @Param("success") Boolean success);
-}
\ No newline at end of file
+
+    /**
+     * 按(创建时间, ID)游标升序分页查询，只读取学习表关系需要的列
+     */
+    List<QueryHistory> selectByDataSourceIdAfterCursor(
+            @Param("dataSourceId") String dataSourceId,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterId") String afterId,
+            @Param("before") LocalDateTime before,
+            @Param("limit") int limit);
+
+    /**
+     * 按(创建时间, ID)游标倒序分页查询
+     */
+    List<QueryHistory> selectPageByDataSourceId(
+            @Param("dataSourceId") String dataSourceId,
+            @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+            @Param("beforeId") String beforeId,
+            @Param("limit") int limit);
+
+    /**
+     * 按偏移量倒序分页查询，兼容按页码分页的旧接口
+     */
+    List<QueryHistory> selectPageByDataSourceIdWithOffset(
+            @Param("dataSourceId") String dataSourceId,
+            @Param("offset") int offset,
+            @Param("limit") int limit);
+
+    /**
+     * 查询最早一条记录的创建时间
+     */
+    LocalDateTime selectEarliestCreatedAt();
+
+    /**
+     * 查询query_history的分区名
+     */
+    List<String> selectPartitionNames();
+
+    /**
+     * 从p_future拆分出一个新分区
+     */
+    void splitFuturePartition(@Param("partitionName") String partitionName, @Param("lessThan") String lessThan);
+
+    /**
+     * 删除分区
+     */
+    void dropPartitions(@Param("partitionNames") List<String> partitionNames);
+}
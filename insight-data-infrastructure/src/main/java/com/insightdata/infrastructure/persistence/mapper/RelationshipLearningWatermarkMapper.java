@@ -0,0 +1,22 @@
+package com.insightdata.infrastructure.persistence.mapper;
+
+import com.insightdata.domain.metadata.model.RelationshipLearningWatermark;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 表关系学习水位线Mapper接口
+ */
+@Mapper
+public interface RelationshipLearningWatermarkMapper {
+
+    /**
+     * 根据数据源ID查询水位线
+     */
+    RelationshipLearningWatermark selectByDataSourceId(@Param("dataSourceId") String dataSourceId);
+
+    /**
+     * 插入或更新水位线
+     */
+    void upsert(RelationshipLearningWatermark watermark);
+}
@@ -0,0 +1,48 @@
+package com.insightdata.infrastructure.persistence.mapper;
+
+import com.insightdata.infrastructure.persistence.entity.SchemaInfoEntity;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 模式信息Mapper接口
+ */
+@Mapper
+public interface SchemaInfoMapper {
+    
+    /**
+     * 批量插入模式信息，(data_source_id, name)已存在时更新描述
+     * 
+     * @param list 模式信息实体列表
+     * @return 影响的行数
+     */
+    int upsertBatch(@Param("list") List<SchemaInfoEntity> list);
+    
+    /**
+     * 根据ID查询模式信息
+     * 
+     * @param id 模式ID
+     * @return 模式信息实体
+     */
+    SchemaInfoEntity selectById(@Param("id") String id);
+    
+    /**
+     * 查询数据源的模式信息
+     * 
+     * @param dataSourceId 数据源ID
+     * @param schemaName 模式名称，为null时查询全部模式
+     * @return 模式信息实体列表
+     */
+    List<SchemaInfoEntity> selectByDataSourceId(@Param("dataSourceId") String dataSourceId,
+                                                @Param("schemaName") String schemaName);
+    
+    /**
+     * 根据ID删除模式信息，表信息随外键级联删除
+     * 
+     * @param id 模式ID
+     * @return 影响的行数
+     */
+    int deleteById(@Param("id") String id);
+}
@@ -0,0 +1,30 @@
+package com.insightdata.infrastructure.persistence.mapper;
+
+import com.insightdata.infrastructure.persistence.entity.TableChangeHistoryEntity;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 表变更历史Mapper接口
+ */
+@Mapper
+public interface TableChangeHistoryMapper {
+    
+    /**
+     * 批量插入表变更历史
+     * 
+     * @param entities 表变更历史实体列表
+     * @return 影响的行数
+     */
+    int insertBatch(@Param("list") List<TableChangeHistoryEntity> entities);
+    
+    /**
+     * 根据表ID查询变更历史
+     * 
+     * @param tableId 表ID
+     * @return 表变更历史实体列表
+     */
+    List<TableChangeHistoryEntity> selectByTableId(@Param("tableId") String tableId);
+}
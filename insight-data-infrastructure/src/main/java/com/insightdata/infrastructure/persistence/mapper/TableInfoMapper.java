@@ -0,0 +1,56 @@
+package com.insightdata.infrastructure.persistence.mapper;
+
+import com.insightdata.infrastructure.persistence.entity.TableInfoEntity;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 表信息Mapper接口
+ */
+@Mapper
+public interface TableInfoMapper {
+    
+    /**
+     * 按(schema_id, name)查询已存在的表ID
+     * 
+     * @param list 只需包含schemaId和name的表信息实体列表
+     * @return 已存在的表信息实体列表，只包含id、schemaId和name
+     */
+    List<TableInfoEntity> selectByNaturalKeys(@Param("list") List<TableInfoEntity> list);
+    
+    /**
+     * 批量插入表信息，(schema_id, name)已存在时更新并保留原ID
+     * 
+     * @param list 表信息实体列表
+     * @return 影响的行数
+     */
+    int upsertBatch(@Param("list") List<TableInfoEntity> list);
+    
+    /**
+     * 根据ID查询表信息
+     * 
+     * @param id 表ID
+     * @return 表信息实体，不包含列
+     */
+    TableInfoEntity selectById(@Param("id") String id);
+    
+    /**
+     * 查询数据源的表信息
+     * 
+     * @param dataSourceId 数据源ID
+     * @param schemaName 模式名称，为null时查询全部模式
+     * @return 表信息实体列表，不包含列
+     */
+    List<TableInfoEntity> selectByDataSourceId(@Param("dataSourceId") String dataSourceId,
+                                               @Param("schemaName") String schemaName);
+    
+    /**
+     * 根据ID删除表信息，列信息和变更历史随外键级联删除
+     * 
+     * @param id 表ID
+     * @return 影响的行数
+     */
+    int deleteById(@Param("id") String id);
+}
@@ -14,6 +14,11 @@ public interface TableRelationshipMapper {
      */
     void insert(TableRelationshipEntity entity);
     
+    /**
+     * 批量插入表关系
+     */
+    int insertBatch(@Param("list") List<TableRelationshipEntity> entities);
+    
     /**
      * 根据ID查询表关系
      */
@@ -29,10 +29,14 @@ public class MyBatisMetadataSyncJobRepository implements MetadataSyncJobReposito
         
         LocalDateTime now = LocalDateTime.now();
         
-        if (entity.getId() == null || entity.getId().isEmpty()) {
+        // 应用层创建作业时会预先分配ID，因此按是否已存在判断新增还是更新
+        if (entity.getId() == null || entity.getId().isEmpty()
+                || metadataSyncJobMapper.selectById(entity.getId()) == null) {
             // 新增
-            entity.setId(UUID.randomUUID().toString());
-            entity.setCreatedAt(now);
+            if (entity.getId() == null || entity.getId().isEmpty()) {
+                entity.setId(UUID.randomUUID().toString());
+            }
+            entity.setCreatedAt(entity.getCreatedAt() != null ? entity.getCreatedAt() : now);
             entity.setUpdatedAt(now);
             metadataSyncJobMapper.insert(entity);
         } else {
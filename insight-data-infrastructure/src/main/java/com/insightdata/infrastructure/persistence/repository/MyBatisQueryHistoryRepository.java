@@ -1,5 +1,7 @@
 package com.insightdata.infrastructure.persistence.repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +29,13 @@ public class MyBatisQueryHistoryRepository implements QueryHistoryRepository {
         return queryHistory;
     }
 
+    @Override
+    public void saveAll(List<QueryHistory> histories) {
+        if (!histories.isEmpty()) {
+            queryHistoryMapper.insertBatch(histories);
+        }
+    }
+
     @Override
     public Optional<QueryHistory> findById(String id) {
         return Optional.ofNullable(queryHistoryMapper.selectById(id));
@@ -36,4 +45,53 @@ public class MyBatisQueryHistoryRepository implements QueryHistoryRepository {
     public List<QueryHistory> findByDataSourceIdOrderByCreatedAtDesc(String dataSourceId) {
         return queryHistoryMapper.selectByDataSourceIdOrderByCreatedAtDesc(dataSourceId);
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<QueryHistory> findByDataSourceIdAfter(String dataSourceId, LocalDateTime afterCreatedAt, String afterId,
+                                                      LocalDateTime before, int limit) {
+        return queryHistoryMapper.selectByDataSourceIdAfterCursor(dataSourceId, afterCreatedAt, afterId, before, limit);
+    }
+
+    @Override
+    public List<QueryHistory> findPageByDataSourceId(String dataSourceId, LocalDateTime beforeCreatedAt, String beforeId,
+                                                     int limit) {
+        return queryHistoryMapper.selectPageByDataSourceId(dataSourceId, beforeCreatedAt, beforeId, limit);
+    }
+
+    @Override
+    @Deprecated
+    public List<QueryHistory> findPageByDataSourceId(String dataSourceId, int offset, int limit) {
+        return queryHistoryMapper.selectPageByDataSourceIdWithOffset(dataSourceId, offset, limit);
+    }
+
+    @Override
+    public Optional<LocalDateTime> findEarliestCreatedAt() {
+        return Optional.ofNullable(queryHistoryMapper.selectEarliestCreatedAt());
+    }
+
+    @Override
+    public List<String> findPartitionNames() {
+        return queryHistoryMapper.selectPartitionNames();
+    }
+
+    @Override
+    public void splitFuturePartition(String partitionName, LocalDate lessThan) {
+        queryHistoryMapper.splitFuturePartition(checkPartitionName(partitionName), lessThan.toString());
+    }
+
+    @Override
+    public void dropPartitions(List<String> partitionNames) {
+        partitionNames.forEach(MyBatisQueryHistoryRepository::checkPartitionName);
+        queryHistoryMapper.dropPartitions(partitionNames);
+    }
+
+    /**
+     * 分区名只能拼接在DDL中，不能作为参数绑定
+     */
+    private static String checkPartitionName(String partitionName) {
+        if (partitionName == null || !partitionName.matches("p\\d{6}")) {
+            throw new IllegalArgumentException("无效的分区名: " + partitionName);
+        }
+        return partitionName;
+    }
+}
@@ -0,0 +1,27 @@
+package com.insightdata.infrastructure.persistence.repository;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import com.insightdata.domain.metadata.model.RelationshipLearningWatermark;
+import com.insightdata.domain.metadata.repository.RelationshipLearningWatermarkRepository;
+import com.insightdata.infrastructure.persistence.mapper.RelationshipLearningWatermarkMapper;
+
+@Repository
+public class MyBatisRelationshipLearningWatermarkRepository implements RelationshipLearningWatermarkRepository {
+
+    @Autowired
+    private RelationshipLearningWatermarkMapper watermarkMapper;
+
+    @Override
+    public Optional<RelationshipLearningWatermark> findByDataSourceId(String dataSourceId) {
+        return Optional.ofNullable(watermarkMapper.selectByDataSourceId(dataSourceId));
+    }
+
+    @Override
+    public void save(RelationshipLearningWatermark watermark) {
+        watermarkMapper.upsert(watermark);
+    }
+}
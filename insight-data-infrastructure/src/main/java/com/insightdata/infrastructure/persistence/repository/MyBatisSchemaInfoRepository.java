@@ -1,32 +1,173 @@
 package com.insightdata.infrastructure.persistence.repository;
 
 import com.insightdata.domain.metadata.model.SchemaInfo;
+import com.insightdata.domain.metadata.model.TableInfo;
 import com.insightdata.domain.metadata.repository.SchemaInfoRepository;
+import com.insightdata.infrastructure.persistence.converter.SchemaMetadataConverter;
+import com.insightdata.infrastructure.persistence.entity.ColumnInfoEntity;
+import com.insightdata.infrastructure.persistence.entity.ForeignKeyInfoEntity;
+import com.insightdata.infrastructure.persistence.entity.IndexInfoEntity;
+import com.insightdata.infrastructure.persistence.entity.SchemaInfoEntity;
+import com.insightdata.infrastructure.persistence.entity.TableInfoEntity;
+import com.insightdata.infrastructure.persistence.mapper.ColumnInfoMapper;
+import com.insightdata.infrastructure.persistence.mapper.ForeignKeyInfoMapper;
+import com.insightdata.infrastructure.persistence.mapper.IndexInfoMapper;
+import com.insightdata.infrastructure.persistence.mapper.SchemaInfoMapper;
+import com.insightdata.infrastructure.persistence.mapper.TableInfoMapper;
+import com.insightdata.infrastructure.persistence.support.BatchSqlSessionSupport;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
+/**
+ * Schema信息仓储实现
+ */
 @Repository
 public class MyBatisSchemaInfoRepository implements SchemaInfoRepository {
 
+    @Autowired
+    private SchemaInfoMapper schemaInfoMapper;
+
+    @Autowired
+    private TableInfoMapper tableInfoMapper;
+
+    @Autowired
+    private ColumnInfoMapper columnInfoMapper;
+
+    @Autowired
+    private IndexInfoMapper indexInfoMapper;
+
+    @Autowired
+    private ForeignKeyInfoMapper foreignKeyInfoMapper;
+
+    @Autowired
+    private BatchSqlSessionSupport batchSqlSession;
+
+    @Autowired
+    private SchemaMetadataConverter converter;
+
     @Override
     public SchemaInfo save(SchemaInfo schemaInfo) {
-        return null;
+        saveAll(Collections.singletonList(schemaInfo));
+        return schemaInfo;
+    }
+
+    /**
+     * 批量保存Schema信息，已存在的Schema按(dataSourceId, name)更新并回填原ID
+     */
+    @Override
+    public List<SchemaInfo> saveAll(List<SchemaInfo> schemaInfos) {
+        if (schemaInfos.isEmpty()) {
+            return schemaInfos;
+        }
+        Map<String, Map<String, String>> existingIds = new HashMap<>();
+        for (SchemaInfo schemaInfo : schemaInfos) {
+            Map<String, String> idsByName = existingIds.computeIfAbsent(schemaInfo.getDataSourceId(),
+                    dataSourceId -> schemaInfoMapper.selectByDataSourceId(dataSourceId, null).stream()
+                            .collect(Collectors.toMap(SchemaInfoEntity::getName, SchemaInfoEntity::getId)));
+            String existingId = idsByName.get(schemaInfo.getName());
+            if (existingId != null) {
+                schemaInfo.setId(existingId);
+            } else if (schemaInfo.getId() == null) {
+                schemaInfo.setId(UUID.randomUUID().toString());
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<SchemaInfoEntity> entities = schemaInfos.stream()
+                .map(schemaInfo -> converter.toEntity(schemaInfo, now))
+                .collect(Collectors.toList());
+        BatchSqlSessionSupport.forEachChunk(entities, batchSqlSession.getMapper(SchemaInfoMapper.class)::upsertBatch);
+        batchSqlSession.flush();
+        return schemaInfos;
     }
 
     @Override
     public Optional<SchemaInfo> findById(String id) {
-        return Optional.empty();
+        return Optional.ofNullable(converter.toDomain(schemaInfoMapper.selectById(id)));
     }
 
     @Override
-    public List<SchemaInfo> findByDataSourceId(Long dataSourceId) {
-        return List.of();
+    public List<SchemaInfo> findByDataSourceId(String dataSourceId) {
+        return schemaInfoMapper.selectByDataSourceId(dataSourceId, null).stream()
+                .map(converter::toDomain)
+                .collect(Collectors.toList());
     }
 
     @Override
-    public void delete(SchemaInfo schemaInfo) {
+    public List<SchemaInfo> findSchemaGraph(String dataSourceId) {
+        return loadSchemaGraph(dataSourceId, null);
+    }
+
+    @Override
+    public Optional<SchemaInfo> findSchemaGraph(String dataSourceId, String schemaName) {
+        return loadSchemaGraph(dataSourceId, schemaName).stream().findFirst();
+    }
+
+    /**
+     * 用五条查询分别加载Schema、表、列、索引和外键，在内存中按ID组装
+     *
+     * @param schemaName 为null时加载数据源的全部Schema
+     */
+    private List<SchemaInfo> loadSchemaGraph(String dataSourceId, String schemaName) {
+        Map<String, SchemaInfo> schemas = new LinkedHashMap<>();
+        for (SchemaInfoEntity entity : schemaInfoMapper.selectByDataSourceId(dataSourceId, schemaName)) {
+            SchemaInfo schemaInfo = converter.toDomain(entity);
+            schemaInfo.setTables(new ArrayList<>());
+            schemas.put(entity.getId(), schemaInfo);
+        }
+        if (schemas.isEmpty()) {
+            return new ArrayList<>();
+        }
 
+        Map<String, TableInfo> tables = new HashMap<>();
+        for (TableInfoEntity entity : tableInfoMapper.selectByDataSourceId(dataSourceId, schemaName)) {
+            TableInfo tableInfo = converter.toDomain(entity);
+            tableInfo.setColumns(new ArrayList<>());
+            tableInfo.setIndexes(new ArrayList<>());
+            tableInfo.setForeignKeys(new ArrayList<>());
+            tables.put(entity.getId(), tableInfo);
+            SchemaInfo schemaInfo = schemas.get(entity.getSchemaId());
+            if (schemaInfo != null) {
+                schemaInfo.getTables().add(tableInfo);
+            }
+        }
+
+        for (ColumnInfoEntity entity : columnInfoMapper.selectByDataSourceId(dataSourceId, schemaName)) {
+            TableInfo tableInfo = tables.get(entity.getTableId());
+            if (tableInfo != null) {
+                tableInfo.getColumns().add(converter.toDomain(entity, tableInfo.getName()));
+            }
+        }
+        for (IndexInfoEntity entity : indexInfoMapper.selectByDataSourceId(dataSourceId, schemaName)) {
+            TableInfo tableInfo = tables.get(entity.getTableId());
+            if (tableInfo != null) {
+                tableInfo.getIndexes().add(converter.toDomain(entity));
+            }
+        }
+        for (ForeignKeyInfoEntity entity : foreignKeyInfoMapper.selectByDataSourceId(dataSourceId, schemaName)) {
+            TableInfo tableInfo = tables.get(entity.getTableId());
+            if (tableInfo != null) {
+                tableInfo.getForeignKeys().add(converter.toDomain(entity, tableInfo.getName()));
+            }
+        }
+        return new ArrayList<>(schemas.values());
+    }
+
+    @Override
+    public void delete(SchemaInfo schemaInfo) {
+        if (schemaInfo.getId() != null) {
+            schemaInfoMapper.deleteById(schemaInfo.getId());
+        }
     }
 }
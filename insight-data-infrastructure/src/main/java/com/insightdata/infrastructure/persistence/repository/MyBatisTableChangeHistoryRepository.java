@@ -0,0 +1,78 @@
+package com.insightdata.infrastructure.persistence.repository;
+
+import com.insightdata.domain.metadata.model.TableChangeHistory;
+import com.insightdata.domain.metadata.repository.TableChangeHistoryRepository;
+import com.insightdata.infrastructure.persistence.entity.TableChangeHistoryEntity;
+import com.insightdata.infrastructure.persistence.mapper.TableChangeHistoryMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 表变更历史仓储实现
+ */
+@Repository
+public class MyBatisTableChangeHistoryRepository implements TableChangeHistoryRepository {
+
+    @Autowired
+    private TableChangeHistoryMapper tableChangeHistoryMapper;
+
+    @Override
+    public List<TableChangeHistory> saveAll(List<TableChangeHistory> histories) {
+        if (histories.isEmpty()) {
+            return histories;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (TableChangeHistory history : histories) {
+            if (history.getId() == null || history.getId().isEmpty()) {
+                history.setId(UUID.randomUUID().toString());
+            }
+            if (history.getCreatedAt() == null) {
+                history.setCreatedAt(now);
+            }
+        }
+        tableChangeHistoryMapper.insertBatch(histories.stream().map(this::toEntity).collect(Collectors.toList()));
+        return histories;
+    }
+
+    @Override
+    public List<TableChangeHistory> findByTableId(String tableId) {
+        return tableChangeHistoryMapper.selectByTableId(tableId).stream()
+                .map(this::toModel)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 将领域模型转换为实体
+     */
+    private TableChangeHistoryEntity toEntity(TableChangeHistory model) {
+        TableChangeHistoryEntity entity = new TableChangeHistoryEntity();
+        entity.setId(model.getId());
+        entity.setTableId(model.getTableId());
+        entity.setChangeType(model.getChangeType());
+        entity.setChangeDetails(model.getChangeDetails());
+        entity.setDetectedAt(model.getDetectedAt());
+        entity.setSyncJobId(model.getSyncJobId());
+        entity.setCreatedAt(model.getCreatedAt());
+        return entity;
+    }
+
+    /**
+     * 将实体转换为领域模型
+     */
+    private TableChangeHistory toModel(TableChangeHistoryEntity entity) {
+        TableChangeHistory model = new TableChangeHistory();
+        model.setId(entity.getId());
+        model.setTableId(entity.getTableId());
+        model.setChangeType(entity.getChangeType());
+        model.setChangeDetails(entity.getChangeDetails());
+        model.setDetectedAt(entity.getDetectedAt());
+        model.setSyncJobId(entity.getSyncJobId());
+        model.setCreatedAt(entity.getCreatedAt());
+        return model;
+    }
+}
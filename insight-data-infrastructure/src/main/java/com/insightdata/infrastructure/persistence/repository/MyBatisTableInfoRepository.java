@@ -1,37 +1,221 @@
 package com.insightdata.infrastructure.persistence.repository;
 
+import com.insightdata.domain.metadata.model.ColumnInfo;
+import com.insightdata.domain.metadata.model.ForeignKeyInfo;
+import com.insightdata.domain.metadata.model.IndexInfo;
 import com.insightdata.domain.metadata.model.TableInfo;
 import com.insightdata.domain.metadata.repository.TableInfoRepository;
+import com.insightdata.infrastructure.persistence.converter.SchemaMetadataConverter;
+import com.insightdata.infrastructure.persistence.entity.ColumnInfoEntity;
+import com.insightdata.infrastructure.persistence.entity.ForeignKeyInfoEntity;
+import com.insightdata.infrastructure.persistence.entity.IndexColumnEntity;
+import com.insightdata.infrastructure.persistence.entity.IndexInfoEntity;
+import com.insightdata.infrastructure.persistence.entity.TableInfoEntity;
+import com.insightdata.infrastructure.persistence.mapper.ColumnInfoMapper;
+import com.insightdata.infrastructure.persistence.mapper.ForeignKeyInfoMapper;
+import com.insightdata.infrastructure.persistence.mapper.IndexInfoMapper;
+import com.insightdata.infrastructure.persistence.mapper.TableInfoMapper;
+import com.insightdata.infrastructure.persistence.support.BatchSqlSessionSupport;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
+/**
+ * 表信息仓储实现
+ *
+ * 批量保存时，表和列通过多行INSERT ... ON DUPLICATE KEY UPDATE写入，已存在的行保留原ID；
+ * 索引和外键按表整体替换。所有写入语句经BATCH执行器排队，每次saveAll结束前统一发送。
+ * 表的列、索引或外键为null时表示未读取，保留已保存的数据。
+ */
 @Repository
 public class MyBatisTableInfoRepository implements TableInfoRepository {
 
+    @Autowired
+    private TableInfoMapper tableInfoMapper;
+
+    @Autowired
+    private ColumnInfoMapper columnInfoMapper;
+
+    @Autowired
+    private BatchSqlSessionSupport batchSqlSession;
+
+    @Autowired
+    private SchemaMetadataConverter converter;
+
     @Override
     public TableInfo save(TableInfo tableInfo) {
-        return null;
+        saveAll(Collections.singletonList(tableInfo));
+        return tableInfo;
+    }
+
+    @Override
+    public List<TableInfo> saveAll(List<TableInfo> tableInfos) {
+        if (tableInfos.isEmpty()) {
+            return tableInfos;
+        }
+        assignIds(tableInfos);
+
+        LocalDateTime now = LocalDateTime.now();
+        TableInfoMapper batchTableMapper = batchSqlSession.getMapper(TableInfoMapper.class);
+        ColumnInfoMapper batchColumnMapper = batchSqlSession.getMapper(ColumnInfoMapper.class);
+        IndexInfoMapper batchIndexMapper = batchSqlSession.getMapper(IndexInfoMapper.class);
+        ForeignKeyInfoMapper batchForeignKeyMapper = batchSqlSession.getMapper(ForeignKeyInfoMapper.class);
+
+        List<TableInfoEntity> tables = tableInfos.stream()
+                .map(tableInfo -> converter.toEntity(tableInfo, now))
+                .collect(Collectors.toList());
+        BatchSqlSessionSupport.forEachChunk(tables, batchTableMapper::upsertBatch);
+
+        // 列按(table_id, name)更新，源库中已删除的列逐表删除
+        List<ColumnInfoEntity> columns = new ArrayList<>();
+        for (TableInfo tableInfo : tableInfos) {
+            if (tableInfo.getColumns() == null) {
+                continue;
+            }
+            for (int i = 0; i < tableInfo.getColumns().size(); i++) {
+                columns.add(converter.toEntity(tableInfo.getColumns().get(i), UUID.randomUUID().toString(),
+                        tableInfo.getId(), i + 1));
+            }
+        }
+        BatchSqlSessionSupport.forEachChunk(columns, batchColumnMapper::upsertBatch);
+        for (TableInfo tableInfo : tableInfos) {
+            if (tableInfo.getColumns() != null) {
+                batchColumnMapper.deleteStale(tableInfo.getId(), tableInfo.getColumns().stream()
+                        .map(ColumnInfo::getName)
+                        .collect(Collectors.toList()));
+            }
+        }
+
+        List<TableInfo> withIndexes = tableInfos.stream()
+                .filter(tableInfo -> tableInfo.getIndexes() != null)
+                .collect(Collectors.toList());
+        List<TableInfo> withForeignKeys = tableInfos.stream()
+                .filter(tableInfo -> tableInfo.getForeignKeys() != null)
+                .collect(Collectors.toList());
+        BatchSqlSessionSupport.forEachChunk(idsOf(withIndexes), batchIndexMapper::deleteByTableIds);
+        BatchSqlSessionSupport.forEachChunk(idsOf(withForeignKeys), batchForeignKeyMapper::deleteByTableIds);
+        batchSqlSession.flush();
+
+        saveIndexes(withIndexes, batchIndexMapper);
+        saveForeignKeys(withForeignKeys, batchForeignKeyMapper);
+        batchSqlSession.flush();
+        return tableInfos;
     }
 
     @Override
     public Optional<TableInfo> findById(String id) {
-        return Optional.empty();
+        return Optional.ofNullable(converter.toDomain(tableInfoMapper.selectById(id)));
     }
 
     @Override
-    public List<TableInfo> findByDataSourceId(Long dataSourceId) {
-        return List.of();
+    public List<TableInfo> findByDataSourceId(String dataSourceId) {
+        return findByDataSourceIdAndSchemaName(dataSourceId, null);
     }
 
     @Override
-    public List<TableInfo> findByDataSourceIdAndSchemaName(Long dataSourceId, String schemaName) {
-        return List.of();
+    public List<TableInfo> findByDataSourceIdAndSchemaName(String dataSourceId, String schemaName) {
+        return tableInfoMapper.selectByDataSourceId(dataSourceId, schemaName).stream()
+                .map(converter::toDomain)
+                .collect(Collectors.toList());
     }
 
     @Override
     public void delete(TableInfo tableInfo) {
+        if (tableInfo.getId() != null) {
+            tableInfoMapper.deleteById(tableInfo.getId());
+        }
+    }
+
+    /**
+     * 已存在的表沿用数据库中的ID，变更历史和表关系通过ID引用表
+     */
+    private void assignIds(List<TableInfo> tableInfos) {
+        List<TableInfoEntity> keys = tableInfos.stream()
+                .map(tableInfo -> TableInfoEntity.builder()
+                        .schemaId(tableInfo.getSchemaId())
+                        .name(tableInfo.getName())
+                        .build())
+                .collect(Collectors.toList());
+        Map<String, String> existingIds = new HashMap<>();
+        BatchSqlSessionSupport.forEachChunk(keys, chunk -> tableInfoMapper.selectByNaturalKeys(chunk)
+                .forEach(entity -> existingIds.put(naturalKey(entity.getSchemaId(), entity.getName()), entity.getId())));
+
+        for (TableInfo tableInfo : tableInfos) {
+            String existingId = existingIds.get(naturalKey(tableInfo.getSchemaId(), tableInfo.getName()));
+            if (existingId != null) {
+                tableInfo.setId(existingId);
+            } else if (tableInfo.getId() == null) {
+                tableInfo.setId(UUID.randomUUID().toString());
+            }
+        }
+    }
+
+    /**
+     * 插入索引及索引列，索引列通过列ID关联，需要在列写入之后执行
+     */
+    private void saveIndexes(List<TableInfo> tableInfos, IndexInfoMapper batchIndexMapper) {
+        if (tableInfos.isEmpty()) {
+            return;
+        }
+        Map<String, String> columnIds = new HashMap<>();
+        BatchSqlSessionSupport.forEachChunk(idsOf(tableInfos), chunk -> columnInfoMapper.selectByTableIds(chunk)
+                .forEach(column -> columnIds.put(naturalKey(column.getTableId(), column.getName()), column.getId())));
+
+        List<IndexInfoEntity> indexes = new ArrayList<>();
+        List<IndexColumnEntity> indexColumns = new ArrayList<>();
+        for (TableInfo tableInfo : tableInfos) {
+            for (IndexInfo index : tableInfo.getIndexes()) {
+                String indexId = UUID.randomUUID().toString();
+                indexes.add(IndexInfoEntity.builder()
+                        .id(indexId)
+                        .tableId(tableInfo.getId())
+                        .name(index.getName())
+                        .type(index.isUnique() ? "UNIQUE" : "NORMAL")
+                        .unique(index.isUnique())
+                        .build());
+                List<String> columnNames = index.getColumns() != null ? index.getColumns() : Collections.emptyList();
+                for (int i = 0; i < columnNames.size(); i++) {
+                    // 表达式索引等引用不到已保存列的索引列被忽略
+                    String columnId = columnIds.get(naturalKey(tableInfo.getId(), columnNames.get(i)));
+                    if (columnId != null) {
+                        indexColumns.add(IndexColumnEntity.builder()
+                                .id(UUID.randomUUID().toString())
+                                .indexId(indexId)
+                                .columnId(columnId)
+                                .ordinalPosition(i + 1)
+                                .build());
+                    }
+                }
+            }
+        }
+        BatchSqlSessionSupport.forEachChunk(indexes, batchIndexMapper::upsertBatch);
+        BatchSqlSessionSupport.forEachChunk(indexColumns, batchIndexMapper::upsertColumnBatch);
+    }
+
+    private void saveForeignKeys(List<TableInfo> tableInfos, ForeignKeyInfoMapper batchForeignKeyMapper) {
+        List<ForeignKeyInfoEntity> foreignKeys = new ArrayList<>();
+        for (TableInfo tableInfo : tableInfos) {
+            for (ForeignKeyInfo foreignKey : tableInfo.getForeignKeys()) {
+                foreignKeys.add(converter.toEntity(foreignKey, UUID.randomUUID().toString(), tableInfo.getId()));
+            }
+        }
+        BatchSqlSessionSupport.forEachChunk(foreignKeys, batchForeignKeyMapper::upsertBatch);
+    }
+
+    private static List<String> idsOf(List<TableInfo> tableInfos) {
+        return tableInfos.stream().map(TableInfo::getId).collect(Collectors.toList());
+    }
 
+    private static String naturalKey(String parentId, String name) {
+        return parentId + "|" + name;
     }
 }
@@ -3,11 +3,13 @@ package com.insightdata.infrastructure.persistence.repository;
 import com.insightdata.domain.metadata.model.TableRelationship;
 import com.insightdata.domain.metadata.repository.TableRelationshipRepository;
 import com.insightdata.infrastructure.persistence.converter.TableRelationshipConverter;
+import com.insightdata.infrastructure.persistence.entity.TableRelationshipEntity;
 import com.insightdata.infrastructure.persistence.mapper.TableRelationshipMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -46,9 +48,25 @@ public class MyBatisTableRelationshipRepository implements TableRelationshipRepo
     
     @Override
     public List<TableRelationship> saveAll(List<TableRelationship> relationships) {
-        return relationships.stream()
-                .map(this::save)
-                .collect(Collectors.toList());
+        // 新关系用一条多行INSERT写入，已有关系逐条更新
+        LocalDateTime now = LocalDateTime.now();
+        List<TableRelationshipEntity> inserts = new ArrayList<>();
+        List<TableRelationship> saved = new ArrayList<>(relationships.size());
+        for (TableRelationship relationship : relationships) {
+            if (relationship.getId() == null) {
+                TableRelationshipEntity entity = converter.toEntity(relationship);
+                entity.setCreatedAt(now);
+                entity.setUpdatedAt(now);
+                inserts.add(entity);
+            } else {
+                saved.add(save(relationship));
+            }
+        }
+        if (!inserts.isEmpty()) {
+            tableRelationshipMapper.insertBatch(inserts);
+            inserts.forEach(entity -> saved.add(converter.toDomain(entity)));
+        }
+        return saved;
     }
     
     @Override
@@ -0,0 +1,56 @@
+package com.insightdata.infrastructure.persistence.support;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 批量SQL会话支持
+ *
+ * 提供ExecutorType.BATCH执行器的Mapper，写入语句在flush时作为一个JDBC批次发送。
+ * 批量会话使用独立的SqlSessionFactory，因此在同一Spring事务中可以与默认SIMPLE执行器的Mapper混用，
+ * 两者通过DataSourceUtils共享同一个事务连接；调用方在依赖批量写入结果之前必须调用flush。
+ */
+@Component
+public class BatchSqlSessionSupport {
+
+    /**
+     * 单条多行INSERT语句的最大行数，避免超过JDBC驱动的占位符数量上限
+     */
+    public static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    private final SqlSessionTemplate batchSqlSession;
+
+    public BatchSqlSessionSupport(SqlSessionFactory sqlSessionFactory) {
+        this.batchSqlSession = new SqlSessionTemplate(
+                new DefaultSqlSessionFactory(sqlSessionFactory.getConfiguration()), ExecutorType.BATCH);
+    }
+
+    /**
+     * 获取批量执行的Mapper
+     */
+    public <T> T getMapper(Class<T> type) {
+        return batchSqlSession.getMapper(type);
+    }
+
+    /**
+     * 发送当前会话中排队的批量语句
+     */
+    public void flush() {
+        batchSqlSession.flushStatements();
+    }
+
+    /**
+     * 将列表按多行INSERT的行数上限分段处理
+     */
+    public static <T> void forEachChunk(List<T> items, Consumer<List<T>> action) {
+        for (int from = 0; from < items.size(); from += MAX_ROWS_PER_STATEMENT) {
+            action.accept(items.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, items.size())));
+        }
+    }
+}
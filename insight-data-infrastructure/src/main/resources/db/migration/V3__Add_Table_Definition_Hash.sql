@@ -0,0 +1,2 @@
+-- 表结构指纹，增量元数据同步通过比较指纹判断表结构是否变化
+ALTER TABLE tbl_table_info ADD COLUMN definition_hash VARCHAR(64) COMMENT '表结构指纹' AFTER index_size;
@@ -0,0 +1,22 @@
+-- 外键信息表，目标表按名称记录，便于在目标表尚未同步时保存
+CREATE TABLE tbl_foreign_key_info (
+    id VARCHAR(36) PRIMARY KEY COMMENT '外键ID',
+    table_id VARCHAR(36) NOT NULL COMMENT '表ID',
+    name VARCHAR(128) NOT NULL COMMENT '外键名称',
+    target_table_name VARCHAR(100) NOT NULL COMMENT '目标表名',
+    source_columns VARCHAR(1000) NOT NULL COMMENT '源列，逗号分隔',
+    target_columns VARCHAR(1000) NOT NULL COMMENT '目标列，逗号分隔',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    CONSTRAINT fk_tbl_foreign_key_table FOREIGN KEY (table_id) REFERENCES tbl_table_info(id) ON DELETE CASCADE,
+    CONSTRAINT uk_tbl_foreign_key_table_name UNIQUE (table_id, name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='外键信息表';
+
+-- 同步作业写入的元数据没有操作人
+ALTER TABLE tbl_schema_info MODIFY created_by VARCHAR(36) NOT NULL DEFAULT 'system' COMMENT '创建人';
+ALTER TABLE tbl_table_info MODIFY created_by VARCHAR(36) NOT NULL DEFAULT 'system' COMMENT '创建人';
+ALTER TABLE tbl_column_info MODIFY created_by VARCHAR(36) NOT NULL DEFAULT 'system' COMMENT '创建人';
+ALTER TABLE tbl_index_info MODIFY created_by VARCHAR(36) NOT NULL DEFAULT 'system' COMMENT '创建人';
+ALTER TABLE tbl_index_column MODIFY created_by VARCHAR(36) NOT NULL DEFAULT 'system' COMMENT '创建人';
+
+CREATE INDEX idx_tbl_foreign_key_table_id ON tbl_foreign_key_info(table_id);
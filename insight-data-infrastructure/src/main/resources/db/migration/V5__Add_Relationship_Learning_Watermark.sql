@@ -0,0 +1,8 @@
+-- 从查询历史学习表关系的水位线，每个数据源一行，记录已处理到的(创建时间, ID)游标
+CREATE TABLE tbl_relationship_learning_watermark (
+    data_source_id VARCHAR(36) PRIMARY KEY COMMENT '数据源ID',
+    last_created_at TIMESTAMP(3) NULL COMMENT '已处理的最后一条查询历史的创建时间',
+    last_history_id VARCHAR(36) COMMENT '已处理的最后一条查询历史的ID',
+    processed_count BIGINT NOT NULL DEFAULT 0 COMMENT '累计处理的查询历史数',
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='表关系学习水位线表';
@@ -0,0 +1,47 @@
+-- 查询历史表，按创建时间按月分区
+-- 分区表的主键和唯一键必须包含分区列，因此主键为(id, created_at)；分区表不支持外键，不引用数据源表
+-- 初始只有p_future一个分区，由QueryHistoryPartitionMaintainer在启动时和每天按月拆分出后续分区并删除过期分区
+CREATE TABLE IF NOT EXISTS query_history (
+    id BIGINT NOT NULL AUTO_INCREMENT COMMENT '查询历史ID',
+    user_id VARCHAR(36) COMMENT '用户ID',
+    user_name VARCHAR(100) COMMENT '用户名',
+    interface_config_id VARCHAR(36) COMMENT '接口配置ID',
+    interface_name VARCHAR(100) COMMENT '接口名称',
+    interface_version VARCHAR(20) COMMENT '接口版本',
+    data_source_id VARCHAR(36) NOT NULL COMMENT '数据源ID',
+    data_source_name VARCHAR(100) COMMENT '数据源名称',
+    query_params JSON COMMENT '查询参数',
+    original_sql TEXT COMMENT '原始查询（自然语言或SQL）',
+    executed_sql TEXT COMMENT '执行的SQL',
+    start_time DATETIME(3) COMMENT '开始时间',
+    end_time DATETIME(3) COMMENT '结束时间',
+    execution_time_ms BIGINT COMMENT '执行时间（毫秒）',
+    result_row_count BIGINT COMMENT '返回行数',
+    status VARCHAR(20) COMMENT '状态',
+    error_message TEXT COMMENT '错误信息',
+    error_code VARCHAR(50) COMMENT '错误码',
+    exported TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否已导出',
+    export_format VARCHAR(20) COMMENT '导出格式',
+    exported_row_count BIGINT COMMENT '导出行数',
+    client_ip VARCHAR(64) COMMENT '客户端IP',
+    user_agent VARCHAR(500) COMMENT '客户端User-Agent',
+    session_id VARCHAR(100) COMMENT '会话ID',
+    favorite TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否收藏',
+    title VARCHAR(200) COMMENT '标题',
+    description TEXT COMMENT '描述',
+    tags VARCHAR(500) COMMENT '标签',
+    query_source VARCHAR(20) COMMENT '查询来源',
+    cache_hit TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否命中缓存',
+    cache_key VARCHAR(200) COMMENT '缓存键',
+    api_request_id VARCHAR(64) COMMENT 'API请求ID',
+    similar_query_id VARCHAR(36) COMMENT '相似查询ID',
+    similarity_score DOUBLE COMMENT '相似度',
+    performance_stats JSON COMMENT '性能统计',
+    created_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) COMMENT '创建时间',
+    PRIMARY KEY (id, created_at),
+    -- 查询历史列表和表关系学习按数据源、创建时间倒序/升序读取，InnoDB二级索引隐含主键，可直接按(created_at, id)游标分页
+    KEY idx_query_history_data_source_created (data_source_id, created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='查询历史表'
+PARTITION BY RANGE COLUMNS (created_at) (
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
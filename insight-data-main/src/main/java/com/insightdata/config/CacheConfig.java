@@ -1,5 +1,10 @@
 package com.insightdata.config;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
@@ -8,20 +13,25 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
- * 简化的缓存配置类
- * 提供基本的Redis配置和内存缓存回退选项
+ * 缓存配置类
+ * 提供Redis配置以及本地近缓存+Redis的两级缓存管理器
  */
 @Configuration
 public class CacheConfig extends CachingConfigurerSupport {
@@ -37,6 +47,9 @@ public class CacheConfig extends CachingConfigurerSupport {
     @Value("${spring.cache.type:redis}")
     private String cacheType;
 
+    @Value("${spring.cache.cache-names:metadata,query-result}")
+    private List<String> cacheNames;
+
     @PostConstruct
     public void init() {
         log.info("初始化缓存配置: type={}, redisHost={}, redisPort={}", cacheType, redisHost, redisPort);
@@ -72,33 +85,61 @@ public class CacheConfig extends CachingConfigurerSupport {
 
     /**
      * 缓存管理器
-     * 如果spring.cache.type=redis，则使用Redis缓存
-     * 否则使用内存缓存
+     * 本地Caffeine近缓存 + Redis的两级缓存；spring.cache.type不为redis或Redis缓存创建失败时仅使用本地缓存
      */
     @Bean
     @Primary
-    public CacheManager cacheManager() {
+    public TwoTierCacheManager cacheManager(Environment environment) {
+        CacheManager remoteCacheManager = null;
+        StringRedisTemplate publisher = null;
         if ("redis".equals(cacheType)) {
             try {
                 log.info("尝试创建RedisCacheManager");
                 RedisConnectionFactory factory = redisConnectionFactory();
-                org.springframework.data.redis.cache.RedisCacheManager.RedisCacheManagerBuilder builder = 
-                    org.springframework.data.redis.cache.RedisCacheManager.builder(factory);
-                return builder.build();
+                remoteCacheManager = createRedisCacheManager(factory, environment);
+                publisher = new StringRedisTemplate(factory);
             } catch (Exception e) {
-                log.error("创建RedisCacheManager失败，回退到内存缓存", e);
-                return createSimpleCacheManager();
+                log.error("创建RedisCacheManager失败，回退到本地缓存", e);
             }
         } else {
-            log.info("使用内存缓存");
-            return createSimpleCacheManager();
+            log.info("使用本地缓存");
         }
-    }
 
-    private CacheManager createSimpleCacheManager() {
-        log.info("创建内存缓存管理器");
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        cacheManager.setCacheNames(java.util.Arrays.asList("metadata", "query-result"));
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(environment, remoteCacheManager, publisher);
+        cacheManager.initializeCaches(cacheNames);
         return cacheManager;
     }
-}
\ No newline at end of file
+
+    /**
+     * 订阅缓存失效消息，保持各节点本地缓存一致
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           TwoTierCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL));
+        return container;
+    }
+
+    /**
+     * 按缓存名称设置Redis过期时间：insight.cache.{name}.expiration（秒）
+     */
+    private RedisCacheManager createRedisCacheManager(RedisConnectionFactory factory, Environment environment) {
+        Map<String, RedisCacheConfiguration> configurations = new HashMap<>();
+        for (String name : cacheNames) {
+            Long expiration = environment.getProperty("insight.cache." + name + ".expiration", Long.class);
+            if (expiration != null) {
+                configurations.put(name, RedisCacheConfiguration.defaultCacheConfig()
+                        .entryTtl(Duration.ofSeconds(expiration)));
+            }
+        }
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(factory)
+                .withInitialCacheConfigurations(configurations)
+                .build();
+        // 非Spring管理的实例需要手动加载初始缓存配置
+        redisCacheManager.initializeCaches();
+        return redisCacheManager;
+    }
+}
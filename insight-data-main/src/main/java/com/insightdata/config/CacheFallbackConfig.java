@@ -3,15 +3,13 @@ package com.insightdata.config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.core.env.Environment;
 
 /**
  * 缓存回退配置类
- * 当Redis缓存管理器无法创建时，提供一个简单的内存缓存作为回退选项
+ * 当两级缓存管理器未创建时，提供一个仅使用本地缓存的管理器作为回退选项
  */
 @Configuration
 public class CacheFallbackConfig {
@@ -19,18 +17,17 @@ public class CacheFallbackConfig {
     private static final Logger log = LoggerFactory.getLogger(CacheFallbackConfig.class);
 
     /**
-     * 创建一个简单的内存缓存管理器作为回退选项
-     * 仅在没有RedisCacheManager时创建
+     * 创建一个仅使用本地缓存的管理器作为回退选项，本地缓存有容量上限和过期时间
+     * 仅在没有TwoTierCacheManager时创建
      */
     @Bean
-    @ConditionalOnMissingBean(RedisCacheManager.class)
-    public CacheManager fallbackCacheManager() {
-        log.warn("Redis缓存管理器不可用，使用内存缓存作为回退选项");
+    @ConditionalOnMissingBean(TwoTierCacheManager.class)
+    public TwoTierCacheManager fallbackCacheManager(Environment environment) {
+        log.warn("两级缓存管理器不可用，使用本地缓存作为回退选项");
         log.warn("请确保Redis服务器正在运行，并且可以从应用程序访问");
-        log.warn("内存缓存不适合生产环境，仅用于开发和测试");
         
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        cacheManager.setCacheNames(java.util.Arrays.asList("metadata", "query-result"));
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(environment, null, null);
+        cacheManager.initializeCaches(java.util.Arrays.asList("metadata", "query-result"));
         return cacheManager;
     }
 }
\ No newline at end of file
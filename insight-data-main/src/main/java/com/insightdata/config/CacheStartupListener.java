@@ -8,11 +8,13 @@ import org.springframework.cache.CacheManager;
 import org.springframework.context.ApplicationListener;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
  * 缓存启动监听器
- * 在应用程序启动时检查缓存配置
+ * 在应用程序启动时检查缓存配置，之后按insight.cache.health-check-interval定期探测Redis，
+ * Redis不可用时两级缓存退化为仅本地缓存，恢复后重新启用Redis
  */
 @Component
 public class CacheStartupListener implements ApplicationListener<ApplicationStartedEvent> {
@@ -35,19 +37,51 @@ public class CacheStartupListener implements ApplicationListener<ApplicationStar
         
         // 检查Redis连接
         if (redisConnectionFactory != null) {
+            log.info("Redis连接工厂类型: {}", redisConnectionFactory.getClass().getName());
             try {
-                log.info("Redis连接工厂类型: {}", redisConnectionFactory.getClass().getName());
-                RedisConnection connection = redisConnectionFactory.getConnection();
-                connection.ping();
+                ping();
                 log.info("Redis连接测试成功");
-                connection.close();
+                setRemoteAvailable(true);
             } catch (Exception e) {
                 log.error("Redis连接测试失败", e);
+                // Redis不可用时两级缓存退化为仅本地缓存，避免每次缓存访问都等待Redis超时
+                setRemoteAvailable(false);
                 log.warn("如果您不需要使用Redis缓存，可以在application.yml中将spring.cache.type设置为simple");
             }
         } else {
             log.warn("未找到RedisConnectionFactory，Redis缓存可能不可用");
             log.info("当前使用的是内存缓存");
+            setRemoteAvailable(false);
+        }
+    }
+
+    /**
+     * 定期探测Redis，状态变化时切换两级缓存的模式
+     */
+    @Scheduled(initialDelayString = "${insight.cache.health-check-interval:30000}",
+            fixedDelayString = "${insight.cache.health-check-interval:30000}")
+    public void checkRedis() {
+        if (redisConnectionFactory == null) {
+            return;
+        }
+        try {
+            ping();
+            setRemoteAvailable(true);
+        } catch (Exception e) {
+            log.debug("Redis健康检查失败: {}", e.getMessage());
+            setRemoteAvailable(false);
+        }
+    }
+
+    private void ping() {
+        try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+            connection.ping();
+        }
+    }
+
+    private void setRemoteAvailable(boolean available) {
+        if (cacheManager instanceof TwoTierCacheManager) {
+            ((TwoTierCacheManager) cacheManager).setRemoteAvailable(available);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.insightdata.config;
+
+import java.util.concurrent.TimeUnit;
+
+import com.insightdata.domain.adapter.DataSourceConcurrencyLimiter;
+import com.insightdata.domain.nlquery.executor.AdmissionControlledQueryExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 查询准入控制指标配置类
+ * 暴露等待数据源许可的排队深度、排队等待时间以及按原因统计的拒绝次数
+ */
+@Configuration
+public class QueryAdmissionMetricsConfig {
+
+    private static final String REJECTED = "insight.query.admission.rejected";
+
+    @Bean
+    public MeterBinder queryAdmissionMetrics(DataSourceConcurrencyLimiter concurrencyLimiter,
+                                             AdmissionControlledQueryExecutor admissionExecutor) {
+        return registry -> {
+            Gauge.builder("insight.query.admission.queue.depth", concurrencyLimiter,
+                            DataSourceConcurrencyLimiter::getQueuedCount)
+                    .description("等待数据源执行许可的请求数")
+                    .register(registry);
+            FunctionTimer.builder("insight.query.admission.queue.wait", concurrencyLimiter,
+                            DataSourceConcurrencyLimiter::getWaitCount,
+                            DataSourceConcurrencyLimiter::getTotalWaitNanos, TimeUnit.NANOSECONDS)
+                    .description("经过排队后获得数据源执行许可的等待时间")
+                    .register(registry);
+            FunctionCounter.builder(REJECTED, admissionExecutor, AdmissionControlledQueryExecutor::getRateLimitRejections)
+                    .tag("reason", "rate-limit")
+                    .description("超出查询频率限制被拒绝的查询数")
+                    .register(registry);
+            FunctionCounter.builder(REJECTED, concurrencyLimiter, DataSourceConcurrencyLimiter::getQueueFullRejections)
+                    .tag("reason", "queue-full")
+                    .description("排队数达到上限被拒绝的请求数")
+                    .register(registry);
+            FunctionCounter.builder(REJECTED, concurrencyLimiter, DataSourceConcurrencyLimiter::getTimeoutRejections)
+                    .tag("reason", "timeout")
+                    .description("等待许可超时被拒绝的请求数")
+                    .register(registry);
+        };
+    }
+}
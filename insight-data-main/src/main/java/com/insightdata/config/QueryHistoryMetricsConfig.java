@@ -0,0 +1,51 @@
+package com.insightdata.config;
+
+import java.util.concurrent.TimeUnit;
+
+import com.insightdata.domain.query.history.QueryHistoryRecorder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 查询历史记录器指标配置类
+ * 暴露缓冲区中等待写入的记录数、批量写入耗时以及按结果统计的记录数
+ */
+@Configuration
+public class QueryHistoryMetricsConfig {
+
+    private static final String RECORDS = "insight.query.history.records";
+
+    @Bean
+    public MeterBinder queryHistoryMetrics(QueryHistoryRecorder recorder) {
+        return registry -> {
+            Gauge.builder("insight.query.history.pending", recorder, QueryHistoryRecorder::getPendingCount)
+                    .description("缓冲区中等待写入的查询历史数")
+                    .register(registry);
+            FunctionTimer.builder("insight.query.history.flush", recorder,
+                            QueryHistoryRecorder::getBatchCount,
+                            QueryHistoryRecorder::getTotalWriteNanos, TimeUnit.NANOSECONDS)
+                    .description("批量写入查询历史的耗时")
+                    .register(registry);
+            FunctionCounter.builder(RECORDS, recorder, QueryHistoryRecorder::getRecordedCount)
+                    .tag("result", "recorded")
+                    .description("进入缓冲区的查询历史数")
+                    .register(registry);
+            FunctionCounter.builder(RECORDS, recorder, QueryHistoryRecorder::getWrittenCount)
+                    .tag("result", "written")
+                    .description("已写入数据库的查询历史数")
+                    .register(registry);
+            FunctionCounter.builder(RECORDS, recorder, QueryHistoryRecorder::getDroppedCount)
+                    .tag("result", "dropped")
+                    .description("缓冲区已满或记录器已关闭被丢弃的查询历史数")
+                    .register(registry);
+            FunctionCounter.builder(RECORDS, recorder, QueryHistoryRecorder::getFailedCount)
+                    .tag("result", "failed")
+                    .description("写入失败被丢弃的查询历史数")
+                    .register(registry);
+        };
+    }
+}
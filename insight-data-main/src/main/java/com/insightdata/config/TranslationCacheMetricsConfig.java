@@ -0,0 +1,42 @@
+package com.insightdata.config;
+
+import com.insightdata.domain.nlquery.converter.NLTranslationCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 自然语言查询翻译缓存指标配置类
+ * 按Micrometer缓存指标的命名约定暴露命中、未命中、淘汰次数和条目数
+ */
+@Configuration
+public class TranslationCacheMetricsConfig {
+
+    private static final String CACHE_NAME = "nl-translation";
+
+    @Bean
+    public MeterBinder translationCacheMetrics(NLTranslationCache translationCache) {
+        return registry -> {
+            FunctionCounter.builder("cache.gets", translationCache, NLTranslationCache::getHitCount)
+                    .tag("cache", CACHE_NAME)
+                    .tag("result", "hit")
+                    .description("命中翻译缓存的次数")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", translationCache, NLTranslationCache::getMissCount)
+                    .tag("cache", CACHE_NAME)
+                    .tag("result", "miss")
+                    .description("未命中翻译缓存的次数")
+                    .register(registry);
+            FunctionCounter.builder("cache.evictions", translationCache, NLTranslationCache::getEvictionCount)
+                    .tag("cache", CACHE_NAME)
+                    .description("按容量淘汰的翻译结果数")
+                    .register(registry);
+            Gauge.builder("cache.size", translationCache, NLTranslationCache::size)
+                    .tag("cache", CACHE_NAME)
+                    .description("当前缓存的翻译结果数")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,178 @@
+package com.insightdata.config;
+
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * 两级缓存
+ * 本地Caffeine近缓存在前，Redis缓存在后；读取先查本地，未命中再查Redis并回填本地。
+ * 写入和删除同时作用于两级缓存，并通过TwoTierCacheManager广播失效消息，
+ * 使其他节点丢弃本地副本。Redis不可用时只使用本地缓存。
+ */
+public class TwoTierCache implements Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoTierCache.class);
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> localCache;
+    private final Cache remoteCache;
+    private final TwoTierCacheManager cacheManager;
+
+    public TwoTierCache(String name,
+                        com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> localCache,
+                        Cache remoteCache,
+                        TwoTierCacheManager cacheManager) {
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        ValueWrapper wrapper = localCache.getIfPresent(localKey);
+        if (wrapper != null || !remoteEnabled()) {
+            return wrapper;
+        }
+        try {
+            wrapper = remoteCache.get(key);
+        } catch (RuntimeException e) {
+            log.warn("读取Redis缓存失败，按未命中处理: cache={}, key={}, error={}", name, key, e.getMessage());
+            return null;
+        }
+        if (wrapper != null) {
+            localCache.put(localKey, new SimpleValueWrapper(wrapper.get()));
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        ValueWrapper wrapper = localCache.getIfPresent(localKey);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        if (remoteEnabled()) {
+            try {
+                T value = remoteCache.get(key, valueLoader);
+                localCache.put(localKey, new SimpleValueWrapper(value));
+                return value;
+            } catch (ValueRetrievalException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                log.warn("读取Redis缓存失败，仅使用本地缓存: cache={}, key={}, error={}", name, key, e.getMessage());
+            }
+        }
+        // 本地缓存对同一键的加载只执行一次
+        return (T) localCache.get(localKey, k -> {
+            try {
+                return new SimpleValueWrapper(valueLoader.call());
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }).get();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (remoteEnabled()) {
+            try {
+                remoteCache.put(key, value);
+            } catch (RuntimeException e) {
+                log.warn("写入Redis缓存失败: cache={}, key={}, error={}", name, key, e.getMessage());
+            }
+        }
+        String localKey = localKey(key);
+        localCache.put(localKey, new SimpleValueWrapper(value));
+        cacheManager.publishInvalidation(name, localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        put(key, value);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (remoteEnabled()) {
+            try {
+                remoteCache.evict(key);
+            } catch (RuntimeException e) {
+                log.warn("删除Redis缓存失败: cache={}, key={}, error={}", name, key, e.getMessage());
+            }
+        }
+        String localKey = localKey(key);
+        localCache.invalidate(localKey);
+        cacheManager.publishInvalidation(name, localKey);
+    }
+
+    @Override
+    public void clear() {
+        if (remoteEnabled()) {
+            try {
+                remoteCache.clear();
+            } catch (RuntimeException e) {
+                log.warn("清空Redis缓存失败: cache={}, error={}", name, e.getMessage());
+            }
+        }
+        localCache.invalidateAll();
+        cacheManager.publishInvalidation(name, null);
+    }
+
+    /**
+     * 处理其他节点发来的失效消息，只清除本地副本
+     *
+     * @param localKey 本地缓存键，为null时清空整个本地缓存
+     */
+    void invalidateLocal(String localKey) {
+        if (localKey == null) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidate(localKey);
+        }
+    }
+
+    /**
+     * 本地缓存以键的字符串形式存储，与失效消息中的键保持一致
+     */
+    private String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private boolean remoteEnabled() {
+        return remoteCache != null && cacheManager.isRemoteAvailable();
+    }
+}
@@ -0,0 +1,158 @@
+package com.insightdata.config;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * 两级缓存管理器
+ * 每个缓存名称对应一个有容量上限和过期时间的本地Caffeine缓存，其后是Redis缓存（可选）。
+ * 本地缓存的容量和过期时间按缓存名称配置：
+ * insight.cache.{name}.local-max-size 和 insight.cache.{name}.local-expiration（秒）。
+ * 节点之间通过Redis发布/订阅广播失效消息保持本地缓存一致；
+ * Redis不可用时（由CacheStartupListener启动时和定期检测）退化为仅使用本地缓存，恢复后重新启用。
+ */
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoTierCacheManager.class);
+
+    /**
+     * 缓存失效消息的发布/订阅频道
+     */
+    public static final String INVALIDATION_CHANNEL = "insight:cache:invalidation";
+
+    private static final String SEPARATOR = "|";
+    private static final String CLEAR = "C";
+    private static final String KEY = "K";
+
+    private static final long DEFAULT_LOCAL_MAX_SIZE = 10000;
+    private static final long DEFAULT_LOCAL_EXPIRATION = 300;
+
+    private final Environment environment;
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate publisher;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    private volatile boolean remoteAvailable;
+
+    /**
+     * @param environment        用于读取按缓存名称的本地缓存配置
+     * @param remoteCacheManager Redis缓存管理器，为null时仅使用本地缓存
+     * @param publisher          用于发布失效消息，为null时不广播
+     */
+    public TwoTierCacheManager(Environment environment, CacheManager remoteCacheManager, StringRedisTemplate publisher) {
+        this.environment = environment;
+        this.remoteCacheManager = remoteCacheManager;
+        this.publisher = publisher;
+        this.remoteAvailable = remoteCacheManager != null;
+    }
+
+    /**
+     * 预先创建指定名称的缓存
+     */
+    public void initializeCaches(Collection<String> cacheNames) {
+        cacheNames.forEach(this::getCache);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    public boolean isRemoteAvailable() {
+        return remoteAvailable;
+    }
+
+    /**
+     * 设置Redis是否可用，不可用时所有缓存只读写本地缓存
+     * 恢复可用时清空本地缓存：不可用期间其他节点的失效消息没有送达，本地副本可能已过时
+     */
+    public synchronized void setRemoteAvailable(boolean remoteAvailable) {
+        if (remoteCacheManager == null || this.remoteAvailable == remoteAvailable) {
+            return;
+        }
+        log.warn("Redis缓存{}，两级缓存切换为{}", remoteAvailable ? "已恢复" : "不可用",
+                remoteAvailable ? "本地+Redis模式" : "仅本地模式");
+        if (remoteAvailable) {
+            caches.values().forEach(cache -> cache.invalidateLocal(null));
+        }
+        this.remoteAvailable = remoteAvailable;
+    }
+
+    /**
+     * 广播本地缓存失效消息
+     *
+     * @param cacheName 缓存名称
+     * @param localKey  缓存键，为null表示清空整个缓存
+     */
+    void publishInvalidation(String cacheName, String localKey) {
+        if (publisher == null || !remoteAvailable) {
+            return;
+        }
+        String message = instanceId + SEPARATOR + cacheName + SEPARATOR
+                + (localKey == null ? CLEAR : KEY + SEPARATOR + localKey);
+        try {
+            publisher.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (RuntimeException e) {
+            log.warn("发布缓存失效消息失败: cache={}, error={}", cacheName, e.getMessage());
+        }
+    }
+
+    /**
+     * 接收其他节点的缓存失效消息
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\" + SEPARATOR, 4);
+        if (parts.length < 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[2])) {
+            cache.invalidateLocal(null);
+        } else if (KEY.equals(parts[2]) && parts.length == 4) {
+            cache.invalidateLocal(parts[3]);
+        }
+    }
+
+    private TwoTierCache createCache(String name) {
+        long maxSize = environment.getProperty("insight.cache." + name + ".local-max-size",
+                Long.class, DEFAULT_LOCAL_MAX_SIZE);
+        long expiration = environment.getProperty("insight.cache." + name + ".local-expiration",
+                Long.class, DEFAULT_LOCAL_EXPIRATION);
+        log.info("创建两级缓存: name={}, localMaxSize={}, localExpiration={}s, remote={}",
+                name, maxSize, expiration, remoteCacheManager != null);
+
+        com.github.benmanes.caffeine.cache.Cache<String, Cache.ValueWrapper> localCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(expiration))
+                .build();
+        Cache remoteCache = remoteCacheManager != null ? remoteCacheManager.getCache(name) : null;
+        return new TwoTierCache(name, localCache, remoteCache, this);
+    }
+}
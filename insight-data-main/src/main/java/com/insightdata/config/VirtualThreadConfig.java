@@ -0,0 +1,33 @@
+package com.insightdata.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.insightdata.domain.adapter.JdbcExecutors;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 虚拟线程执行模式配置
+ *
+ * insight.execution.virtual-threads为true且运行时支持虚拟线程时，Tomcat为每个请求启动一个虚拟线程，
+ * 阻塞在JDBC上的请求不再占用平台线程；对数据源的并发访问由DataSourceConcurrencyLimiter限制。
+ * 运行时不支持虚拟线程时保持Tomcat默认线程池。
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "insight.execution.virtual-threads", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        if (!JdbcExecutors.isVirtualThreadSupported()) {
+            log.warn("当前运行时不支持虚拟线程，Web请求继续使用Tomcat线程池");
+            return protocolHandler -> { };
+        }
+        log.info("Web请求使用虚拟线程执行");
+        return protocolHandler -> protocolHandler.setExecutor(JdbcExecutors.newVirtualThreadExecutor("http-vt-"));
+    }
+}
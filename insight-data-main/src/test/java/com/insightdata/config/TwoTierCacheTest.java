@@ -0,0 +1,177 @@
+package com.insightdata.config;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * TwoTierCache类的单元测试
+ * 测试本地和Redis两级的读取回填顺序、节点间的失效消息、Redis不可用时的降级以及定期探测后的恢复
+ */
+public class TwoTierCacheTest {
+
+    private static final String NAME = "metadata";
+
+    // 用内存缓存代替Redis，两个节点共享
+    private CacheManager remote;
+
+    private StringRedisTemplate publisher;
+
+    private TwoTierCacheManager node;
+
+    private TwoTierCacheManager otherNode;
+
+    @BeforeEach
+    public void setUp() {
+        remote = new ConcurrentMapCacheManager(NAME);
+        publisher = mock(StringRedisTemplate.class);
+        node = new TwoTierCacheManager(new MockEnvironment(), remote, publisher);
+        otherNode = new TwoTierCacheManager(new MockEnvironment(), remote, mock(StringRedisTemplate.class));
+    }
+
+    @Test
+    @DisplayName("测试先读本地再读Redis，Redis命中后回填本地")
+    public void testFillOrder() {
+        node.getCache(NAME).put("k", "v1");
+        assertEquals("v1", remote.getCache(NAME).get("k").get());
+
+        Cache other = otherNode.getCache(NAME);
+        assertEquals("v1", other.get("k").get());
+        // 已回填本地，直接修改Redis后仍读到本地副本
+        remote.getCache(NAME).put("k", "v2");
+        assertEquals("v1", other.get("k", String.class));
+        assertNull(other.get("missing"));
+    }
+
+    @Test
+    @DisplayName("测试加载函数只在两级都未命中时执行，结果同时写入两级")
+    public void testLoader() {
+        AtomicInteger loads = new AtomicInteger();
+        Cache cache = node.getCache(NAME);
+
+        assertEquals("loaded", cache.get("k", () -> {
+            loads.incrementAndGet();
+            return "loaded";
+        }));
+        assertEquals("loaded", cache.get("k", () -> {
+            loads.incrementAndGet();
+            return "reloaded";
+        }));
+        assertEquals(1, loads.get());
+        assertEquals("loaded", remote.getCache(NAME).get("k").get());
+
+        remote.getCache(NAME).put("remote-only", "r");
+        assertEquals("r", otherNode.getCache(NAME).get("remote-only", () -> "not-used"));
+    }
+
+    @Test
+    @DisplayName("测试写入和删除广播失效消息，其他节点丢弃本地副本，忽略自己发出的消息")
+    public void testInvalidation() {
+        Cache cache = node.getCache(NAME);
+        Cache other = otherNode.getCache(NAME);
+        cache.put("k", "v1");
+        assertEquals("v1", other.get("k").get());
+
+        clearInvocations(publisher);
+        cache.put("k", "v2");
+        cache.evict("gone");
+        cache.clear();
+        ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+        verify(publisher, times(3)).convertAndSend(eq(TwoTierCacheManager.INVALIDATION_CHANNEL), messages.capture());
+        List<String> sent = messages.getAllValues();
+
+        // clear之后Redis中已没有k，两个节点重新读取
+        remote.getCache(NAME).put("k", "v2");
+        assertEquals("v2", cache.get("k").get());
+        remote.getCache(NAME).put("k", "v3");
+
+        // 本节点收到自己的消息时不清除本地副本
+        node.onMessage(message(sent.get(0)), null);
+        assertEquals("v2", cache.get("k").get());
+        // 其他节点丢弃本地的v1，重新从Redis读取
+        otherNode.onMessage(message(sent.get(0)), null);
+        assertEquals("v3", other.get("k").get());
+
+        other.get("a", () -> "a");
+        remote.getCache(NAME).put("a", "a2");
+        otherNode.onMessage(message(sent.get(2)), null);
+        assertEquals("a2", other.get("a").get());
+    }
+
+    @Test
+    @DisplayName("测试Redis读写失败或不可用时只使用本地缓存")
+    public void testFallback() {
+        Cache failing = mock(Cache.class);
+        when(failing.get(any())).thenThrow(new IllegalStateException("connection refused"));
+        when(failing.get(any(), any(java.util.concurrent.Callable.class)))
+                .thenThrow(new IllegalStateException("connection refused"));
+        doThrow(new IllegalStateException("connection refused")).when(failing).put(any(), any());
+        CacheManager failingManager = mock(CacheManager.class);
+        when(failingManager.getCache(NAME)).thenReturn(failing);
+        TwoTierCacheManager manager = new TwoTierCacheManager(new MockEnvironment(), failingManager, publisher);
+        Cache cache = manager.getCache(NAME);
+
+        assertNull(cache.get("k"));
+        assertEquals("local", cache.get("k", () -> "local"));
+        cache.put("p", "v");
+        assertEquals("v", cache.get("p").get());
+
+        manager.setRemoteAvailable(false);
+        clearInvocations(failing, publisher);
+        cache.put("q", "v");
+        assertEquals("v", cache.get("q").get());
+        assertNull(cache.get("missing"));
+        verifyNoInteractions(failing, publisher);
+    }
+
+    @Test
+    @DisplayName("测试定期探测在Redis恢复后重新启用Redis并清空可能过时的本地副本")
+    public void testRecovery() {
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisConnectionFactory factory = mock(RedisConnectionFactory.class);
+        when(factory.getConnection()).thenThrow(new IllegalStateException("connection refused"))
+                .thenReturn(connection);
+        CacheStartupListener listener = new CacheStartupListener();
+        ReflectionTestUtils.setField(listener, "cacheManager", node);
+        ReflectionTestUtils.setField(listener, "redisConnectionFactory", factory);
+
+        listener.checkRedis();
+        assertFalse(node.isRemoteAvailable());
+        Cache cache = node.getCache(NAME);
+        cache.put("k", "stale");
+        assertNull(remote.getCache(NAME).get("k"));
+        verify(publisher, never()).convertAndSend(anyString(), anyString());
+
+        remote.getCache(NAME).put("k", "fresh");
+        listener.checkRedis();
+        assertTrue(node.isRemoteAvailable());
+        verify(connection).ping();
+        verify(connection).close();
+        assertEquals("fresh", cache.get("k").get());
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}